@@ -147,6 +147,69 @@ public class Arguments implements GenerationConfig {
     @Parameter(names = { "-ida", "--include-dynamic-accessors" }, description = "Include dynamic getter, setter, and builder support on generated types.")
     private boolean includeDynamicAccessors = false;
 
+    @Parameter(names = { "-im", "--immutable" }, description = "Whether to generate immutable value types, with final fields, an all-args constructor used for deserialization, unmodifiable collections, a builder and a cached hash code.")
+    private boolean immutable = false;
+
+    @Parameter(names = { "-lap", "--lazy-additional-properties" }, description = "Whether to allocate the map of additional properties when the first additional property is set, rather than in every instance. Until then, an empty immutable map is returned.")
+    private boolean lazyAdditionalProperties = false;
+
+    @Parameter(names = { "-scd", "--share-collection-defaults" }, description = "Whether List and Set fields start out referring to a shared, immutable default (an empty collection, or a constant built once from the schema default) that is copied into a new mutable collection when the getter is first called. As that getter writes the field, instances are not safe to read from several threads without synchronization.")
+    private boolean shareCollectionDefaults = false;
+
+    @Parameter(names = { "-utv", "--use-typed-enum-values" }, description = "Whether enums whose schema type is integer, number or boolean hold their values as a primitive of that type, with a typed value() and fromValue, so that they are written as JSON numbers and booleans rather than strings.")
+    private boolean useTypedEnumValues = false;
+
+    @Parameter(names = { "-ues", "--use-enum-sets" }, description = "Whether arrays with unique items of a generated enum type are represented by an EnumSet (a bit vector) rather than a Set.")
+    private boolean useEnumSets = false;
+
+    @Parameter(names = { "-upa", "--use-primitive-arrays" }, description = "Whether arrays of integers or numbers (without unique items) are represented by primitive arrays, such as int[] or double[], rather than a List of boxed values. Individual properties can override this using the 'javaPrimitiveArray' schema extension.")
+    private boolean usePrimitiveArrays = false;
+
+    @Parameter(names = { "-uni", "--use-narrow-integers" }, description = "Whether integer properties that declare both a minimum and a maximum use the smallest java type that holds the whole range (<code>byte</code>, <code>short</code>, <code>int</code> or <code>long</code>, or their wrapper types).")
+    private boolean useNarrowIntegers = false;
+
+    @Parameter(names = { "-iss", "--include-streaming-serializers" }, description = "Whether to generate a serializer and a deserializer for each type that read and write JSON with the streaming API of the mapping library, instead of relying on reflection. Supported for the <code>jackson2</code> annotation style, where the types are annotated to use them and a <code>JacksonModule</code> that registers them all is generated in each package. For the <code>gson</code> annotation style a <code>TypeAdapter</code> is generated for each type instead, along with a <code>GsonTypeAdapterFactory</code> in each package that has to be registered with the <code>GsonBuilder</code> (the map of additional properties is then transient, so Java serialization leaves it out). Hand-written subclasses of generated types inherit the Jackson annotations, so they are written and read as the generated type unless they are annotated with serializers of their own.")
+    private boolean includeStreamingSerializers = false;
+
+    @Parameter(names = { "-ivm", "--include-validate-methods" }, description = "Whether to generate a <code>validate()</code> method for each type that checks the constraints of the schema (<code>required</code>, <code>minimum</code>/<code>maximum</code>, <code>minLength</code>/<code>maxLength</code>, <code>minItems</code>/<code>maxItems</code> and <code>pattern</code>) in plain code, and that cascades into properties of generated types. The method returns a message for every violation, so values can be validated without a JSR-303 implementation.")
+    private boolean includeValidateMethods = false;
+
+    @Parameter(names = { "-isv", "--include-streaming-validators" }, description = "Whether to generate a <code>Validator</code> for each type that checks a Jackson <code>JsonParser</code> token stream against the schema of the type (<code>type</code>, <code>required</code>, <code>enum</code>, <code>minimum</code>/<code>maximum</code>, <code>minLength</code>/<code>maxLength</code>, <code>minItems</code>/<code>maxItems</code>, <code>pattern</code> and <code>additionalProperties</code>) in a single pass, so that documents can be rejected without binding them or building a tree.")
+    private boolean includeStreamingValidators = false;
+
+    @Parameter(names = { "-upb", "--use-presence-bits" }, description = "Whether to use primitives for number and boolean properties (as usePrimitives does) and to track in a bit set whether each of them is present, with generated hasX() and clearX() methods, so that absent properties are left out when serializing and equals/hashCode tell them apart from zero or false values. Requires accessors (and streaming serializers with the gson annotation style, as Gson otherwise assigns the fields directly) and can't be combined with immutable.")
+    private boolean usePresenceBits = false;
+
+    @Parameter(names = { "-uss", "--use-sparse-storage" }, description = "Whether to store the property values of each generated type in a compact array that only holds the properties that are set, instead of in a field per property, so that types with many optional properties take memory in proportion to the properties an instance actually sets. Individual schemas can opt in or out with the 'sparseStorage' extension. Requires accessors and an annotation style other than gson, and can't be combined with options that work on the fields (immutable, parcelable, constructors, dynamic accessors, streaming serializers, buffer views, JSR-303 annotations and validate methods).")
+    private boolean useSparseStorage = false;
+
+    @Parameter(names = { "-gbc", "--generate-batch-classes" }, description = "Whether to generate a columnar batch class (e.g. FooBatch) for every array whose items are a generated type with scalar properties only (and no additional properties). The batch holds each property in a primitive array (one column per property) instead of an object per item, and has methods to append and get rows, to read single values and whole columns, and to read a JSON array into the columns with the Jackson streaming API. Individual array schemas can opt in or out with the 'javaBatch' extension, and an array that opts in fails the generation if its items don't qualify.")
+    private boolean generateBatchClasses = false;
+
+    @Parameter(names = { "-gbv", "--generate-buffer-views" }, description = "Whether to generate, for each type, a FooView class that encodes instances into a fixed binary layout in a java.nio.ByteBuffer (heap, direct or memory-mapped) and reads them back as a flyweight that decodes each property at its computed offset on demand. Covers properties of primitive, boxed and string types and arrays of those; other properties are left out of the layout.")
+    private boolean generateBufferViews = false;
+
+    @Parameter(names = { "-ext", "--externalizable" }, description = "Whether to make the generated types implement java.io.Externalizable, with writeExternal/readExternal methods that write the fields in a compact binary form (a null bit set, variable-length integers, enum ordinals, and nested generated types written in place) and a serialVersionUID derived from the schema. Can't be combined with immutable types or sparse storage.")
+    private boolean externalizable = false;
+
+    @Parameter(names = { "-gnv", "--generate-node-views" }, description = "Whether to generate, for each type, a FooNodeView class that wraps a Jackson ObjectNode (or parses a byte slice into one) with the caller's ObjectMapper and has the getters of the type, decoding each property on first use and caching it, with nested views for properties of generated types. Setters update the node, and a view that hasn't been changed writes out the bytes it was parsed from unchanged. Requires the jackson2 annotation style.")
+    private boolean generateNodeViews = false;
+
+    @Parameter(names = { "-gpr", "--generate-projection-readers" }, description = "Whether to generate, for each type, a nested Property enum and a ProjectionReader that reads only the chosen properties of an object from a Jackson JsonParser and skips the values of all others (including whole nested objects and arrays) without binding them. Requires the jackson2 annotation style.")
+    private boolean generateProjectionReaders = false;
+
+    @Parameter(names = { "-gas", "--generate-array-streams" }, description = "Whether to generate, for each schema whose root is an array, a FooReader that reads the items one at a time from a Jackson JsonParser or an InputStream (holding a JSON array, or one item per line as newline-delimited JSON, optionally parsed across several threads) and a FooWriter that writes them one at a time (with the caller's ObjectMapper, or a default one). Requires the jackson2 annotation style.")
+    private boolean generateArrayStreams = false;
+
+    @Parameter(names = { "-upe", "--use-positional-encoding" }, description = "Whether to serialize generated types as JSON arrays of their property values (in schema order, after a version number) instead of as JSON objects. Requires annotationStyle=jackson2.")
+    private boolean usePositionalEncoding = false;
+
+    @Parameter(names = { "-ipm", "--include-property-metadata" }, description = "Whether to add a static PROPERTY_METADATA table to generated types that describes their properties (JSON name, Java type, whether required) and reads and writes them without reflection.")
+    private boolean includePropertyMetadata = false;
+
+    @Parameter(names = { "-idc", "--include-deep-copy" }, description = "Whether to add a copy constructor and a deepCopy() method to generated types. Values of generated types and collections are copied, immutable values are shared.")
+    private boolean includeDeepCopy = false;
+
     private static final int EXIT_OKAY = 0;
     private static final int EXIT_ERROR = 1;
 
@@ -361,4 +424,109 @@ public class Arguments implements GenerationConfig {
         return timeType;
     }
 
+    @Override
+    public boolean isImmutable() {
+        return immutable;
+    }
+
+    @Override
+    public boolean isLazyAdditionalProperties() {
+        return lazyAdditionalProperties;
+    }
+
+    @Override
+    public boolean isShareCollectionDefaults() {
+        return shareCollectionDefaults;
+    }
+
+    @Override
+    public boolean isUseTypedEnumValues() {
+        return useTypedEnumValues;
+    }
+
+    @Override
+    public boolean isUseEnumSets() {
+        return useEnumSets;
+    }
+
+    @Override
+    public boolean isUsePrimitiveArrays() {
+        return usePrimitiveArrays;
+    }
+
+    @Override
+    public boolean isUseNarrowIntegers() {
+        return useNarrowIntegers;
+    }
+
+    @Override
+    public boolean isIncludeStreamingSerializers() {
+        return includeStreamingSerializers;
+    }
+
+    @Override
+    public boolean isIncludeValidateMethods() {
+        return includeValidateMethods;
+    }
+
+    @Override
+    public boolean isIncludeStreamingValidators() {
+        return includeStreamingValidators;
+    }
+
+    @Override
+    public boolean isUsePresenceBits() {
+        return usePresenceBits;
+    }
+
+    @Override
+    public boolean isUseSparseStorage() {
+        return useSparseStorage;
+    }
+
+    @Override
+    public boolean isGenerateBatchClasses() {
+        return generateBatchClasses;
+    }
+
+    @Override
+    public boolean isGenerateBufferViews() {
+        return generateBufferViews;
+    }
+
+    @Override
+    public boolean isExternalizable() {
+        return externalizable;
+    }
+
+    @Override
+    public boolean isGenerateNodeViews() {
+        return generateNodeViews;
+    }
+
+    @Override
+    public boolean isGenerateProjectionReaders() {
+        return generateProjectionReaders;
+    }
+
+    @Override
+    public boolean isGenerateArrayStreams() {
+        return generateArrayStreams;
+    }
+
+    @Override
+    public boolean isUsePositionalEncoding() {
+        return usePositionalEncoding;
+    }
+
+    @Override
+    public boolean isIncludePropertyMetadata() {
+        return includePropertyMetadata;
+    }
+
+    @Override
+    public boolean isIncludeDeepCopy() {
+        return includeDeepCopy;
+    }
+
 }
@@ -21,6 +21,7 @@ import com.sun.codemodel.JDefinedClass;
 import com.sun.codemodel.JEnumConstant;
 import com.sun.codemodel.JFieldVar;
 import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JVar;
 
 /**
  * A default implemenation of the Annotator interface that makes it easier to
@@ -32,6 +33,15 @@ public abstract class AbstractAnnotator implements Annotator {
     public void propertyOrder(JDefinedClass clazz, JsonNode propertiesNode) {
     }
 
+    @Override
+    public void positionalEncoding(JDefinedClass clazz, JMethod versionGetter, JMethod versionSetter) {
+    }
+
+    @Override
+    public boolean isPositionalEncodingSupported() {
+        return false;
+    }
+
     @Override
     public void propertyInclusion(JDefinedClass clazz, JsonNode schema) {
     }
@@ -49,6 +59,10 @@ public abstract class AbstractAnnotator implements Annotator {
     public void propertySetter(JMethod setter, String propertyName) {
     }
 
+    @Override
+    public void propertyPresenceGetter(JMethod getter, JMethod presentValueGetter, String propertyName) {
+    }
+
     @Override
     public void anyGetter(JMethod getter) {
     }
@@ -57,6 +71,14 @@ public abstract class AbstractAnnotator implements Annotator {
     public void anySetter(JMethod setter) {
     }
 
+    @Override
+    public void creatorConstructor(JMethod constructor) {
+    }
+
+    @Override
+    public void creatorParameter(JVar param, String propertyName) {
+    }
+
     @Override
     public void enumCreatorMethod(JMethod creatorMethod) {
     }
@@ -21,6 +21,7 @@ import com.sun.codemodel.JDefinedClass;
 import com.sun.codemodel.JEnumConstant;
 import com.sun.codemodel.JFieldVar;
 import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JVar;
 
 /**
  * Adds annotations to generated types for compatibility with a JSON
@@ -39,6 +40,32 @@ public interface Annotator {
      */
     void propertyOrder(JDefinedClass clazz, JsonNode propertiesNode);
 
+    /**
+     * Add the necessary annotations to serialize a type as a JSON array of its
+     * property values, in property order, instead of as a JSON object. The
+     * first element of the array is the version of this positional layout.
+     * This is called before {@link #propertyOrder(JDefinedClass, JsonNode)}.
+     * 
+     * @param clazz
+     *            a generated pojo class, that is serialized to JSON
+     * @param versionGetter
+     *            the method that returns the version of the layout, to write
+     *            it as the first element
+     * @param versionSetter
+     *            the method that checks the version of the layout that was
+     *            read
+     */
+    void positionalEncoding(JDefinedClass clazz, JMethod versionGetter, JMethod versionSetter);
+
+    /**
+     * Indicates whether this annotator is able to serialize types as JSON
+     * arrays of their property values (see
+     * {@link #positionalEncoding(JDefinedClass, JMethod, JMethod)}).
+     * 
+     * @return Whether this annotator supports positional encoding.
+     */
+    boolean isPositionalEncodingSupported();
+
     /**
      * Add the necessary annotation to cause only non-null values to be included
      * during serialization.
@@ -88,6 +115,22 @@ public interface Annotator {
      */
     void propertySetter(JMethod setter, String propertyName);
 
+    /**
+     * Add the necessary annotation to serialize a JSON property whose
+     * presence is tracked through a getter that returns <code>null</code>
+     * while the property is absent, instead of through its primitive getter
+     *
+     * @param getter
+     *            the method that returns the primitive value of the given
+     *            JSON property
+     * @param presentValueGetter
+     *            the method that returns the value of the given JSON property,
+     *            or <code>null</code> if the property is absent
+     * @param propertyName
+     *            the name of the JSON property that these getters get
+     */
+    void propertyPresenceGetter(JMethod getter, JMethod presentValueGetter, String propertyName);
+
     /**
      * Add the necessary annotation to mark a Java method as the getter for
      * additional JSON property values that do not match any of the other
@@ -110,6 +153,27 @@ public interface Annotator {
      */
     void anySetter(JMethod setter);
 
+    /**
+     * Add the necessary annotation to mark a Java constructor as the creator
+     * that is used to create new instances during deserialization.
+     * 
+     * @param constructor
+     *            the constructor that accepts a value for every JSON property
+     */
+    void creatorConstructor(JMethod constructor);
+
+    /**
+     * Add the necessary annotation to bind a parameter of a creator
+     * constructor to a JSON property
+     * 
+     * @param param
+     *            the constructor parameter that will receive the value of the
+     *            given JSON property
+     * @param propertyName
+     *            the name of the JSON property that this parameter receives
+     */
+    void creatorParameter(JVar param, String propertyName);
+
     /**
      * Add the necessary annotation to mark a static Java method as the
      * creator/factory method which can choose the correct Java enum value for a
@@ -21,6 +21,7 @@ import com.sun.codemodel.JDefinedClass;
 import com.sun.codemodel.JEnumConstant;
 import com.sun.codemodel.JFieldVar;
 import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JVar;
 
 /**
  * An annotator (implementing the composite pattern) that can be used to compose
@@ -50,6 +51,23 @@ public class CompositeAnnotator implements Annotator {
         }
     }
 
+    @Override
+    public void positionalEncoding(JDefinedClass clazz, JMethod versionGetter, JMethod versionSetter) {
+        for (Annotator annotator : annotators) {
+            annotator.positionalEncoding(clazz, versionGetter, versionSetter);
+        }
+    }
+
+    @Override
+    public boolean isPositionalEncodingSupported() {
+        for (Annotator annotator : annotators) {
+            if (annotator.isPositionalEncodingSupported()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public void propertyInclusion(JDefinedClass clazz, JsonNode schema) {
         for (Annotator annotator : annotators) {
@@ -78,6 +96,13 @@ public class CompositeAnnotator implements Annotator {
         }
     }
 
+    @Override
+    public void propertyPresenceGetter(JMethod getter, JMethod presentValueGetter, String propertyName) {
+        for (Annotator annotator : annotators) {
+            annotator.propertyPresenceGetter(getter, presentValueGetter, propertyName);
+        }
+    }
+
     @Override
     public void anyGetter(JMethod getter) {
         for (Annotator annotator : annotators) {
@@ -92,6 +117,20 @@ public class CompositeAnnotator implements Annotator {
         }
     }
 
+    @Override
+    public void creatorConstructor(JMethod constructor) {
+        for (Annotator annotator : annotators) {
+            annotator.creatorConstructor(constructor);
+        }
+    }
+
+    @Override
+    public void creatorParameter(JVar param, String propertyName) {
+        for (Annotator annotator : annotators) {
+            annotator.creatorParameter(param, propertyName);
+        }
+    }
+
     @Override
     public void enumCreatorMethod(JMethod creatorMethod) {
         for (Annotator annotator : annotators) {
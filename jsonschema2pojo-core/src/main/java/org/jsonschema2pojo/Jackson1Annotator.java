@@ -36,6 +36,7 @@ import com.sun.codemodel.JAnnotationArrayMember;
 import com.sun.codemodel.JDefinedClass;
 import com.sun.codemodel.JFieldVar;
 import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JVar;
 
 /**
  * Annotates generated Java types using the Jackson 1.x mapping annotations.
@@ -81,6 +82,12 @@ public class Jackson1Annotator extends AbstractAnnotator {
         setter.annotate(JsonProperty.class).param("value", propertyName);
     }
 
+    @Override
+    public void propertyPresenceGetter(JMethod getter, JMethod presentValueGetter, String propertyName) {
+        getter.annotate(JsonIgnore.class);
+        presentValueGetter.annotate(JsonProperty.class).param("value", propertyName);
+    }
+
     @Override
     public void anyGetter(JMethod getter) {
         getter.annotate(JsonAnyGetter.class);
@@ -91,6 +98,16 @@ public class Jackson1Annotator extends AbstractAnnotator {
         setter.annotate(JsonAnySetter.class);
     }
 
+    @Override
+    public void creatorConstructor(JMethod constructor) {
+        constructor.annotate(JsonCreator.class);
+    }
+
+    @Override
+    public void creatorParameter(JVar param, String propertyName) {
+        param.annotate(JsonProperty.class).param("value", propertyName);
+    }
+
     @Override
     public void enumCreatorMethod(JMethod creatorMethod) {
         creatorMethod.annotate(JsonCreator.class);
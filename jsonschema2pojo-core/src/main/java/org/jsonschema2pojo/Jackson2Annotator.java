@@ -23,6 +23,7 @@ import java.util.Set;
 import com.fasterxml.jackson.annotation.JsonAnyGetter;
 import com.fasterxml.jackson.annotation.JsonAnySetter;
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -32,10 +33,12 @@ import com.fasterxml.jackson.annotation.JsonView;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.sun.codemodel.JAnnotationArrayMember;
+import com.sun.codemodel.JAnnotationUse;
 import com.sun.codemodel.JDefinedClass;
 import com.sun.codemodel.JEnumConstant;
 import com.sun.codemodel.JFieldVar;
 import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JVar;
 
 /**
  * Annotates generated Java types using the Jackson 2.x mapping annotations.
@@ -45,15 +48,37 @@ import com.sun.codemodel.JMethod;
  */
 public class Jackson2Annotator extends AbstractAnnotator {
 
+    /**
+     * The name of the property that holds the version of the positional
+     * layout of a type, which is its first element.
+     */
+    public static final String POSITIONAL_VERSION_PROPERTY = "@version";
+
     @Override
     public void propertyOrder(JDefinedClass clazz, JsonNode propertiesNode) {
         JAnnotationArrayMember annotationValue = clazz.annotate(JsonPropertyOrder.class).paramArray("value");
 
+        if (isPositional(clazz)) {
+            annotationValue.param(POSITIONAL_VERSION_PROPERTY);
+        }
+
         for (Iterator<String> properties = propertiesNode.fieldNames(); properties.hasNext();) {
             annotationValue.param(properties.next());
         }
     }
 
+    @Override
+    public void positionalEncoding(JDefinedClass clazz, JMethod versionGetter, JMethod versionSetter) {
+        clazz.annotate(JsonFormat.class).param("shape", JsonFormat.Shape.ARRAY);
+        versionGetter.annotate(JsonProperty.class).param("value", POSITIONAL_VERSION_PROPERTY);
+        versionSetter.annotate(JsonProperty.class).param("value", POSITIONAL_VERSION_PROPERTY);
+    }
+
+    @Override
+    public boolean isPositionalEncodingSupported() {
+        return true;
+    }
+
     @Override
     public void propertyInclusion(JDefinedClass clazz, JsonNode schema) {
         clazz.annotate(JsonInclude.class).param("value", JsonInclude.Include.NON_NULL);
@@ -82,6 +107,12 @@ public class Jackson2Annotator extends AbstractAnnotator {
         setter.annotate(JsonProperty.class).param("value", propertyName);
     }
 
+    @Override
+    public void propertyPresenceGetter(JMethod getter, JMethod presentValueGetter, String propertyName) {
+        getter.annotate(JsonIgnore.class);
+        presentValueGetter.annotate(JsonProperty.class).param("value", propertyName);
+    }
+
     @Override
     public void anyGetter(JMethod getter) {
         getter.annotate(JsonAnyGetter.class);
@@ -92,6 +123,16 @@ public class Jackson2Annotator extends AbstractAnnotator {
         setter.annotate(JsonAnySetter.class);
     }
 
+    @Override
+    public void creatorConstructor(JMethod constructor) {
+        constructor.annotate(JsonCreator.class);
+    }
+
+    @Override
+    public void creatorParameter(JVar param, String propertyName) {
+        param.annotate(JsonProperty.class).param("value", propertyName);
+    }
+
     @Override
     public void enumCreatorMethod(JMethod creatorMethod) {
         creatorMethod.annotate(JsonCreator.class);
@@ -115,4 +156,13 @@ public class Jackson2Annotator extends AbstractAnnotator {
     public void additionalPropertiesField(JFieldVar field, JDefinedClass clazz, String propertyName) {
         field.annotate(JsonIgnore.class);
     }
+
+    private boolean isPositional(JDefinedClass clazz) {
+        for (JAnnotationUse annotation : clazz.annotations()) {
+            if (annotation.getAnnotationClass().fullName().equals(JsonFormat.class.getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
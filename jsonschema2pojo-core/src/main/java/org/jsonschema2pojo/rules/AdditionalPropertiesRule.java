@@ -16,9 +16,12 @@
 
 package org.jsonschema2pojo.rules;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.jsonschema2pojo.AnnotationStyle;
+import org.jsonschema2pojo.GenerationConfig;
 import org.jsonschema2pojo.Schema;
 
 import com.fasterxml.jackson.databind.JsonNode;
@@ -93,7 +96,7 @@ public class AdditionalPropertiesRule implements Rule<JDefinedClass, JDefinedCla
             return jclass;
         }
 
-        if (!ruleFactory.getAnnotator().isAdditionalPropertiesSupported()) {
+        if (!ruleFactory.getAnnotator().isAdditionalPropertiesSupported() && !isGsonTypeAdapterSupported()) {
             // schema allows additional properties, but serializer library can't support them
             return jclass;
         }
@@ -111,7 +114,7 @@ public class AdditionalPropertiesRule implements Rule<JDefinedClass, JDefinedCla
 
         addSetter(jclass, propertyType, field);
 
-        if (ruleFactory.getGenerationConfig().isGenerateBuilders()) {
+        if (ruleFactory.getGenerationConfig().isGenerateBuilders() && !ruleFactory.getGenerationConfig().isImmutable()) {
             addBuilder(jclass, propertyType, field);
         }
 
@@ -125,23 +128,47 @@ public class AdditionalPropertiesRule implements Rule<JDefinedClass, JDefinedCla
         JClass propertiesMapImplType = jclass.owner().ref(HashMap.class);
         propertiesMapImplType = propertiesMapImplType.narrow(jclass.owner().ref(String.class), propertyType.boxify());
 
-        JFieldVar field = jclass.field(JMod.PRIVATE, propertiesMapType, "additionalProperties");
+        boolean lazy = ruleFactory.getGenerationConfig().isLazyAdditionalProperties();
+
+        int mods = ruleFactory.getGenerationConfig().isImmutable() && !lazy ? JMod.PRIVATE | JMod.FINAL : JMod.PRIVATE;
+        if (isGsonTypeAdapterSupported()) {
+            // the type adapter writes the map, reflective Gson (without the adapter factory) must not write it as a member
+            mods |= JMod.TRANSIENT;
+        }
+        JFieldVar field = jclass.field(mods, propertiesMapType, "additionalProperties");
+        if (isGsonTypeAdapterSupported()) {
+            field.javadoc().add("Transient to hide it from reflective Gson, which means that Java serialization leaves the additional properties out.");
+        }
 
         ruleFactory.getAnnotator().additionalPropertiesField(field, jclass, "additionalProperties");
 
-        field.init(JExpr._new(propertiesMapImplType));
+        if (!lazy) {
+            field.init(JExpr._new(propertiesMapImplType));
+        }
 
         return field;
     }
 
+    private void addLazyInitialization(JBlock body, JFieldVar field) {
+        if (ruleFactory.getGenerationConfig().isLazyAdditionalProperties()) {
+            // most instances never see an additional property, so the map is only allocated for the first one
+            JClass propertiesMapImplType = field.type().owner().ref(HashMap.class).narrow(((JClass) field.type()).getTypeParameters());
+            body._if(JExpr._this().ref(field).eq(JExpr._null()))._then()
+                    .assign(JExpr._this().ref(field), JExpr._new(propertiesMapImplType));
+        }
+    }
+
     private void addSetter(JDefinedClass jclass, JType propertyType, JFieldVar field) {
-        JMethod setter = jclass.method(JMod.PUBLIC, void.class, "setAdditionalProperty");
+        // immutable types only accept additional properties during deserialization (and from their builder)
+        int mods = ruleFactory.getGenerationConfig().isImmutable() ? JMod.PRIVATE : JMod.PUBLIC;
+        JMethod setter = jclass.method(mods, void.class, "setAdditionalProperty");
 
         ruleFactory.getAnnotator().anySetter(setter);
 
         JVar nameParam = setter.param(String.class, "name");
         JVar valueParam = setter.param(propertyType, "value");
 
+        addLazyInitialization(setter.body(), field);
         JInvocation mapInvocation = setter.body().invoke(JExpr._this().ref(field), "put");
         mapInvocation.arg(nameParam);
         mapInvocation.arg(valueParam);
@@ -152,7 +179,16 @@ public class AdditionalPropertiesRule implements Rule<JDefinedClass, JDefinedCla
 
         ruleFactory.getAnnotator().anyGetter(getter);
 
-        getter.body()._return(JExpr._this().ref(field));
+        if (ruleFactory.getGenerationConfig().isLazyAdditionalProperties()) {
+            getter.body()._if(JExpr._this().ref(field).eq(JExpr._null()))._then()
+                    ._return(jclass.owner().ref(Collections.class).staticInvoke("emptyMap"));
+        }
+
+        if (ruleFactory.getGenerationConfig().isImmutable()) {
+            getter.body()._return(jclass.owner().ref(Collections.class).staticInvoke("unmodifiableMap").arg(JExpr._this().ref(field)));
+        } else {
+            getter.body()._return(JExpr._this().ref(field));
+        }
         return getter;
     }
 
@@ -163,10 +199,20 @@ public class AdditionalPropertiesRule implements Rule<JDefinedClass, JDefinedCla
         JVar valueParam = builder.param(propertyType, "value");
 
         JBlock body = builder.body();
+        addLazyInitialization(body, field);
         JInvocation mapInvocation = body.invoke(JExpr._this().ref(field), "put");
         mapInvocation.arg(nameParam);
         mapInvocation.arg(valueParam);
         body._return(JExpr._this());
     }
 
+    /**
+     * Gson can't map additional properties by reflection, but the type
+     * adapters generated for the <code>gson</code> annotation style do.
+     */
+    private boolean isGsonTypeAdapterSupported() {
+        GenerationConfig config = ruleFactory.getGenerationConfig();
+        return config.getAnnotationStyle() == AnnotationStyle.GSON && config.isIncludeStreamingSerializers();
+    }
+
 }
@@ -16,13 +16,31 @@
 
 package org.jsonschema2pojo.rules;
 
+import static org.apache.commons.lang3.StringUtils.capitalize;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import org.jsonschema2pojo.AnnotationStyle;
+import org.jsonschema2pojo.GenerationConfig;
 import org.jsonschema2pojo.Schema;
+import org.jsonschema2pojo.exception.GenerationException;
+import org.jsonschema2pojo.util.ArrayStreamHelper;
+import org.jsonschema2pojo.util.BatchClassHelper;
 import org.jsonschema2pojo.util.Inflector;
+import org.jsonschema2pojo.util.LanguageFeatures;
+import org.jsonschema2pojo.util.NameHelper;
+import org.jsonschema2pojo.util.SerializedProperty;
+import com.sun.codemodel.ClassType;
 import com.sun.codemodel.JClass;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JFieldVar;
 import com.sun.codemodel.JPackage;
 import com.sun.codemodel.JType;
 
@@ -49,7 +67,17 @@ public class ArrayRule implements Rule<JPackage, JClass> {
      * Java collections in the generated POJO. If the array is marked as having
      * "uniqueItems" then the resulting Java type is {@link Set}, if not, then
      * the resulting Java type is {@link List}. The schema given by "items" will
-     * decide the generic type of the collection.</p>
+     * decide the generic type of the collection. When the 'useEnumSets' option
+     * is enabled, unique items of a generated enum type are held in an
+     * {@link EnumSet} instead. When the 'usePrimitiveArrays' option is enabled
+     * (or the "javaPrimitiveArray" extension is true), arrays of integers or
+     * numbers become a primitive array instead, e.g. <code>double[]</code>.
+     * When the 'generateBatchClasses' option is enabled (or the "javaBatch"
+     * extension is true), arrays of generated objects whose properties are all
+     * scalars also get a columnar <code>FooBatch</code> class for the items.
+     * When the 'generateArrayStreams' option is enabled, a schema whose root
+     * is an array also gets a <code>FooReader</code> and a
+     * <code>FooWriter</code> that read and write its items one at a time.</p>
      *
      * <p>If the "items" property requires newly generated types, then the type
      * name will be the singular version of the nodeName (unless overridden by
@@ -83,8 +111,16 @@ public class ArrayRule implements Rule<JPackage, JClass> {
             itemType = jpackage.owner().ref(Object.class);
         }
 
+        if (node.has("items") && isBatchArray(node)) {
+            addBatchClass(itemType, resolveRefs(node.get("items"), schema), node.has("javaBatch"));
+        }
+
         JClass arrayType;
-        if (uniqueItems) {
+        if (!uniqueItems && isPrimitiveArray(node, itemType)) {
+            arrayType = itemType.unboxify().array();
+        } else if (uniqueItems && isEnumSetItemType(itemType)) {
+            arrayType = jpackage.owner().ref(EnumSet.class).narrow(itemType);
+        } else if (uniqueItems) {
             arrayType = jpackage.owner().ref(Set.class).narrow(itemType);
         } else {
             arrayType = jpackage.owner().ref(List.class).narrow(itemType);
@@ -92,11 +128,131 @@ public class ArrayRule implements Rule<JPackage, JClass> {
 
         if (rootSchemaIsArray) {
             schema.setJavaType(arrayType);
+
+            if (ruleFactory.getGenerationConfig().isGenerateArrayStreams()) {
+                addArrayStreams(nodeName, jpackage, itemType.boxify());
+            }
         }
 
         return arrayType;
     }
 
+    private void addArrayStreams(String nodeName, JPackage jpackage, JClass itemType) {
+        AnnotationStyle annotationStyle = ruleFactory.getGenerationConfig().getAnnotationStyle();
+        if (annotationStyle != AnnotationStyle.JACKSON && annotationStyle != AnnotationStyle.JACKSON2) {
+            throw new GenerationException("Array readers and writers bind their items with Jackson, so they require annotationStyle=jackson2");
+        }
+
+        NameHelper nameHelper = ruleFactory.getNameHelper();
+        String name = nameHelper.normalizeName(nameHelper.replaceIllegalCharacters(capitalize(nodeName)));
+        new ArrayStreamHelper(LanguageFeatures.canUseJava8(ruleFactory.getGenerationConfig())).addArrayStreams(jpackage, name, itemType);
+    }
+
+    private boolean isPrimitiveArray(JsonNode node, JType itemType) {
+        boolean usePrimitiveArrays = node.has("javaPrimitiveArray") ? node.get("javaPrimitiveArray").asBoolean() : ruleFactory.getGenerationConfig().isUsePrimitiveArrays();
+
+        // immutable types can't share their state through a mutable array
+        if (!usePrimitiveArrays || ruleFactory.getGenerationConfig().isImmutable()) {
+            return false;
+        }
+
+        JCodeModel owner = itemType.owner();
+        JType primitiveType = itemType.unboxify();
+        return primitiveType == owner.INT || primitiveType == owner.LONG || primitiveType == owner.FLOAT || primitiveType == owner.DOUBLE;
+    }
+
+    private boolean isBatchArray(JsonNode node) {
+        return node.has("javaBatch") ? node.get("javaBatch").asBoolean() : ruleFactory.getGenerationConfig().isGenerateBatchClasses();
+    }
+
+    /**
+     * Adds a batch class for the items, if they qualify (see
+     * {@link #getBatchProperties(JType, JsonNode, List)}). Items that don't
+     * are skipped when the option asks for batch classes for all arrays, but
+     * fail the generation when the array itself asks for one with the
+     * "javaBatch" extension.
+     */
+    private void addBatchClass(JType itemType, JsonNode itemsNode, boolean optedIn) {
+        List<SerializedProperty> properties = new ArrayList<SerializedProperty>();
+        String reason = getBatchProperties(itemType, itemsNode, properties);
+        if (reason == null) {
+            GenerationConfig config = ruleFactory.getGenerationConfig();
+            new BatchClassHelper(LanguageFeatures.canUseJava7(config)).addBatchClass((JDefinedClass) itemType, properties, ruleFactory.getNameHelper());
+        } else if (optedIn) {
+            throw new GenerationException("Can't generate a batch class for the items of an array with \"javaBatch\" : true, " + reason);
+        }
+    }
+
+    /**
+     * Collects the properties of the items for their batch class. The items
+     * qualify if they are a generated type without a super type, and every
+     * property maps to a field of a scalar type. Properties that have no field
+     * of their own (e.g. when the type uses sparse storage) rule the batch
+     * out, and so do additional properties, which a batch has no column for.
+     *
+     * @return why the items don't qualify, or <code>null</code> if they do
+     */
+    private String getBatchProperties(JType itemType, JsonNode itemsNode, List<SerializedProperty> properties) {
+        GenerationConfig config = ruleFactory.getGenerationConfig();
+        NameHelper nameHelper = ruleFactory.getNameHelper();
+
+        // rows are rebuilt through setters, which immutable types don't have
+        if (config.isImmutable()) {
+            return "immutable types have no setters to rebuild the rows with";
+        }
+        if (!(itemType instanceof JDefinedClass) || ((JDefinedClass) itemType).getClassType() != ClassType.CLASS) {
+            return itemType.fullName() + " isn't a generated object type";
+        }
+        JDefinedClass itemClass = (JDefinedClass) itemType;
+        if (!itemClass._extends().fullName().equals(Object.class.getName())) {
+            return itemType.fullName() + " extends " + itemClass._extends().fullName() + ", which a batch has no columns for";
+        }
+        if (itemClass.fields().containsKey("additionalProperties")) {
+            return itemType.fullName() + " allows additional properties, which a batch has no column for (set \"additionalProperties\" to false)";
+        }
+
+        if (itemsNode.has("properties")) {
+            for (Iterator<Map.Entry<String, JsonNode>> fields = itemsNode.get("properties").fields(); fields.hasNext();) {
+                String propertyName = fields.next().getKey();
+                JFieldVar field = itemClass.fields().get(nameHelper.getPropertyName(propertyName));
+                if (field == null) {
+                    return "property " + propertyName + " of " + itemType.fullName() + " has no field of its own";
+                }
+                if (!isScalar(field.type())) {
+                    return "property " + propertyName + " of " + itemType.fullName() + " isn't a string, number or boolean";
+                }
+                String getterName = config.isIncludeAccessors() ? nameHelper.getGetterName(propertyName, field.type()) : null;
+                String setterName = config.isIncludeAccessors() ? nameHelper.getSetterName(propertyName) : null;
+                properties.add(new SerializedProperty(propertyName, field, getterName, setterName, null, null));
+            }
+        }
+        if (properties.isEmpty()) {
+            return itemType.fullName() + " has no properties";
+        }
+        return null;
+    }
+
+    private boolean isScalar(JType type) {
+        return type.unboxify().isPrimitive() || type.fullName().equals(String.class.getName());
+    }
+
+    private JsonNode resolveRefs(JsonNode node, Schema parent) {
+        if (node.has("$ref")) {
+            Schema refSchema = ruleFactory.getSchemaStore().create(parent, node.get("$ref").asText());
+            return resolveRefs(refSchema.getContent(), refSchema);
+        } else {
+            return node;
+        }
+    }
+
+    private boolean isEnumSetItemType(JType itemType) {
+        // immutable types hold unmodifiable copies of their collections, which are never an EnumSet
+        if (!ruleFactory.getGenerationConfig().isUseEnumSets() || ruleFactory.getGenerationConfig().isImmutable()) {
+            return false;
+        }
+        return itemType instanceof JDefinedClass && ((JDefinedClass) itemType).getClassType() == ClassType.ENUM;
+    }
+
     private String makeSingular(String nodeName) {
         return Inflector.getInstance().singularize(nodeName);
     }
@@ -20,17 +20,22 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.util.StdDateFormat;
 import com.sun.codemodel.ClassType;
+import com.sun.codemodel.JArray;
 import com.sun.codemodel.JClass;
+import com.sun.codemodel.JCodeModel;
 import com.sun.codemodel.JDefinedClass;
 import com.sun.codemodel.JExpr;
 import com.sun.codemodel.JExpression;
 import com.sun.codemodel.JFieldVar;
 import com.sun.codemodel.JInvocation;
+import com.sun.codemodel.JMod;
 import com.sun.codemodel.JType;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.EnumSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
@@ -61,8 +66,11 @@ public class DefaultRule implements Rule<JFieldVar, JFieldVar> {
      * field (so when instances of the generated POJO are created, its fields
      * will then contain their default values).
      * <p>
-     * Collections (Lists and Sets) are initialized to an empty collection, even
-     * when no default value is present in the schema (node is null).
+     * Collections (Lists and Sets) and numeric arrays are initialized to an
+     * empty collection or array, even when no default value is present in the
+     * schema (node is null). Static fields hold a default that is shared by
+     * all instances, so static collections are initialized to an unmodifiable
+     * collection instead.
      *
      * @param nodeName
      *            the name of the property which has (or may have) a default
@@ -84,11 +92,19 @@ public class DefaultRule implements Rule<JFieldVar, JFieldVar> {
         if (defaultPresent && !field.type().isPrimitive() && node.isNull()) {
             field.init(JExpr._null());
 
+        } else if (isNumericArray(field.type())) {
+            field.init(getDefaultArray(field.type(), node));
+
+        } else if (fieldType.startsWith(EnumSet.class.getName())) {
+            field.init(getDefaultEnumSet(field.type(), node));
+
         } else if (fieldType.startsWith(List.class.getName())) {
-            field.init(getDefaultList(field.type(), node));
+            JExpression defaultList = getDefaultList(field.type(), node);
+            field.init(isStatic(field) ? unmodifiable(field.type(), "unmodifiableList", defaultList) : defaultList);
 
         } else if (fieldType.startsWith(Set.class.getName())) {
-            field.init(getDefaultSet(field.type(), node));
+            JExpression defaultSet = getDefaultSet(field.type(), node);
+            field.init(isStatic(field) ? unmodifiable(field.type(), "unmodifiableSet", defaultSet) : defaultSet);
         } else if (fieldType.startsWith(String.class.getName()) && node != null ) {
             field.init(getDefaultValue(field.type(), node));
         } else if (defaultPresent) {
@@ -99,6 +115,23 @@ public class DefaultRule implements Rule<JFieldVar, JFieldVar> {
         return field;
     }
 
+    private boolean isNumericArray(JType fieldType) {
+        if (!fieldType.isArray()) {
+            return false;
+        }
+        JType elementType = fieldType.elementType();
+        JCodeModel owner = fieldType.owner();
+        return elementType == owner.INT || elementType == owner.LONG || elementType == owner.FLOAT || elementType == owner.DOUBLE;
+    }
+
+    private boolean isStatic(JFieldVar field) {
+        return (field.mods().getValue() & JMod.STATIC) == JMod.STATIC;
+    }
+
+    private JExpression unmodifiable(JType fieldType, String wrapperMethod, JExpression collection) {
+        return fieldType.owner().ref(Collections.class).staticInvoke(wrapperMethod).arg(collection);
+    }
+
     private JExpression getDefaultValue(JType fieldType, JsonNode node) {
 
         fieldType = fieldType.unboxify();
@@ -133,6 +166,12 @@ public class DefaultRule implements Rule<JFieldVar, JFieldVar> {
         } else if (fieldType.fullName().equals(long.class.getName())) {
             return JExpr.lit(Long.parseLong(node.asText()));
 
+        } else if (fieldType.fullName().equals(short.class.getName())) {
+            return JExpr.cast(fieldType, JExpr.lit(Short.parseShort(node.asText())));
+
+        } else if (fieldType.fullName().equals(byte.class.getName())) {
+            return JExpr.cast(fieldType, JExpr.lit(Byte.parseByte(node.asText())));
+
         } else if (fieldType.fullName().equals(float.class.getName())) {
             return JExpr.lit(Float.parseFloat(node.asText()));
 
@@ -229,10 +268,78 @@ public class DefaultRule implements Rule<JFieldVar, JFieldVar> {
 
     }
 
+    /**
+     * Creates a default value for a numeric array property, using an array
+     * initializer holding the default values.
+     *
+     * @param fieldType
+     *            the java type that applies for this field (an array type)
+     * @param node
+     *            the node containing default values for this array
+     * @return an expression that creates a default value that can be assigned
+     *         to this field
+     */
+    private JExpression getDefaultArray(JType fieldType, JsonNode node) {
+
+        JType elementType = fieldType.elementType();
+
+        if (node instanceof ArrayNode && node.size() > 0) {
+            JArray newArray = JExpr.newArray(elementType);
+            for (JsonNode defaultValue : node) {
+                newArray.add(getDefaultValue(elementType, defaultValue));
+            }
+            return newArray;
+        } else if (!ruleFactory.getGenerationConfig().isInitializeCollections()) {
+            return JExpr._null();
+        }
+
+        return JExpr.newArray(elementType, 0);
+
+    }
+
+    /**
+     * Creates a default value for an enum set property, using
+     * {@link EnumSet#of(Enum, Enum...)} when the node contains default values
+     * and {@link EnumSet#noneOf(Class)} otherwise.
+     *
+     * @param fieldType
+     *            the java type that applies for this field ({@link EnumSet}
+     *            with some enum type argument)
+     * @param node
+     *            the node containing default values for this set
+     * @return an expression that creates a default value that can be assigned
+     *         to this field
+     */
+    private JExpression getDefaultEnumSet(JType fieldType, JsonNode node) {
+
+        JClass enumType = ((JClass) fieldType).getTypeParameters().get(0);
+        JClass enumSetClass = fieldType.owner().ref(EnumSet.class);
+
+        if (node instanceof ArrayNode && node.size() > 0) {
+            JInvocation invokeOf = enumSetClass.staticInvoke("of");
+            for (JsonNode defaultValue : node) {
+                invokeOf.arg(getDefaultValue(enumType, defaultValue));
+            }
+            return invokeOf;
+        } else if (!ruleFactory.getGenerationConfig().isInitializeCollections()) {
+            return JExpr._null();
+        }
+
+        return enumSetClass.staticInvoke("noneOf").arg(enumType.dotclass());
+
+    }
+
     private JExpression getDefaultEnum(JType fieldType, JsonNode node) {
 
         JInvocation invokeFromValue = ((JClass) fieldType).staticInvoke("fromValue");
-        invokeFromValue.arg(node.asText());
+
+        // enums with numeric or boolean values have a typed factory method
+        JFieldVar valueField = ((JDefinedClass) fieldType).fields().get("value");
+        if (valueField != null && valueField.type().isPrimitive()) {
+            invokeFromValue.arg(getDefaultValue(valueField.type(), node));
+        } else {
+            invokeFromValue.arg(node.asText());
+        }
 
         return invokeFromValue;
 
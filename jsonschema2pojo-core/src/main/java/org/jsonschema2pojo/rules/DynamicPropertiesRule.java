@@ -104,23 +104,32 @@ public class DynamicPropertiesRule implements Rule<JDefinedClass, JDefinedClass>
             return jclass;
         }
 
+        // immutable types have no setters or builder methods to delegate to
+        boolean immutable = ruleFactory.getGenerationConfig().isImmutable();
+
         if (ruleFactory.getGenerationConfig().isIncludeAccessors() ||
                 ruleFactory.getGenerationConfig().isGenerateBuilders()) {
             if (LanguageFeatures.canUseJava7(ruleFactory.getGenerationConfig())) {
-                addInternalSetMethodJava7(jclass, node, currentSchema);
+                if (!immutable) {
+                    addInternalSetMethodJava7(jclass, node, currentSchema);
+                }
                 addInternalGetMethodJava7(jclass, node, currentSchema);
             } else {
-                addInternalSetMethodJava6(jclass, node, currentSchema);
+                if (!immutable) {
+                    addInternalSetMethodJava6(jclass, node, currentSchema);
+                }
                 addInternalGetMethodJava6(jclass, node, currentSchema);
             }
         }
 
         if (ruleFactory.getGenerationConfig().isIncludeAccessors()) {
             addGetMethods(jclass, node, currentSchema);
-            addSetMethods(jclass, node, currentSchema);
+            if (!immutable) {
+                addSetMethods(jclass, node, currentSchema);
+            }
         }
 
-        if (ruleFactory.getGenerationConfig().isGenerateBuilders()) {
+        if (ruleFactory.getGenerationConfig().isGenerateBuilders() && !immutable) {
             addWithMethods(jclass, node, currentSchema);
         }
 
@@ -253,7 +262,8 @@ public class DynamicPropertiesRule implements Rule<JDefinedClass, JDefinedClass>
         JMethod getAdditionalProperties = jclass.getMethod("getAdditionalProperties", new JType[] {});
         if (getAdditionalProperties != null) {
             JType additionalPropertiesType = ((JClass) (getAdditionalProperties.type())).getTypeParameters().get(1);
-            notFound.add(invoke(getAdditionalProperties).invoke("put").arg(nameParam)
+            JMethod setAdditionalProperty = jclass.getMethod("setAdditionalProperty", new JType[] { jclass.owner()._ref(String.class), additionalPropertiesType });
+            notFound.add(invoke(setAdditionalProperty).arg(nameParam)
                     .arg(cast(additionalPropertiesType, valueParam)));
         }
         // else throw exception.
@@ -281,7 +291,8 @@ public class DynamicPropertiesRule implements Rule<JDefinedClass, JDefinedClass>
         JMethod getAdditionalProperties = jclass.getMethod("getAdditionalProperties", new JType[] {});
         if (getAdditionalProperties != null) {
             JType additionalPropertiesType = ((JClass) (getAdditionalProperties.type())).getTypeParameters().get(1);
-            notFound.add(invoke(getAdditionalProperties).invoke("put").arg(nameParam)
+            JMethod setAdditionalProperty = jclass.getMethod("setAdditionalProperty", new JType[] { jclass.owner()._ref(String.class), additionalPropertiesType });
+            notFound.add(invoke(setAdditionalProperty).arg(nameParam)
                     .arg(cast(additionalPropertiesType, valueParam)));
         }
         // else throw exception.
@@ -23,9 +23,13 @@ import static org.jsonschema2pojo.util.TypeUtil.*;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
 import javax.annotation.Generated;
 
@@ -33,6 +37,7 @@ import org.jsonschema2pojo.Schema;
 import org.jsonschema2pojo.SchemaMapper;
 import org.jsonschema2pojo.exception.ClassAlreadyExistsException;
 import org.jsonschema2pojo.exception.GenerationException;
+import org.jsonschema2pojo.util.LanguageFeatures;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.sun.codemodel.ClassType;
@@ -41,15 +46,18 @@ import com.sun.codemodel.JBlock;
 import com.sun.codemodel.JClass;
 import com.sun.codemodel.JClassAlreadyExistsException;
 import com.sun.codemodel.JClassContainer;
+import com.sun.codemodel.JCodeModel;
 import com.sun.codemodel.JConditional;
 import com.sun.codemodel.JDefinedClass;
 import com.sun.codemodel.JEnumConstant;
 import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
 import com.sun.codemodel.JFieldVar;
 import com.sun.codemodel.JForEach;
 import com.sun.codemodel.JInvocation;
 import com.sun.codemodel.JMethod;
 import com.sun.codemodel.JMod;
+import com.sun.codemodel.JSwitch;
 import com.sun.codemodel.JType;
 import com.sun.codemodel.JVar;
 
@@ -64,6 +72,8 @@ public class EnumRule implements Rule<JClassContainer, JType> {
 
     private static final String VALUE_FIELD_NAME = "value";
 
+    private static final int MAX_LENGTH_DISPATCH_CONSTANTS = 8;
+
     private final RuleFactory ruleFactory;
 
     protected EnumRule(RuleFactory ruleFactory) {
@@ -84,6 +94,14 @@ public class EnumRule implements Rule<JClassContainer, JType> {
      * <code>fromValue(String)</code> is added to the generated enum, and the
      * methods are annotated to allow Jackson to marshal/unmarshal values
      * correctly.
+     * <p>
+     * When typed enum values are enabled (see
+     * {@link org.jsonschema2pojo.GenerationConfig#isUseTypedEnumValues()}) and
+     * the schema declares the enum to be of type "integer", "number" or
+     * "boolean" (and all values are of that type) the value is held as a
+     * primitive instead. A typed <code>value()</code> method and typed
+     * <code>fromValue</code> method are added, so that values are written
+     * and read without converting them to and from strings.
      *
      * @param nodeName
      *            the name of the property which is an "enum"
@@ -112,10 +130,14 @@ public class EnumRule implements Rule<JClassContainer, JType> {
         }
         addGeneratedAnnotation(_enum);
 
-        JFieldVar valueField = addValueField(_enum);
+        JType valueType = getValueType(node, _enum);
+        JFieldVar valueField = addValueField(_enum, valueType);
         addToString(_enum, valueField);
-        addEnumConstants(node.path("enum"), _enum, node.path("javaEnumNames"));
-        addFactoryMethod(_enum);
+        Map<String, String> constantsByValue = addEnumConstants(node.path("enum"), _enum, node.path("javaEnumNames"), valueType);
+        addFactoryMethod(_enum, constantsByValue, valueType);
+        if (valueType.isPrimitive()) {
+            addTypedFactoryMethod(_enum, node.path("enum"), constantsByValue, valueType);
+        }
 
         return _enum;
     }
@@ -150,27 +172,92 @@ public class EnumRule implements Rule<JClassContainer, JType> {
         }
     }
 
-    private void addFactoryMethod(JDefinedClass _enum) {
-        JFieldVar quickLookupMap = addQuickLookupMap(_enum);
-
+    private void addFactoryMethod(JDefinedClass _enum, Map<String, String> constantsByValue, JType valueType) {
         JMethod fromValue = _enum.method(JMod.PUBLIC | JMod.STATIC, _enum, "fromValue");
         JVar valueParam = fromValue.param(String.class, "value");
 
         JBlock body = fromValue.body();
-        JVar constant = body.decl(_enum, "constant");
-        constant.init(quickLookupMap.invoke("get").arg(valueParam));
+        if (LanguageFeatures.canUseJava7(ruleFactory.getGenerationConfig())) {
+            // a string switch compares the cached hash code and then a single string
+            JSwitch valueSwitch = body._if(valueParam.ne(JExpr._null()))._then()._switch(valueParam);
+            for (Map.Entry<String, String> constant : constantsByValue.entrySet()) {
+                valueSwitch._case(JExpr.lit(constant.getKey())).body()._return(JExpr.ref(constant.getValue()));
+            }
+            body._throw(illegalArgumentInvocation(_enum, valueParam));
+        } else if (constantsByValue.size() <= MAX_LENGTH_DISPATCH_CONSTANTS) {
+            // few constants, dispatch on the length and compare the candidates of that length only
+            Map<Integer, List<String>> valuesByLength = new TreeMap<Integer, List<String>>();
+            for (String value : constantsByValue.keySet()) {
+                if (!valuesByLength.containsKey(value.length())) {
+                    valuesByLength.put(value.length(), new ArrayList<String>());
+                }
+                valuesByLength.get(value.length()).add(value);
+            }
+
+            JSwitch lengthSwitch = body._if(valueParam.ne(JExpr._null()))._then()._switch(valueParam.invoke("length"));
+            for (Map.Entry<Integer, List<String>> values : valuesByLength.entrySet()) {
+                JBlock caseBody = lengthSwitch._case(JExpr.lit(values.getKey())).body();
+                for (String value : values.getValue()) {
+                    caseBody._if(JExpr.lit(value).invoke("equals").arg(valueParam))._then()._return(JExpr.ref(constantsByValue.get(value)));
+                }
+                caseBody._break();
+            }
+            body._throw(illegalArgumentInvocation(_enum, valueParam));
+        } else {
+            JFieldVar quickLookupMap = addQuickLookupMap(_enum, constantsByValue);
+
+            JVar constant = body.decl(_enum, "constant");
+            constant.init(quickLookupMap.invoke("get").arg(valueParam));
+
+            JConditional _if = body._if(constant.eq(JExpr._null()));
+            _if._then()._throw(illegalArgumentInvocation(_enum, valueParam));
+            _if._else()._return(constant);
+        }
+
+        if (!isTypedCreator(valueType)) {
+            ruleFactory.getAnnotator().enumCreatorMethod(fromValue);
+        }
+    }
+
+    private void addTypedFactoryMethod(JDefinedClass _enum, JsonNode node, Map<String, String> constantsByValue, JType valueType) {
+        JMethod fromValue = _enum.method(JMod.PUBLIC | JMod.STATIC, _enum, "fromValue");
+        JVar valueParam = fromValue.param(valueType, "value");
 
-        JConditional _if = body._if(constant.eq(JExpr._null()));
+        JBlock body = fromValue.body();
+        JSwitch valueSwitch = valueType == _enum.owner().INT ? body._switch(valueParam) : null;
+        Set<String> values = new HashSet<String>();
+        for (JsonNode value : node) {
+            String text = textOf(value, valueType);
+            if (value.isNull() || !values.add(text)) {
+                continue;
+            }
+            JExpression constant = JExpr.ref(constantsByValue.get(text));
+            if (valueSwitch != null) {
+                valueSwitch._case(getTypedValue(value, valueType)).body()._return(constant);
+            } else {
+                body._if(valueParam.eq(getTypedValue(value, valueType)))._then()._return(constant);
+            }
+        }
+        body._throw(illegalArgumentInvocation(_enum, _enum.owner().ref(String.class).staticInvoke("valueOf").arg(valueParam)));
 
-        JInvocation illegalArgumentException = JExpr._new(_enum.owner().ref(IllegalArgumentException.class));
-        illegalArgumentException.arg(valueParam);
-        _if._then()._throw(illegalArgumentException);
-        _if._else()._return(constant);
+        if (isTypedCreator(valueType)) {
+            ruleFactory.getAnnotator().enumCreatorMethod(fromValue);
+        }
+    }
 
-        ruleFactory.getAnnotator().enumCreatorMethod(fromValue);
+    /**
+     * Jackson can pass ints and longs to an enum creator, enums with other
+     * value types are created from the text of the JSON value.
+     */
+    private boolean isTypedCreator(JType valueType) {
+        return valueType == valueType.owner().INT || valueType == valueType.owner().LONG;
     }
 
-    private JFieldVar addQuickLookupMap(JDefinedClass _enum) {
+    private JInvocation illegalArgumentInvocation(JDefinedClass _enum, JExpression value) {
+        return JExpr._new(_enum.owner().ref(IllegalArgumentException.class)).arg(value);
+    }
+
+    private JFieldVar addQuickLookupMap(JDefinedClass _enum, Map<String, String> constantsByValue) {
 
         JClass lookupType = _enum.owner().ref(Map.class).narrow(_enum.owner().ref(String.class), _enum);
         JFieldVar lookupMap = _enum.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL, lookupType, "CONSTANTS");
@@ -180,17 +267,25 @@ public class EnumRule implements Rule<JClassContainer, JType> {
 
         JForEach forEach = _enum.init().forEach(_enum, "c", JExpr.invoke("values"));
         JInvocation put = forEach.body().invoke(lookupMap, "put");
-        put.arg(forEach.var().ref("value"));
+        put.arg(forEach.var().invoke("toString"));
         put.arg(forEach.var());
 
+        // typed values may also be written differently in the schema, e.g. 1 instead of 1.0
+        Set<String> constantNames = new HashSet<String>();
+        for (Map.Entry<String, String> constant : constantsByValue.entrySet()) {
+            if (!constantNames.add(constant.getValue())) {
+                _enum.init().invoke(lookupMap, "put").arg(JExpr.lit(constant.getKey())).arg(JExpr.ref(constant.getValue()));
+            }
+        }
+
         return lookupMap;
     }
 
-    private JFieldVar addValueField(JDefinedClass _enum) {
-        JFieldVar valueField = _enum.field(JMod.PRIVATE | JMod.FINAL, String.class, VALUE_FIELD_NAME);
+    private JFieldVar addValueField(JDefinedClass _enum, JType valueType) {
+        JFieldVar valueField = _enum.field(JMod.PRIVATE | JMod.FINAL, valueType, VALUE_FIELD_NAME);
 
         JMethod constructor = _enum.constructor(JMod.PRIVATE);
-        JVar valueParam = constructor.param(String.class, VALUE_FIELD_NAME);
+        JVar valueParam = constructor.param(valueType, VALUE_FIELD_NAME);
         JBlock body = constructor.body();
         body.assign(JExpr._this().ref(valueField), valueParam);
 
@@ -201,22 +296,108 @@ public class EnumRule implements Rule<JClassContainer, JType> {
         JMethod toString = _enum.method(JMod.PUBLIC, String.class, "toString");
         JBlock body = toString.body();
 
-        body._return(JExpr._this().ref(valueField));
+        if (valueField.type().isPrimitive()) {
+            body._return(_enum.owner().ref(String.class).staticInvoke("valueOf").arg(JExpr._this().ref(valueField)));
+
+            JMethod value = _enum.method(JMod.PUBLIC, valueField.type(), VALUE_FIELD_NAME);
+            value.body()._return(JExpr._this().ref(valueField));
+            ruleFactory.getAnnotator().enumValueMethod(value);
+        } else {
+            body._return(JExpr._this().ref(valueField));
+            ruleFactory.getAnnotator().enumValueMethod(toString);
+        }
 
-        ruleFactory.getAnnotator().enumValueMethod(toString);
         toString.annotate(Override.class);
     }
 
-    private void addEnumConstants(JsonNode node, JDefinedClass _enum, JsonNode customNames) {
+    /**
+     * Adds a constant for each (non-null) enum value.
+     *
+     * @return the names of the constants, keyed by the text of their value
+     *         (the <code>toString()</code> of the constant first, followed by
+     *         the text found in the schema where that is different)
+     */
+    private Map<String, String> addEnumConstants(JsonNode node, JDefinedClass _enum, JsonNode customNames, JType valueType) {
+        Map<String, String> constantsByValue = new LinkedHashMap<String, String>();
         for (int i = 0; i < node.size(); i++) {
             JsonNode value = node.path(i);
 
             if (!value.isNull()) {
-                JEnumConstant constant = _enum.enumConstant(getConstantName(value.asText(), customNames.path(i).asText()));
-                constant.arg(JExpr.lit(value.asText()));
+                String constantName = getConstantName(value.asText(), customNames.path(i).asText());
+                JEnumConstant constant = _enum.enumConstant(constantName);
+                constant.arg(getTypedValue(value, valueType));
                 ruleFactory.getAnnotator().enumConstant(constant, value.asText());
+
+                for (String text : asList(textOf(value, valueType), value.asText())) {
+                    if (!constantsByValue.containsKey(text)) {
+                        constantsByValue.put(text, constantName);
+                    }
+                }
             }
         }
+        return constantsByValue;
+    }
+
+    /**
+     * Determines the type of the value held by each enum constant. Enums are
+     * held as strings unless typed enum values are enabled, the schema
+     * declares a numeric or boolean type and every value is of that type.
+     */
+    private JType getValueType(JsonNode node, JDefinedClass _enum) {
+        JCodeModel owner = _enum.owner();
+        if (!ruleFactory.getGenerationConfig().isUseTypedEnumValues()) {
+            return owner.ref(String.class);
+        }
+
+        String type = node.path("type").asText();
+        boolean integers = true, numbers = true, booleans = true, fitsInt = true;
+        for (JsonNode value : node.path("enum")) {
+            if (value.isNull()) {
+                continue;
+            }
+            integers &= value.isIntegralNumber() && value.canConvertToLong();
+            numbers &= value.isNumber();
+            booleans &= value.isBoolean();
+            fitsInt &= value.canConvertToInt();
+        }
+
+        if ("integer".equals(type) && integers) {
+            return fitsInt && !ruleFactory.getGenerationConfig().isUseLongIntegers() ? owner.INT : owner.LONG;
+        } else if ("number".equals(type) && numbers) {
+            return owner.DOUBLE;
+        } else if ("boolean".equals(type) && booleans) {
+            return owner.BOOLEAN;
+        } else {
+            return owner.ref(String.class);
+        }
+    }
+
+    private JExpression getTypedValue(JsonNode value, JType valueType) {
+        JCodeModel owner = valueType.owner();
+        if (valueType == owner.INT) {
+            return JExpr.lit(value.asInt());
+        } else if (valueType == owner.LONG) {
+            return JExpr.lit(value.asLong());
+        } else if (valueType == owner.DOUBLE) {
+            return JExpr.lit(value.asDouble());
+        } else if (valueType == owner.BOOLEAN) {
+            return JExpr.lit(value.asBoolean());
+        } else {
+            return JExpr.lit(value.asText());
+        }
+    }
+
+    private String textOf(JsonNode value, JType valueType) {
+        JCodeModel owner = valueType.owner();
+        if (valueType == owner.INT || valueType == owner.LONG) {
+            return String.valueOf(value.asLong());
+        } else if (valueType == owner.DOUBLE) {
+            return String.valueOf(value.asDouble());
+        } else if (valueType == owner.BOOLEAN) {
+            return String.valueOf(value.asBoolean());
+        } else {
+            return value.asText();
+        }
     }
 
     private void addGeneratedAnnotation(JDefinedClass jclass) {
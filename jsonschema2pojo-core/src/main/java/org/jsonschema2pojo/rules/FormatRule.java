@@ -173,7 +173,7 @@ public class FormatRule implements Rule<JType, JType> {
     }
 
     private JType unboxIfNecessary(JType type, GenerationConfig config) {
-        if (config.isUsePrimitives()) {
+        if (config.isUsePrimitives() || config.isUsePresenceBits()) {
             return type.unboxify();
         } else {
             return type;
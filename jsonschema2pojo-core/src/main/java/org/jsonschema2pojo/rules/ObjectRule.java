@@ -20,37 +20,71 @@ import static org.apache.commons.lang3.StringUtils.*;
 import static org.jsonschema2pojo.rules.PrimitiveTypes.*;
 import static org.jsonschema2pojo.util.TypeUtil.*;
 
+import java.io.Externalizable;
 import java.io.Serializable;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.annotation.Generated;
 
 import org.jsonschema2pojo.AnnotationStyle;
+import org.jsonschema2pojo.Annotator;
+import org.jsonschema2pojo.GenerationConfig;
 import org.jsonschema2pojo.Schema;
 import org.jsonschema2pojo.SchemaMapper;
 import org.jsonschema2pojo.exception.ClassAlreadyExistsException;
+import org.jsonschema2pojo.exception.GenerationException;
+import org.jsonschema2pojo.util.BufferViewHelper;
+import org.jsonschema2pojo.util.DeepCopyHelper;
+import org.jsonschema2pojo.util.ExternalizableHelper;
+import org.jsonschema2pojo.util.GsonTypeAdapterHelper;
+import org.jsonschema2pojo.util.JacksonSerializerHelper;
+import org.jsonschema2pojo.util.LanguageFeatures;
+import org.jsonschema2pojo.util.Models;
 import org.jsonschema2pojo.util.NameHelper;
+import org.jsonschema2pojo.util.NodeViewHelper;
 import org.jsonschema2pojo.util.ParcelableHelper;
+import org.jsonschema2pojo.util.PresenceHelper;
+import org.jsonschema2pojo.util.ProjectionReaderHelper;
+import org.jsonschema2pojo.util.PropertyMetadataHelper;
+import org.jsonschema2pojo.util.SerializedProperty;
+import org.jsonschema2pojo.util.SparseStorageHelper;
+import org.jsonschema2pojo.util.StreamingValidatorHelper;
+import org.jsonschema2pojo.util.ValidationHelper;
 import org.jsonschema2pojo.util.TypeUtil;
 
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.BooleanNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.sun.codemodel.ClassType;
 import com.sun.codemodel.JAnnotationUse;
 import com.sun.codemodel.JBlock;
 import com.sun.codemodel.JClass;
 import com.sun.codemodel.JClassAlreadyExistsException;
+import com.sun.codemodel.JConditional;
 import com.sun.codemodel.JDefinedClass;
 import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
 import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JForEach;
 import com.sun.codemodel.JInvocation;
 import com.sun.codemodel.JMethod;
 import com.sun.codemodel.JMod;
+import com.sun.codemodel.JOp;
 import com.sun.codemodel.JPackage;
+import com.sun.codemodel.JSwitch;
 import com.sun.codemodel.JType;
 import com.sun.codemodel.JVar;
 
@@ -81,9 +115,10 @@ public class ObjectRule implements Rule<JPackage, JType> {
      * characteristics. See other implementers of {@link Rule} for details.
      * <p>
      * A new Java type will be created when this rule is applied, it is
-     * annotated as {@link Generated}, it is given <code>equals</code>,
-     * <code>hashCode</code> and <code>toString</code> methods and implements
-     * {@link Serializable}.
+     * annotated as {@link Generated} and it is given <code>equals</code>,
+     * <code>hashCode</code> and <code>toString</code> methods. With the
+     * 'externalizable' option it implements {@link Externalizable} (and so
+     * {@link Serializable}) with a compact binary form.
      */
     @Override
     public JType apply(String nodeName, JsonNode node, JPackage _package, Schema schema) {
@@ -118,19 +153,43 @@ public class ObjectRule implements Rule<JPackage, JType> {
             ruleFactory.getDescriptionRule().apply(nodeName, node.get("description"), jclass, schema);
         }
 
+        SparseStorageHelper sparseStorage = null;
+        if (node.path("sparseStorage").asBoolean(ruleFactory.getGenerationConfig().isUseSparseStorage())) {
+            checkSparseStorageSupported(jclass);
+            sparseStorage = SparseStorageHelper.enable(jclass);
+        }
+
+        boolean positional = node.path("positionalEncoding").asBoolean(ruleFactory.getGenerationConfig().isUsePositionalEncoding());
+        if (positional) {
+            addPositionalEncoding(jclass, node);
+        }
+
         if (node.has("properties")) {
             ruleFactory.getPropertiesRule().apply(nodeName, node.get("properties"), jclass, schema);
         }
 
-        if (ruleFactory.getGenerationConfig().isIncludeToString()) {
-            addToString(jclass);
+        if (sparseStorage != null) {
+            sparseStorage.addStorage();
+        }
+
+        PresenceHelper presence = null;
+        if (ruleFactory.getGenerationConfig().isUsePresenceBits()) {
+            presence = addPresenceTracking(jclass, node, schema);
         }
 
         if (node.has("javaInterfaces")) {
             addInterfaces(jclass, node.get("javaInterfaces"));
         }
 
-        ruleFactory.getAdditionalPropertiesRule().apply(nodeName, node.get("additionalProperties"), jclass, schema);
+        // an array has no names for additional properties (and Jackson writes types with an any getter as objects)
+        JsonNode additionalPropertiesNode = positional ? BooleanNode.FALSE : node.get("additionalProperties");
+        Set<JFieldVar> propertyFields = new HashSet<JFieldVar>(jclass.fields().values());
+        ruleFactory.getAdditionalPropertiesRule().apply(nodeName, additionalPropertiesNode, jclass, schema);
+        JFieldVar additionalProperties = getAddedField(jclass, propertyFields);
+
+        if (ruleFactory.getGenerationConfig().isIncludeToString()) {
+            addToString(jclass, presence, additionalProperties);
+        }
 
         ruleFactory.getDynamicPropertiesRule().apply(nodeName, node.get("properties"), jclass, schema);
 
@@ -139,16 +198,68 @@ public class ObjectRule implements Rule<JPackage, JType> {
         }
 
         if (ruleFactory.getGenerationConfig().isIncludeHashcodeAndEquals()) {
-            addHashCode(jclass);
-            addEquals(jclass);
+            addHashCode(jclass, additionalProperties);
+            addEquals(jclass, additionalProperties);
+        }
+
+        if (ruleFactory.getGenerationConfig().isIncludeDynamicAccessors()) {
+            addPropertyIndex(jclass, node, schema);
+        }
+
+        if (ruleFactory.getGenerationConfig().isIncludeValidateMethods()) {
+            addValidateMethods(jclass, node, schema);
+        }
+
+        if (ruleFactory.getGenerationConfig().isIncludeStreamingValidators()) {
+            addStreamingValidator(jclass, node, schema);
         }
 
         if (ruleFactory.getGenerationConfig().isParcelable()) {
+            if (ruleFactory.getGenerationConfig().isImmutable()) {
+                throw new GenerationException("The 'parcelable' and 'immutable' options can't be combined, parcels are read by assigning the fields of a new instance");
+            }
             addParcelSupport(jclass);
         }
 
-        if (ruleFactory.getGenerationConfig().isIncludeConstructors()) {
-            addConstructors(jclass, getConstructorProperties(node, ruleFactory.getGenerationConfig().isConstructorsRequiredPropertiesOnly()));
+        if (ruleFactory.getGenerationConfig().isExternalizable()) {
+            addExternalizableSupport(jclass, node);
+        }
+
+        JDefinedClass builderClass = null;
+        if (ruleFactory.getGenerationConfig().isImmutable()) {
+            builderClass = addImmutableSupport(jclass, node, schema);
+        } else if (ruleFactory.getGenerationConfig().isIncludeConstructors()) {
+            addConstructors(jclass, getConstructorProperties(node, ruleFactory.getGenerationConfig().isConstructorsRequiredPropertiesOnly()), presence);
+        }
+
+        if (ruleFactory.getGenerationConfig().isIncludeStreamingSerializers() && hasOnlyGeneratedSuperTypes(jclass)) {
+            AnnotationStyle annotationStyle = ruleFactory.getGenerationConfig().getAnnotationStyle();
+            if (annotationStyle == AnnotationStyle.JACKSON || annotationStyle == AnnotationStyle.JACKSON2) {
+                addJacksonSerializers(jclass, builderClass, node, schema);
+            } else if (annotationStyle == AnnotationStyle.GSON) {
+                addGsonTypeAdapter(jclass, builderClass, node, schema);
+            }
+        }
+
+        if (ruleFactory.getGenerationConfig().isGenerateProjectionReaders() && hasOnlyGeneratedSuperTypes(jclass)) {
+            addProjectionReader(jclass, builderClass, node, schema);
+        }
+
+        if (ruleFactory.getGenerationConfig().isGenerateBufferViews() && hasOnlyGeneratedSuperTypes(jclass)) {
+            List<SerializedProperty> properties = getSerializedProperties(jclass, null, node, schema);
+            new BufferViewHelper().addBufferView(jclass, properties, ruleFactory.getNameHelper());
+        }
+
+        if (ruleFactory.getGenerationConfig().isGenerateNodeViews() && hasOnlyGeneratedSuperTypes(jclass)) {
+            addNodeView(jclass, node, schema);
+        }
+
+        if (ruleFactory.getGenerationConfig().isIncludePropertyMetadata()) {
+            addPropertyMetadata(jclass, node, schema);
+        }
+
+        if (ruleFactory.getGenerationConfig().isIncludeDeepCopy()) {
+            addDeepCopy(jclass);
         }
 
         return jclass;
@@ -163,6 +274,74 @@ public class ObjectRule implements Rule<JPackage, JType> {
         parcelableHelper.addCreator(jclass);
     }
 
+    private void addExternalizableSupport(JDefinedClass jclass, JsonNode node) {
+        if (ruleFactory.getGenerationConfig().isImmutable()) {
+            throw new GenerationException("The 'externalizable' and 'immutable' options can't be combined, readExternal assigns the fields of a new instance");
+        }
+        // the fields of a super type that isn't generated would be lost
+        if (!hasOnlyGeneratedSuperTypes(jclass)) {
+            throw new GenerationException("Can't make " + jclass.fullName() + " externalizable, its super type " + jclass._extends().fullName()
+                    + " isn't generated");
+        }
+
+        ExternalizableHelper externalizableHelper = new ExternalizableHelper();
+        externalizableHelper.addSerialVersionUID(jclass, node);
+        externalizableHelper.addExternalizable(jclass);
+    }
+
+    private void addProjectionReader(JDefinedClass jclass, JDefinedClass builderClass, JsonNode node, Schema schema) {
+        AnnotationStyle annotationStyle = ruleFactory.getGenerationConfig().getAnnotationStyle();
+        if (annotationStyle != AnnotationStyle.JACKSON && annotationStyle != AnnotationStyle.JACKSON2) {
+            throw new GenerationException("Projection readers bind their values with Jackson, so they require annotationStyle=jackson2");
+        }
+
+        List<SerializedProperty> properties = getSerializedProperties(jclass, builderClass, node, schema);
+        new ProjectionReaderHelper(LanguageFeatures.canUseJava7(ruleFactory.getGenerationConfig())).addProjectionReader(jclass, builderClass, properties);
+    }
+
+    private void addNodeView(JDefinedClass jclass, JsonNode node, Schema schema) {
+        AnnotationStyle annotationStyle = ruleFactory.getGenerationConfig().getAnnotationStyle();
+        if (annotationStyle != AnnotationStyle.JACKSON && annotationStyle != AnnotationStyle.JACKSON2) {
+            throw new GenerationException("Node views decode their properties with Jackson, so they require annotationStyle=jackson2");
+        }
+
+        List<SerializedProperty> properties = getSerializedProperties(jclass, null, node, schema);
+        new NodeViewHelper(ruleFactory.getGenerationConfig().isInitializeCollections()).addNodeView(jclass, properties, ruleFactory.getNameHelper());
+    }
+
+    /**
+     * Adds a table that describes the properties of the type (including
+     * inherited ones) and accesses them through the accessors, with the
+     * required flags that the streaming validator uses.
+     */
+    private void addPropertyMetadata(JDefinedClass jclass, JsonNode node, Schema schema) {
+        Map<String, JsonNode> propertyNodes = new LinkedHashMap<String, JsonNode>();
+        Set<String> requiredProperties = new HashSet<String>();
+        collectValidatedProperties(node, schema, propertyNodes, requiredProperties);
+
+        List<SerializedProperty> properties = getSerializedProperties(jclass, null, node, schema);
+        new PropertyMetadataHelper().addPropertyMetadata(jclass, properties, requiredProperties, !ruleFactory.getGenerationConfig().isImmutable());
+    }
+
+    private void addDeepCopy(JDefinedClass jclass) {
+        if (ruleFactory.getGenerationConfig().isImmutable()) {
+            throw new GenerationException("The 'includeDeepCopy' and 'immutable' options can't be combined, immutable instances can be shared instead of copied");
+        }
+        // the fields of a super type that isn't generated would be lost
+        if (!hasOnlyGeneratedSuperTypes(jclass)) {
+            throw new GenerationException("Can't add a copy constructor to " + jclass.fullName() + ", its super type " + jclass._extends().fullName()
+                    + " isn't generated");
+        }
+        // a single property of the type itself gives a constructor with the signature of the copy constructor
+        if (jclass.getConstructor(new JType[] { jclass }) != null) {
+            throw new GenerationException("Can't add a copy constructor to " + jclass.fullName()
+                    + ", the constructor for its properties already takes a single " + jclass.name() + " (disable 'includeConstructors' or add another constructor property)");
+        }
+
+        boolean copySuperType = !jclass._extends().fullName().equals(Object.class.getName());
+        new DeepCopyHelper().addDeepCopy(jclass, copySuperType);
+    }
+
     /**
      * Retrieve the list of properties to go in the constructor from node. This
      * is all properties listed in node["properties"] if ! onlyRequired, and
@@ -277,13 +456,7 @@ public class ObjectRule implements Rule<JPackage, JType> {
 
         JType superType = jPackage.owner().ref(Object.class);
         if (node.has("extends")) {
-            String path;
-            if (schema.getId().getFragment() == null) {
-                path = "#extends";
-            } else {
-                path = "#" + schema.getId().getFragment() + "/extends";
-            }
-            Schema superTypeSchema = ruleFactory.getSchemaStore().create(schema, path);
+            Schema superTypeSchema = getSuperTypeSchema(schema);
             superType = ruleFactory.getSchemaRule().apply(nodeName + "Parent", node.get("extends"), jPackage, superTypeSchema);
         } else if (node.has("extendsJavaClass")) {
             superType = resolveType(jPackage, node.get("extendsJavaClass").asText());
@@ -292,6 +465,16 @@ public class ObjectRule implements Rule<JPackage, JType> {
         return superType;
     }
 
+    private Schema getSuperTypeSchema(Schema schema) {
+        String path;
+        if (schema.getId().getFragment() == null) {
+            path = "#extends";
+        } else {
+            path = "#" + schema.getId().getFragment() + "/extends";
+        }
+        return ruleFactory.getSchemaStore().create(schema, path);
+    }
+
     private void addGeneratedAnnotation(JDefinedClass jclass) {
         JAnnotationUse generated = jclass.annotate(Generated.class);
         generated.param("value", SchemaMapper.class.getPackage().getName());
@@ -307,20 +490,121 @@ public class ObjectRule implements Rule<JPackage, JType> {
         }
     }
 
-    private void addToString(JDefinedClass jclass) {
+    private void addToString(JDefinedClass jclass, PresenceHelper presence, JFieldVar additionalProperties) {
         JMethod toString = jclass.method(JMod.PUBLIC, String.class, "toString");
 
-        Class<?> toStringBuilder = ruleFactory.getGenerationConfig().isUseCommonsLang3() ? org.apache.commons.lang3.builder.ToStringBuilder.class : org.apache.commons.lang.builder.ToStringBuilder.class;
+        // the rendered values by name, with their types
+        Map<String, JType> types = new LinkedHashMap<String, JType>();
+        Map<String, JExpression> values = new HashMap<String, JExpression>();
+
+        // sparse types render the properties in their slots rather than the arrays that hold them
+        SparseStorageHelper sparseStorage = SparseStorageHelper.get(jclass);
+        if (sparseStorage != null) {
+            for (Map.Entry<String, JFieldVar> slot : sparseStorage.getSlots().entrySet()) {
+                JType type = sparseStorage.getType(slot.getValue());
+                JExpression value = sparseStorage.getValue(slot.getValue());
+                types.put(slot.getKey(), type);
+                // arrays are cast to pick the Arrays.toString overload, other values are appended as objects
+                values.put(slot.getKey(), type.isArray() ? JExpr.cast(type, value) : value);
+            }
+        }
+
+        for (JFieldVar fieldVar : jclass.fields().values()) {
+            // the presence bits show in the values of the absent properties (their defaults) already
+            if (isStateField(fieldVar, additionalProperties) && (presence == null || !presence.getBitsFields().contains(fieldVar))
+                    && (sparseStorage == null || !sparseStorage.getStorageFields().contains(fieldVar))) {
+                types.put(fieldVar.name(), fieldVar.type());
+                values.put(fieldVar.name(), JExpr._this().ref(fieldVar));
+            }
+        }
 
         JBlock body = toString.body();
-        JInvocation reflectionToString = jclass.owner().ref(toStringBuilder).staticInvoke("reflectionToString");
-        reflectionToString.arg(JExpr._this());
-        body._return(reflectionToString);
+
+        // matches the output of ToStringBuilder.reflectionToString(this), e.g.
+        // com.example.Foo@1b6d3586[bar=baz,qux=<null>]
+        JClass stringBuilderClass = jclass.owner().ref(StringBuilder.class);
+        JVar sb = body.decl(stringBuilderClass, "sb", JExpr._new(stringBuilderClass).arg(JExpr.lit(estimateToStringLength(jclass, types.keySet()))));
+        body.add(sb.invoke("append").arg(JExpr.invoke("getClass").invoke("getName"))
+                .invoke("append").arg(JExpr.lit('@'))
+                .invoke("append").arg(jclass.owner().ref(Integer.class).staticInvoke("toHexString")
+                        .arg(jclass.owner().ref(System.class).staticInvoke("identityHashCode").arg(JExpr._this())))
+                .invoke("append").arg(JExpr.lit('[')));
+
+        for (Map.Entry<String, JType> entry : types.entrySet()) {
+            JExpression value = values.get(entry.getKey());
+            if (entry.getValue().isArray()) {
+                value = JOp.cond(value.eq(JExpr._null()), JExpr.lit("<null>"), jclass.owner().ref(Arrays.class).staticInvoke("toString").arg(value)
+                        .invoke("replace").arg(JExpr.lit('[')).arg(JExpr.lit('{'))
+                        .invoke("replace").arg(JExpr.lit(']')).arg(JExpr.lit('}'))
+                        .invoke("replace").arg(JExpr.lit(", ")).arg(JExpr.lit(",")));
+            } else if (!entry.getValue().isPrimitive()) {
+                value = JOp.cond(value.eq(JExpr._null()), JExpr.lit("<null>"), value);
+            }
+
+            body.add(sb.invoke("append").arg(JExpr.lit(entry.getKey()))
+                    .invoke("append").arg(JExpr.lit('='))
+                    .invoke("append").arg(value)
+                    .invoke("append").arg(JExpr.lit(',')));
+        }
+
+        if (!jclass._extends().fullName().equals(Object.class.getName())) {
+            // the super class renders its own fields in the same format, strip its header and include the fields only
+            JVar superString = body.decl(jclass.owner().ref(String.class), "superString", JExpr._super().invoke("toString"));
+            JVar contentStart = body.decl(jclass.owner().INT, "contentStart", superString.invoke("indexOf").arg(JExpr.lit('[')));
+            JVar contentEnd = body.decl(jclass.owner().INT, "contentEnd", superString.invoke("lastIndexOf").arg(JExpr.lit(']')));
+
+            JBlock superContent = body._if(contentStart.gte(JExpr.lit(0)).cand(contentEnd.gt(contentStart.plus(JExpr.lit(1)))))._then();
+            superContent.add(sb.invoke("append").arg(superString).arg(contentStart.plus(JExpr.lit(1))).arg(contentEnd)
+                    .invoke("append").arg(JExpr.lit(',')));
+        }
+
+        JConditional trailer = body._if(sb.invoke("charAt").arg(sb.invoke("length").minus(JExpr.lit(1))).eq(JExpr.lit(',')));
+        trailer._then().add(sb.invoke("setCharAt").arg(sb.invoke("length").minus(JExpr.lit(1))).arg(JExpr.lit(']')));
+        trailer._else().add(sb.invoke("append").arg(JExpr.lit(']')));
+
+        body._return(sb.invoke("toString"));
 
         toString.annotate(Override.class);
     }
 
-    private void addHashCode(JDefinedClass jclass) {
+    /**
+     * Transient fields hold caches rather than state, except for the map of
+     * additional properties, which is only transient to hide it from
+     * reflective Gson when a generated type adapter writes it.
+     *
+     * @param additionalProperties
+     *            the map of additional properties of the type, or
+     *            <code>null</code> if it has none
+     */
+    private boolean isStateField(JFieldVar field, JFieldVar additionalProperties) {
+        int mods = field.mods().getValue();
+        return (mods & JMod.STATIC) == 0 && ((mods & JMod.TRANSIENT) == 0 || field == additionalProperties);
+    }
+
+    /**
+     * @return the field that was added to the given type since it had the
+     *         given fields, or <code>null</code> if none was
+     */
+    private JFieldVar getAddedField(JDefinedClass jclass, Set<JFieldVar> fields) {
+        for (JFieldVar field : jclass.fields().values()) {
+            if (!fields.contains(field)) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    private int estimateToStringLength(JDefinedClass jclass, Collection<String> names) {
+        // header: class name, '@', identity hash and brackets
+        int length = jclass.fullName().length() + 11;
+        for (String name : names) {
+            // name, '=', a guess at the rendered value and ','
+            length += name.length() + 18;
+        }
+        return length;
+    }
+
+    private void addHashCode(JDefinedClass jclass, JFieldVar additionalProperties) {
         Map<String, JFieldVar> fields = jclass.fields();
         if (fields.isEmpty()) {
             return;
@@ -339,16 +623,26 @@ public class ObjectRule implements Rule<JPackage, JType> {
         }
 
         for (JFieldVar fieldVar : fields.values()) {
-            if( (fieldVar.mods().getValue() & JMod.STATIC) == JMod.STATIC) continue;
+            if (!isStateField(fieldVar, additionalProperties)) continue;
             hashCodeBuilderInvocation = hashCodeBuilderInvocation.invoke("append").arg(fieldVar);
         }
 
-        body._return(hashCodeBuilderInvocation.invoke("toHashCode"));
+        if (ruleFactory.getGenerationConfig().isImmutable()) {
+            // the values of an immutable instance never change, so the hash code is computed once on first use
+            JFieldVar cachedHashCode = jclass.field(JMod.PRIVATE | JMod.TRANSIENT, int.class, "cachedHashCode");
+            JVar result = body.decl(jclass.owner().INT, "result", JExpr._this().ref(cachedHashCode));
+            JBlock computeHashCode = body._if(result.eq(JExpr.lit(0)))._then();
+            computeHashCode.assign(result, hashCodeBuilderInvocation.invoke("toHashCode"));
+            computeHashCode.assign(JExpr._this().ref(cachedHashCode), result);
+            body._return(result);
+        } else {
+            body._return(hashCodeBuilderInvocation.invoke("toHashCode"));
+        }
 
         hashCode.annotate(Override.class);
     }
 
-    private void addConstructors(JDefinedClass jclass, List<String> properties) {
+    private void addConstructors(JDefinedClass jclass, List<String> properties, PresenceHelper presence) {
 
         // no properties to put in the constructor => default constructor is good enough.
         if (properties.isEmpty()) {
@@ -375,10 +669,681 @@ public class ObjectRule implements Rule<JPackage, JType> {
             fieldsConstructor.javadoc().addParam(property);
             JVar param = fieldsConstructor.param(field.type(), field.name());
             constructorBody.assign(JExpr._this().ref(field), param);
+            if (presence != null) {
+                presence.markPresent(constructorBody, field);
+            }
+        }
+    }
+
+    private JDefinedClass addImmutableSupport(JDefinedClass jclass, JsonNode node, Schema schema) {
+        Annotator annotator = ruleFactory.getAnnotator();
+        NameHelper nameHelper = ruleFactory.getNameHelper();
+
+        JDefinedClass builderClass = Models.createNestedClass(jclass, JMod.PUBLIC | JMod.STATIC, "Builder", ClassType.CLASS);
+        builderClass.javadoc().add("Collects the property values for a new, immutable " + jclass.name() + " instance.");
+
+        // the creator constructor, used by the builder and during deserialization
+        JMethod constructor = jclass.constructor(JMod.PUBLIC);
+        annotator.creatorConstructor(constructor);
+        JBlock constructorBody = constructor.body();
+
+        JInvocation newInstance = JExpr._new(jclass);
+
+        // properties of the super type are passed through to its own creator constructor
+        JMethod superConstructor = getCreatorConstructor(jclass._extends());
+        if (superConstructor != null) {
+            List<String> superTypePropertyNames = getSuperTypePropertyNames(node, schema);
+            List<JVar> superParams = superConstructor.params();
+            if (superTypePropertyNames.size() != superParams.size()) {
+                throw new IllegalStateException("Super type of " + jclass.fullName() + " is not an immutable type with a creator for all of its properties");
+            }
+
+            JInvocation superInvocation = constructorBody.invoke("super");
+            for (int i = 0; i < superParams.size(); i++) {
+                JVar superParam = superParams.get(i);
+
+                constructor.javadoc().addParam(superParam.name());
+                JVar param = constructor.param(superParam.type(), superParam.name());
+                annotator.creatorParameter(param, superTypePropertyNames.get(i));
+                superInvocation.arg(param);
+
+                JFieldVar builderField = builderClass.field(JMod.PRIVATE, superParam.type(), superParam.name());
+                addBuilderMethod(builderClass, builderField);
+                newInstance.arg(JExpr._this().ref(builderField));
+            }
+        }
+
+        JFieldVar defaults = null;
+        if (node.has("properties")) {
+            for (Iterator<Map.Entry<String, JsonNode>> properties = node.get("properties").fields(); properties.hasNext();) {
+                Map.Entry<String, JsonNode> property = properties.next();
+                String propertyName = property.getKey();
+                JsonNode propertyNode = resolveRefs(property.getValue(), schema);
+
+                JFieldVar field = jclass.fields().get(nameHelper.getPropertyName(propertyName));
+
+                boolean collection = isCollection(field.type());
+                boolean hasDefault = propertyNode.has("default") || (collection && ruleFactory.getGenerationConfig().isInitializeCollections());
+
+                // a missing primitive is passed as 0 (or false), so a primitive with a default is boxed to tell it apart
+                constructor.javadoc().addParam(field.name());
+                JVar param = constructor.param(hasDefault ? field.type().boxify() : field.type(), field.name());
+                annotator.creatorParameter(param, propertyName);
+
+                // the builder holds the default values, a shared instance provides them for absent properties
+                JFieldVar builderField = builderClass.field(JMod.PRIVATE, field.type(), field.name());
+                ruleFactory.getDefaultRule().apply(propertyName, propertyNode.get("default"), builderField, schema);
+                addBuilderMethod(builderClass, builderField);
+                newInstance.arg(JExpr._this().ref(builderField));
+
+                JExpression value = param;
+                if (hasDefault) {
+                    if (defaults == null) {
+                        defaults = jclass.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL, builderClass, "DEFAULTS", JExpr._new(builderClass));
+                    }
+                    value = JOp.cond(param.eq(JExpr._null()), defaults.ref(builderField), param);
+                }
+
+                if (collection) {
+                    JExpression unmodifiableCopy = unmodifiableCopy(jclass, field.type(), value);
+                    value = hasDefault ? unmodifiableCopy : JOp.cond(param.eq(JExpr._null()), JExpr._null(), unmodifiableCopy);
+                }
+
+                constructorBody.assign(JExpr._this().ref(field), value);
+            }
+        }
+
+        JMethod build = builderClass.method(JMod.PUBLIC, jclass, "build");
+        JBlock buildBody = build.body();
+
+        JFieldVar additionalProperties = jclass.fields().get("additionalProperties");
+        if (additionalProperties != null) {
+            JClass valueType = ((JClass) additionalProperties.type()).getTypeParameters().get(1);
+            JClass mapImplType = jclass.owner().ref(HashMap.class).narrow(jclass.owner().ref(String.class), valueType);
+            JFieldVar builderAdditionalProperties = builderClass.field(JMod.PRIVATE | JMod.FINAL, additionalProperties.type(), "additionalProperties", JExpr._new(mapImplType));
+
+            JMethod withAdditionalProperty = builderClass.method(JMod.PUBLIC, builderClass, "withAdditionalProperty");
+            JVar nameParam = withAdditionalProperty.param(String.class, "name");
+            JVar valueParam = withAdditionalProperty.param(valueType, "value");
+            withAdditionalProperty.body().invoke(JExpr._this().ref(builderAdditionalProperties), "put").arg(nameParam).arg(valueParam);
+            withAdditionalProperty.body()._return(JExpr._this());
+
+            JVar instance = buildBody.decl(jclass, "instance", newInstance);
+            JClass entryType = jclass.owner().ref(Map.Entry.class).narrow(jclass.owner().ref(String.class), valueType);
+            JForEach additionalProperty = buildBody.forEach(entryType, "additionalProperty", JExpr._this().ref(builderAdditionalProperties).invoke("entrySet"));
+            additionalProperty.body().invoke(instance, "setAdditionalProperty")
+                    .arg(additionalProperty.var().invoke("getKey"))
+                    .arg(additionalProperty.var().invoke("getValue"));
+            buildBody._return(instance);
+        } else {
+            buildBody._return(newInstance);
+        }
+
+        return builderClass;
+    }
+
+    private void addBuilderMethod(JDefinedClass builderClass, JFieldVar field) {
+        JMethod builder = builderClass.method(JMod.PUBLIC, builderClass, ruleFactory.getNameHelper().getBuilderName(field.name()));
+
+        JVar param = builder.param(field.type(), field.name());
+        JBlock body = builder.body();
+        body.assign(JExpr._this().ref(field), param);
+        body._return(JExpr._this());
+    }
+
+    private JMethod getCreatorConstructor(JClass superType) {
+        if (!(superType instanceof JDefinedClass)) {
+            return null;
+        }
+
+        JMethod creatorConstructor = null;
+        for (Iterator<JMethod> constructors = ((JDefinedClass) superType).constructors(); constructors.hasNext();) {
+            JMethod constructor = constructors.next();
+            if (creatorConstructor == null || constructor.params().size() > creatorConstructor.params().size()) {
+                creatorConstructor = constructor;
+            }
+        }
+        return creatorConstructor;
+    }
+
+    /**
+     * Lists the JSON property names of all super types, in the order used by
+     * the parameters of the super type creator constructor.
+     */
+    private List<String> getSuperTypePropertyNames(JsonNode node, Schema schema) {
+        return new ArrayList<String>(getSuperTypeProperties(node, schema).keySet());
+    }
+
+    /**
+     * Collects the (resolved) property schemas of all super types, keyed by
+     * their JSON property name, in the order the properties are declared.
+     */
+    private Map<String, JsonNode> getSuperTypeProperties(JsonNode node, Schema schema) {
+        Map<String, JsonNode> properties = new LinkedHashMap<String, JsonNode>();
+        if (!node.has("extends")) {
+            return properties;
+        }
+
+        Schema superTypeSchema = getSuperTypeSchema(schema);
+        JsonNode superTypeNode = node.get("extends");
+        while (superTypeNode.has("$ref")) {
+            superTypeSchema = ruleFactory.getSchemaStore().create(superTypeSchema, superTypeNode.get("$ref").asText());
+            superTypeNode = superTypeSchema.getContent();
+        }
+
+        properties.putAll(getSuperTypeProperties(superTypeNode, superTypeSchema));
+        if (superTypeNode.has("properties")) {
+            for (Iterator<Map.Entry<String, JsonNode>> superTypeProperties = superTypeNode.get("properties").fields(); superTypeProperties.hasNext();) {
+                Map.Entry<String, JsonNode> property = superTypeProperties.next();
+                properties.put(property.getKey(), resolveRefs(property.getValue(), superTypeSchema));
+            }
+        }
+        return properties;
+    }
+
+    private boolean hasOnlyGeneratedSuperTypes(JDefinedClass jclass) {
+        JClass superType = jclass._extends();
+        if (superType.fullName().equals(Object.class.getName())) {
+            return true;
+        }
+        return superType instanceof JDefinedClass && hasOnlyGeneratedSuperTypes((JDefinedClass) superType);
+    }
+
+    /**
+     * Adds a serializer and a deserializer that use the Jackson streaming API
+     * to read and write all properties of the type (including inherited ones)
+     * and registers them with the Jackson module of the package.
+     */
+    private void addJacksonSerializers(JDefinedClass jclass, JDefinedClass builderClass, JsonNode node, Schema schema) {
+        List<SerializedProperty> properties = getSerializedProperties(jclass, builderClass, node, schema);
+        JType additionalPropertiesType = getSerializedAdditionalPropertiesType(jclass, builderClass);
+
+        JacksonSerializerHelper helper = new JacksonSerializerHelper(LanguageFeatures.canUseJava7(ruleFactory.getGenerationConfig()));
+        JDefinedClass serializer = helper.addSerializer(jclass, properties, additionalPropertiesType);
+        JDefinedClass deserializer = helper.addDeserializer(jclass, builderClass, properties, additionalPropertiesType,
+                builderClass != null ? "withAdditionalProperty" : "setAdditionalProperty");
+        helper.addToModule(jclass, serializer, deserializer);
+    }
+
+    /**
+     * Adds a type adapter that uses the Gson streaming API to read and write
+     * all properties of the type (including inherited ones and additional
+     * properties) and registers it with the type adapter factory of the
+     * package.
+     */
+    private void addGsonTypeAdapter(JDefinedClass jclass, JDefinedClass builderClass, JsonNode node, Schema schema) {
+        List<SerializedProperty> properties = getSerializedProperties(jclass, builderClass, node, schema);
+        JType additionalPropertiesType = getSerializedAdditionalPropertiesType(jclass, builderClass);
+
+        GsonTypeAdapterHelper helper = new GsonTypeAdapterHelper(LanguageFeatures.canUseJava7(ruleFactory.getGenerationConfig()));
+        JDefinedClass adapter = helper.addTypeAdapter(jclass, builderClass, properties, additionalPropertiesType,
+                builderClass != null ? "withAdditionalProperty" : "setAdditionalProperty");
+        helper.addToFactory(jclass, adapter);
+    }
+
+    private List<SerializedProperty> getSerializedProperties(JDefinedClass jclass, JDefinedClass builderClass, JsonNode node, Schema schema) {
+        NameHelper nameHelper = ruleFactory.getNameHelper();
+        boolean includeAccessors = ruleFactory.getGenerationConfig().isIncludeAccessors();
+        boolean usePresenceBits = ruleFactory.getGenerationConfig().isUsePresenceBits();
+
+        Map<String, JsonNode> propertyNodes = getSuperTypeProperties(node, schema);
+        if (node.has("properties")) {
+            for (Iterator<Map.Entry<String, JsonNode>> properties = node.get("properties").fields(); properties.hasNext();) {
+                Map.Entry<String, JsonNode> property = properties.next();
+                propertyNodes.put(property.getKey(), resolveRefs(property.getValue(), schema));
+            }
+        }
+
+        List<SerializedProperty> properties = new ArrayList<SerializedProperty>();
+        for (Map.Entry<String, JsonNode> propertyNode : propertyNodes.entrySet()) {
+            String propertyName = propertyNode.getKey();
+            JFieldVar field = findField(jclass, nameHelper.getPropertyName(propertyName));
+            if (field == null) {
+                continue;
+            }
+
+            String getterName = includeAccessors ? nameHelper.getGetterName(propertyName, field.type()) : null;
+            String writerName;
+            if (builderClass != null) {
+                writerName = nameHelper.getBuilderName(field.name());
+            } else {
+                writerName = includeAccessors ? nameHelper.getSetterName(propertyName) : null;
+            }
+            JClass view = propertyNode.getValue().has("javaJsonView") ? jclass.owner().ref(propertyNode.getValue().get("javaJsonView").asText()) : null;
+
+            String presenceCheckName = usePresenceBits && field.type().isPrimitive() ? nameHelper.getPresenceCheckName(propertyName) : null;
+
+            properties.add(new SerializedProperty(propertyName, field, getterName, writerName, presenceCheckName, view));
+        }
+        return properties;
+    }
+
+    private JType getSerializedAdditionalPropertiesType(JDefinedClass jclass, JDefinedClass builderClass) {
+        // immutable types only accept additional properties from their builder, and only if they declare the map themselves
+        JFieldVar additionalProperties = findField(jclass, "additionalProperties");
+        JType additionalPropertiesType = null;
+        if (additionalProperties != null && (builderClass == null || jclass.fields().containsKey("additionalProperties"))) {
+            additionalPropertiesType = ((JClass) additionalProperties.type()).getTypeParameters().get(1);
+        }
+        return additionalPropertiesType;
+    }
+
+    /**
+     * Positional types are written as a JSON array of their property values,
+     * in the order of the schema, after the version of this layout (from the
+     * 'positionalVersion' extension, 1 by default). A reader accepts arrays
+     * of the same or an older version, properties missing at the end of the
+     * array (added by a later version) keep their initial value. Positional
+     * types have no additional properties.
+     */
+    private void addPositionalEncoding(JDefinedClass jclass, JsonNode node) {
+        GenerationConfig config = ruleFactory.getGenerationConfig();
+        Annotator annotator = ruleFactory.getAnnotator();
+        if (!annotator.isPositionalEncodingSupported()) {
+            throw new GenerationException("Positional encoding (used for " + jclass.fullName() + ") isn't supported by the annotator, it requires annotationStyle=jackson2");
+        }
+        // the positions of inherited properties aren't fixed by this schema
+        if (!jclass._extends().fullName().equals(Object.class.getName())) {
+            throw new GenerationException("Positional encoding (used for " + jclass.fullName() + ") can't be used for a type that extends "
+                    + jclass._extends().fullName());
+        }
+
+        String unsupported = null;
+        if (config.isImmutable()) {
+            unsupported = "immutable";
+        } else if (config.isIncludeStreamingSerializers()) {
+            unsupported = "includeStreamingSerializers";
+        } else if (config.isGenerateProjectionReaders()) {
+            unsupported = "generateProjectionReaders";
+        } else if (config.isGenerateNodeViews()) {
+            unsupported = "generateNodeViews";
+        } else if (config.isIncludeStreamingValidators()) {
+            unsupported = "includeStreamingValidators";
+        } else if (config.isGenerateBatchClasses()) {
+            unsupported = "generateBatchClasses";
+        }
+        if (unsupported != null) {
+            throw new GenerationException("Positional encoding (used for " + jclass.fullName() + ") can't be combined with the '" + unsupported
+                    + "' option, it reads and writes JSON objects");
+        }
+
+        if (node.path("additionalProperties").isObject()) {
+            throw new GenerationException("Positional encoding (used for " + jclass.fullName()
+                    + ") can't be combined with an additionalProperties schema, arrays have no names for additional properties");
+        }
+
+        int version = node.path("positionalVersion").asInt(1);
+        if (version < 1) {
+            throw new GenerationException("Invalid positionalVersion " + version + " for " + jclass.fullName() + ", versions start at 1");
+        }
+        JFieldVar versionField = jclass.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL, int.class, "POSITIONAL_VERSION", JExpr.lit(version));
+
+        JMethod getter = jclass.method(JMod.PRIVATE, int.class, "positionalVersion");
+        getter.body()._return(versionField);
+
+        JMethod setter = jclass.method(JMod.PRIVATE, void.class, "positionalVersion");
+        JVar versionParam = setter.param(int.class, "version");
+        setter.body()._if(versionParam.gt(versionField))._then()._throw(JExpr._new(jclass.owner().ref(IllegalArgumentException.class))
+                .arg(JExpr.lit("Can't read version ").plus(versionParam).plus(JExpr.lit(" of " + jclass.name() + ", the latest known version is "))
+                        .plus(versionField)));
+
+        annotator.positionalEncoding(jclass, getter, setter);
+    }
+
+    /**
+     * Sparse types have no field per property, so the options that generate
+     * code from the fields (or read and write them reflectively) don't apply.
+     */
+    private void checkSparseStorageSupported(JDefinedClass jclass) {
+        GenerationConfig config = ruleFactory.getGenerationConfig();
+        String unsupported = null;
+        if (config.isImmutable()) {
+            unsupported = "immutable";
+        } else if (config.isParcelable()) {
+            unsupported = "parcelable";
+        } else if (config.isExternalizable()) {
+            unsupported = "externalizable";
+        } else if (config.isGenerateNodeViews()) {
+            unsupported = "generateNodeViews";
+        } else if (config.isGenerateProjectionReaders()) {
+            unsupported = "generateProjectionReaders";
+        } else if (config.isGenerateBufferViews()) {
+            unsupported = "generateBufferViews";
+        } else if (config.isIncludeConstructors()) {
+            unsupported = "includeConstructors";
+        } else if (config.isIncludeDynamicAccessors()) {
+            unsupported = "includeDynamicAccessors";
+        } else if (config.isIncludePropertyMetadata()) {
+            unsupported = "includePropertyMetadata";
+        } else if (config.isIncludeDeepCopy()) {
+            unsupported = "includeDeepCopy";
+        } else if (config.isIncludeStreamingSerializers()) {
+            unsupported = "includeStreamingSerializers";
+        } else if (config.isIncludeJsr303Annotations()) {
+            unsupported = "includeJsr303Annotations";
+        } else if (config.isIncludeValidateMethods()) {
+            unsupported = "includeValidateMethods";
+        } else if (!config.isIncludeAccessors()) {
+            unsupported = "includeAccessors=false";
+        } else if (config.getAnnotationStyle() == AnnotationStyle.GSON) {
+            unsupported = "annotationStyle=gson";
+        }
+
+        if (unsupported != null) {
+            throw new GenerationException("Sparse storage (used for " + jclass.fullName() + ") can't be combined with the '" + unsupported
+                    + "' option, sparse types have no field per property");
+        }
+    }
+
+    /**
+     * Tracks whether each primitive property declared by the type is present
+     * (inherited properties are tracked by the super type). Properties with a
+     * default value are initialized from a constant that clearing the
+     * property restores.
+     */
+    private PresenceHelper addPresenceTracking(JDefinedClass jclass, JsonNode node, Schema schema) {
+        GenerationConfig config = ruleFactory.getGenerationConfig();
+        if (config.isImmutable()) {
+            throw new GenerationException("The 'usePresenceBits' and 'immutable' options can't be combined, presence is recorded by the setters");
+        }
+        if (!config.isIncludeAccessors()) {
+            throw new GenerationException("The 'usePresenceBits' option requires accessors, presence is recorded by the setters");
+        }
+        if (config.getAnnotationStyle() == AnnotationStyle.GSON && !config.isIncludeStreamingSerializers()) {
+            throw new GenerationException("The 'usePresenceBits' option requires 'includeStreamingSerializers' with the Gson annotation style, "
+                    + "Gson assigns the fields directly unless the generated type adapters read the properties");
+        }
+
+        PresenceHelper presence = new PresenceHelper();
+        if (!node.has("properties")) {
+            return presence;
+        }
+
+        Map<String, JFieldVar> fields = new LinkedHashMap<String, JFieldVar>();
+        Map<String, JExpression> defaultValues = new HashMap<String, JExpression>();
+        for (Iterator<Map.Entry<String, JsonNode>> properties = node.get("properties").fields(); properties.hasNext();) {
+            Map.Entry<String, JsonNode> property = properties.next();
+            JFieldVar field = jclass.fields().get(ruleFactory.getNameHelper().getPropertyName(property.getKey()));
+            if (field == null || !field.type().isPrimitive()) {
+                continue;
+            }
+            fields.put(property.getKey(), field);
+
+            JsonNode defaultNode = resolveRefs(property.getValue(), schema).get("default");
+            if (defaultNode != null && !defaultNode.isNull()) {
+                JFieldVar constant = jclass.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL, field.type(), Models.getDefaultConstantName(jclass, field.name()));
+                ruleFactory.getDefaultRule().apply(property.getKey(), defaultNode, constant, schema);
+                field.init(constant);
+                defaultValues.put(property.getKey(), constant);
+            }
+        }
+
+        presence.addPresenceTracking(jclass, fields, defaultValues, ruleFactory.getNameHelper(), ruleFactory.getAnnotator(),
+                config.isGenerateBuilders());
+        return presence;
+    }
+
+    /**
+     * Adds methods that check the constraints of the properties declared by
+     * the type (inherited properties are checked by the super type).
+     */
+    private void addValidateMethods(JDefinedClass jclass, JsonNode node, Schema schema) {
+        Map<String, JsonNode> propertyNodes = new LinkedHashMap<String, JsonNode>();
+        Set<String> requiredProperties = new HashSet<String>();
+        if (node.has("properties")) {
+            for (Iterator<Map.Entry<String, JsonNode>> properties = node.get("properties").fields(); properties.hasNext();) {
+                Map.Entry<String, JsonNode> property = properties.next();
+                JsonNode propertyNode = resolveRefs(property.getValue(), schema);
+                propertyNodes.put(property.getKey(), propertyNode);
+                if (propertyNode.path("required").asBoolean()) {
+                    requiredProperties.add(property.getKey());
+                }
+            }
+        }
+        if (node.path("required").isArray()) {
+            for (JsonNode requiredProperty : node.get("required")) {
+                requiredProperties.add(requiredProperty.asText());
+            }
+        }
+
+        new ValidationHelper().addValidateMethods(jclass, propertyNodes, requiredProperties, ruleFactory.getNameHelper());
+    }
+
+    /**
+     * Adds a validator that checks JSON data against the schema of the type
+     * (including inherited properties) while it is read from a parser.
+     */
+    private void addStreamingValidator(JDefinedClass jclass, JsonNode node, Schema schema) {
+        Map<String, JsonNode> propertyNodes = new LinkedHashMap<String, JsonNode>();
+        Set<String> requiredProperties = new HashSet<String>();
+        collectValidatedProperties(node, schema, propertyNodes, requiredProperties);
+
+        Map<String, JType> propertyTypes = new HashMap<String, JType>();
+        for (String propertyName : propertyNodes.keySet()) {
+            JFieldVar field = findField(jclass, ruleFactory.getNameHelper().getPropertyName(propertyName));
+            propertyTypes.put(propertyName, field != null ? field.type() : null);
+        }
+
+        JsonNode additionalProperties = node.get("additionalProperties");
+        boolean allowAdditionalProperties = additionalProperties == null || !additionalProperties.isBoolean() || additionalProperties.asBoolean();
+
+        new StreamingValidatorHelper(LanguageFeatures.canUseJava7(ruleFactory.getGenerationConfig()))
+                .addValidator(jclass, propertyNodes, propertyTypes, requiredProperties, allowAdditionalProperties);
+    }
+
+    /**
+     * Collects the properties of the type and its super types, with all refs
+     * (including those of array items) resolved against the schema that
+     * declares them, since the validator has no access to that schema.
+     */
+    private void collectValidatedProperties(JsonNode node, Schema schema, Map<String, JsonNode> propertyNodes, Set<String> requiredProperties) {
+        if (node.has("extends")) {
+            Schema superTypeSchema = getSuperTypeSchema(schema);
+            JsonNode superTypeNode = node.get("extends");
+            while (superTypeNode.has("$ref")) {
+                superTypeSchema = ruleFactory.getSchemaStore().create(superTypeSchema, superTypeNode.get("$ref").asText());
+                superTypeNode = superTypeSchema.getContent();
+            }
+            collectValidatedProperties(superTypeNode, superTypeSchema, propertyNodes, requiredProperties);
+        }
+
+        if (node.has("properties")) {
+            for (Iterator<Map.Entry<String, JsonNode>> properties = node.get("properties").fields(); properties.hasNext();) {
+                Map.Entry<String, JsonNode> property = properties.next();
+                JsonNode propertyNode = resolveItems(resolveRefs(property.getValue(), schema), schema);
+                propertyNodes.put(property.getKey(), propertyNode);
+                if (propertyNode.path("required").asBoolean()) {
+                    requiredProperties.add(property.getKey());
+                }
+            }
+        }
+
+        if (node.path("required").isArray()) {
+            for (JsonNode requiredProperty : node.get("required")) {
+                requiredProperties.add(requiredProperty.asText());
+            }
+        }
+    }
+
+    private JsonNode resolveItems(JsonNode node, Schema schema) {
+        if (!node.path("items").isObject()) {
+            return node;
+        }
+        ObjectNode resolvedNode = node.deepCopy();
+        resolvedNode.put("items", resolveItems(resolveRefs(node.get("items"), schema), schema));
+        return resolvedNode;
+    }
+
+    /**
+     * Adds a static index of all properties (including inherited ones) so
+     * that callers can resolve a property name once and then access the
+     * property by its position. The name lookup is a switch over a hash
+     * table that is chosen at generation time to be collision free wherever
+     * the property names allow it.
+     */
+    private void addPropertyIndex(JDefinedClass jclass, JsonNode node, Schema schema) {
+        Set<String> propertyNames = new LinkedHashSet<String>(getSuperTypePropertyNames(node, schema));
+        if (node.has("properties")) {
+            for (Iterator<String> properties = node.get("properties").fieldNames(); properties.hasNext();) {
+                propertyNames.add(properties.next());
+            }
+        }
+
+        List<String> indexedNames = new ArrayList<String>();
+        List<JFieldVar> indexedFields = new ArrayList<JFieldVar>();
+        for (String propertyName : propertyNames) {
+            JFieldVar field = findField(jclass, ruleFactory.getNameHelper().getPropertyName(propertyName));
+            if (field != null) {
+                indexedNames.add(propertyName);
+                indexedFields.add(field);
+            }
+        }
+
+        JClass stringListClass = jclass.owner().ref(List.class).narrow(String.class);
+        JInvocation names = jclass.owner().ref(Collections.class).staticInvoke("emptyList");
+        if (!indexedNames.isEmpty()) {
+            JInvocation asList = jclass.owner().ref(Arrays.class).staticInvoke("asList");
+            for (String propertyName : indexedNames) {
+                asList.arg(JExpr.lit(propertyName));
+            }
+            names = jclass.owner().ref(Collections.class).staticInvoke("unmodifiableList").arg(asList);
+        }
+        jclass.field(JMod.PUBLIC | JMod.STATIC | JMod.FINAL, stringListClass, "PROPERTY_NAMES", names);
+
+        JMethod indexOf = jclass.method(JMod.PUBLIC | JMod.STATIC, int.class, "indexOfProperty");
+        JVar nameParam = indexOf.param(String.class, "name");
+        if (!indexedNames.isEmpty()) {
+            int tableSize = getPropertyTableSize(indexedNames);
+            List<List<Integer>> slots = new ArrayList<List<Integer>>();
+            for (int i = 0; i < tableSize; i++) {
+                slots.add(new ArrayList<Integer>());
+            }
+            for (int i = 0; i < indexedNames.size(); i++) {
+                slots.get(getPropertyTableSlot(indexedNames.get(i), tableSize)).add(i);
+            }
+
+            JExpression slot = nameParam.invoke("hashCode").band(JExpr.lit(Integer.MAX_VALUE)).mod(JExpr.lit(tableSize));
+            JSwitch slotSwitch = indexOf.body()._switch(slot);
+            for (int i = 0; i < tableSize; i++) {
+                if (slots.get(i).isEmpty()) {
+                    continue;
+                }
+                JBlock caseBody = slotSwitch._case(JExpr.lit(i)).body();
+                for (Integer index : slots.get(i)) {
+                    caseBody._if(JExpr.lit(indexedNames.get(index)).invoke("equals").arg(nameParam))._then()._return(JExpr.lit(index));
+                }
+                caseBody._break();
+            }
+        }
+        indexOf.body()._return(JExpr.lit(-1));
+
+        if (!ruleFactory.getGenerationConfig().isIncludeAccessors()) {
+            return;
+        }
+
+        JMethod get = jclass.method(JMod.PUBLIC, Object.class, DynamicPropertiesRule.GETTER_NAME);
+        JVar getIndexParam = get.param(int.class, "index");
+        JSwitch getSwitch = get.body()._switch(getIndexParam);
+        for (int i = 0; i < indexedFields.size(); i++) {
+            JFieldVar field = indexedFields.get(i);
+            String getterName = ruleFactory.getNameHelper().getGetterName(indexedNames.get(i), field.type());
+            getSwitch._case(JExpr.lit(i)).body()._return(JExpr.invoke(getterName));
+        }
+        getSwitch._default().body()._throw(indexOutOfBoundsInvocation(jclass, getIndexParam));
+
+        if (ruleFactory.getGenerationConfig().isImmutable()) {
+            return;
+        }
+
+        JMethod set = jclass.method(JMod.PUBLIC, void.class, DynamicPropertiesRule.SETTER_NAME);
+        JVar setIndexParam = set.param(int.class, "index");
+        JVar valueParam = set.param(Object.class, "value");
+        JSwitch setSwitch = set.body()._switch(setIndexParam);
+        for (int i = 0; i < indexedFields.size(); i++) {
+            JType propertyType = indexedFields.get(i).type();
+            JBlock caseBody = setSwitch._case(JExpr.lit(i)).body();
+            JConditional isInstance = caseBody._if(valueParam._instanceof(propertyType.boxify().erasure()));
+            isInstance._then().invoke(ruleFactory.getNameHelper().getSetterName(indexedNames.get(i))).arg(JExpr.cast(propertyType.boxify(), valueParam));
+            isInstance._else()._throw(JExpr._new(jclass.owner().ref(IllegalArgumentException.class))
+                    .arg(JExpr.lit("property \"" + indexedNames.get(i) + "\" is of type \"" + propertyType.fullName() + "\", but got ")
+                            .plus(valueParam.invoke("getClass").invoke("toString"))));
+            caseBody._return();
+        }
+        setSwitch._default().body()._throw(indexOutOfBoundsInvocation(jclass, setIndexParam));
+    }
+
+    private JFieldVar findField(JDefinedClass jclass, String fieldName) {
+        for (JClass type = jclass; type instanceof JDefinedClass; type = type._extends()) {
+            JFieldVar field = ((JDefinedClass) type).fields().get(fieldName);
+            if (field != null && (field.mods().getValue() & JMod.STATIC) == 0) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds the smallest hash table size that gives every property name a slot
+     * of its own. Names with equal hash codes always share a slot, in which case
+     * the size with the fewest shared slots is used.
+     */
+    private int getPropertyTableSize(List<String> propertyNames) {
+        int bestSize = propertyNames.size();
+        int fewestCollisions = Integer.MAX_VALUE;
+        for (int size = propertyNames.size(); size <= propertyNames.size() * 8; size++) {
+            Set<Integer> usedSlots = new HashSet<Integer>();
+            int collisions = 0;
+            for (String propertyName : propertyNames) {
+                if (!usedSlots.add(getPropertyTableSlot(propertyName, size))) {
+                    collisions++;
+                }
+            }
+            if (collisions == 0) {
+                return size;
+            }
+            if (collisions < fewestCollisions) {
+                fewestCollisions = collisions;
+                bestSize = size;
+            }
+        }
+        return bestSize;
+    }
+
+    private int getPropertyTableSlot(String propertyName, int tableSize) {
+        return (propertyName.hashCode() & Integer.MAX_VALUE) % tableSize;
+    }
+
+    private JInvocation indexOutOfBoundsInvocation(JDefinedClass jclass, JVar index) {
+        return JExpr._new(jclass.owner().ref(IndexOutOfBoundsException.class))
+                .arg(JExpr.lit("property index ").plus(index).plus(JExpr.lit(" is not defined")));
+    }
+
+    private JsonNode resolveRefs(JsonNode node, Schema parent) {
+        if (node.has("$ref")) {
+            Schema refSchema = ruleFactory.getSchemaStore().create(parent, node.get("$ref").asText());
+            return resolveRefs(refSchema.getContent(), parent);
+        } else {
+            return node;
+        }
+    }
+
+    private boolean isCollection(JType type) {
+        String typeName = type.erasure().fullName();
+        return typeName.equals(List.class.getName()) || typeName.equals(Set.class.getName());
+    }
+
+    private JExpression unmodifiableCopy(JDefinedClass jclass, JType collectionType, JExpression value) {
+        List<JClass> typeParameters = ((JClass) collectionType).getTypeParameters();
+        if (collectionType.erasure().fullName().equals(List.class.getName())) {
+            JClass copyType = jclass.owner().ref(ArrayList.class).narrow(typeParameters);
+            return jclass.owner().ref(Collections.class).staticInvoke("unmodifiableList").arg(JExpr._new(copyType).arg(value));
+        } else {
+            JClass copyType = jclass.owner().ref(LinkedHashSet.class).narrow(typeParameters);
+            return jclass.owner().ref(Collections.class).staticInvoke("unmodifiableSet").arg(JExpr._new(copyType).arg(value));
         }
     }
 
-    private void addEquals(JDefinedClass jclass) {
+    private void addEquals(JDefinedClass jclass, JFieldVar additionalProperties) {
         Map<String, JFieldVar> fields = jclass.fields();
         if (fields.isEmpty()) {
             return;
@@ -403,7 +1368,7 @@ public class ObjectRule implements Rule<JPackage, JType> {
         }
 
         for (JFieldVar fieldVar : fields.values()) {
-            if( (fieldVar.mods().getValue() & JMod.STATIC) == JMod.STATIC ) continue;
+            if (!isStateField(fieldVar, additionalProperties)) continue;
             equalsBuilderInvocation = equalsBuilderInvocation.invoke("append")
                     .arg(fieldVar)
                     .arg(rhsVar.ref(fieldVar.name()));
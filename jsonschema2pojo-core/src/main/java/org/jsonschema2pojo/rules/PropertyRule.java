@@ -16,18 +16,27 @@
 
 package org.jsonschema2pojo.rules;
 
-import static org.apache.commons.lang3.StringUtils.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 
 import org.jsonschema2pojo.Schema;
+import org.jsonschema2pojo.util.Models;
+import org.jsonschema2pojo.util.SparseStorageHelper;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JClass;
 import com.sun.codemodel.JDefinedClass;
 import com.sun.codemodel.JDocCommentable;
 import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
 import com.sun.codemodel.JFieldVar;
 import com.sun.codemodel.JMethod;
 import com.sun.codemodel.JMod;
+import com.sun.codemodel.JOp;
 import com.sun.codemodel.JType;
 import com.sun.codemodel.JVar;
 
@@ -75,21 +84,35 @@ public class PropertyRule implements Rule<JDefinedClass, JDefinedClass> {
 
         node = resolveRefs(node, schema);
 
+        SparseStorageHelper sparseStorage = SparseStorageHelper.get(jclass);
+        if (sparseStorage != null) {
+            addSparseProperty(nodeName, node, jclass, schema, propertyName, propertyType.boxify(), sparseStorage);
+            return jclass;
+        }
+
+        boolean immutable = ruleFactory.getGenerationConfig().isImmutable();
+
         int accessModifier = ruleFactory.getGenerationConfig().isIncludeAccessors() ? JMod.PRIVATE : JMod.PUBLIC;
+        if (immutable) {
+            accessModifier |= JMod.FINAL;
+        }
         JFieldVar field = jclass.field(accessModifier, propertyType, propertyName);
         propertyAnnotations(nodeName, node, schema, field);
 
         ruleFactory.getAnnotator().propertyField(field, jclass, nodeName, node);
 
+        JMethod getter = null;
         if (ruleFactory.getGenerationConfig().isIncludeAccessors()) {
-            JMethod getter = addGetter(jclass, field, nodeName);
+            getter = addGetter(jclass, field, nodeName);
             propertyAnnotations(nodeName, node, schema, getter);
 
-            JMethod setter = addSetter(jclass, field, nodeName);
-            propertyAnnotations(nodeName, node, schema, setter);
+            if (!immutable) {
+                JMethod setter = addSetter(jclass, field, nodeName);
+                propertyAnnotations(nodeName, node, schema, setter);
+            }
         }
 
-        if (ruleFactory.getGenerationConfig().isGenerateBuilders()) {
+        if (ruleFactory.getGenerationConfig().isGenerateBuilders() && !immutable) {
             addBuilder(jclass, field);
         }
 
@@ -97,7 +120,14 @@ public class PropertyRule implements Rule<JDefinedClass, JDefinedClass> {
             ruleFactory.getPatternRule().apply(nodeName, node.get("pattern"), field, schema);
         }
 
-        ruleFactory.getDefaultRule().apply(nodeName, node.get("default"), field, schema);
+        // final fields are assigned by the constructor, defaults are held by the builder instead
+        if (!immutable) {
+            if (getter != null && isSharedCollectionDefault(field, node.get("default"))) {
+                addSharedCollectionDefault(jclass, field, getter, nodeName, node.get("default"), schema);
+            } else {
+                ruleFactory.getDefaultRule().apply(nodeName, node.get("default"), field, schema);
+            }
+        }
 
         ruleFactory.getMinimumMaximumRule().apply(nodeName, node, field, schema);
 
@@ -105,13 +135,64 @@ public class PropertyRule implements Rule<JDefinedClass, JDefinedClass> {
 
         ruleFactory.getMinLengthMaxLengthRule().apply(nodeName, node, field, schema);
 
-        if (isObject(node) || isArray(node)) {
+        // there is nothing to cascade into for primitive arrays
+        if (isObject(node) || (isArray(node) && !field.type().isArray())) {
             ruleFactory.getValidRule().apply(nodeName, node, field, schema);
         }
 
         return jclass;
     }
 
+    /**
+     * Adds the accessors of a property that is held in a slot of the sparse
+     * storage of the type instead of in a field. A default value is returned
+     * while the slot isn't set (collections have no default, they are
+     * <code>null</code> until set).
+     */
+    private void addSparseProperty(String nodeName, JsonNode node, JDefinedClass jclass, Schema schema, String propertyName, JType propertyType,
+            SparseStorageHelper sparseStorage) {
+        JFieldVar slot = sparseStorage.addSlot(propertyName, propertyType);
+
+        JFieldVar defaultValue = null;
+        JsonNode defaultNode = node.get("default");
+        if (defaultNode != null && !defaultNode.isNull() && !isCollection(propertyType)) {
+            defaultValue = jclass.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL, propertyType, Models.getDefaultConstantName(jclass, propertyName));
+            ruleFactory.getDefaultRule().apply(nodeName, defaultNode, defaultValue, schema);
+        }
+
+        JMethod getter = jclass.method(JMod.PUBLIC, propertyType, getGetterName(nodeName, propertyType));
+        getter.javadoc().addReturn().append("The " + propertyName);
+        if (propertyType instanceof JClass && !((JClass) propertyType).getTypeParameters().isEmpty()) {
+            Models.suppressWarnings(getter, "unchecked");
+        }
+        JExpression value = JExpr.cast(propertyType, sparseStorage.getValue(slot));
+        if (defaultValue != null) {
+            JVar valueVar = getter.body().decl(propertyType, propertyName, value);
+            getter.body()._return(JOp.cond(valueVar.ne(JExpr._null()), valueVar, defaultValue));
+        } else {
+            getter.body()._return(value);
+        }
+        ruleFactory.getAnnotator().propertyGetter(getter, nodeName);
+        propertyAnnotations(nodeName, node, schema, getter);
+
+        JMethod setter = jclass.method(JMod.PUBLIC, void.class, getSetterName(nodeName));
+        setter.javadoc().addParam(propertyName).append("The " + nodeName);
+        sparseStorage.setValue(setter.body(), slot, setter.param(propertyType, propertyName));
+        ruleFactory.getAnnotator().propertySetter(setter, nodeName);
+        propertyAnnotations(nodeName, node, schema, setter);
+
+        if (ruleFactory.getGenerationConfig().isGenerateBuilders()) {
+            JMethod builder = jclass.method(JMod.PUBLIC, jclass, getBuilderName(propertyName));
+            sparseStorage.setValue(builder.body(), slot, builder.param(propertyType, propertyName));
+            builder.body()._return(JExpr._this());
+        }
+    }
+
+    private boolean isCollection(JType type) {
+        String erasure = type.erasure().fullName();
+        return erasure.equals(List.class.getName()) || erasure.equals(Set.class.getName());
+    }
+
     private void propertyAnnotations(String nodeName, JsonNode node, Schema schema, JDocCommentable generatedJavaConstruct) {
         if (node.has("title")) {
             ruleFactory.getTitleRule().apply(nodeName, node.get("title"), generatedJavaConstruct, schema);
@@ -126,6 +207,62 @@ public class PropertyRule implements Rule<JDefinedClass, JDefinedClass> {
         }
     }
 
+    private boolean isSharedCollectionDefault(JFieldVar field, JsonNode defaultNode) {
+        if (!ruleFactory.getGenerationConfig().isShareCollectionDefaults() || ruleFactory.getGenerationConfig().isParcelable()) {
+            return false;
+        }
+
+        String fieldType = field.type().erasure().fullName();
+        if (!fieldType.equals(List.class.getName()) && !fieldType.equals(Set.class.getName())) {
+            return false;
+        }
+
+        if (defaultNode != null && defaultNode.isNull()) {
+            return false;
+        }
+
+        return isNonEmptyArray(defaultNode) || ruleFactory.getGenerationConfig().isInitializeCollections();
+    }
+
+    /**
+     * Initializes a collection field with a shared, immutable default instead
+     * of allocating a new collection for every instance. Non-empty defaults are
+     * built once into a static constant. The getter replaces the shared default
+     * with a mutable copy the first time it is called, so callers may still
+     * modify the collection they get. As the getter writes the field, reads of
+     * an instance from several threads must be synchronized by the caller.
+     */
+    private void addSharedCollectionDefault(JDefinedClass jclass, JFieldVar field, JMethod getter, String nodeName, JsonNode defaultNode, Schema schema) {
+        boolean list = field.type().erasure().fullName().equals(List.class.getName());
+        JClass collections = jclass.owner().ref(Collections.class);
+
+        JExpression sharedDefault;
+        if (isNonEmptyArray(defaultNode)) {
+            JFieldVar constant = jclass.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL, field.type(), Models.getDefaultConstantName(jclass, field.name()));
+            ruleFactory.getDefaultRule().apply(nodeName, defaultNode, constant, schema);
+            field.init(constant);
+            sharedDefault = constant;
+        } else {
+            field.init(collections.staticInvoke(list ? "emptyList" : "emptySet"));
+            // emptyList() and emptySet() always return these singletons
+            sharedDefault = collections.staticRef(list ? "EMPTY_LIST" : "EMPTY_SET");
+        }
+
+        JClass copyType = jclass.owner().ref(list ? ArrayList.class : LinkedHashSet.class).narrow(((JClass) field.type()).getTypeParameters());
+
+        getter.javadoc().append("The shared default is replaced by a mutable copy on the first call, so this method is not safe for concurrent use without synchronization.");
+
+        JBlock body = getter.body();
+        body.pos(0);
+        body._if(JExpr._this().ref(field).eq(sharedDefault))._then()
+                .assign(JExpr._this().ref(field), JExpr._new(copyType).arg(JExpr._this().ref(field)));
+        body.pos(body.getContents().size());
+    }
+
+    private boolean isNonEmptyArray(JsonNode node) {
+        return node != null && node.isArray() && node.size() > 0;
+    }
+
     private JsonNode resolveRefs(JsonNode node, Schema parent) {
         if (node.has("$ref")) {
             Schema refSchema = ruleFactory.getSchemaStore().create(parent, node.get("$ref").asText());
@@ -153,7 +290,10 @@ public class PropertyRule implements Rule<JDefinedClass, JDefinedClass> {
         JBlock body = getter.body();
         body._return(field);
 
-        ruleFactory.getAnnotator().propertyGetter(getter, jsonPropertyName);
+        // serializers read a primitive whose presence is tracked through a getter that returns null while it's absent
+        if (!ruleFactory.getGenerationConfig().isUsePresenceBits() || !field.type().isPrimitive()) {
+            ruleFactory.getAnnotator().propertyGetter(getter, jsonPropertyName);
+        }
 
         return getter;
     }
@@ -185,8 +325,7 @@ public class PropertyRule implements Rule<JDefinedClass, JDefinedClass> {
     }
 
     private String getBuilderName(String propertyName) {
-        propertyName = ruleFactory.getNameHelper().replaceIllegalCharacters(propertyName);
-        return "with" + capitalize(ruleFactory.getNameHelper().capitalizeTrailingWords(propertyName));
+        return ruleFactory.getNameHelper().getBuilderName(propertyName);
     }
 
     private String getSetterName(String propertyName) {
@@ -58,7 +58,9 @@ public class TypeRule implements Rule<JClassContainer, JType> {
      * <li>"type":"any" =&gt; {@link java.lang.Object}
      * <li>"type":"array" =&gt; Either {@link java.util.Set} or
      * <li>"type":"boolean" =&gt; <code>boolean</code>
-     * <li>"type":"integer" =&gt; <code>int</code>
+     * <li>"type":"integer" =&gt; <code>int</code> (or the smallest type that
+     * holds the range from "minimum" to "maximum", when the 'useNarrowIntegers'
+     * option is enabled)
      * <li>"type":"null" =&gt; {@link java.lang.Object}
      * <li>"type":"number" =&gt; <code>double</code>
      * <li>"type":"object" =&gt; Generated type (see {@link ObjectRule})
@@ -136,7 +138,7 @@ public class TypeRule implements Rule<JClassContainer, JType> {
     }
 
     private JType unboxIfNecessary(JType type, GenerationConfig config) {
-        if (config.isUsePrimitives()) {
+        if (config.isUsePrimitives() || config.isUsePresenceBits()) {
             return type.unboxify();
         } else {
             return type;
@@ -148,7 +150,9 @@ public class TypeRule implements Rule<JClassContainer, JType> {
      */
     private JType getIntegerType(JCodeModel owner, JsonNode node, GenerationConfig config) {
 
-        if (config.isUseLongIntegers() ||
+        if (config.isUseNarrowIntegers() && node.has("minimum") && node.has("maximum")) {
+            return unboxIfNecessary(getNarrowIntegerType(owner, node.get("minimum"), node.get("maximum")), config);
+        } else if (config.isUseLongIntegers() ||
                 (node.has("minimum") && node.get("minimum").isLong()) ||
                 (node.has("maximum") && node.get("maximum").isLong())) {
             return unboxIfNecessary(owner.ref(Long.class), config);
@@ -158,6 +162,31 @@ public class TypeRule implements Rule<JClassContainer, JType> {
 
     }
 
+    /**
+     * Returns the smallest wrapper type that can hold every value between the
+     * given minimum and maximum.
+     */
+    private JType getNarrowIntegerType(JCodeModel owner, JsonNode minimum, JsonNode maximum) {
+
+        if (!minimum.canConvertToLong() || !maximum.canConvertToLong()) {
+            return owner.ref(Long.class);
+        }
+
+        long min = minimum.asLong();
+        long max = maximum.asLong();
+
+        if (min >= Byte.MIN_VALUE && max <= Byte.MAX_VALUE) {
+            return owner.ref(Byte.class);
+        } else if (min >= Short.MIN_VALUE && max <= Short.MAX_VALUE) {
+            return owner.ref(Short.class);
+        } else if (min >= Integer.MIN_VALUE && max <= Integer.MAX_VALUE) {
+            return owner.ref(Integer.class);
+        } else {
+            return owner.ref(Long.class);
+        }
+
+    }
+
     /**
      * Returns the JType for a number field. Handles type lookup and unboxing.
      */
@@ -0,0 +1,382 @@
+/**
+ * Copyright © 2010-2014 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jsonschema2pojo.util;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.sun.codemodel.ClassType;
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JCatchBlock;
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JConditional;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JFieldRef;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JForEach;
+import com.sun.codemodel.JForLoop;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+import com.sun.codemodel.JOp;
+import com.sun.codemodel.JPackage;
+import com.sun.codemodel.JTryBlock;
+import com.sun.codemodel.JVar;
+
+/**
+ * Generates a reader and a writer for the items of a schema whose root is an
+ * array, so that the items can be processed one at a time instead of as a
+ * list that holds all of them.
+ * <p>
+ * The reader reads either a JSON array or a sequence of items (such as
+ * newline-delimited JSON, one item per line), and can also parse the lines
+ * of newline-delimited JSON on several threads. The writer writes either a
+ * JSON array or newline-delimited JSON.
+ */
+public class ArrayStreamHelper {
+
+    private static final int LINES_PER_BATCH = 256;
+
+    private final boolean useStreams;
+
+    /**
+     * @param useStreams
+     *            whether the reader may offer its items as a
+     *            <code>java.util.stream.Stream</code> (Java 8 and later)
+     */
+    public ArrayStreamHelper(boolean useStreams) {
+        this.useStreams = useStreams;
+    }
+
+    /**
+     * Adds a <code>FooReader</code> and a <code>FooWriter</code> class for
+     * the items of the given array schema.
+     *
+     * @param _package
+     *            the package of the classes
+     * @param name
+     *            the name of the array, which the class names start with
+     * @param itemType
+     *            the type of the items
+     */
+    public void addArrayStreams(JPackage _package, String name, JClass itemType) {
+        addReader(Models.createClass(_package, JMod.PUBLIC, name + "Reader", ClassType.CLASS), itemType);
+        addWriter(Models.createClass(_package, JMod.PUBLIC, name + "Writer", ClassType.CLASS), itemType);
+    }
+
+    private void addReader(JDefinedClass reader, JClass itemType) {
+        JCodeModel owner = reader.owner();
+        String itemName = itemType.erasure().name();
+
+        reader._implements(owner.ref(Iterator.class).narrow(itemType));
+        reader._implements(Closeable.class);
+        reader.javadoc().add("Reads " + itemName + " items one at a time, from a JSON array or from a sequence of items "
+                + "(such as newline-delimited JSON, one item per line).");
+
+        JFieldVar mapper = reader.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL, ObjectMapper.class, "MAPPER", JExpr._new(owner.ref(ObjectMapper.class)));
+        JFieldVar linesPerBatch = reader.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL, int.class, "LINES_PER_BATCH", JExpr.lit(LINES_PER_BATCH));
+        JExpression itemClass = JExpr.dotclass(itemType);
+        if (!itemType.getTypeParameters().isEmpty()) {
+            JClass typeReferenceType = owner.ref(TypeReference.class).narrow(itemType);
+            itemClass = reader.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL, typeReferenceType, "ITEM_TYPE", JExpr._new(owner.anonymousClass(typeReferenceType)));
+        }
+
+        JFieldRef parser = JExpr._this().ref(reader.field(JMod.PRIVATE | JMod.FINAL, JsonParser.class, "parser"));
+        JFieldRef codec = JExpr._this().ref(reader.field(JMod.PRIVATE | JMod.FINAL, ObjectCodec.class, "codec"));
+        JFieldRef started = JExpr._this().ref(reader.field(JMod.PRIVATE, boolean.class, "started"));
+        JFieldRef inArray = JExpr._this().ref(reader.field(JMod.PRIVATE, boolean.class, "inArray"));
+        JFieldRef finished = JExpr._this().ref(reader.field(JMod.PRIVATE, boolean.class, "finished"));
+        JFieldRef pending = JExpr._this().ref(reader.field(JMod.PRIVATE, boolean.class, "pending"));
+        JFieldRef next = JExpr._this().ref(reader.field(JMod.PRIVATE, itemType, "next"));
+
+        JMethod constructor = reader.constructor(JMod.PUBLIC);
+        constructor.javadoc().add("Creates a reader that starts at the current token of the parser (or at its next token, if it has none). "
+                + "Items are bound with the codec of the parser, or with a default ObjectMapper if the parser has no codec.");
+        JVar parserParam = constructor.param(JsonParser.class, "parser");
+        constructor.body().assign(parser, parserParam);
+        constructor.body().assign(codec, JOp.cond(parserParam.invoke("getCodec").ne(JExpr._null()), parserParam.invoke("getCodec"), mapper));
+
+        JMethod open = reader.method(JMod.PUBLIC | JMod.STATIC, reader, "open");
+        open._throws(IOException.class);
+        open.javadoc().add("Creates a reader of a JSON array, or of a sequence of items, in the given (UTF-8, UTF-16 or UTF-32) input.");
+        JVar in = open.param(InputStream.class, "in");
+        open.body()._return(JExpr._new(reader).arg(mapper.invoke("getFactory").invoke("createParser").arg(in)));
+
+        JClass jsonToken = owner.ref(JsonToken.class);
+        JMethod advance = reader.method(JMod.PRIVATE, void.class, "advance");
+        advance._throws(IOException.class);
+        JBlock body = advance.body();
+        JVar token = body.decl(jsonToken, "token");
+        JConditional first = body._if(started.not());
+        JBlock start = first._then();
+        start.assign(started, JExpr.TRUE);
+        start.assign(token, JOp.cond(parser.invoke("getCurrentToken").ne(JExpr._null()), parser.invoke("getCurrentToken"), parser.invoke("nextToken")));
+        JBlock array = start._if(token.eq(jsonToken.staticRef("START_ARRAY")))._then();
+        array.assign(inArray, JExpr.TRUE);
+        array.assign(token, parser.invoke("nextToken"));
+        first._else().assign(token, parser.invoke("nextToken"));
+        JBlock end = body._if(token.eq(JExpr._null()).cor(inArray.cand(token.eq(jsonToken.staticRef("END_ARRAY")))))._then();
+        end.assign(finished, JExpr.TRUE);
+        end._return();
+        body.assign(next, codec.invoke("readValue").arg(parser).arg(itemClass));
+        body.assign(pending, JExpr.TRUE);
+
+        JMethod hasNext = reader.method(JMod.PUBLIC, boolean.class, "hasNext");
+        hasNext.annotate(Override.class);
+        JTryBlock tryAdvance = hasNext.body()._if(pending.not().cand(finished.not()))._then()._try();
+        tryAdvance.body().invoke(advance);
+        JCatchBlock catchIO = tryAdvance._catch(owner.ref(IOException.class));
+        JVar e = catchIO.param("e");
+        catchIO.body()._throw(JExpr._new(owner.ref(IllegalStateException.class)).arg("Failed to read the next " + itemName).arg(e));
+        hasNext.body()._return(pending);
+
+        JMethod nextMethod = reader.method(JMod.PUBLIC, itemType, "next");
+        nextMethod.annotate(Override.class);
+        body = nextMethod.body();
+        body._if(JExpr.invoke(hasNext).not())._then()._throw(JExpr._new(owner.ref(NoSuchElementException.class)));
+        JVar item = body.decl(itemType, "item", next);
+        body.assign(next, JExpr._null());
+        body.assign(pending, JExpr.FALSE);
+        body._return(item);
+
+        JMethod remove = reader.method(JMod.PUBLIC, void.class, "remove");
+        remove.annotate(Override.class);
+        remove.body()._throw(JExpr._new(owner.ref(UnsupportedOperationException.class)));
+
+        JMethod close = reader.method(JMod.PUBLIC, void.class, "close");
+        close._throws(IOException.class);
+        close.annotate(Override.class);
+        close.javadoc().add("Closes the parser, and the input it reads.");
+        close.body().invoke(parser, "close");
+
+        if (useStreams) {
+            addStream(reader, itemType, close);
+        }
+
+        addReadLines(reader, itemType, mapper, linesPerBatch, itemClass);
+    }
+
+    /**
+     * The items as a sequential stream, which closes the reader when it's
+     * closed.
+     */
+    private void addStream(JDefinedClass reader, JClass itemType, JMethod close) {
+        JCodeModel owner = reader.owner();
+
+        JMethod stream = reader.method(JMod.PUBLIC, owner.directClass("java.util.stream.Stream").narrow(itemType), "stream");
+        stream.javadoc().add("The remaining items, as a sequential stream that closes this reader when it's closed.");
+
+        JDefinedClass onClose = owner.anonymousClass(Runnable.class);
+        JMethod run = onClose.method(JMod.PUBLIC, void.class, "run");
+        run.annotate(Override.class);
+        JTryBlock tryClose = run.body()._try();
+        tryClose.body().invoke(close);
+        JCatchBlock catchIO = tryClose._catch(owner.ref(IOException.class));
+        JVar e = catchIO.param("e");
+        catchIO.body()._throw(JExpr._new(owner.directClass("java.io.UncheckedIOException")).arg(e));
+
+        JClass spliterator = owner.directClass("java.util.Spliterator");
+        stream.body()._return(owner.directClass("java.util.stream.StreamSupport").staticInvoke("stream")
+                .arg(owner.directClass("java.util.Spliterators").staticInvoke("spliteratorUnknownSize").arg(JExpr._this()).arg(spliterator.staticRef("ORDERED")))
+                .arg(JExpr.FALSE)
+                .invoke("onClose").arg(JExpr._new(onClose)));
+    }
+
+    /**
+     * Reads newline-delimited JSON with a pool of threads. Lines are read on
+     * the calling thread and handed to the pool in batches, and only a few
+     * batches are in flight at a time, so memory doesn't grow with the input.
+     */
+    private void addReadLines(JDefinedClass reader, JClass itemType, JFieldVar mapper, JFieldVar linesPerBatch, JExpression itemClass) {
+        JCodeModel owner = reader.owner();
+        String itemName = itemType.erasure().name();
+
+        JDefinedClass handler = Models.createNestedClass(reader, JMod.PUBLIC, "Handler", ClassType.INTERFACE);
+        handler.javadoc().add("Receives the items of newline-delimited JSON that is read on several threads.");
+        JMethod handle = handler.method(JMod.NONE, void.class, "handle");
+        handle.javadoc().add("Called on the thread that parsed the item, possibly on several threads at once.");
+        handle.param(itemType, "item");
+
+        JClass lines = owner.ref(List.class).narrow(String.class);
+        JClass failureType = owner.ref(AtomicReference.class).narrow(Throwable.class);
+
+        JDefinedClass batch = Models.createNestedClass(reader, JMod.PRIVATE | JMod.STATIC, "LineBatch", ClassType.CLASS);
+        batch._implements(Runnable.class);
+        JFieldRef batchLines = JExpr._this().ref(batch.field(JMod.PRIVATE | JMod.FINAL, lines, "lines"));
+        JFieldRef batchHandler = JExpr._this().ref(batch.field(JMod.PRIVATE | JMod.FINAL, handler, "handler"));
+        JFieldRef batchPermits = JExpr._this().ref(batch.field(JMod.PRIVATE | JMod.FINAL, Semaphore.class, "permits"));
+        JFieldRef batchFailure = JExpr._this().ref(batch.field(JMod.PRIVATE | JMod.FINAL, failureType, "failure"));
+        JMethod batchConstructor = batch.constructor(JMod.NONE);
+        batchConstructor.body().assign(batchLines, batchConstructor.param(lines, "lines"));
+        batchConstructor.body().assign(batchHandler, batchConstructor.param(handler, "handler"));
+        batchConstructor.body().assign(batchPermits, batchConstructor.param(Semaphore.class, "permits"));
+        batchConstructor.body().assign(batchFailure, batchConstructor.param(failureType, "failure"));
+        JMethod run = batch.method(JMod.PUBLIC, void.class, "run");
+        run.annotate(Override.class);
+        JTryBlock tryRun = run.body()._try();
+        JForEach forEach = tryRun.body().forEach(owner.ref(String.class), "line", batchLines);
+        forEach.body().invoke(batchHandler, handle).arg(mapper.invoke("readValue").arg(forEach.var()).arg(itemClass));
+        // errors too, or the items of the batch would go missing without a failure
+        JCatchBlock catchThrowable = tryRun._catch(owner.ref(Throwable.class));
+        JVar e = catchThrowable.param("e");
+        catchThrowable.body().invoke(batchFailure, "compareAndSet").arg(JExpr._null()).arg(e);
+        tryRun._finally().invoke(batchPermits, "release");
+
+        JMethod readLines = reader.method(JMod.PUBLIC | JMod.STATIC, void.class, "readLines");
+        readLines._throws(IOException.class);
+        readLines._throws(InterruptedException.class);
+        readLines.javadoc().add("Reads newline-delimited JSON (UTF-8, one " + itemName + " per line, blank lines are skipped) and parses the lines "
+                + "on the given number of threads, which pass the items to the handler in no particular order. "
+                + "Returns once all items are handled, or throws the first failure of the parser or the handler.");
+        JVar in = readLines.param(InputStream.class, "in");
+        JVar threads = readLines.param(int.class, "threads");
+        JVar handlerParam = readLines.param(handler, "handler");
+        JBlock body = readLines.body();
+        JVar executor = body.decl(owner.ref(ExecutorService.class), "executor", owner.ref(Executors.class).staticInvoke("newFixedThreadPool").arg(threads));
+        JVar permits = body.decl(owner.ref(Semaphore.class), "permits", JExpr._new(owner.ref(Semaphore.class)).arg(threads.mul(JExpr.lit(2))));
+        JVar failure = body.decl(failureType, "failure", JExpr._new(failureType));
+        JTryBlock tryRead = body._try();
+        JBlock read = tryRead.body();
+        JVar lineReader = read.decl(owner.ref(BufferedReader.class), "reader",
+                JExpr._new(owner.ref(BufferedReader.class)).arg(JExpr._new(owner.ref(InputStreamReader.class)).arg(in).arg("UTF-8")));
+        JVar pendingLines = read.decl(lines, "lines", JExpr._new(owner.ref(ArrayList.class).narrow(String.class)).arg(linesPerBatch));
+        JForLoop forLoop = read._for();
+        JVar line = forLoop.init(owner.ref(String.class), "line", lineReader.invoke("readLine"));
+        forLoop.test(line.ne(JExpr._null()).cand(failure.invoke("get").eq(JExpr._null())));
+        forLoop.update(JExpr.assign(line, lineReader.invoke("readLine")));
+        JBlock loop = forLoop.body();
+        loop._if(line.invoke("trim").invoke("length").gt(JExpr.lit(0)))._then().invoke(pendingLines, "add").arg(line);
+        JBlock full = loop._if(pendingLines.invoke("size").eq(linesPerBatch))._then();
+        full.invoke(permits, "acquire");
+        full.invoke(executor, "execute").arg(JExpr._new(batch).arg(pendingLines).arg(handlerParam).arg(permits).arg(failure));
+        full.assign(pendingLines, JExpr._new(owner.ref(ArrayList.class).narrow(String.class)).arg(linesPerBatch));
+        JBlock last = read._if(pendingLines.invoke("isEmpty").not())._then();
+        last.invoke(permits, "acquire");
+        last.invoke(executor, "execute").arg(JExpr._new(batch).arg(pendingLines).arg(handlerParam).arg(permits).arg(failure));
+        tryRead._finally().invoke(executor, "shutdown");
+        body.invoke(executor, "awaitTermination").arg(owner.ref(Long.class).staticRef("MAX_VALUE")).arg(owner.ref(TimeUnit.class).staticRef("NANOSECONDS"));
+
+        JVar exception = body.decl(owner.ref(Throwable.class), "exception", failure.invoke("get"));
+        body._if(exception._instanceof(owner.ref(IOException.class)))._then()._throw(JExpr.cast(owner.ref(IOException.class), exception));
+        body._if(exception._instanceof(owner.ref(RuntimeException.class)))._then()._throw(JExpr.cast(owner.ref(RuntimeException.class), exception));
+        body._if(exception._instanceof(owner.ref(Error.class)))._then()._throw(JExpr.cast(owner.ref(Error.class), exception));
+        body._if(exception.ne(JExpr._null()))._then()
+                ._throw(JExpr._new(owner.ref(IllegalStateException.class)).arg("Failed to handle a " + itemName).arg(exception));
+    }
+
+    private void addWriter(JDefinedClass writer, JClass itemType) {
+        JCodeModel owner = writer.owner();
+        String itemName = itemType.erasure().name();
+
+        writer._implements(Closeable.class);
+        writer._implements(Flushable.class);
+        writer.javadoc().add("Writes " + itemName + " items one at a time, as a JSON array or as newline-delimited JSON.");
+
+        // used by the writers that aren't given the mapper of the caller
+        JFieldVar defaultMapper = writer.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL, ObjectMapper.class, "DEFAULT_MAPPER",
+                JExpr._new(owner.ref(ObjectMapper.class)));
+
+        JFieldRef generator = JExpr._this().ref(writer.field(JMod.PRIVATE | JMod.FINAL, JsonGenerator.class, "generator"));
+        JFieldRef objectWriter = JExpr._this().ref(writer.field(JMod.PRIVATE | JMod.FINAL, ObjectWriter.class, "objectWriter"));
+        JFieldRef lines = JExpr._this().ref(writer.field(JMod.PRIVATE | JMod.FINAL, boolean.class, "lines"));
+        JFieldRef empty = JExpr._this().ref(writer.field(JMod.PRIVATE, boolean.class, "empty", JExpr.TRUE));
+
+        JMethod constructor = writer.constructor(JMod.PRIVATE);
+        constructor._throws(IOException.class);
+        JVar out = constructor.param(OutputStream.class, "out");
+        JVar mapper = constructor.param(ObjectMapper.class, "mapper");
+        JVar linesParam = constructor.param(boolean.class, "lines");
+        JBlock body = constructor.body();
+        body.assign(generator, mapper.invoke("getFactory").invoke("createGenerator").arg(out));
+        // the output is flushed when the writer is, not after every item
+        body.assign(objectWriter, mapper.invoke("writer").invoke("without").arg(owner.ref(SerializationFeature.class).staticRef("FLUSH_AFTER_WRITE_VALUE")));
+        body.assign(lines, linesParam);
+        JConditional isLines = body._if(linesParam);
+        isLines._then().invoke(generator, "setPrettyPrinter").arg(JExpr._new(owner.ref(MinimalPrettyPrinter.class)).arg("\n"));
+        isLines._else().invoke(generator, "writeStartArray");
+
+        addFactoryMethods(writer, "array", "a JSON array (in UTF-8), which is ended when the writer is closed", defaultMapper, JExpr.FALSE);
+        addFactoryMethods(writer, "lines", "newline-delimited JSON (in UTF-8), one item per line", defaultMapper, JExpr.TRUE);
+
+        JMethod write = writer.method(JMod.PUBLIC, void.class, "write");
+        write._throws(IOException.class);
+        write.javadoc().add("Writes the next item.");
+        JVar item = write.param(itemType, "item");
+        write.body().invoke(objectWriter, "writeValue").arg(generator).arg(item);
+        write.body().assign(empty, JExpr.FALSE);
+
+        JMethod flush = writer.method(JMod.PUBLIC, void.class, "flush");
+        flush._throws(IOException.class);
+        flush.annotate(Override.class);
+        flush.body().invoke(generator, "flush");
+
+        JMethod close = writer.method(JMod.PUBLIC, void.class, "close");
+        close._throws(IOException.class);
+        close.annotate(Override.class);
+        close.javadoc().add("Ends the array (or the last line) and closes the output.");
+        JConditional endLines = close.body()._if(lines);
+        endLines._then()._if(empty.not())._then().invoke(generator, "writeRaw").arg(JExpr.lit('\n'));
+        endLines._else().invoke(generator, "writeEndArray");
+        close.body().invoke(generator, "close");
+    }
+
+    /**
+     * Adds a factory method of the writer that writes with the given mapper,
+     * and one that writes with a default mapper.
+     */
+    private void addFactoryMethods(JDefinedClass writer, String name, String format, JFieldVar defaultMapper, JExpression lines) {
+        JMethod withMapper = writer.method(JMod.PUBLIC | JMod.STATIC, writer, name);
+        withMapper._throws(IOException.class);
+        withMapper.javadoc().add("Creates a writer of " + format + ". The items are written with the given mapper, "
+                + "so that its modules and settings apply (the output is still only flushed when the writer is).");
+        JVar out = withMapper.param(OutputStream.class, "out");
+        JVar mapper = withMapper.param(ObjectMapper.class, "mapper");
+        withMapper.body()._return(JExpr._new(writer).arg(out).arg(mapper).arg(lines));
+
+        JMethod withDefaultMapper = writer.method(JMod.PUBLIC | JMod.STATIC, writer, name);
+        withDefaultMapper._throws(IOException.class);
+        withDefaultMapper.javadoc().add("Creates a writer of " + format + ", which writes the items with a default ObjectMapper.");
+        out = withDefaultMapper.param(OutputStream.class, "out");
+        withDefaultMapper.body()._return(JExpr.invoke(withMapper).arg(out).arg(defaultMapper));
+    }
+
+}
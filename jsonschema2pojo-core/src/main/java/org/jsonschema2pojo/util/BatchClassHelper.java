@@ -0,0 +1,361 @@
+/**
+ * Copyright © 2010-2014 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jsonschema2pojo.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.sun.codemodel.ClassType;
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JClassAlreadyExistsException;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JConditional;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JFieldRef;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+import com.sun.codemodel.JOp;
+import com.sun.codemodel.JType;
+import com.sun.codemodel.JVar;
+import com.sun.codemodel.JWhileLoop;
+
+/**
+ * Generates a columnar batch class for a generated type whose properties are
+ * all scalars. The batch holds the rows of an array of that type as one
+ * array per property (primitive arrays for numbers and booleans), so a scan
+ * over a property reads contiguous memory and a batch of a million rows
+ * takes a handful of objects rather than a million.
+ */
+public class BatchClassHelper {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final boolean useStringSwitch;
+
+    /**
+     * @param useStringSwitch
+     *            whether the reader may switch on the property name (Java 7
+     *            or later), rather than on its hash code
+     */
+    public BatchClassHelper(boolean useStringSwitch) {
+        this.useStringSwitch = useStringSwitch;
+    }
+
+    /**
+     * Describes a column of a batch: the property it holds and the names
+     * that the batch gives its members.
+     */
+    private static class Column {
+
+        private final SerializedProperty property;
+        private final JType type;
+        private final boolean nullable;
+        private JFieldRef values;
+        private JFieldRef nulls;
+
+        Column(SerializedProperty property) {
+            this.property = property;
+            this.type = property.getType().unboxify();
+            // wrappers have a null that the primitive column can't hold
+            this.nullable = !property.getType().isPrimitive() && type.isPrimitive();
+        }
+
+    }
+
+    /**
+     * Adds a batch class for the given type to the package of the type,
+     * unless it has been added already.
+     *
+     * @param jclass
+     *            the type of the rows
+     * @param properties
+     *            the (scalar) properties of the type, which become the
+     *            columns of the batch
+     * @param nameHelper
+     *            the helper that names the column accessors
+     * @return the batch class
+     */
+    public JDefinedClass addBatchClass(JDefinedClass jclass, List<SerializedProperty> properties, NameHelper nameHelper) {
+        JDefinedClass batch;
+        try {
+            batch = jclass._package()._class(JMod.PUBLIC, jclass.name() + "Batch", ClassType.CLASS);
+        } catch (JClassAlreadyExistsException e) {
+            return (JDefinedClass) e.getExistingClass();
+        }
+
+        JCodeModel owner = jclass.owner();
+        batch.javadoc().add("A batch of " + jclass.name() + " rows that holds every property in a column (an array indexed by row) instead of in an object per row.");
+
+        List<Column> columns = new ArrayList<Column>();
+        for (SerializedProperty property : properties) {
+            columns.add(new Column(property));
+        }
+
+        JFieldRef size = JExpr._this().ref(batch.field(JMod.PRIVATE, int.class, "size"));
+        for (Column column : columns) {
+            column.values = JExpr._this().ref(batch.field(JMod.PRIVATE, column.type.array(), column.property.getFieldName() + "Column"));
+            if (column.nullable) {
+                column.nulls = JExpr._this().ref(batch.field(JMod.PRIVATE | JMod.FINAL, BitSet.class, column.property.getFieldName() + "Nulls",
+                        JExpr._new(owner.ref(BitSet.class))));
+            }
+        }
+        JFieldVar emptyRow = batch.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL, jclass, "EMPTY_ROW", JExpr._new(jclass));
+
+        JMethod defaultConstructor = batch.constructor(JMod.PUBLIC);
+        defaultConstructor.body().invoke("this").arg(JExpr.lit(INITIAL_CAPACITY));
+
+        JMethod constructor = batch.constructor(JMod.PUBLIC);
+        constructor.javadoc().addParam("capacity").add("the number of rows the batch can hold before its columns have to grow");
+        JVar capacity = constructor.param(int.class, "capacity");
+        for (Column column : columns) {
+            constructor.body().assign(column.values, JExpr.newArray(column.type, capacity));
+        }
+
+        JMethod sizeMethod = batch.method(JMod.PUBLIC, int.class, "size");
+        sizeMethod.javadoc().addReturn().add("the number of rows in the batch");
+        sizeMethod.body()._return(size);
+
+        JMethod ensureCapacity = addEnsureCapacity(batch, columns);
+        JMethod checkIndex = addCheckIndex(batch, size);
+
+        JMethod add = batch.method(JMod.PUBLIC, int.class, "add");
+        add.javadoc().add("Appends a row to the batch.");
+        add.javadoc().addReturn().add("the index of the row");
+        JVar row = add.param(jclass, "row");
+        JBlock body = add.body();
+        body.invoke(ensureCapacity).arg(size.plus(JExpr.lit(1)));
+        for (Column column : columns) {
+            JExpression value = column.property.read(row);
+            if (column.nullable) {
+                JVar valueVar = body.decl(column.property.getType(), column.property.getFieldName() + "Value", value);
+                JConditional isNull = body._if(valueVar.eq(JExpr._null()));
+                isNull._then().invoke(column.nulls, "set").arg(size);
+                isNull._else().assign(column.values.component(size), valueVar);
+            } else {
+                body.assign(column.values.component(size), value);
+            }
+        }
+        body._return(size.incr());
+
+        JMethod get = batch.method(JMod.PUBLIC, jclass, "get");
+        get.javadoc().add("Creates an instance that holds the values of a row.");
+        JVar index = get.param(int.class, "index");
+        body = get.body();
+        body.invoke(checkIndex).arg(index);
+        row = body.decl(jclass, "row", JExpr._new(jclass));
+        for (Column column : columns) {
+            JExpression value = column.values.component(index);
+            if (column.nullable) {
+                value = JOp.cond(column.nulls.invoke("get").arg(index), JExpr._null(), value);
+            }
+            column.property.write(body, row, value);
+        }
+        body._return(row);
+
+        for (Column column : columns) {
+            addColumnAccessors(batch, column, checkIndex, nameHelper);
+        }
+
+        addRead(batch, jclass, columns, size, ensureCapacity, emptyRow);
+
+        return batch;
+    }
+
+    private JMethod addEnsureCapacity(JDefinedClass batch, List<Column> columns) {
+        JCodeModel owner = batch.owner();
+        JMethod ensureCapacity = batch.method(JMod.PRIVATE, void.class, "ensureCapacity");
+        JVar capacity = ensureCapacity.param(int.class, "capacity");
+        JExpression currentCapacity = columns.get(0).values.ref("length");
+        JBlock grow = ensureCapacity.body()._if(capacity.gt(currentCapacity))._then();
+        JVar newCapacity = grow.decl(owner.INT, "newCapacity", owner.ref(Math.class).staticInvoke("max").arg(capacity)
+                .arg(currentCapacity.mul(JExpr.lit(2))));
+        for (Column column : columns) {
+            grow.assign(column.values, owner.ref(Arrays.class).staticInvoke("copyOf").arg(column.values).arg(newCapacity));
+        }
+        return ensureCapacity;
+    }
+
+    private JMethod addCheckIndex(JDefinedClass batch, JFieldRef size) {
+        JMethod checkIndex = batch.method(JMod.PRIVATE, void.class, "checkIndex");
+        JVar index = checkIndex.param(int.class, "index");
+        checkIndex.body()._if(index.lt(JExpr.lit(0)).cor(index.gte(size)))._then()
+                ._throw(JExpr._new(batch.owner().ref(IndexOutOfBoundsException.class))
+                        .arg(JExpr.lit("Index: ").plus(index).plus(JExpr.lit(", Size: ")).plus(size)));
+        return checkIndex;
+    }
+
+    private void addColumnAccessors(JDefinedClass batch, Column column, JMethod checkIndex, NameHelper nameHelper) {
+        String propertyName = column.property.getJsonName();
+
+        JMethod getValue = batch.method(JMod.PUBLIC, column.type, nameHelper.getGetterName(propertyName, column.type));
+        getValue.javadoc().addReturn().add("the " + column.property.getFieldName() + " of a row"
+                + (column.nullable ? (column.type == batch.owner().BOOLEAN ? " (false if it is null)" : " (zero if it is null)") : ""));
+        JVar index = getValue.param(int.class, "index");
+        getValue.body().invoke(checkIndex).arg(index);
+        getValue.body()._return(column.values.component(index));
+
+        if (column.nullable) {
+            JMethod isNull = batch.method(JMod.PUBLIC, boolean.class, "is" + nameHelper.getGetterName(propertyName, column.property.getType()).substring(3) + "Null");
+            isNull.javadoc().addReturn().add("whether the " + column.property.getFieldName() + " of a row is null");
+            index = isNull.param(int.class, "index");
+            isNull.body().invoke(checkIndex).arg(index);
+            isNull.body()._return(column.nulls.invoke("get").arg(index));
+        }
+
+        JMethod getColumn = batch.method(JMod.PUBLIC, column.type.array(),
+                nameHelper.getGetterName(propertyName, column.property.getType()).replaceFirst("^is", "get") + "Column");
+        getColumn.javadoc().add("Returns the column itself, for scans that don't go through an accessor per row. Only the first size() elements are rows.");
+        getColumn.javadoc().addReturn().add("the " + column.property.getFieldName() + " of every row");
+        getColumn.body()._return(column.values);
+    }
+
+    private void addRead(JDefinedClass batch, JDefinedClass jclass, List<Column> columns, JFieldRef size, JMethod ensureCapacity, JFieldVar emptyRow) {
+        JCodeModel owner = batch.owner();
+        JClass jsonToken = owner.ref(JsonToken.class);
+
+        JMethod readRow = batch.method(JMod.PRIVATE, void.class, "readRow");
+        readRow._throws(IOException.class);
+        JVar parser = readRow.param(JsonParser.class, "parser");
+        JBlock body = readRow.body();
+        // the row starts out with the values of a new instance, so absent properties get their defaults
+        body.invoke("add").arg(emptyRow);
+        JVar index = body.decl(owner.INT, "index", size.minus(JExpr.lit(1)));
+
+        JMethod readChar = null;
+        for (Column column : columns) {
+            if (column.type == owner.CHAR && readChar == null) {
+                readChar = addReadChar(batch);
+            }
+        }
+
+        JWhileLoop whileLoop = body._while(parser.invoke("nextToken").eq(jsonToken.staticRef("FIELD_NAME")));
+        JBlock loop = whileLoop.body();
+        JVar name = loop.decl(owner.ref(String.class), "name", parser.invoke("getCurrentName"));
+        loop.invoke(parser, "nextToken");
+        List<String> jsonNames = new ArrayList<String>();
+        for (Column column : columns) {
+            jsonNames.add(column.property.getJsonName());
+        }
+        Map<String, JBlock> caseBodies = Models.addStringSwitch(loop, name, jsonNames, useStringSwitch);
+        for (Column column : columns) {
+            JBlock caseBody = caseBodies.get(column.property.getJsonName());
+            readValue(owner, caseBody, column, parser, index, readChar);
+            caseBody._continue();
+        }
+        loop.invoke(parser, "skipChildren");
+
+        JMethod read = batch.method(JMod.PUBLIC | JMod.STATIC, batch, "read");
+        read._throws(IOException.class);
+        read.javadoc().add("Reads a JSON array of " + jclass.name() + " objects (the current value, or the next one if the parser has no current token) into the columns of a new batch, without creating an instance per row.");
+        parser = read.param(JsonParser.class, "parser");
+        body = read.body();
+        body._if(parser.invoke("getCurrentToken").eq(JExpr._null()))._then().invoke(parser, "nextToken");
+        body._if(parser.invoke("getCurrentToken").ne(jsonToken.staticRef("START_ARRAY")))._then()
+                ._throw(JExpr._new(owner.ref(JsonParseException.class)).arg(JExpr.lit("Expected an array of " + jclass.name()))
+                        .arg(parser.invoke("getCurrentLocation")));
+        JVar batchVar = body.decl(batch, "batch", JExpr._new(batch));
+        loop = body._while(parser.invoke("nextToken").ne(jsonToken.staticRef("END_ARRAY"))).body();
+        loop._if(parser.invoke("getCurrentToken").ne(jsonToken.staticRef("START_OBJECT")))._then()
+                ._throw(JExpr._new(owner.ref(JsonParseException.class)).arg(JExpr.lit("Expected a " + jclass.name() + " object"))
+                        .arg(parser.invoke("getCurrentLocation")));
+        loop.invoke(batchVar, readRow).arg(parser);
+        body._return(batchVar);
+    }
+
+    private void readValue(JCodeModel owner, JBlock block, Column column, JVar parser, JVar index, JMethod readChar) {
+        JExpression isNull = parser.invoke("getCurrentToken").eq(owner.ref(JsonToken.class).staticRef("VALUE_NULL"));
+
+        if (!column.type.isPrimitive()) {
+            JConditional nullCheck = block._if(isNull);
+            nullCheck._then().assign(column.values.component(index), JExpr._null());
+            JBlock value = nullCheck._else();
+            // the text of an object or array is just its opening bracket
+            value._if(parser.invoke("getCurrentToken").invoke("isScalarValue").not())._then()
+                    ._throw(JExpr._new(owner.ref(JsonParseException.class))
+                            .arg(JExpr.lit("Expected a string for " + column.property.getJsonName() + " but found ").plus(parser.invoke("getCurrentToken")))
+                            .arg(parser.invoke("getCurrentLocation")));
+            value.assign(column.values.component(index), parser.invoke("getText"));
+            return;
+        }
+
+        JConditional nullCheck = block._if(isNull);
+        if (column.nullable) {
+            nullCheck._then().invoke(column.nulls, "set").arg(index);
+        } else {
+            // a null leaves a primitive at zero or false, as the data binder does
+            nullCheck._then().assign(column.values.component(index), column.type == owner.BOOLEAN ? JExpr.FALSE : JExpr.cast(column.type, JExpr.lit(0)));
+        }
+        JBlock value = nullCheck._else();
+        if (column.nullable) {
+            value.invoke(column.nulls, "clear").arg(index);
+        }
+        value.assign(column.values.component(index),
+                column.type == owner.CHAR ? JExpr.invoke(readChar).arg(parser) : parser.invoke(getValueMethod(column.type)));
+    }
+
+    /**
+     * Adds a method that reads a char the way the data binder does: from a
+     * string of one character, or from an integer that is its code.
+     */
+    private JMethod addReadChar(JDefinedClass batch) {
+        JCodeModel owner = batch.owner();
+        JClass jsonToken = owner.ref(JsonToken.class);
+
+        JMethod readChar = batch.method(JMod.PRIVATE | JMod.STATIC, char.class, "readChar");
+        readChar._throws(IOException.class);
+        JVar parser = readChar.param(JsonParser.class, "parser");
+        JBlock body = readChar.body();
+        body._if(parser.invoke("getCurrentToken").eq(jsonToken.staticRef("VALUE_NUMBER_INT")))._then()
+                ._return(JExpr.cast(owner.CHAR, parser.invoke("getIntValue")));
+        body._if(parser.invoke("getCurrentToken").ne(jsonToken.staticRef("VALUE_STRING")).cor(parser.invoke("getTextLength").ne(JExpr.lit(1))))._then()
+                ._throw(JExpr._new(owner.ref(JsonParseException.class)).arg(JExpr.lit("Expected a single character"))
+                        .arg(parser.invoke("getCurrentLocation")));
+        body._return(parser.invoke("getText").invoke("charAt").arg(JExpr.lit(0)));
+        return readChar;
+    }
+
+    private String getValueMethod(JType type) {
+        JCodeModel owner = type.owner();
+        if (type == owner.BOOLEAN) {
+            return "getBooleanValue";
+        } else if (type == owner.LONG) {
+            return "getLongValue";
+        } else if (type == owner.DOUBLE) {
+            return "getDoubleValue";
+        } else if (type == owner.FLOAT) {
+            return "getFloatValue";
+        } else if (type == owner.SHORT) {
+            return "getShortValue";
+        } else if (type == owner.BYTE) {
+            return "getByteValue";
+        } else {
+            return "getIntValue";
+        }
+    }
+
+}
@@ -0,0 +1,473 @@
+/**
+ * Copyright © 2010-2014 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jsonschema2pojo.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.sun.codemodel.ClassType;
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JClassAlreadyExistsException;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JConditional;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JFieldRef;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JForEach;
+import com.sun.codemodel.JForLoop;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+import com.sun.codemodel.JOp;
+import com.sun.codemodel.JType;
+import com.sun.codemodel.JVar;
+
+/**
+ * Generates a flyweight view of a generated type over a {@link ByteBuffer}.
+ * The view encodes instances into a fixed binary layout and decodes each
+ * property from the buffer when its getter is called, so records can be kept
+ * in a direct or memory-mapped buffer and read without being deserialized.
+ * <p>
+ * A record starts with its length (an <code>int</code>) and a bit set that
+ * marks the properties that are <code>null</code>. A fixed section follows,
+ * with a slot at a constant offset for every property: the value itself for
+ * primitive and boxed types, or the offset (from the start of the record) of
+ * the value in the variable section for strings and arrays. Strings are
+ * stored as their length and UTF-8 bytes, arrays as their length and their
+ * elements. Numbers are written in the byte order of the buffer.
+ */
+public class BufferViewHelper {
+
+    private static final int LENGTH_WIDTH = 4;
+    private static final int POINTER_WIDTH = 4;
+
+    /**
+     * A property that has a place in the layout.
+     */
+    private static class Slot {
+
+        private final SerializedProperty property;
+        private final String getterName;
+        private final JType elementType;
+        private final boolean nullable;
+        private int nullBit = -1;
+        private JFieldVar offset;
+
+        Slot(SerializedProperty property, String getterName, JType elementType) {
+            this.property = property;
+            this.getterName = getterName;
+            this.elementType = elementType;
+            this.nullable = !property.getType().isPrimitive();
+        }
+
+        boolean isString() {
+            return isStringType(property.getType());
+        }
+
+        boolean isArray() {
+            return elementType != null;
+        }
+
+        boolean isFixed() {
+            return !isString() && !isArray();
+        }
+
+    }
+
+    /**
+     * Adds a view class for the given type to the package of the type, if at
+     * least one of its properties has a type that fits the layout.
+     *
+     * @param jclass
+     *            the type to view
+     * @param properties
+     *            the properties of the type; those of other types than
+     *            primitives, boxed primitives, strings and arrays (or
+     *            collections) of those are left out of the layout
+     * @param nameHelper
+     *            the helper that names the getters of the view
+     * @return the view class, or <code>null</code> if none of the
+     *         properties fit the layout
+     */
+    public JDefinedClass addBufferView(JDefinedClass jclass, List<SerializedProperty> properties, NameHelper nameHelper) {
+        List<Slot> slots = new ArrayList<Slot>();
+        for (SerializedProperty property : properties) {
+            JType type = property.getType();
+            if (isScalarType(type)) {
+                slots.add(new Slot(property, nameHelper.getGetterName(property.getJsonName(), type), null));
+            } else if (getElementType(type) != null) {
+                slots.add(new Slot(property, nameHelper.getGetterName(property.getJsonName(), type), getElementType(type)));
+            }
+        }
+        if (slots.isEmpty()) {
+            return null;
+        }
+
+        JDefinedClass view;
+        try {
+            view = jclass._package()._class(JMod.PUBLIC, jclass.name() + "View", ClassType.CLASS);
+        } catch (JClassAlreadyExistsException e) {
+            return (JDefinedClass) e.getExistingClass();
+        }
+        view.javadoc().add("A flyweight view of an encoded " + jclass.name() + " in a ByteBuffer, which decodes each property when its getter is called. "
+                + "Use encode(...) to write a record and wrap(...) to point the view at one. The buffer must have the same byte order for both.");
+
+        JCodeModel owner = jclass.owner();
+        int nullBits = 0;
+        for (Slot slot : slots) {
+            if (slot.nullable) {
+                slot.nullBit = nullBits++;
+            }
+        }
+        int nullBitsLength = (nullBits + 7) / 8;
+
+        JFieldVar utf8 = view.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL, Charset.class, "UTF_8", owner.ref(Charset.class).staticInvoke("forName").arg("UTF-8"));
+        JFieldVar nullBitsOffset = view.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL, int.class, "NULL_BITS_OFFSET", JExpr.lit(LENGTH_WIDTH));
+        JFieldVar nullBitsLengthField = view.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL, int.class, "NULL_BITS_LENGTH", JExpr.lit(nullBitsLength));
+        int offset = LENGTH_WIDTH + nullBitsLength;
+        for (Slot slot : slots) {
+            slot.offset = view.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL, int.class, getOffsetName(view, slot.property.getFieldName()), JExpr.lit(offset));
+            offset += slot.isFixed() ? getWidth(slot.property.getType().unboxify()) : POINTER_WIDTH;
+        }
+        JFieldVar fixedLength = view.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL, int.class, "FIXED_LENGTH", JExpr.lit(offset));
+
+        JFieldRef buffer = JExpr._this().ref(view.field(JMod.PRIVATE, ByteBuffer.class, "buffer"));
+        JFieldRef recordOffset = JExpr._this().ref(view.field(JMod.PRIVATE, int.class, "offset"));
+
+        view.constructor(JMod.PUBLIC).javadoc().add("Creates a view that has to be wrapped around a record before it can be read.");
+
+        JMethod wrap = view.method(JMod.PUBLIC, view, "wrap");
+        wrap.javadoc().add("Points the view at a record, so one view can be reused for many records.");
+        wrap.javadoc().addParam("buffer").add("the buffer that holds the record");
+        wrap.javadoc().addParam("offset").add("the index of the first byte of the record, as returned by encode(...)");
+        JVar bufferParam = wrap.param(ByteBuffer.class, "buffer");
+        JVar offsetParam = wrap.param(int.class, "offset");
+        wrap.body().assign(buffer, bufferParam);
+        wrap.body().assign(recordOffset, offsetParam);
+        wrap.body()._return(JExpr._this());
+
+        JMethod constructor = view.constructor(JMod.PUBLIC);
+        constructor.javadoc().add("Creates a view of a record.");
+        bufferParam = constructor.param(ByteBuffer.class, "buffer");
+        offsetParam = constructor.param(int.class, "offset");
+        constructor.body().invoke(wrap).arg(bufferParam).arg(offsetParam);
+
+        JMethod encodedLength = view.method(JMod.PUBLIC, int.class, "encodedLength");
+        encodedLength.javadoc().addReturn().add("the number of bytes of the record, so the next record in a buffer of consecutive records starts at offset + encodedLength()");
+        encodedLength.body()._return(buffer.invoke("getInt").arg(recordOffset));
+
+        JMethod isNull = null;
+        JMethod setNull = null;
+        if (nullBits > 0) {
+            isNull = view.method(JMod.PRIVATE, boolean.class, "isNull");
+            JVar bit = isNull.param(int.class, "bit");
+            isNull.body()._return(JOp.band(buffer.invoke("get").arg(recordOffset.plus(nullBitsOffset).plus(bit.shrz(JExpr.lit(3)))),
+                    JExpr.lit(1).shl(JOp.band(bit, JExpr.lit(7)))).ne(JExpr.lit(0)));
+
+            setNull = view.method(JMod.PRIVATE | JMod.STATIC, void.class, "setNull");
+            bufferParam = setNull.param(ByteBuffer.class, "buffer");
+            JVar start = setNull.param(int.class, "start");
+            bit = setNull.param(int.class, "bit");
+            JVar index = setNull.body().decl(owner.INT, "index", start.plus(nullBitsOffset).plus(bit.shrz(JExpr.lit(3))));
+            setNull.body().invoke(bufferParam, "put").arg(index)
+                    .arg(JExpr.cast(owner.BYTE, JOp.bor(bufferParam.invoke("get").arg(index), JExpr.lit(1).shl(JOp.band(bit, JExpr.lit(7))))));
+        }
+
+        JMethod readString = null;
+        JMethod writeString = null;
+        if (hasStrings(slots)) {
+            readString = addReadString(view, buffer, utf8);
+            writeString = addWriteString(view, utf8);
+        }
+
+        for (Slot slot : slots) {
+            addGetter(view, slot, buffer, recordOffset, isNull, readString);
+        }
+
+        addEncode(view, jclass, slots, nullBitsOffset, nullBitsLengthField, nullBits > 0, fixedLength, setNull, writeString);
+
+        return view;
+    }
+
+    private JMethod addReadString(JDefinedClass view, JFieldRef buffer, JFieldVar utf8) {
+        JCodeModel owner = view.owner();
+        JMethod readString = view.method(JMod.PRIVATE, String.class, "readString");
+        JVar position = readString.param(int.class, "position");
+        JBlock body = readString.body();
+        JVar length = body.decl(owner.INT, "length", buffer.invoke("getInt").arg(position));
+        body._if(length.lt(JExpr.lit(0)))._then()._return(JExpr._null());
+        JVar bytes = body.decl(owner.BYTE.array(), "bytes", JExpr.newArray(owner.BYTE, length));
+        // a duplicate has a position of its own, so reading doesn't disturb the buffer
+        JVar source = body.decl(owner.ref(ByteBuffer.class), "source", buffer.invoke("duplicate"));
+        body.invoke(source, "position").arg(position.plus(JExpr.lit(LENGTH_WIDTH)));
+        body.invoke(source, "get").arg(bytes);
+        body._return(JExpr._new(owner.ref(String.class)).arg(bytes).arg(utf8));
+        return readString;
+    }
+
+    private JMethod addWriteString(JDefinedClass view, JFieldVar utf8) {
+        JCodeModel owner = view.owner();
+        JMethod writeString = view.method(JMod.PRIVATE | JMod.STATIC, void.class, "writeString");
+        JVar buffer = writeString.param(ByteBuffer.class, "buffer");
+        JVar value = writeString.param(String.class, "value");
+        JConditional isNull = writeString.body()._if(value.eq(JExpr._null()));
+        isNull._then().invoke(buffer, "putInt").arg(JExpr.lit(-1));
+        JBlock body = isNull._else();
+        JVar bytes = body.decl(owner.BYTE.array(), "bytes", value.invoke("getBytes").arg(utf8));
+        body.invoke(buffer, "putInt").arg(bytes.ref("length"));
+        body.invoke(buffer, "put").arg(bytes);
+        return writeString;
+    }
+
+    private void addGetter(JDefinedClass view, Slot slot, JFieldRef buffer, JFieldRef recordOffset, JMethod isNull, JMethod readString) {
+        JCodeModel owner = view.owner();
+        JType type = slot.property.getType();
+        JMethod getter = view.method(JMod.PUBLIC, type, slot.getterName);
+        getter.javadoc().addReturn().add("the " + slot.property.getFieldName() + " of the record");
+        JBlock body = getter.body();
+        if (slot.nullable) {
+            body._if(JExpr.invoke(isNull).arg(JExpr.lit(slot.nullBit)))._then()._return(JExpr._null());
+        }
+
+        JExpression slotPosition = recordOffset.plus(slot.offset);
+        if (slot.isFixed()) {
+            body._return(read(buffer, slotPosition, type.unboxify()));
+            return;
+        }
+        JExpression valuePosition = recordOffset.plus(buffer.invoke("getInt").arg(slotPosition));
+        if (slot.isString()) {
+            body._return(JExpr.invoke(readString).arg(valuePosition));
+            return;
+        }
+
+        JVar position = body.decl(owner.INT, "position", valuePosition);
+        JVar size = body.decl(owner.INT, "size", buffer.invoke("getInt").arg(position));
+        body.assignPlus(position, JExpr.lit(LENGTH_WIDTH));
+        JVar values;
+        if (type.isArray()) {
+            values = body.decl(type, "values", JExpr.newArray(slot.elementType, size));
+        } else {
+            Class<?> implementation = type.erasure().fullName().equals(Set.class.getName()) ? LinkedHashSet.class : ArrayList.class;
+            values = body.decl(type, "values", JExpr._new(owner.ref(implementation).narrow(slot.elementType)).arg(size));
+        }
+        JForLoop forLoop = body._for();
+        JVar i = forLoop.init(owner.INT, "i", JExpr.lit(0));
+        forLoop.test(i.lt(size));
+        forLoop.update(i.incr());
+        JBlock loop = forLoop.body();
+        JExpression element;
+        if (isStringType(slot.elementType)) {
+            JVar length = loop.decl(owner.INT, "length", buffer.invoke("getInt").arg(position));
+            element = JExpr.invoke(readString).arg(position);
+            addElement(loop, type, values, i, element);
+            loop.assignPlus(position, JExpr.lit(LENGTH_WIDTH).plus(owner.ref(Math.class).staticInvoke("max").arg(length).arg(JExpr.lit(0))));
+        } else {
+            element = read(buffer, position, slot.elementType.unboxify());
+            addElement(loop, type, values, i, element);
+            loop.assignPlus(position, JExpr.lit(getWidth(slot.elementType.unboxify())));
+        }
+        body._return(values);
+    }
+
+    private void addElement(JBlock block, JType type, JVar values, JVar i, JExpression element) {
+        if (type.isArray()) {
+            block.assign(values.component(i), element);
+        } else {
+            block.invoke(values, "add").arg(element);
+        }
+    }
+
+    private void addEncode(JDefinedClass view, JDefinedClass jclass, List<Slot> slots, JFieldVar nullBitsOffset, JFieldVar nullBitsLength,
+            boolean hasNullBits, JFieldVar fixedLength, JMethod setNull, JMethod writeString) {
+        JCodeModel owner = view.owner();
+        JMethod encode = view.method(JMod.PUBLIC | JMod.STATIC, int.class, "encode");
+        encode.javadoc().add("Writes a record of the instance at the position of the buffer and moves the position past the record. "
+                + "The buffer must have room for the record, otherwise a BufferOverflowException or IndexOutOfBoundsException is thrown. "
+                + "Collections can't hold null elements, an IllegalArgumentException is thrown before anything is written if they do.");
+        encode.javadoc().addReturn().add("the offset of the record, to wrap a view around");
+        JVar instance = encode.param(jclass, "instance");
+        JVar buffer = encode.param(ByteBuffer.class, "buffer");
+        JBlock body = encode.body();
+
+        // the layout has no null bits for the elements of a collection, checked up front so nothing is written for a record that can't be
+        for (Slot slot : slots) {
+            if (slot.isArray() && !slot.elementType.isPrimitive() && !isStringType(slot.elementType)) {
+                JVar values = body.decl(slot.property.getType(), slot.property.getFieldName() + "Elements", slot.property.read(instance));
+                JExpression elements = slot.property.getType().isArray() ? owner.ref(Arrays.class).staticInvoke("asList").arg(values) : values;
+                body._if(values.ne(JExpr._null()).cand(elements.invoke("contains").arg(JExpr._null())))._then()
+                        ._throw(JExpr._new(owner.ref(IllegalArgumentException.class))
+                                .arg(JExpr.lit("The " + slot.property.getFieldName() + " of a " + jclass.name() + " can't hold null elements in a buffer view")));
+            }
+        }
+
+        JVar start = body.decl(owner.INT, "start", buffer.invoke("position"));
+        if (hasNullBits) {
+            JForLoop clear = body._for();
+            JVar i = clear.init(owner.INT, "i", JExpr.lit(0));
+            clear.test(i.lt(nullBitsLength));
+            clear.update(i.incr());
+            clear.body().invoke(buffer, "put").arg(start.plus(nullBitsOffset).plus(i)).arg(JExpr.cast(owner.BYTE, JExpr.lit(0)));
+        }
+        // strings and arrays are appended after the fixed section
+        body.invoke(buffer, "position").arg(start.plus(fixedLength));
+
+        for (Slot slot : slots) {
+            JType type = slot.property.getType();
+            JExpression slotPosition = start.plus(slot.offset);
+            JBlock write = body;
+            JExpression value = slot.property.read(instance);
+            if (slot.nullable) {
+                JVar valueVar = body.decl(type, slot.property.getFieldName() + "Value", value);
+                JConditional isNull = body._if(valueVar.eq(JExpr._null()));
+                isNull._then().invoke(setNull).arg(buffer).arg(start).arg(JExpr.lit(slot.nullBit));
+                write = isNull._else();
+                value = valueVar;
+            }
+
+            if (slot.isFixed()) {
+                write(write, buffer, slotPosition, type.unboxify(), value);
+                continue;
+            }
+            write.invoke(buffer, "putInt").arg(slotPosition).arg(buffer.invoke("position").minus(start));
+            if (slot.isString()) {
+                write.invoke(writeString).arg(buffer).arg(value);
+                continue;
+            }
+            write.invoke(buffer, "putInt").arg(type.isArray() ? value.ref("length") : value.invoke("size"));
+            JForEach forEach = write.forEach(slot.elementType, "element", value);
+            if (isStringType(slot.elementType)) {
+                forEach.body().invoke(writeString).arg(buffer).arg(forEach.var());
+            } else {
+                write(forEach.body(), buffer, null, slot.elementType.unboxify(), forEach.var());
+            }
+        }
+
+        body.invoke(buffer, "putInt").arg(start).arg(buffer.invoke("position").minus(start));
+        body._return(start);
+    }
+
+    /**
+     * @return an expression that reads a value of the given primitive type
+     *         at the given (absolute) position of the buffer
+     */
+    private JExpression read(JExpression buffer, JExpression position, JType type) {
+        JCodeModel owner = type.owner();
+        if (type == owner.BOOLEAN) {
+            return buffer.invoke("get").arg(position).ne(JExpr.lit(0));
+        }
+        return buffer.invoke("get" + getBufferTypeName(type)).arg(position);
+    }
+
+    /**
+     * Adds a statement that writes a value of the given primitive type at the
+     * given (absolute) position of the buffer, or at the position of the
+     * buffer if the given position is <code>null</code>.
+     */
+    private void write(JBlock block, JExpression buffer, JExpression position, JType type, JExpression value) {
+        JCodeModel owner = type.owner();
+        if (type == owner.BOOLEAN) {
+            value = JExpr.cast(owner.BYTE, JOp.cond(value, JExpr.lit(1), JExpr.lit(0)));
+            type = owner.BYTE;
+        }
+        if (position != null) {
+            block.add(buffer.invoke("put" + getBufferTypeName(type)).arg(position).arg(value));
+        } else {
+            block.add(buffer.invoke("put" + getBufferTypeName(type)).arg(value));
+        }
+    }
+
+    private String getBufferTypeName(JType type) {
+        JCodeModel owner = type.owner();
+        if (type == owner.BYTE) {
+            return "";
+        } else if (type == owner.SHORT) {
+            return "Short";
+        } else if (type == owner.LONG) {
+            return "Long";
+        } else if (type == owner.FLOAT) {
+            return "Float";
+        } else if (type == owner.DOUBLE) {
+            return "Double";
+        } else {
+            return "Int";
+        }
+    }
+
+    private int getWidth(JType type) {
+        JCodeModel owner = type.owner();
+        if (type == owner.BOOLEAN || type == owner.BYTE) {
+            return 1;
+        } else if (type == owner.SHORT) {
+            return 2;
+        } else if (type == owner.LONG || type == owner.DOUBLE) {
+            return 8;
+        } else {
+            return 4;
+        }
+    }
+
+    private boolean hasStrings(List<Slot> slots) {
+        for (Slot slot : slots) {
+            if (slot.isString() || (slot.isArray() && isStringType(slot.elementType))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isStringType(JType type) {
+        return type.fullName().equals(String.class.getName());
+    }
+
+    private boolean isScalarType(JType type) {
+        JType primitiveType = type.unboxify();
+        return (primitiveType.isPrimitive() && primitiveType != type.owner().CHAR) || isStringType(type);
+    }
+
+    /**
+     * @return the element type of an array, list or set of scalars, or
+     *         <code>null</code> if the type isn't one
+     */
+    private JType getElementType(JType type) {
+        JType elementType = null;
+        if (type.isArray()) {
+            elementType = type.elementType();
+            if (!elementType.isPrimitive()) {
+                return null;
+            }
+        } else if (type instanceof JClass) {
+            String typeName = type.erasure().fullName();
+            List<JClass> typeParameters = ((JClass) type).getTypeParameters();
+            if ((typeName.equals(List.class.getName()) || typeName.equals(Set.class.getName())) && typeParameters.size() == 1) {
+                elementType = typeParameters.get(0);
+            }
+        }
+        return elementType != null && isScalarType(elementType) ? elementType : null;
+    }
+
+    private String getOffsetName(JDefinedClass view, String fieldName) {
+        return Models.getUniqueFieldName(view, Models.getConstantName(fieldName) + "_OFFSET");
+    }
+
+}
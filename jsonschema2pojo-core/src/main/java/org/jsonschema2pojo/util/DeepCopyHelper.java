@@ -0,0 +1,240 @@
+/**
+ * Copyright © 2010-2014 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jsonschema2pojo.util;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.sun.codemodel.ClassType;
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JConditional;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JForEach;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+import com.sun.codemodel.JOp;
+import com.sun.codemodel.JType;
+import com.sun.codemodel.JVar;
+
+/**
+ * Generates a copy constructor and a <code>deepCopy</code> method for a
+ * generated type. The copy constructor assigns every instance field of the
+ * type (and calls the copy constructor of the super type):
+ * <ul>
+ * <li>values of generated types are copied with their own
+ * <code>deepCopy</code> method</li>
+ * <li>lists, sets and maps are copied into new collections of the size of
+ * the source, and their elements are copied by the same rules</li>
+ * <li>enum sets and primitive arrays are copied with
+ * <code>EnumSet.copyOf</code> and <code>clone</code></li>
+ * <li>dates are copied, untyped values (such as additional properties) are
+ * copied if they are maps or lists</li>
+ * <li>all other values (primitives, strings, boxed numbers, enums) are
+ * immutable and so are shared</li>
+ * </ul>
+ */
+public class DeepCopyHelper {
+
+    public static final String COPY_METHOD_NAME = "deepCopy";
+
+    private static final String COPY_VALUE_METHOD_NAME = "deepCopyValue";
+
+    /**
+     * The names of the parameter and the locals of the copy constructor, the
+     * locals are named after their property and so can clash between
+     * properties (e.g. the items of <code>fooItem</code> and the items of the
+     * items of <code>foo</code>).
+     */
+    private final Set<String> localNames = new HashSet<String>();
+
+    /**
+     * Adds the copy constructor and the <code>deepCopy</code> method, and a
+     * no-args constructor if the type doesn't have one yet (since the copy
+     * constructor replaces the default constructor).
+     *
+     * @param jclass
+     *            the type to copy
+     * @param copySuperType
+     *            whether the super type is generated (and so has a copy
+     *            constructor)
+     */
+    public void addDeepCopy(JDefinedClass jclass, boolean copySuperType) {
+        if (jclass.getConstructor(new JType[0]) == null) {
+            JMethod noargsConstructor = jclass.constructor(JMod.PUBLIC);
+            noargsConstructor.javadoc().add("No args constructor for use in serialization");
+        }
+
+        JMethod constructor = jclass.constructor(JMod.PUBLIC);
+        constructor.javadoc().add("Copy constructor, copies all properties of the given instance (including values of generated types and collections).");
+        JVar source = constructor.param(jclass, "source");
+        localNames.clear();
+        localNames.add(source.name());
+        constructor.javadoc().addParam(source).add("the instance to copy");
+        JBlock body = constructor.body();
+        if (copySuperType) {
+            body.invoke("super").arg(source);
+        }
+
+        for (JFieldVar field : jclass.fields().values()) {
+            if ((field.mods().getValue() & JMod.STATIC) != 0) {
+                continue;
+            }
+            body.assign(JExpr._this().ref(field), copy(jclass, body, field.type(), source.ref(field), field.name()));
+        }
+
+        JMethod deepCopy = jclass.method(JMod.PUBLIC, jclass, COPY_METHOD_NAME);
+        if (copySuperType) {
+            deepCopy.annotate(Override.class);
+        }
+        deepCopy.javadoc().add("Returns a copy of this instance that shares no mutable state with it.");
+        deepCopy.body()._return(JExpr._new(jclass).arg(JExpr._this()));
+    }
+
+    /**
+     * Returns an expression for a copy of the given value, adding the
+     * statements that create the copy to the given block if the copy can't
+     * be expressed as a single expression.
+     */
+    private JExpression copy(JDefinedClass jclass, JBlock block, JType type, JExpression value, String name) {
+        if (type.isPrimitive()) {
+            return value;
+        }
+        JCodeModel owner = jclass.owner();
+        JClass classType = (JClass) type;
+        String rawName = classType.erasure().fullName();
+
+        if (classType.isArray() && classType.elementType().isPrimitive()) {
+            return JOp.cond(value.eq(JExpr._null()), JExpr._null(), value.invoke("clone"));
+        } else if (rawName.equals(EnumSet.class.getName())) {
+            // the elements are enum constants, so only the bit vector is copied
+            return JOp.cond(value.eq(JExpr._null()), JExpr._null(), owner.ref(EnumSet.class).staticInvoke("copyOf").arg(value));
+        } else if (classType instanceof JDefinedClass && ((JDefinedClass) classType).getClassType() == ClassType.CLASS) {
+            return JOp.cond(value.eq(JExpr._null()), JExpr._null(), value.invoke(COPY_METHOD_NAME));
+        } else if (rawName.equals(Date.class.getName())) {
+            return JOp.cond(value.eq(JExpr._null()), JExpr._null(), JExpr._new(classType).arg(value.invoke("getTime")));
+        } else if (rawName.equals(Object.class.getName())) {
+            return JExpr.invoke(getCopyValueMethod(jclass)).arg(value);
+        } else if (rawName.equals(List.class.getName()) || rawName.equals(Set.class.getName())) {
+            JClass itemType = classType.getTypeParameters().get(0);
+            JClass implType = owner.ref(rawName.equals(List.class.getName()) ? ArrayList.class : LinkedHashSet.class).narrow(itemType);
+            if (isShared(itemType)) {
+                // the copy constructors of these collections allocate exactly what the source needs
+                return JOp.cond(value.eq(JExpr._null()), JExpr._null(), JExpr._new(implType).arg(value));
+            }
+
+            JVar copy = block.decl(classType, Models.getUniqueName(localNames, name + "Copy"), JExpr._null());
+            JBlock copyItems = block._if(value.ne(JExpr._null()))._then();
+            copyItems.assign(copy, JExpr._new(implType).arg(capacity(implType, value)));
+            JForEach forEach = copyItems.forEach(itemType, Models.getUniqueName(localNames, name + "Item"), value);
+            JExpression item = copy(jclass, forEach.body(), itemType, forEach.var(), name + "Item");
+            forEach.body().invoke(copy, "add").arg(item);
+            return copy;
+        } else if (rawName.equals(Map.class.getName())) {
+            List<JClass> typeParameters = classType.getTypeParameters();
+            JClass implType = owner.ref(HashMap.class).narrow(typeParameters);
+            if (isShared(typeParameters.get(1))) {
+                return JOp.cond(value.eq(JExpr._null()), JExpr._null(), JExpr._new(implType).arg(value));
+            }
+
+            JVar copy = block.decl(classType, Models.getUniqueName(localNames, name + "Copy"), JExpr._null());
+            JBlock copyEntries = block._if(value.ne(JExpr._null()))._then();
+            copyEntries.assign(copy, JExpr._new(implType).arg(capacity(implType, value)));
+            JForEach forEach = copyEntries.forEach(owner.ref(Map.Entry.class).narrow(typeParameters), Models.getUniqueName(localNames, name + "Entry"), value.invoke("entrySet"));
+            JExpression entryValue = copy(jclass, forEach.body(), typeParameters.get(1), forEach.var().invoke("getValue"), name + "Value");
+            forEach.body().invoke(copy, "put").arg(forEach.var().invoke("getKey")).arg(entryValue);
+            return copy;
+        }
+        return value;
+    }
+
+    private boolean isShared(JClass type) {
+        String rawName = type.erasure().fullName();
+        if (type.isArray() || type instanceof JDefinedClass && ((JDefinedClass) type).getClassType() == ClassType.CLASS) {
+            return false;
+        }
+        return !rawName.equals(Date.class.getName()) && !rawName.equals(EnumSet.class.getName()) && !rawName.equals(Object.class.getName()) && !rawName.equals(List.class.getName())
+                && !rawName.equals(Set.class.getName()) && !rawName.equals(Map.class.getName());
+    }
+
+    /**
+     * Hash based collections are sized so that the source fits without
+     * rehashing at the default load factor.
+     */
+    private JExpression capacity(JClass implType, JExpression value) {
+        JExpression size = value.invoke("size");
+        if (implType.erasure().fullName().equals(ArrayList.class.getName())) {
+            return size;
+        }
+        return JOp.plus(JExpr.cast(implType.owner().INT, size.div(JExpr.lit(0.75f))), JExpr.lit(1));
+    }
+
+    /**
+     * Untyped values hold what the data binder reads for arbitrary JSON, so
+     * maps and lists are copied (recursively) and all other values are
+     * shared.
+     */
+    private JMethod getCopyValueMethod(JDefinedClass jclass) {
+        for (JMethod method : jclass.methods()) {
+            if (method.name().equals(COPY_VALUE_METHOD_NAME)) {
+                return method;
+            }
+        }
+
+        JCodeModel owner = jclass.owner();
+        JClass objectType = owner.ref(Object.class);
+        JMethod method = jclass.method(JMod.PRIVATE | JMod.STATIC, Object.class, COPY_VALUE_METHOD_NAME);
+        JVar value = method.param(Object.class, "value");
+        JBlock body = method.body();
+
+        JConditional isMap = body._if(value._instanceof(owner.ref(Map.class)));
+        JVar map = isMap._then().decl(owner.ref(Map.class).narrow(owner.wildcard(), owner.wildcard()), "map",
+                JExpr.cast(owner.ref(Map.class).narrow(owner.wildcard(), owner.wildcard()), value));
+        JClass mapType = owner.ref(Map.class).narrow(objectType, objectType);
+        JClass mapImplType = owner.ref(LinkedHashMap.class).narrow(objectType, objectType);
+        JVar mapCopy = isMap._then().decl(mapType, "copy", JExpr._new(mapImplType).arg(capacity(mapImplType, map)));
+        JForEach entries = isMap._then().forEach(owner.ref(Map.Entry.class).narrow(owner.wildcard(), owner.wildcard()), "entry", map.invoke("entrySet"));
+        entries.body().invoke(mapCopy, "put").arg(entries.var().invoke("getKey"))
+                .arg(JExpr.invoke(method).arg(entries.var().invoke("getValue")));
+        isMap._then()._return(mapCopy);
+
+        JConditional isList = body._if(value._instanceof(owner.ref(List.class)));
+        JVar list = isList._then().decl(owner.ref(List.class).narrow(owner.wildcard()), "list",
+                JExpr.cast(owner.ref(List.class).narrow(owner.wildcard()), value));
+        JVar listCopy = isList._then().decl(owner.ref(List.class).narrow(objectType), "copy",
+                JExpr._new(owner.ref(ArrayList.class).narrow(objectType)).arg(list.invoke("size")));
+        JForEach items = isList._then().forEach(objectType, "item", list);
+        items.body().invoke(listCopy, "add").arg(JExpr.invoke(method).arg(items.var()));
+        isList._then()._return(listCopy);
+
+        body._return(value);
+        return method;
+    }
+
+}
@@ -0,0 +1,404 @@
+/**
+ * Copyright © 2010-2014 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jsonschema2pojo.util;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sun.codemodel.ClassType;
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JConditional;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JFieldRef;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JForEach;
+import com.sun.codemodel.JForLoop;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+import com.sun.codemodel.JOp;
+import com.sun.codemodel.JType;
+import com.sun.codemodel.JVar;
+import com.sun.codemodel.JWhileLoop;
+
+/**
+ * Makes a generated type {@link Externalizable}, with methods that write and
+ * read its fields in a compact binary form rather than through default Java
+ * serialization:
+ * <ul>
+ * <li>a bit set up front marks the fields that are <code>null</code>,</li>
+ * <li>integers are written as zig-zag variable-length numbers, so small
+ * values take a byte or two,</li>
+ * <li>strings are written as their length and UTF-8 bytes, enums as their
+ * ordinal and dates as their time,</li>
+ * <li>values of other generated types are written in place, through their
+ * own <code>writeExternal</code>, when they are of the declared type of the
+ * field; instances of subtypes are written with <code>writeObject</code>, so
+ * they keep their class and the fields it adds,</li>
+ * <li>arrays, lists and sets are written as their size and their elements,
+ * with a marker for <code>null</code> elements,</li>
+ * <li>any other value is written with <code>writeObject</code>.</li>
+ * </ul>
+ * The fields of a generated super type are written first, by the super type.
+ */
+public class ExternalizableHelper {
+
+    private static final String WRITE_VAR_LONG = "writeVarLong";
+    private static final String READ_VAR_LONG = "readVarLong";
+    private static final String WRITE_STRING = "writeString";
+    private static final String READ_STRING = "readString";
+
+    private boolean uncheckedCast;
+
+    private JDefinedClass externalizedClass;
+
+    private Map<String, JFieldVar> enumValues;
+
+    /**
+     * Adds a <code>serialVersionUID</code> that is derived from the schema of
+     * the type, so it only changes when the schema does.
+     */
+    public void addSerialVersionUID(JDefinedClass jclass, JsonNode node) {
+        // 64-bit FNV-1a of the schema text
+        long hash = 0xcbf29ce484222325L;
+        for (char c : node.toString().toCharArray()) {
+            hash ^= c;
+            hash *= 0x100000001b3L;
+        }
+        jclass.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL, long.class, "serialVersionUID", JExpr.lit(hash));
+    }
+
+    /**
+     * Adds the <code>writeExternal</code> and <code>readExternal</code>
+     * methods for the (instance) fields that the given type declares.
+     */
+    public void addExternalizable(JDefinedClass jclass) {
+        jclass._implements(Externalizable.class);
+        uncheckedCast = false;
+        externalizedClass = jclass;
+        enumValues = new HashMap<String, JFieldVar>();
+
+        List<JFieldVar> fields = new ArrayList<JFieldVar>();
+        for (JFieldVar field : jclass.fields().values()) {
+            if ((field.mods().getValue() & JMod.STATIC) == 0) {
+                fields.add(field);
+            }
+        }
+        boolean hasGeneratedSuperType = jclass._extends() instanceof JDefinedClass;
+
+        JCodeModel owner = jclass.owner();
+        JMethod writeExternal = jclass.method(JMod.PUBLIC, void.class, "writeExternal");
+        writeExternal._throws(IOException.class);
+        JVar out = writeExternal.param(ObjectOutput.class, "out");
+        JMethod readExternal = jclass.method(JMod.PUBLIC, void.class, "readExternal");
+        readExternal._throws(IOException.class)._throws(ClassNotFoundException.class);
+        JVar in = readExternal.param(ObjectInput.class, "in");
+        if (hasGeneratedSuperType) {
+            writeExternal.body().invoke(JExpr._super(), "writeExternal").arg(out);
+            readExternal.body().invoke(JExpr._super(), "readExternal").arg(in);
+        }
+
+        JBlock writeBody = writeExternal.body();
+        JBlock readBody = readExternal.body();
+
+        List<JFieldVar> nullableFields = new ArrayList<JFieldVar>();
+        for (JFieldVar field : fields) {
+            if (!field.type().isPrimitive()) {
+                nullableFields.add(field);
+            }
+        }
+        JVar[] writeNulls = new JVar[(nullableFields.size() + 7) / 8];
+        JVar[] readNulls = new JVar[writeNulls.length];
+        for (int i = 0; i < writeNulls.length; i++) {
+            writeNulls[i] = writeBody.decl(owner.INT, "nulls" + i, JExpr.lit(0));
+            for (int bit = 0; bit < 8 && i * 8 + bit < nullableFields.size(); bit++) {
+                JFieldRef field = JExpr._this().ref(nullableFields.get(i * 8 + bit));
+                writeBody._if(field.eq(JExpr._null()))._then().assign(writeNulls[i], JOp.bor(writeNulls[i], JExpr.lit(1 << bit)));
+            }
+            writeBody.invoke(out, "writeByte").arg(writeNulls[i]);
+            readNulls[i] = readBody.decl(owner.INT, "nulls" + i, in.invoke("readUnsignedByte"));
+        }
+
+        for (JFieldVar field : fields) {
+            JFieldRef fieldRef = JExpr._this().ref(field);
+            int index = nullableFields.indexOf(field);
+            if (index < 0) {
+                writeValue(writeBody, field.type(), out, fieldRef, field.name());
+                readBody.assign(fieldRef, readValue(readBody, field.type(), in, field.name()));
+                continue;
+            }
+
+            int mask = 1 << (index % 8);
+            writeValue(writeBody._if(JOp.band(writeNulls[index / 8], JExpr.lit(mask)).eq(JExpr.lit(0)))._then(), field.type(), out, fieldRef, field.name());
+            JConditional isNull = readBody._if(JOp.band(readNulls[index / 8], JExpr.lit(mask)).ne(JExpr.lit(0)));
+            isNull._then().assign(fieldRef, JExpr._null());
+            isNull._else().assign(fieldRef, readValue(isNull._else(), field.type(), in, field.name()));
+        }
+
+        if (uncheckedCast) {
+            Models.suppressWarnings(readExternal, "unchecked");
+        }
+
+        addVarLongMethods(jclass);
+        addStringMethods(jclass);
+    }
+
+    /**
+     * Adds statements that write a (non-null) value of the given type.
+     */
+    private void writeValue(JBlock block, JType type, JVar out, JExpression value, String name) {
+        JCodeModel owner = type.owner();
+        JType primitiveType = type.unboxify();
+        if (primitiveType == owner.BOOLEAN) {
+            block.invoke(out, "writeBoolean").arg(value);
+        } else if (primitiveType == owner.BYTE) {
+            block.invoke(out, "writeByte").arg(value);
+        } else if (primitiveType == owner.CHAR) {
+            block.invoke(out, "writeChar").arg(value);
+        } else if (primitiveType == owner.SHORT || primitiveType == owner.INT || primitiveType == owner.LONG) {
+            block.invoke(WRITE_VAR_LONG).arg(out).arg(value);
+        } else if (primitiveType == owner.FLOAT) {
+            block.invoke(out, "writeFloat").arg(value);
+        } else if (primitiveType == owner.DOUBLE) {
+            block.invoke(out, "writeDouble").arg(value);
+        } else if (isString(type)) {
+            block.invoke(WRITE_STRING).arg(out).arg(value);
+        } else if (isEnum(type)) {
+            block.invoke(WRITE_VAR_LONG).arg(out).arg(value.invoke("ordinal"));
+        } else if (isDate(type)) {
+            block.invoke(WRITE_VAR_LONG).arg(out).arg(value.invoke("getTime"));
+        } else if (isGenerated(type)) {
+            // a subtype has fields that the declared type doesn't know how to write
+            JVar exact = block.decl(owner.BOOLEAN, name + "Exact", value.invoke("getClass").eq(((JClass) type).dotclass()));
+            block.invoke(out, "writeBoolean").arg(exact);
+            JConditional isExact = block._if(exact);
+            isExact._then().invoke(value, "writeExternal").arg(out);
+            isExact._else().invoke(out, "writeObject").arg(value);
+        } else if (getElementType(type) != null) {
+            JType elementType = getElementType(type);
+            block.invoke(WRITE_VAR_LONG).arg(out).arg(type.isArray() ? value.ref("length") : value.invoke("size"));
+            JForEach forEach = block.forEach(elementType, name + "Element", value);
+            if (elementType.isPrimitive()) {
+                writeValue(forEach.body(), elementType, out, forEach.var(), name + "Element");
+            } else {
+                JVar present = forEach.body().decl(owner.BOOLEAN, name + "Present", forEach.var().ne(JExpr._null()));
+                forEach.body().invoke(out, "writeBoolean").arg(present);
+                writeValue(forEach.body()._if(present)._then(), elementType, out, forEach.var(), name + "Element");
+            }
+        } else {
+            block.invoke(out, "writeObject").arg(value);
+        }
+    }
+
+    /**
+     * Adds the statements that read a (non-null) value of the given type, if
+     * it takes more than an expression.
+     *
+     * @return the expression that gives the value
+     */
+    private JExpression readValue(JBlock block, JType type, JVar in, String name) {
+        JCodeModel owner = type.owner();
+        JType primitiveType = type.unboxify();
+        JExpression varLong = JExpr.invoke(READ_VAR_LONG).arg(in);
+        if (primitiveType == owner.BOOLEAN) {
+            return in.invoke("readBoolean");
+        } else if (primitiveType == owner.BYTE) {
+            return in.invoke("readByte");
+        } else if (primitiveType == owner.CHAR) {
+            return in.invoke("readChar");
+        } else if (primitiveType == owner.SHORT || primitiveType == owner.INT) {
+            return JExpr.cast(primitiveType, varLong);
+        } else if (primitiveType == owner.LONG) {
+            return varLong;
+        } else if (primitiveType == owner.FLOAT) {
+            return in.invoke("readFloat");
+        } else if (primitiveType == owner.DOUBLE) {
+            return in.invoke("readDouble");
+        } else if (isString(type)) {
+            return JExpr.invoke(READ_STRING).arg(in);
+        } else if (isEnum(type)) {
+            return getEnumValues((JDefinedClass) type).component(JExpr.cast(owner.INT, varLong));
+        } else if (isDate(type)) {
+            return JExpr._new(type).arg(varLong);
+        } else if (isGenerated(type)) {
+            JVar value = block.decl(type, name + "Value");
+            JConditional isExact = block._if(in.invoke("readBoolean"));
+            isExact._then().assign(value, JExpr._new(type));
+            isExact._then().invoke(value, "readExternal").arg(in);
+            isExact._else().assign(value, JExpr.cast(type, in.invoke("readObject")));
+            return value;
+        } else if (getElementType(type) != null) {
+            return readElements(block, type, getElementType(type), in, name);
+        } else {
+            if (type.fullName().equals(Object.class.getName())) {
+                return in.invoke("readObject");
+            }
+            uncheckedCast |= type instanceof JClass && !((JClass) type).getTypeParameters().isEmpty();
+            return JExpr.cast(type, in.invoke("readObject"));
+        }
+    }
+
+    private JExpression readElements(JBlock block, JType type, JType elementType, JVar in, String name) {
+        JCodeModel owner = type.owner();
+        JVar size = block.decl(owner.INT, name + "Size", JExpr.cast(owner.INT, JExpr.invoke(READ_VAR_LONG).arg(in)));
+        JVar values;
+        if (type.isArray()) {
+            values = block.decl(type, name + "Values", JExpr.newArray(elementType, size));
+        } else if (type.erasure().fullName().equals(EnumSet.class.getName())) {
+            values = block.decl(type, name + "Values", owner.ref(EnumSet.class).staticInvoke("noneOf").arg(((JClass) elementType).dotclass()));
+        } else if (type.erasure().fullName().equals(Set.class.getName())) {
+            values = block.decl(type, name + "Values", JExpr._new(owner.ref(LinkedHashSet.class).narrow(elementType)).arg(size));
+        } else {
+            values = block.decl(type, name + "Values", JExpr._new(owner.ref(ArrayList.class).narrow(elementType)).arg(size));
+        }
+
+        JForLoop forLoop = block._for();
+        JVar i = forLoop.init(owner.INT, name + "Index", JExpr.lit(0));
+        forLoop.test(i.lt(size));
+        forLoop.update(i.incr());
+        JBlock loop = forLoop.body();
+        if (type.isArray()) {
+            loop.assign(values.component(i), readValue(loop, elementType, in, name + "Element"));
+        } else {
+            JConditional present = loop._if(in.invoke("readBoolean"));
+            JExpression element = readValue(present._then(), elementType, in, name + "Element");
+            present._then().invoke(values, "add").arg(element);
+            present._else().invoke(values, "add").arg(JExpr._null());
+        }
+        return values;
+    }
+
+    /**
+     * @return a static field of the type being generated that holds the
+     *         constants of the given enum, as <code>values()</code> returns a
+     *         new copy of the array each time it is called
+     */
+    private JFieldVar getEnumValues(JDefinedClass enumType) {
+        JFieldVar field = enumValues.get(enumType.fullName());
+        if (field == null) {
+            String fieldName = Models.getUniqueFieldName(externalizedClass, Models.getConstantName(enumType.name()) + "_VALUES");
+            field = externalizedClass.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL, enumType.array(), fieldName, enumType.staticInvoke("values"));
+            enumValues.put(enumType.fullName(), field);
+        }
+        return field;
+    }
+
+    private void addVarLongMethods(JDefinedClass jclass) {
+        JCodeModel owner = jclass.owner();
+
+        JMethod write = jclass.method(JMod.PRIVATE | JMod.STATIC, void.class, WRITE_VAR_LONG);
+        write._throws(IOException.class);
+        JVar out = write.param(ObjectOutput.class, "out");
+        JVar value = write.param(long.class, "value");
+        JBlock body = write.body();
+        // zig-zag encoding, so that small negative numbers take few bytes too
+        JVar bits = body.decl(owner.LONG, "bits", JOp.xor(value.shl(JExpr.lit(1)), value.shr(JExpr.lit(63))));
+        JWhileLoop more = body._while(JOp.band(bits, JOp.complement(JExpr.lit(0x7FL))).ne(JExpr.lit(0L)));
+        more.body().invoke(out, "writeByte").arg(JExpr.cast(owner.INT, JOp.bor(JOp.band(bits, JExpr.lit(0x7FL)), JExpr.lit(0x80L))));
+        more.body().assign(bits, bits.shrz(JExpr.lit(7)));
+        body.invoke(out, "writeByte").arg(JExpr.cast(owner.INT, bits));
+
+        JMethod read = jclass.method(JMod.PRIVATE | JMod.STATIC, long.class, READ_VAR_LONG);
+        read._throws(IOException.class);
+        JVar in = read.param(ObjectInput.class, "in");
+        body = read.body();
+        bits = body.decl(owner.LONG, "bits", JExpr.lit(0L));
+        JVar shift = body.decl(owner.INT, "shift", JExpr.lit(0));
+        JBlock loop = body._while(JExpr.TRUE).body();
+        JVar b = loop.decl(owner.INT, "b", in.invoke("readUnsignedByte"));
+        loop.assign(bits, JOp.bor(bits, JOp.shl(JExpr.cast(owner.LONG, JOp.band(b, JExpr.lit(0x7F))), shift)));
+        loop._if(JOp.band(b, JExpr.lit(0x80)).eq(JExpr.lit(0)))._then()
+                ._return(JOp.xor(bits.shrz(JExpr.lit(1)), JOp.minus(JOp.band(bits, JExpr.lit(1L)))));
+        loop.assignPlus(shift, JExpr.lit(7));
+        loop._if(shift.gt(JExpr.lit(63)))._then()._throw(JExpr._new(owner.ref(StreamCorruptedException.class)).arg("Malformed variable-length number"));
+    }
+
+    private void addStringMethods(JDefinedClass jclass) {
+        JCodeModel owner = jclass.owner();
+
+        JMethod write = jclass.method(JMod.PRIVATE | JMod.STATIC, void.class, WRITE_STRING);
+        write._throws(IOException.class);
+        JVar out = write.param(ObjectOutput.class, "out");
+        JVar value = write.param(String.class, "value");
+        // unlike writeUTF, not limited to 64k bytes
+        JVar bytes = write.body().decl(owner.BYTE.array(), "bytes", value.invoke("getBytes").arg("UTF-8"));
+        write.body().invoke(WRITE_VAR_LONG).arg(out).arg(bytes.ref("length"));
+        write.body().invoke(out, "write").arg(bytes);
+
+        JMethod read = jclass.method(JMod.PRIVATE | JMod.STATIC, String.class, READ_STRING);
+        read._throws(IOException.class);
+        JVar in = read.param(ObjectInput.class, "in");
+        bytes = read.body().decl(owner.BYTE.array(), "bytes", JExpr.newArray(owner.BYTE, JExpr.cast(owner.INT, JExpr.invoke(READ_VAR_LONG).arg(in))));
+        read.body().invoke(in, "readFully").arg(bytes);
+        read.body()._return(JExpr._new(owner.ref(String.class)).arg(bytes).arg("UTF-8"));
+    }
+
+    /**
+     * @return the element type of an array (of primitives), list, set or enum
+     *         set, or <code>null</code> if the type isn't one
+     */
+    private JType getElementType(JType type) {
+        if (type.isArray()) {
+            return type.elementType().isPrimitive() ? type.elementType() : null;
+        }
+        if (!(type instanceof JClass) || ((JClass) type).getTypeParameters().size() != 1) {
+            return null;
+        }
+        String typeName = type.erasure().fullName();
+        if (typeName.equals(List.class.getName()) || typeName.equals(Set.class.getName()) || typeName.equals(EnumSet.class.getName())) {
+            return ((JClass) type).getTypeParameters().get(0);
+        }
+        return null;
+    }
+
+    private boolean isString(JType type) {
+        return type.fullName().equals(String.class.getName());
+    }
+
+    private boolean isDate(JType type) {
+        return type.fullName().equals(Date.class.getName());
+    }
+
+    private boolean isEnum(JType type) {
+        return type instanceof JDefinedClass && ((JDefinedClass) type).getClassType() == ClassType.ENUM;
+    }
+
+    /**
+     * All classes generated with the 'externalizable' option have the
+     * externalizable methods, even those still being generated (when types
+     * refer to each other).
+     */
+    private boolean isGenerated(JType type) {
+        return type instanceof JDefinedClass && ((JDefinedClass) type).getClassType() == ClassType.CLASS && !((JDefinedClass) type).isAbstract();
+    }
+
+}
@@ -0,0 +1,319 @@
+/**
+ * Copyright © 2010-2014 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jsonschema2pojo.util;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Generated;
+
+import org.jsonschema2pojo.SchemaMapper;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.sun.codemodel.ClassType;
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JConditional;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JForEach;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+import com.sun.codemodel.JPackage;
+import com.sun.codemodel.JType;
+import com.sun.codemodel.JTypeVar;
+import com.sun.codemodel.JVar;
+import com.sun.codemodel.JWhileLoop;
+
+/**
+ * Adds a Gson {@link TypeAdapter} to a generated type. The adapter is written
+ * directly against {@link JsonReader} and {@link JsonWriter}, so Gson doesn't
+ * need to build a reflective adapter for the type, and it keeps the additional
+ * properties of the type (which the reflective adapter can't).
+ */
+public class GsonTypeAdapterHelper {
+
+    public static final String FACTORY_NAME = "GsonTypeAdapterFactory";
+
+    private static final Set<String> RESERVED_NAMES = new HashSet<String>(Arrays.asList(
+            "instance", "writer", "reader", "gson", "name", "builder", "additionalProperty"));
+
+    private final boolean useStringSwitch;
+
+    /**
+     * @param useStringSwitch
+     *            whether the adapter may switch on the property name (Java 7
+     *            and later), rather than on its hash code
+     */
+    public GsonTypeAdapterHelper(boolean useStringSwitch) {
+        this.useStringSwitch = useStringSwitch;
+    }
+
+    /**
+     * Adds a nested <code>Adapter</code> class to the given type.
+     *
+     * @param jclass
+     *            the type to read and write
+     * @param builderClass
+     *            the builder that creates instances of an immutable type, or
+     *            <code>null</code> if instances are created with the no-args
+     *            constructor and populated directly
+     * @param properties
+     *            all properties of the type, including inherited ones
+     * @param additionalPropertiesType
+     *            the value type of the additional properties map, or
+     *            <code>null</code> if unknown properties are skipped
+     * @param additionalPropertyWriterName
+     *            the name of the method that accepts an additional property
+     */
+    public JDefinedClass addTypeAdapter(JDefinedClass jclass, JDefinedClass builderClass, List<SerializedProperty> properties, JType additionalPropertiesType, String additionalPropertyWriterName) {
+        JCodeModel owner = jclass.owner();
+
+        JDefinedClass adapter = Models.createNestedClass(jclass, JMod.PUBLIC | JMod.STATIC, "Adapter", ClassType.CLASS);
+        adapter._extends(owner.ref(TypeAdapter.class).narrow(jclass));
+        adapter.javadoc().add("Reads and writes " + jclass.name() + " instances with the Gson streaming API.");
+
+        // adapters for values that aren't scalars are looked up once, when Gson creates this adapter
+        JMethod constructor = adapter.constructor(JMod.PUBLIC);
+        JVar gson = constructor.param(Gson.class, "gson");
+
+        Map<SerializedProperty, JFieldVar> valueAdapters = new LinkedHashMap<SerializedProperty, JFieldVar>();
+        for (SerializedProperty property : properties) {
+            if (!isScalar(property.getType())) {
+                valueAdapters.put(property, addValueAdapter(adapter, constructor, gson, property.getFieldName() + "Adapter", property.getType()));
+            }
+        }
+
+        JFieldVar additionalPropertiesAdapter = null;
+        if (additionalPropertiesType != null) {
+            additionalPropertiesAdapter = addValueAdapter(adapter, constructor, gson, "additionalPropertiesAdapter", additionalPropertiesType);
+        }
+
+        addWrite(adapter, jclass, properties, valueAdapters, additionalPropertiesAdapter);
+        addRead(adapter, jclass, builderClass, properties, valueAdapters, additionalPropertiesAdapter, additionalPropertyWriterName);
+
+        return adapter;
+    }
+
+    /**
+     * Registers the adapter of the given type with the factory generated for
+     * its package, creating the factory if this is the first type of the
+     * package.
+     */
+    public void addToFactory(JDefinedClass jclass, JDefinedClass adapter) {
+        JMethod create = getFactory(jclass._package()).methods().iterator().next();
+        JBlock body = create.body();
+        JVar gson = create.listParams()[0];
+        JVar rawType = (JVar) body.getContents().get(0);
+
+        // new types are checked before the final 'return null'
+        body.pos(body.getContents().size() - 1);
+        body._if(rawType.eq(JExpr.dotclass(jclass)))._then()
+                ._return(JExpr.cast(create.type(), JExpr._new(adapter).arg(gson)));
+    }
+
+    private JDefinedClass getFactory(JPackage _package) {
+        JCodeModel owner = _package.owner();
+        JDefinedClass factory = Models.getPackageClass(_package, JMod.PUBLIC, FACTORY_NAME, GsonTypeAdapterHelper.class);
+        if (factory.methods().isEmpty()) {
+            factory._implements(TypeAdapterFactory.class);
+            factory.annotate(Generated.class).param("value", SchemaMapper.class.getPackage().getName());
+            factory.javadoc().add("Creates the streaming type adapters of all generated types in this package.");
+
+            JMethod create = factory.method(JMod.PUBLIC, void.class, "create");
+            JTypeVar typeVariable = create.generify("T");
+            create.type(owner.ref(TypeAdapter.class).narrow(typeVariable));
+            create.annotate(Override.class);
+            create.annotate(SuppressWarnings.class).param("value", "unchecked");
+            create.param(Gson.class, "gson");
+            JVar type = create.param(owner.ref(TypeToken.class).narrow(typeVariable), "type");
+            create.body().decl(owner.ref(Class.class).narrow(owner.wildcard()), "rawType", type.invoke("getRawType"));
+            create.body()._return(JExpr._null());
+        }
+        return factory;
+    }
+
+    private JFieldVar addValueAdapter(JDefinedClass adapter, JMethod constructor, JVar gson, String name, JType type) {
+        JCodeModel owner = adapter.owner();
+        JClass boxedType = (JClass) type.boxify();
+        JFieldVar valueAdapter = adapter.field(JMod.PRIVATE | JMod.FINAL, owner.ref(TypeAdapter.class).narrow(boxedType), name);
+
+        if (boxedType.getTypeParameters().isEmpty()) {
+            constructor.body().assign(valueAdapter, gson.invoke("getAdapter").arg(JExpr.dotclass(boxedType)));
+        } else {
+            // the type arguments are captured by an anonymous subclass, as Gson asks for
+            JDefinedClass typeToken = owner.anonymousClass(owner.ref(TypeToken.class).narrow(boxedType));
+            constructor.body().assign(valueAdapter, gson.invoke("getAdapter").arg(JExpr._new(typeToken)));
+        }
+        return valueAdapter;
+    }
+
+    private void addWrite(JDefinedClass adapter, JDefinedClass jclass, List<SerializedProperty> properties, Map<SerializedProperty, JFieldVar> valueAdapters, JFieldVar additionalPropertiesAdapter) {
+        JCodeModel owner = jclass.owner();
+
+        JMethod write = adapter.method(JMod.PUBLIC, void.class, "write");
+        write._throws(IOException.class);
+        write.annotate(Override.class);
+        JVar writer = write.param(JsonWriter.class, "writer");
+        JVar instance = write.param(jclass, "instance");
+        JBlock body = write.body();
+
+        JBlock nullInstance = body._if(instance.eq(JExpr._null()))._then();
+        nullInstance.invoke(writer, "nullValue");
+        nullInstance._return();
+
+        body.invoke(writer, "beginObject");
+
+        // null values are written as nulls, the writer leaves them out unless it is asked to serialize nulls;
+        // primitives whose presence is tracked are only written while they are present
+        for (SerializedProperty property : properties) {
+            JBlock block = property.isPresenceTracked() ? body._if(property.isPresent(instance))._then() : body;
+            block.invoke(writer, "name").arg(JExpr.lit(property.getJsonName()));
+
+            JType type = property.getType();
+            JExpression value = property.read(instance);
+            JFieldVar valueAdapter = valueAdapters.get(property);
+            if (valueAdapter != null) {
+                block.invoke(valueAdapter, "write").arg(writer).arg(value);
+            } else if (type.unboxify() == owner.BOOLEAN && !type.isPrimitive()) {
+                JVar booleanValue = block.decl(type, getLocalName(property.getFieldName()), value);
+                JConditional isNull = block._if(booleanValue.eq(JExpr._null()));
+                isNull._then().invoke(writer, "nullValue");
+                isNull._else().invoke(writer, "value").arg(booleanValue.invoke("booleanValue"));
+            } else if (type == owner.FLOAT) {
+                // a float widened to a double would be written with spurious digits
+                block.invoke(writer, "value").arg(owner.ref(Float.class).staticInvoke("valueOf").arg(value));
+            } else {
+                block.invoke(writer, "value").arg(value);
+            }
+        }
+
+        if (additionalPropertiesAdapter != null) {
+            JClass valueType = ((JClass) additionalPropertiesAdapter.type()).getTypeParameters().get(0);
+            JClass entryType = owner.ref(Map.Entry.class).narrow(owner.ref(String.class), valueType);
+            JForEach additionalProperty = body.forEach(entryType, "additionalProperty", instance.invoke("getAdditionalProperties").invoke("entrySet"));
+            additionalProperty.body().invoke(writer, "name").arg(additionalProperty.var().invoke("getKey"));
+            additionalProperty.body().invoke(additionalPropertiesAdapter, "write").arg(writer).arg(additionalProperty.var().invoke("getValue"));
+        }
+
+        body.invoke(writer, "endObject");
+    }
+
+    private void addRead(JDefinedClass adapter, JDefinedClass jclass, JDefinedClass builderClass, List<SerializedProperty> properties, Map<SerializedProperty, JFieldVar> valueAdapters, JFieldVar additionalPropertiesAdapter, String additionalPropertyWriterName) {
+        JCodeModel owner = jclass.owner();
+        JClass jsonToken = owner.ref(JsonToken.class);
+
+        JMethod read = adapter.method(JMod.PUBLIC, jclass, "read");
+        read._throws(IOException.class);
+        read.annotate(Override.class);
+        JVar reader = read.param(JsonReader.class, "reader");
+        JBlock body = read.body();
+
+        JBlock nullInstance = body._if(reader.invoke("peek").eq(jsonToken.staticRef("NULL")))._then();
+        nullInstance.invoke(reader, "nextNull");
+        nullInstance._return(JExpr._null());
+
+        JVar target = builderClass != null ? body.decl(builderClass, "builder", JExpr._new(builderClass)) : body.decl(jclass, "instance", JExpr._new(jclass));
+
+        body.invoke(reader, "beginObject");
+        JWhileLoop whileLoop = body._while(reader.invoke("hasNext"));
+        JBlock loop = whileLoop.body();
+        JVar name = loop.decl(owner.ref(String.class), "name", reader.invoke("nextName"));
+
+        Map<String, JBlock> caseBodies = Models.addStringSwitch(loop, name, SerializedProperty.getJsonNames(properties), useStringSwitch);
+        for (SerializedProperty property : properties) {
+            JBlock caseBody = caseBodies.get(property.getJsonName());
+            readProperty(caseBody, property, target, reader, valueAdapters.get(property));
+            caseBody._continue();
+        }
+
+        if (additionalPropertiesAdapter != null) {
+            loop.add(target.invoke(additionalPropertyWriterName).arg(name).arg(additionalPropertiesAdapter.invoke("read").arg(reader)));
+        } else {
+            loop.invoke(reader, "skipValue");
+        }
+
+        body.invoke(reader, "endObject");
+        body._return(builderClass != null ? target.invoke("build") : target);
+    }
+
+    private void readProperty(JBlock block, SerializedProperty property, JVar target, JVar reader, JFieldVar valueAdapter) {
+        JType type = property.getType();
+        if (valueAdapter != null) {
+            property.write(block, target, valueAdapter.invoke("read").arg(reader));
+            return;
+        }
+
+        // a null leaves primitives at their default value, as the reflective adapter does
+        JConditional isNull = block._if(reader.invoke("peek").eq(type.owner().ref(JsonToken.class).staticRef("NULL")));
+        isNull._then().invoke(reader, "nextNull");
+        if (!type.isPrimitive()) {
+            property.write(isNull._then(), target, JExpr._null());
+        }
+        property.write(isNull._else(), target, getScalarValue(reader, type.unboxify()));
+    }
+
+    private JExpression getScalarValue(JVar reader, JType type) {
+        JCodeModel owner = type.owner();
+        if (type == owner.INT) {
+            return reader.invoke("nextInt");
+        } else if (type == owner.LONG) {
+            return reader.invoke("nextLong");
+        } else if (type == owner.DOUBLE) {
+            return reader.invoke("nextDouble");
+        } else if (type == owner.FLOAT) {
+            return JExpr.cast(type, reader.invoke("nextDouble"));
+        } else if (type == owner.SHORT || type == owner.BYTE) {
+            return JExpr.cast(type, reader.invoke("nextInt"));
+        } else if (type == owner.BOOLEAN) {
+            return reader.invoke("nextBoolean");
+        } else {
+            return reader.invoke("nextString");
+        }
+    }
+
+    /**
+     * Scalars are strings, booleans and numbers other than characters, these
+     * are read and written without looking up an adapter.
+     */
+    private boolean isScalar(JType type) {
+        JCodeModel owner = type.owner();
+        JType unboxed = type.unboxify();
+        return type.fullName().equals(String.class.getName())
+                || unboxed == owner.INT || unboxed == owner.LONG || unboxed == owner.DOUBLE || unboxed == owner.FLOAT
+                || unboxed == owner.SHORT || unboxed == owner.BYTE || unboxed == owner.BOOLEAN;
+    }
+
+    private String getLocalName(String fieldName) {
+        return RESERVED_NAMES.contains(fieldName) ? fieldName + "_" : fieldName;
+    }
+
+}
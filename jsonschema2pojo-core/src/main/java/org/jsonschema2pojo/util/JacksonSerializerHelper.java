@@ -0,0 +1,449 @@
+/**
+ * Copyright © 2010-2014 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jsonschema2pojo.util;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Generated;
+
+import org.jsonschema2pojo.SchemaMapper;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.Version;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.deser.ResolvableDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.sun.codemodel.ClassType;
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JConditional;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JForEach;
+import com.sun.codemodel.JForLoop;
+import com.sun.codemodel.JInvocation;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+import com.sun.codemodel.JOp;
+import com.sun.codemodel.JPackage;
+import com.sun.codemodel.JType;
+import com.sun.codemodel.JVar;
+
+/**
+ * Adds a Jackson 2.x serializer and deserializer to a generated type. Both
+ * are written directly against {@link JsonGenerator} and {@link JsonParser},
+ * so Jackson doesn't need to introspect the type to build a bean serializer
+ * or deserializer for it.
+ */
+public class JacksonSerializerHelper {
+
+    public static final String MODULE_NAME = "JacksonModule";
+
+    private static final Set<String> RESERVED_NAMES = new HashSet<String>(Arrays.asList(
+            "instance", "generator", "provider", "typeSerializer", "parser", "context", "token", "name", "activeView", "builder", "additionalProperty"));
+
+    private final boolean useStringSwitch;
+
+    /**
+     * @param useStringSwitch
+     *            whether the deserializer may switch on the property name
+     *            (Java 7 and later), rather than on its hash code
+     */
+    public JacksonSerializerHelper(boolean useStringSwitch) {
+        this.useStringSwitch = useStringSwitch;
+    }
+
+    /**
+     * Adds a nested <code>Serializer</code> class to the given type and
+     * annotates the type to use it.
+     *
+     * @param jclass
+     *            the type to serialize
+     * @param properties
+     *            all properties of the type, including inherited ones
+     * @param additionalPropertiesType
+     *            the value type of the additional properties map, or
+     *            <code>null</code> if the type has no such map
+     */
+    public JDefinedClass addSerializer(JDefinedClass jclass, List<SerializedProperty> properties, JType additionalPropertiesType) {
+        JCodeModel owner = jclass.owner();
+
+        JDefinedClass serializer = Models.createNestedClass(jclass, JMod.PUBLIC | JMod.STATIC, "Serializer", ClassType.CLASS);
+        serializer._extends(owner.ref(StdSerializer.class).narrow(jclass));
+        serializer.javadoc().add("Writes " + jclass.name() + " instances with the Jackson streaming API.");
+        serializer.constructor(JMod.PUBLIC).body().invoke("super").arg(JExpr.dotclass(jclass));
+
+        // property names are quoted and encoded once, rather than every time they are written
+        Map<SerializedProperty, JFieldVar> names = new LinkedHashMap<SerializedProperty, JFieldVar>();
+        for (SerializedProperty property : properties) {
+            JFieldVar name = serializer.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL, SerializedString.class,
+                    Models.getUniqueFieldName(serializer, Models.getConstantName(property.getFieldName()) + "_NAME"), JExpr._new(owner.ref(SerializedString.class)).arg(JExpr.lit(property.getJsonName())));
+            names.put(property, name);
+        }
+
+        JMethod serializeProperties = serializer.method(JMod.PRIVATE, void.class, "serializeProperties");
+        serializeProperties._throws(IOException.class);
+        JVar instance = serializeProperties.param(jclass, "instance");
+        JVar generator = serializeProperties.param(JsonGenerator.class, "generator");
+        JVar provider = serializeProperties.param(SerializerProvider.class, "provider");
+        JBlock body = serializeProperties.body();
+
+        JVar activeView = hasViews(properties) ? body.decl(owner.ref(Class.class).narrow(owner.wildcard()), "activeView", provider.invoke("getActiveView")) : null;
+
+        for (SerializedProperty property : properties) {
+            JBlock block = body;
+            if (property.getView() != null) {
+                block = block._if(activeView.eq(JExpr._null()).cor(JExpr.dotclass(property.getView()).invoke("isAssignableFrom").arg(activeView)))._then();
+            }
+            if (property.isPresenceTracked()) {
+                block = block._if(property.isPresent(instance))._then();
+            }
+
+            JType type = property.getType();
+            JVar value = block.decl(type, getLocalName(property.getFieldName()), property.read(instance));
+            if (!type.isPrimitive()) {
+                block = block._if(value.ne(JExpr._null()))._then();
+            }
+
+            block.invoke(generator, "writeFieldName").arg(names.get(property));
+            if (isScalar(type)) {
+                JType unboxed = type.unboxify();
+                block.invoke(generator, unboxed == owner.BOOLEAN ? "writeBoolean" : unboxed.isPrimitive() ? "writeNumber" : "writeString").arg(value);
+            } else {
+                block.invoke(provider, "defaultSerializeValue").arg(value).arg(generator);
+            }
+        }
+
+        if (additionalPropertiesType != null) {
+            JClass entryType = owner.ref(Map.Entry.class).narrow(owner.ref(String.class), additionalPropertiesType.boxify());
+            JForEach additionalProperty = body.forEach(entryType, "additionalProperty", instance.invoke("getAdditionalProperties").invoke("entrySet"));
+            additionalProperty.body().invoke(provider, "defaultSerializeField")
+                    .arg(additionalProperty.var().invoke("getKey"))
+                    .arg(additionalProperty.var().invoke("getValue"))
+                    .arg(generator);
+        }
+
+        JMethod serialize = serializer.method(JMod.PUBLIC, void.class, "serialize");
+        serialize._throws(IOException.class);
+        serialize.annotate(Override.class);
+        instance = serialize.param(jclass, "instance");
+        generator = serialize.param(JsonGenerator.class, "generator");
+        provider = serialize.param(SerializerProvider.class, "provider");
+        serialize.body().invoke(generator, "writeStartObject");
+        serialize.body().invoke(serializeProperties).arg(instance).arg(generator).arg(provider);
+        serialize.body().invoke(generator, "writeEndObject");
+
+        // called instead of serialize when the type (or one of its super types) is annotated with @JsonTypeInfo
+        JMethod serializeWithType = serializer.method(JMod.PUBLIC, void.class, "serializeWithType");
+        serializeWithType._throws(IOException.class);
+        serializeWithType.annotate(Override.class);
+        instance = serializeWithType.param(jclass, "instance");
+        generator = serializeWithType.param(JsonGenerator.class, "generator");
+        provider = serializeWithType.param(SerializerProvider.class, "provider");
+        JVar typeSerializer = serializeWithType.param(TypeSerializer.class, "typeSerializer");
+        serializeWithType.body().invoke(typeSerializer, "writeTypePrefixForObject").arg(instance).arg(generator);
+        serializeWithType.body().invoke(serializeProperties).arg(instance).arg(generator).arg(provider);
+        serializeWithType.body().invoke(typeSerializer, "writeTypeSuffixForObject").arg(instance).arg(generator);
+
+        jclass.annotate(JsonSerialize.class).param("using", serializer);
+
+        return serializer;
+    }
+
+    /**
+     * Adds a nested <code>Deserializer</code> class to the given type and
+     * annotates the type to use it.
+     *
+     * @param jclass
+     *            the type to deserialize
+     * @param builderClass
+     *            the builder that creates instances of an immutable type, or
+     *            <code>null</code> if instances are created with the no-args
+     *            constructor and populated directly
+     * @param properties
+     *            all properties of the type, including inherited ones
+     * @param additionalPropertiesType
+     *            the value type of the additional properties map, or
+     *            <code>null</code> if unknown properties are not kept
+     * @param additionalPropertyWriterName
+     *            the name of the method that accepts an additional property
+     */
+    public JDefinedClass addDeserializer(JDefinedClass jclass, JDefinedClass builderClass, List<SerializedProperty> properties, JType additionalPropertiesType, String additionalPropertyWriterName) {
+        JCodeModel owner = jclass.owner();
+
+        JDefinedClass deserializer = Models.createNestedClass(jclass, JMod.PUBLIC | JMod.STATIC, "Deserializer", ClassType.CLASS);
+        deserializer._extends(owner.ref(StdDeserializer.class).narrow(jclass));
+        deserializer.javadoc().add("Reads " + jclass.name() + " instances with the Jackson streaming API.");
+        deserializer.constructor(JMod.PUBLIC).body().invoke("super").arg(JExpr.dotclass(jclass));
+
+        JClass valueDeserializerType = owner.ref(JsonDeserializer.class).narrow(Object.class);
+        Map<JFieldVar, JType> resolvedTypes = new LinkedHashMap<JFieldVar, JType>();
+
+        Map<SerializedProperty, JFieldVar> valueDeserializers = new LinkedHashMap<SerializedProperty, JFieldVar>();
+        for (SerializedProperty property : properties) {
+            if (!isScalar(property.getType())) {
+                JFieldVar valueDeserializer = deserializer.field(JMod.PRIVATE, valueDeserializerType, property.getFieldName() + "Deserializer");
+                resolvedTypes.put(valueDeserializer, property.getType());
+                valueDeserializers.put(property, valueDeserializer);
+            }
+        }
+
+        JFieldVar additionalPropertiesDeserializer = null;
+        if (additionalPropertiesType != null) {
+            additionalPropertiesDeserializer = deserializer.field(JMod.PRIVATE, valueDeserializerType, "additionalPropertiesDeserializer");
+            resolvedTypes.put(additionalPropertiesDeserializer, additionalPropertiesType);
+        }
+
+        // deserializers for values that aren't scalars are looked up once, when Jackson resolves this deserializer
+        if (!resolvedTypes.isEmpty()) {
+            deserializer._implements(ResolvableDeserializer.class);
+            JMethod resolve = deserializer.method(JMod.PUBLIC, void.class, "resolve");
+            resolve._throws(JsonMappingException.class);
+            resolve.annotate(Override.class);
+            JVar resolveContext = resolve.param(DeserializationContext.class, "context");
+            JVar typeFactory = resolve.body().decl(owner.ref(TypeFactory.class), "typeFactory", resolveContext.invoke("getTypeFactory"));
+            for (Map.Entry<JFieldVar, JType> resolvedType : resolvedTypes.entrySet()) {
+                resolve.body().assign(resolvedType.getKey(), resolveContext.invoke("findRootValueDeserializer").arg(getJavaType(typeFactory, resolvedType.getValue())));
+            }
+        }
+
+        JMethod deserialize = deserializer.method(JMod.PUBLIC, jclass, "deserialize");
+        deserialize._throws(IOException.class);
+        deserialize.annotate(Override.class);
+        JVar parser = deserialize.param(JsonParser.class, "parser");
+        JVar context = deserialize.param(DeserializationContext.class, "context");
+        JBlock body = deserialize.body();
+
+        JClass jsonToken = owner.ref(JsonToken.class);
+        JVar token = body.decl(jsonToken, "token", parser.invoke("getCurrentToken"));
+        JConditional startObject = body._if(token.eq(jsonToken.staticRef("START_OBJECT")));
+        startObject._then().assign(token, parser.invoke("nextToken"));
+        startObject._elseif(token.ne(jsonToken.staticRef("FIELD_NAME")).cand(token.ne(jsonToken.staticRef("END_OBJECT"))))._then()
+                ._throw(context.invoke("mappingException").arg(JExpr.dotclass(jclass)).arg(token));
+
+        JVar activeView = hasViews(properties) ? body.decl(owner.ref(Class.class).narrow(owner.wildcard()), "activeView", context.invoke("getActiveView")) : null;
+
+        JVar target = builderClass != null ? body.decl(builderClass, "builder", JExpr._new(builderClass)) : body.decl(jclass, "instance", JExpr._new(jclass));
+
+        JForLoop forLoop = body._for();
+        forLoop.test(token.eq(jsonToken.staticRef("FIELD_NAME")));
+        forLoop.update(JExpr.assign(token, parser.invoke("nextToken")));
+        JBlock loop = forLoop.body();
+        JVar name = loop.decl(owner.ref(String.class), "name", parser.invoke("getCurrentName"));
+        loop.assign(token, parser.invoke("nextToken"));
+
+        boolean uncheckedCast = false;
+        Map<String, JBlock> caseBodies = Models.addStringSwitch(loop, name, SerializedProperty.getJsonNames(properties), useStringSwitch);
+        for (SerializedProperty property : properties) {
+            JBlock caseBody = caseBodies.get(property.getJsonName());
+            uncheckedCast |= readProperty(caseBody, property, target, parser, context, token, activeView, valueDeserializers.get(property));
+            caseBody._continue();
+        }
+
+        if (additionalPropertiesDeserializer != null) {
+            JExpression value = JOp.cond(token.eq(jsonToken.staticRef("VALUE_NULL")), JExpr._null(),
+                    cast(additionalPropertiesType.boxify(), additionalPropertiesDeserializer.invoke("deserialize").arg(parser).arg(context)));
+            loop.add(target.invoke(additionalPropertyWriterName).arg(name).arg(value));
+            uncheckedCast |= isParameterized(additionalPropertiesType);
+        } else {
+            loop.invoke("handleUnknownProperty").arg(parser).arg(context).arg(builderClass != null ? JExpr.dotclass(jclass) : target).arg(name);
+        }
+
+        body._return(builderClass != null ? target.invoke("build") : target);
+
+        if (uncheckedCast) {
+            deserialize.annotate(SuppressWarnings.class).param("value", "unchecked");
+        }
+
+        jclass.annotate(JsonDeserialize.class).param("using", deserializer);
+
+        return deserializer;
+    }
+
+    /**
+     * Registers the serializer and deserializer of the given type with the
+     * module generated for its package, creating the module if this is the
+     * first type of the package.
+     */
+    public void addToModule(JDefinedClass jclass, JDefinedClass serializer, JDefinedClass deserializer) {
+        JDefinedClass module = getModule(jclass._package());
+        JBlock body = module.constructors().next().body();
+        body.invoke("addSerializer").arg(JExpr.dotclass(jclass)).arg(JExpr._new(serializer));
+        body.invoke("addDeserializer").arg(JExpr.dotclass(jclass)).arg(JExpr._new(deserializer));
+    }
+
+    private JDefinedClass getModule(JPackage _package) {
+        JCodeModel owner = _package.owner();
+        JDefinedClass module = Models.getPackageClass(_package, JMod.PUBLIC, MODULE_NAME, JacksonSerializerHelper.class);
+        if (!module.constructors().hasNext()) {
+            module._extends(SimpleModule.class);
+            module.annotate(Generated.class).param("value", SchemaMapper.class.getPackage().getName());
+            module.javadoc().add("Registers the streaming serializers and deserializers of all generated types in this package.");
+            module.constructor(JMod.PUBLIC).body().invoke("super")
+                    .arg(JExpr.lit(module.fullName()))
+                    .arg(owner.ref(Version.class).staticInvoke("unknownVersion"));
+        }
+        return module;
+    }
+
+    private boolean readProperty(JBlock block, SerializedProperty property, JVar target, JVar parser, JVar context, JVar token, JVar activeView, JFieldVar valueDeserializer) {
+        JCodeModel owner = target.type().owner();
+        JClass jsonToken = owner.ref(JsonToken.class);
+
+        if (property.getView() != null) {
+            JBlock skip = block._if(activeView.ne(JExpr._null()).cand(JExpr.dotclass(property.getView()).invoke("isAssignableFrom").arg(activeView).not()))._then();
+            skip.invoke(parser, "skipChildren");
+            skip._continue();
+        }
+
+        JType type = property.getType();
+        if (valueDeserializer == null) {
+            block._if(isExpectedToken(token, type.unboxify()).not())._then()
+                    ._throw(context.invoke("mappingException").arg(JExpr.dotclass(type.boxify())).arg(token));
+
+            // a null leaves a primitive at zero or false, as the data binder does
+            JExpression nullValue = !type.isPrimitive() ? JExpr._null()
+                    : type == owner.BOOLEAN ? JExpr.FALSE : JExpr.lit(0);
+            JExpression value = JOp.cond(token.eq(jsonToken.staticRef("VALUE_NULL")), nullValue, getScalarValue(parser, type.unboxify()));
+            property.write(block, target, value);
+            return false;
+        } else {
+            JExpression value = JOp.cond(token.eq(jsonToken.staticRef("VALUE_NULL")), JExpr._null(),
+                    cast(type, valueDeserializer.invoke("deserialize").arg(parser).arg(context)));
+            property.write(block, target, value);
+            return isParameterized(type);
+        }
+    }
+
+    /**
+     * Numbers must be JSON numbers and booleans JSON booleans, rather than
+     * being coerced from any other token. Strings may be read from any
+     * scalar, as the data binder does.
+     */
+    static JExpression isExpectedToken(JVar token, JType type) {
+        JCodeModel owner = type.owner();
+        JClass jsonToken = owner.ref(JsonToken.class);
+        JExpression expected;
+        if (type == owner.BOOLEAN) {
+            expected = token.eq(jsonToken.staticRef("VALUE_TRUE")).cor(token.eq(jsonToken.staticRef("VALUE_FALSE")));
+        } else if (type.isPrimitive()) {
+            expected = token.eq(jsonToken.staticRef("VALUE_NUMBER_INT")).cor(token.eq(jsonToken.staticRef("VALUE_NUMBER_FLOAT")));
+        } else {
+            return token.invoke("isScalarValue");
+        }
+        return expected.cor(token.eq(jsonToken.staticRef("VALUE_NULL")));
+    }
+
+    /**
+     * The typed getters fail for a value that doesn't fit the type (e.g. a
+     * long that overflows an int) rather than truncating it.
+     */
+    static JExpression getScalarValue(JVar parser, JType type) {
+        JCodeModel owner = type.owner();
+        if (type == owner.INT) {
+            return parser.invoke("getIntValue");
+        } else if (type == owner.LONG) {
+            return parser.invoke("getLongValue");
+        } else if (type == owner.DOUBLE) {
+            return parser.invoke("getDoubleValue");
+        } else if (type == owner.FLOAT) {
+            return parser.invoke("getFloatValue");
+        } else if (type == owner.SHORT) {
+            return parser.invoke("getShortValue");
+        } else if (type == owner.BYTE) {
+            return parser.invoke("getByteValue");
+        } else if (type == owner.BOOLEAN) {
+            return parser.invoke("getBooleanValue");
+        } else {
+            return parser.invoke("getText");
+        }
+    }
+
+    /**
+     * Scalars are strings, booleans and numbers other than characters, these
+     * are read and written without looking up a serializer or deserializer.
+     */
+    private boolean isScalar(JType type) {
+        JCodeModel owner = type.owner();
+        JType unboxed = type.unboxify();
+        return type.fullName().equals(String.class.getName())
+                || unboxed == owner.INT || unboxed == owner.LONG || unboxed == owner.DOUBLE || unboxed == owner.FLOAT
+                || unboxed == owner.SHORT || unboxed == owner.BYTE || unboxed == owner.BOOLEAN;
+    }
+
+    private JExpression getJavaType(JVar typeFactory, JType type) {
+        if (!isParameterized(type)) {
+            return typeFactory.invoke("constructType").arg(JExpr.dotclass((JClass) type.boxify()));
+        }
+
+        // sets are deserialized as LinkedHashSet, as the @JsonDeserialize annotation on their fields asks for
+        JClass rawType = ((JClass) type).erasure();
+        if (rawType.fullName().equals(Set.class.getName())) {
+            rawType = type.owner().ref(LinkedHashSet.class);
+        }
+
+        JInvocation parametricType = typeFactory.invoke("constructParametricType").arg(JExpr.dotclass(rawType));
+        for (JClass typeParameter : ((JClass) type).getTypeParameters()) {
+            parametricType.arg(getJavaType(typeFactory, typeParameter));
+        }
+        return parametricType;
+    }
+
+    private JExpression cast(JType type, JExpression value) {
+        return type.fullName().equals(Object.class.getName()) ? value : JExpr.cast(type, value);
+    }
+
+    private boolean isParameterized(JType type) {
+        return type instanceof JClass && !((JClass) type).getTypeParameters().isEmpty();
+    }
+
+    private boolean hasViews(List<SerializedProperty> properties) {
+        for (SerializedProperty property : properties) {
+            if (property.getView() != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String getLocalName(String fieldName) {
+        return RESERVED_NAMES.contains(fieldName) ? fieldName + "_" : fieldName;
+    }
+
+}
@@ -16,9 +16,24 @@
 
 package org.jsonschema2pojo.util;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.sun.codemodel.ClassType;
 import com.sun.codemodel.JAnnotationArrayMember;
 import com.sun.codemodel.JAnnotationUse;
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JClassAlreadyExistsException;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
 import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JPackage;
+import com.sun.codemodel.JSwitch;
 
 public class Models {
 
@@ -30,4 +45,146 @@ public class Models {
         }
     }
 
+    /**
+     * Converts a camel case name into the name of a constant, e.g.
+     * <code>fooBar</code> into <code>FOO_BAR</code>.
+     */
+    public static String getConstantName(String name) {
+        return name.replaceAll("([a-z0-9])([A-Z])", "$1_$2").toUpperCase();
+    }
+
+    /**
+     * Gets the name of the constant that holds the default of a field, made
+     * unique when another field already maps to the same name (e.g.
+     * <code>fooBar</code> and <code>foo_bar</code>).
+     */
+    public static String getDefaultConstantName(JDefinedClass jclass, String fieldName) {
+        return getUniqueFieldName(jclass, "DEFAULT_" + getConstantName(fieldName));
+    }
+
+    /**
+     * Gets a name for a new field of the given class, appending underscores
+     * to the given name while another field has it. Names derived from
+     * property names can clash, e.g. the constants of <code>fooBar</code>
+     * and <code>fooBAR</code>.
+     */
+    public static String getUniqueFieldName(JDefinedClass jclass, String name) {
+        while (jclass.fields().containsKey(name)) {
+            name += "_";
+        }
+        return name;
+    }
+
+    /**
+     * Gets a name that isn't in the given names yet (appending underscores
+     * while it is) and adds it to them, for names the code model doesn't
+     * track itself, such as those of locals and enum constants.
+     */
+    public static String getUniqueName(Set<String> names, String name) {
+        while (!names.add(name)) {
+            name += "_";
+        }
+        return name;
+    }
+
+    /**
+     * Adds a nested class to the given class, appending underscores to the
+     * name while another nested class has it.
+     */
+    public static JDefinedClass createNestedClass(JDefinedClass jclass, int mods, String name, ClassType classType) {
+        try {
+            return jclass._class(mods, name, classType);
+        } catch (JClassAlreadyExistsException e) {
+            return createNestedClass(jclass, mods, name + "_", classType);
+        }
+    }
+
+    /**
+     * Adds a class to the given package, appending underscores to the name
+     * while another class of the package has it.
+     */
+    public static JDefinedClass createClass(JPackage _package, int mods, String name, ClassType classType) {
+        try {
+            return _package._class(mods, name, classType);
+        } catch (JClassAlreadyExistsException e) {
+            return createClass(_package, mods, name + "_", classType);
+        }
+    }
+
+    /**
+     * Gets the class that a helper generates once for all types of a
+     * package, creating it on first use. The class is marked as the helper's
+     * (through its metadata), so that a class of the same name that was
+     * generated from a schema is passed over by appending underscores to the
+     * name. A new class has no members, callers add them.
+     */
+    public static JDefinedClass getPackageClass(JPackage _package, int mods, String name, Class<?> helper) {
+        JDefinedClass packageClass = _package._getClass(name);
+        if (packageClass == null) {
+            try {
+                packageClass = _package._class(mods, name);
+            } catch (JClassAlreadyExistsException e) {
+                throw new IllegalStateException(e);
+            }
+            packageClass.metadata = helper;
+        } else if (packageClass.metadata != helper) {
+            return getPackageClass(_package, mods, name + "_", helper);
+        }
+        return packageClass;
+    }
+
+    /**
+     * Adds a switch on a string to the given block: a switch statement on the
+     * string itself if the target language level has them, otherwise the same
+     * dispatch the compiler generates for one, a switch on the hash code of
+     * the string with a comparison per string that has that hash code.
+     * <p>
+     * The blocks run for a string that matches one of the cases, and they
+     * have to end by leaving the switch (with <code>break</code>,
+     * <code>continue</code> or <code>return</code>) as in a switch statement.
+     * Strings that match none of the cases run on past the switch.
+     *
+     * @param block
+     *            the block to add the switch to
+     * @param value
+     *            the string to switch on, which must not be <code>null</code>
+     * @param cases
+     *            the strings to match
+     * @param useStringSwitch
+     *            whether the target language level has switch statements on
+     *            strings (Java 7 or later)
+     * @return the block for each string, in the order of the cases
+     */
+    public static Map<String, JBlock> addStringSwitch(JBlock block, JExpression value, Collection<String> cases, boolean useStringSwitch) {
+        Map<String, JBlock> blocks = new LinkedHashMap<String, JBlock>();
+        if (cases.isEmpty()) {
+            return blocks;
+        }
+
+        if (useStringSwitch) {
+            JSwitch stringSwitch = block._switch(value);
+            for (String string : cases) {
+                blocks.put(string, stringSwitch._case(JExpr.lit(string)).body());
+            }
+            return blocks;
+        }
+
+        Map<Integer, List<String>> casesByHashCode = new LinkedHashMap<Integer, List<String>>();
+        for (String string : cases) {
+            if (!casesByHashCode.containsKey(string.hashCode())) {
+                casesByHashCode.put(string.hashCode(), new ArrayList<String>());
+            }
+            casesByHashCode.get(string.hashCode()).add(string);
+        }
+        JSwitch hashCodeSwitch = block._switch(value.invoke("hashCode"));
+        for (Map.Entry<Integer, List<String>> entry : casesByHashCode.entrySet()) {
+            JBlock caseBody = hashCodeSwitch._case(JExpr.lit(entry.getKey())).body();
+            for (String string : entry.getValue()) {
+                blocks.put(string, caseBody._if(JExpr.lit(string).invoke("equals").arg(value))._then());
+            }
+            caseBody._break();
+        }
+        return blocks;
+    }
+
 }
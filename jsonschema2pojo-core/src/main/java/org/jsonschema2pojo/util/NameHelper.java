@@ -103,6 +103,52 @@ public class NameHelper {
         return setterName;
     }
 
+    /**
+     * Generate builder method name for property.
+     * 
+     * @param propertyName
+     * @return
+     */
+    public String getBuilderName(String propertyName) {
+        propertyName = replaceIllegalCharacters(propertyName);
+        return "with" + capitalize(capitalizeTrailingWords(propertyName));
+    }
+
+    /**
+     * Generate the name of the method that tells whether a property is
+     * present.
+     * 
+     * @param propertyName
+     * @return
+     */
+    public String getPresenceCheckName(String propertyName) {
+        propertyName = replaceIllegalCharacters(propertyName);
+        return "has" + capitalize(capitalizeTrailingWords(propertyName));
+    }
+
+    /**
+     * Generate the name of the method that makes a property absent.
+     * 
+     * @param propertyName
+     * @return
+     */
+    public String getPresenceClearName(String propertyName) {
+        propertyName = replaceIllegalCharacters(propertyName);
+        return "clear" + capitalize(capitalizeTrailingWords(propertyName));
+    }
+
+    /**
+     * Generate the name of the method that returns the value of a property,
+     * or <code>null</code> if the property is absent.
+     * 
+     * @param propertyName
+     * @return
+     */
+    public String getPresentValueGetterName(String propertyName) {
+        propertyName = replaceIllegalCharacters(propertyName);
+        return "get" + capitalize(capitalizeTrailingWords(propertyName)) + "IfPresent";
+    }
+
     /**
      * Generate getter method name for property.
      * 
@@ -0,0 +1,446 @@
+/**
+ * Copyright © 2010-2014 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jsonschema2pojo.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.codemodel.ClassType;
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JClassAlreadyExistsException;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JConditional;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JFieldRef;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JForEach;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+import com.sun.codemodel.JType;
+import com.sun.codemodel.JVar;
+
+/**
+ * Generates a view of a generated type that wraps a Jackson
+ * {@link ObjectNode}. The view has the getters of the type, but decodes a
+ * property (with the data binder) only when its getter is first called and
+ * caches the result, so reading a few properties of a large object doesn't
+ * pay for binding all of them. Properties of generated types are returned as
+ * views themselves.
+ * <p>
+ * Setters write through to the node. A view that was parsed from bytes and
+ * hasn't been changed (directly or through one of its nested views) writes
+ * out those bytes as they were. Cached values can't be changed behind the
+ * view's back: collections and maps are returned unmodifiable, and values of
+ * other mutable types (such as dates) are decoded again on every read.
+ * <p>
+ * A view decodes and encodes with the {@link ObjectMapper} it is created
+ * with, which its nested views share.
+ */
+public class NodeViewHelper {
+
+    private static final String VIEW_CLASS_SUFFIX = "NodeView";
+
+    private final boolean initializeCollections;
+
+    /**
+     * @param initializeCollections
+     *            whether absent collections of nested views are empty, as the
+     *            collections of the generated types are, rather than
+     *            <code>null</code>
+     */
+    public NodeViewHelper(boolean initializeCollections) {
+        this.initializeCollections = initializeCollections;
+    }
+
+    /**
+     * How a property appears in the view.
+     */
+    private enum Kind {
+        /** decoded with the data binder, and cached */
+        VALUE,
+        /** decoded with the data binder on every read, as it's mutable */
+        MUTABLE_VALUE,
+        /** a nested view */
+        VIEW,
+        /** a list or set of nested views */
+        VIEWS
+    }
+
+    private class Property {
+
+        private final SerializedProperty property;
+        private final Kind kind;
+        private final JType type;
+        private final JClass elementViewType;
+        private JFieldRef cache;
+        private JFieldRef decoded;
+        private JFieldVar typeReference;
+
+        Property(SerializedProperty property) {
+            this.property = property;
+            JType propertyType = property.getType();
+            JType elementType = getCollectionElementType(propertyType);
+            if (isGenerated(propertyType)) {
+                this.kind = Kind.VIEW;
+                this.elementViewType = null;
+                this.type = getViewClass((JDefinedClass) propertyType);
+            } else if (elementType != null && isGenerated(elementType)) {
+                this.kind = Kind.VIEWS;
+                this.elementViewType = getViewClass((JDefinedClass) elementType);
+                this.type = propertyType.owner().ref(isSet(propertyType) ? Set.class : List.class).narrow(elementViewType);
+            } else {
+                this.kind = isImmutable(propertyType) || isCollection(propertyType) || isMap(propertyType) ? Kind.VALUE : Kind.MUTABLE_VALUE;
+                this.elementViewType = null;
+                this.type = propertyType;
+            }
+        }
+
+    }
+
+    /**
+     * Gets the view class of a generated type, creating it (empty) if it
+     * doesn't exist yet, so that types that refer to each other can refer to
+     * each other's views.
+     */
+    public static JDefinedClass getViewClass(JDefinedClass jclass) {
+        try {
+            JDefinedClass view = jclass._package()._class(JMod.PUBLIC, jclass.name() + VIEW_CLASS_SUFFIX, ClassType.CLASS);
+            view.metadata = NodeViewHelper.class;
+            return view;
+        } catch (JClassAlreadyExistsException e) {
+            return (JDefinedClass) e.getExistingClass();
+        }
+    }
+
+    /**
+     * Adds the members of the view class of the given type.
+     *
+     * @param jclass
+     *            the type to view
+     * @param properties
+     *            the properties of the type, including inherited ones
+     * @param nameHelper
+     *            the helper that names the getters and setters of the view
+     */
+    public void addNodeView(JDefinedClass jclass, List<SerializedProperty> properties, NameHelper nameHelper) {
+        JDefinedClass view = getViewClass(jclass);
+        if (view.metadata != NodeViewHelper.class) {
+            // a class of that name that isn't a view
+            return;
+        }
+        view.metadata = null;
+
+        JCodeModel owner = jclass.owner();
+        view.javadoc().add("A view of a JSON object that has the getters of " + jclass.name() + ", but decodes each property from the object "
+                + "when it is first read. Collections are returned unmodifiable, changes go through the setters.");
+
+        JFieldRef mapper = JExpr._this().ref(view.field(JMod.PRIVATE | JMod.FINAL, ObjectMapper.class, "mapper"));
+        JFieldVar sharedDefaults = view.field(JMod.PRIVATE | JMod.STATIC | JMod.VOLATILE, jclass, "sharedDefaults");
+        JMethod defaults = view.method(JMod.PRIVATE, jclass, "defaults");
+        JVar defaultsVar = defaults.body().decl(jclass, "defaults", sharedDefaults);
+        // bound from an empty object once, a race only binds it again
+        JBlock bindDefaults = defaults.body()._if(defaultsVar.eq(JExpr._null()))._then();
+        bindDefaults.assign(defaultsVar, mapper.invoke("convertValue").arg(mapper.invoke("createObjectNode")).arg(jclass.dotclass()));
+        bindDefaults.assign(sharedDefaults, defaultsVar);
+        defaults.body()._return(defaultsVar);
+
+        JFieldRef jsonNode = JExpr._this().ref(view.field(JMod.PRIVATE | JMod.FINAL, ObjectNode.class, "jsonNode"));
+        JFieldRef sourceBytes = JExpr._this().ref(view.field(JMod.PRIVATE | JMod.FINAL, byte[].class, "sourceBytes"));
+        JFieldRef sourceOffset = JExpr._this().ref(view.field(JMod.PRIVATE | JMod.FINAL, int.class, "sourceOffset"));
+        JFieldRef sourceLength = JExpr._this().ref(view.field(JMod.PRIVATE | JMod.FINAL, int.class, "sourceLength"));
+        JFieldRef changed = JExpr._this().ref(view.field(JMod.PRIVATE, boolean.class, "changed"));
+
+        List<Property> viewProperties = new ArrayList<Property>();
+        for (SerializedProperty property : properties) {
+            Property viewProperty = new Property(property);
+            String fieldName = Models.getUniqueFieldName(view, property.getFieldName());
+            if (viewProperty.kind != Kind.MUTABLE_VALUE) {
+                viewProperty.cache = JExpr._this().ref(view.field(JMod.PRIVATE, viewProperty.type, fieldName));
+                viewProperty.decoded = JExpr._this().ref(view.field(JMod.PRIVATE, boolean.class, Models.getUniqueFieldName(view, fieldName + "Decoded")));
+            }
+            if ((viewProperty.kind == Kind.VALUE || viewProperty.kind == Kind.MUTABLE_VALUE) && viewProperty.type instanceof JClass && !((JClass) viewProperty.type).getTypeParameters().isEmpty()) {
+                JClass typeReferenceType = owner.ref(TypeReference.class).narrow(viewProperty.type);
+                viewProperty.typeReference = view.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL, typeReferenceType,
+                        Models.getUniqueFieldName(view, Models.getConstantName(fieldName) + "_TYPE"),
+                        JExpr._new(owner.anonymousClass(typeReferenceType)));
+            }
+            viewProperties.add(viewProperty);
+        }
+
+        JMethod sourceConstructor = view.constructor(JMod.PRIVATE);
+        JVar mapperParam = sourceConstructor.param(ObjectMapper.class, "mapper");
+        JVar nodeParam = sourceConstructor.param(ObjectNode.class, "jsonNode");
+        JVar bytesParam = sourceConstructor.param(byte[].class, "sourceBytes");
+        JVar offsetParam = sourceConstructor.param(int.class, "sourceOffset");
+        JVar lengthParam = sourceConstructor.param(int.class, "sourceLength");
+        sourceConstructor.body().assign(mapper, mapperParam);
+        sourceConstructor.body().assign(jsonNode, nodeParam);
+        sourceConstructor.body().assign(sourceBytes, bytesParam);
+        sourceConstructor.body().assign(sourceOffset, offsetParam);
+        sourceConstructor.body().assign(sourceLength, lengthParam);
+
+        JMethod constructor = view.constructor(JMod.PUBLIC);
+        constructor.javadoc().add("Creates a view of a JSON object, which reads and writes the object itself.");
+        constructor.javadoc().addParam("mapper").add("the mapper that decodes and encodes the properties");
+        mapperParam = constructor.param(ObjectMapper.class, "mapper");
+        nodeParam = constructor.param(ObjectNode.class, "jsonNode");
+        constructor.body().invoke("this").arg(mapperParam).arg(nodeParam).arg(JExpr._null()).arg(JExpr.lit(0)).arg(JExpr.lit(0));
+
+        addParse(view, jclass);
+
+        JMethod toJsonNode = view.method(JMod.PUBLIC, ObjectNode.class, "toJsonNode");
+        toJsonNode.javadoc().addReturn().add("the JSON object of the view, including the changes made through it");
+        toJsonNode.body()._return(jsonNode);
+
+        JMethod hasChanges = addHasChanges(view, viewProperties, changed);
+
+        JMethod toByteArray = view.method(JMod.PUBLIC, byte[].class, "toByteArray");
+        toByteArray._throws(IOException.class);
+        toByteArray.javadoc().addReturn().add("the JSON object, which is a copy of the bytes the view was parsed from if it hasn't been changed");
+        JConditional unchanged = toByteArray.body()._if(sourceBytes.ne(JExpr._null()).cand(JExpr.invoke(hasChanges).not()));
+        unchanged._then()._return(owner.ref(Arrays.class).staticInvoke("copyOfRange").arg(sourceBytes).arg(sourceOffset).arg(sourceOffset.plus(sourceLength)));
+        toByteArray.body()._return(mapper.invoke("writeValueAsBytes").arg(jsonNode));
+
+        JMethod writeTo = view.method(JMod.PUBLIC, void.class, "writeTo");
+        writeTo._throws(IOException.class);
+        writeTo.javadoc().add("Writes the JSON object, which is the bytes the view was parsed from if it hasn't been changed.");
+        JVar out = writeTo.param(OutputStream.class, "out");
+        unchanged = writeTo.body()._if(sourceBytes.ne(JExpr._null()).cand(JExpr.invoke(hasChanges).not()));
+        unchanged._then().invoke(out, "write").arg(sourceBytes).arg(sourceOffset).arg(sourceLength);
+        unchanged._else().invoke(out, "write").arg(mapper.invoke("writeValueAsBytes").arg(jsonNode));
+
+        JMethod bind = view.method(JMod.PUBLIC, jclass, "bind");
+        bind.javadoc().addReturn().add("a new " + jclass.name() + " bound from the JSON object");
+        bind.body()._return(mapper.invoke("convertValue").arg(jsonNode).arg(jclass.dotclass()));
+
+        for (Property viewProperty : viewProperties) {
+            addGetter(view, viewProperty, jsonNode, mapper, defaults, nameHelper);
+            addSetter(view, viewProperty, jsonNode, mapper, changed, nameHelper);
+        }
+    }
+
+    private void addParse(JDefinedClass view, JDefinedClass jclass) {
+        JCodeModel owner = view.owner();
+
+        JMethod parseSlice = view.method(JMod.PUBLIC | JMod.STATIC, view, "parse");
+        parseSlice._throws(IOException.class);
+        parseSlice.javadoc().add("Parses a JSON object into a view, which keeps a reference to the bytes to write them out again if the view isn't changed.");
+        parseSlice.javadoc().addParam("mapper").add("the mapper that parses the object and decodes and encodes its properties");
+        JVar mapper = parseSlice.param(ObjectMapper.class, "mapper");
+        JVar bytes = parseSlice.param(byte[].class, "bytes");
+        JVar offset = parseSlice.param(int.class, "offset");
+        JVar length = parseSlice.param(int.class, "length");
+        JBlock body = parseSlice.body();
+        JVar tree = body.decl(owner.ref(JsonNode.class), "tree",
+                mapper.invoke("readTree").arg(mapper.invoke("getFactory").invoke("createParser").arg(bytes).arg(offset).arg(length)));
+        body._if(tree._instanceof(owner.ref(ObjectNode.class)).not())._then()
+                ._throw(JExpr._new(owner.ref(JsonMappingException.class)).arg("Expected a " + jclass.name() + " object"));
+        body._return(JExpr._new(view).arg(mapper).arg(JExpr.cast(owner.ref(ObjectNode.class), tree)).arg(bytes).arg(offset).arg(length));
+
+        JMethod parse = view.method(JMod.PUBLIC | JMod.STATIC, view, "parse");
+        parse._throws(IOException.class);
+        parse.javadoc().add("Parses a JSON object into a view, which keeps a reference to the bytes to write them out again if the view isn't changed.");
+        parse.javadoc().addParam("mapper").add("the mapper that parses the object and decodes and encodes its properties");
+        mapper = parse.param(ObjectMapper.class, "mapper");
+        bytes = parse.param(byte[].class, "bytes");
+        parse.body()._return(JExpr.invoke(parseSlice).arg(mapper).arg(bytes).arg(JExpr.lit(0)).arg(bytes.ref("length")));
+    }
+
+    private JMethod addHasChanges(JDefinedClass view, List<Property> viewProperties, JFieldRef changed) {
+        JMethod hasChanges = view.method(JMod.PUBLIC, boolean.class, "hasChanges");
+        hasChanges.javadoc().addReturn().add("whether a setter of this view, or of a view nested in it, has been called");
+        JBlock body = hasChanges.body();
+        body._if(changed)._then()._return(JExpr.TRUE);
+        for (Property viewProperty : viewProperties) {
+            if (viewProperty.kind == Kind.VIEW) {
+                body._if(viewProperty.decoded.cand(viewProperty.cache.ne(JExpr._null())).cand(viewProperty.cache.invoke("hasChanges")))._then()
+                        ._return(JExpr.TRUE);
+            } else if (viewProperty.kind == Kind.VIEWS) {
+                JBlock decoded = body._if(viewProperty.decoded.cand(viewProperty.cache.ne(JExpr._null())))._then();
+                JForEach forEach = decoded.forEach(viewProperty.elementViewType, "element", viewProperty.cache);
+                forEach.body()._if(forEach.var().ne(JExpr._null()).cand(forEach.var().invoke("hasChanges")))._then()._return(JExpr.TRUE);
+            }
+        }
+        body._return(JExpr.FALSE);
+        return hasChanges;
+    }
+
+    private void addGetter(JDefinedClass view, Property viewProperty, JFieldRef jsonNode, JFieldRef mapper, JMethod defaults, NameHelper nameHelper) {
+        JCodeModel owner = view.owner();
+        SerializedProperty property = viewProperty.property;
+        JFieldRef cache = viewProperty.cache;
+
+        JMethod getter = view.method(JMod.PUBLIC, viewProperty.type, nameHelper.getGetterName(property.getJsonName(), property.getType()));
+        JExpression type = viewProperty.typeReference != null ? viewProperty.typeReference : property.getType().boxify().dotclass();
+        if (viewProperty.kind == Kind.MUTABLE_VALUE) {
+            // a copy on every read, as changes to the value wouldn't reach the node
+            JBlock body = getter.body();
+            JVar value = body.decl(owner.ref(JsonNode.class), "value", jsonNode.invoke("get").arg(property.getJsonName()));
+            body._if(value.eq(JExpr._null()))._then().assign(value, mapper.invoke("valueToTree").arg(property.read(JExpr.invoke(defaults))));
+            body._if(value.eq(JExpr._null()).cor(value.invoke("isNull")))._then()._return(getEmptyValue(property.getType()));
+            body._return(mapper.invoke("convertValue").arg(value).arg(type));
+            return;
+        }
+
+        JBlock decode = getter.body()._if(viewProperty.decoded.not())._then();
+        JVar value = decode.decl(owner.ref(JsonNode.class), "value", jsonNode.invoke("get").arg(property.getJsonName()));
+
+        if (viewProperty.kind == Kind.VALUE) {
+            // absent values are the defaults of the type and nulls are empty, as for a bound instance
+            // the defaults are shared between views, so mutable ones are only handed out unmodifiable
+            JConditional isAbsent = decode._if(value.eq(JExpr._null()));
+            isAbsent._then().assign(cache, property.read(JExpr.invoke(defaults)));
+            JConditional isNull = isAbsent._elseif(value.invoke("isNull"));
+            isNull._then().assign(cache, getEmptyValue(property.getType()));
+            isNull._else().assign(cache, mapper.invoke("convertValue").arg(value).arg(type));
+            if (isCollection(property.getType()) || isMap(property.getType())) {
+                String wrapper = isMap(property.getType()) ? "unmodifiableMap" : isSet(property.getType()) ? "unmodifiableSet" : "unmodifiableList";
+                decode._if(cache.ne(JExpr._null()))._then().assign(cache, owner.ref(Collections.class).staticInvoke(wrapper).arg(cache));
+            }
+        } else if (viewProperty.kind == Kind.VIEW) {
+            JConditional isNull = decode._if(value.eq(JExpr._null()).cor(value.invoke("isNull")));
+            isNull._then().assign(cache, JExpr._null());
+            JConditional isObject = isNull._elseif(value._instanceof(owner.ref(ObjectNode.class)));
+            isObject._then().assign(cache, JExpr._new(viewProperty.type).arg(mapper).arg(JExpr.cast(owner.ref(ObjectNode.class), value)));
+            isObject._else()._throw(JExpr._new(owner.ref(IllegalArgumentException.class)).arg("Expected an object for " + property.getJsonName()));
+        } else {
+            boolean isSet = isSet(property.getType());
+            JConditional isAbsent = decode._if(value.eq(JExpr._null()));
+            if (initializeCollections) {
+                isAbsent._then().assign(cache, owner.ref(Collections.class).staticInvoke(isSet ? "emptySet" : "emptyList"));
+            } else {
+                isAbsent._then().assign(cache, JExpr._null());
+            }
+            JConditional isNull = isAbsent._elseif(value.invoke("isNull"));
+            isNull._then().assign(cache, JExpr._null());
+            JConditional isArray = isNull._elseif(value.invoke("isArray"));
+            JBlock elements = isArray._then();
+            JClass implementation = owner.ref(isSet ? LinkedHashSet.class : ArrayList.class).narrow(viewProperty.elementViewType);
+            JVar views = elements.decl(viewProperty.type, "views", JExpr._new(implementation).arg(value.invoke("size")));
+            JForEach forEach = elements.forEach(owner.ref(JsonNode.class), "element", value);
+            JConditional isObject = forEach.body()._if(forEach.var()._instanceof(owner.ref(ObjectNode.class)));
+            isObject._then().invoke(views, "add")
+                    .arg(JExpr._new(viewProperty.elementViewType).arg(mapper).arg(JExpr.cast(owner.ref(ObjectNode.class), forEach.var())));
+            isObject._else().invoke(views, "add").arg(JExpr._null());
+            elements.assign(cache, owner.ref(Collections.class).staticInvoke(isSet ? "unmodifiableSet" : "unmodifiableList").arg(views));
+            isArray._else()._throw(JExpr._new(owner.ref(IllegalArgumentException.class)).arg("Expected an array for " + property.getJsonName()));
+        }
+
+        decode.assign(viewProperty.decoded, JExpr.TRUE);
+        getter.body()._return(cache);
+    }
+
+    private void addSetter(JDefinedClass view, Property viewProperty, JFieldRef jsonNode, JFieldRef mapper, JFieldRef changed, NameHelper nameHelper) {
+        JCodeModel owner = view.owner();
+        SerializedProperty property = viewProperty.property;
+        String jsonName = property.getJsonName();
+
+        JMethod setter = view.method(JMod.PUBLIC, void.class, nameHelper.getSetterName(jsonName));
+        JVar value = setter.param(viewProperty.type, property.getFieldName());
+        JBlock body = setter.body();
+        JBlock write = body;
+        if (!viewProperty.type.isPrimitive()) {
+            JConditional isNull = body._if(value.eq(JExpr._null()));
+            isNull._then().invoke(jsonNode, "putNull").arg(jsonName);
+            write = isNull._else();
+        }
+
+        if (viewProperty.kind == Kind.VALUE || viewProperty.kind == Kind.MUTABLE_VALUE) {
+            write.invoke(jsonNode, "set").arg(jsonName).arg(mapper.invoke("valueToTree").arg(value));
+        } else if (viewProperty.kind == Kind.VIEW) {
+            write.invoke(jsonNode, "set").arg(jsonName).arg(value.invoke("toJsonNode"));
+        } else {
+            JVar array = write.decl(owner.ref(ArrayNode.class), "array", jsonNode.invoke("putArray").arg(jsonName));
+            JForEach forEach = write.forEach(viewProperty.elementViewType, "element", value);
+            JConditional isNull = forEach.body()._if(forEach.var().eq(JExpr._null()));
+            isNull._then().invoke(array, "addNull");
+            isNull._else().invoke(array, "add").arg(forEach.var().invoke("toJsonNode"));
+        }
+
+        // the value is decoded from the node again when it's read
+        if (viewProperty.kind != Kind.MUTABLE_VALUE) {
+            body.assign(viewProperty.decoded, JExpr.FALSE);
+            body.assign(viewProperty.cache, getEmptyValue(viewProperty.type));
+        }
+        body.assign(changed, JExpr.TRUE);
+    }
+
+    private JExpression getEmptyValue(JType type) {
+        JCodeModel owner = type.owner();
+        if (type == owner.BOOLEAN) {
+            return JExpr.FALSE;
+        } else if (type.isPrimitive()) {
+            return JExpr.cast(type, JExpr.lit(0));
+        }
+        return JExpr._null();
+    }
+
+    /**
+     * Values of these types can be cached and shared between views as they
+     * are.
+     */
+    private boolean isImmutable(JType type) {
+        String typeName = type.fullName();
+        return type.unboxify().isPrimitive() || typeName.equals(String.class.getName()) || typeName.equals(URI.class.getName())
+                || typeName.equals(BigDecimal.class.getName()) || typeName.equals(BigInteger.class.getName())
+                || (type instanceof JDefinedClass && ((JDefinedClass) type).getClassType() == ClassType.ENUM);
+    }
+
+    private JType getCollectionElementType(JType type) {
+        if (isCollection(type) && ((JClass) type).getTypeParameters().size() == 1) {
+            return ((JClass) type).getTypeParameters().get(0);
+        }
+        return null;
+    }
+
+    private boolean isCollection(JType type) {
+        return type instanceof JClass && (type.erasure().fullName().equals(List.class.getName()) || isSet(type));
+    }
+
+    private boolean isMap(JType type) {
+        return type instanceof JClass && type.erasure().fullName().equals(Map.class.getName());
+    }
+
+    private boolean isSet(JType type) {
+        return type.erasure().fullName().equals(Set.class.getName());
+    }
+
+    private boolean isGenerated(JType type) {
+        return type instanceof JDefinedClass && ((JDefinedClass) type).getClassType() == ClassType.CLASS && !((JDefinedClass) type).isAbstract()
+                && ((JDefinedClass) type).outer() == null;
+    }
+
+}
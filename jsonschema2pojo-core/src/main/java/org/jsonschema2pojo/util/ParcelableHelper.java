@@ -16,6 +16,8 @@
 
 package org.jsonschema2pojo.util;
 
+import java.util.Date;
+
 import android.os.Parcel;
 import android.os.Parcelable.Creator;
 import com.sun.codemodel.*;
@@ -27,14 +29,31 @@ public class ParcelableHelper {
     public void addWriteToParcel(JDefinedClass jclass) {
         JMethod method = jclass.method(JMod.PUBLIC, void.class, "writeToParcel");
         JVar dest = method.param(Parcel.class, "dest");
-        method.param(int.class, "flags");
+        JVar flags = method.param(int.class, "flags");
         
         for (JFieldVar f : jclass.fields().values()) {
             if( (f.mods().getValue() & JMod.STATIC) == JMod.STATIC ) {
                 continue;
             }
-            if (f.type().erasure().name().equals("List")) {
+            if (isTypedList(f.type())) {
+                method.body().invoke(dest, "writeTypedList").arg(f);
+            } else if (isStringList(f.type())) {
+                method.body().invoke(dest, "writeStringList").arg(f);
+            } else if (f.type().erasure().name().equals("List")) {
                 method.body().invoke(dest, "writeList").arg(f);
+            } else if (isEnum(f.type())) {
+                // enums are written as ordinals, -1 marks null
+                method.body().invoke(dest, "writeInt").arg(JOp.cond(f.eq(JExpr._null()), JExpr.lit(-1), f.invoke("ordinal")));
+            } else if (f.type().fullName().equals(String.class.getName())) {
+                method.body().invoke(dest, "writeString").arg(f);
+            } else if (f.type().isPrimitive()) {
+                writeValue(method.body(), dest, flags, f);
+            } else if (isTypedValue(f.type())) {
+                // a leading byte marks whether the value is null
+                JConditional isNull = method.body()._if(f.eq(JExpr._null()));
+                isNull._then().invoke(dest, "writeByte").arg(JExpr.cast(jclass.owner().BYTE, JExpr.lit(0)));
+                isNull._else().invoke(dest, "writeByte").arg(JExpr.cast(jclass.owner().BYTE, JExpr.lit(1)));
+                writeValue(isNull._else(), dest, flags, f);
             } else {
                 method.body().invoke(dest, "writeValue").arg(f);
             }
@@ -72,12 +91,28 @@ public class ParcelableHelper {
             if( (f.mods().getValue() & JMod.STATIC) == JMod.STATIC ) {
                 continue;
             }
-            if (f.type().erasure().name().equals("List")) {
+            if (isTypedList(f.type())) {
+                JClass elementType = ((JClass) f.type()).getTypeParameters().get(0);
+                createFromParcel.body().assign(instance.ref(f), in.invoke("createTypedArrayList").arg(elementType.staticRef("CREATOR")));
+            } else if (isStringList(f.type())) {
+                createFromParcel.body().assign(instance.ref(f), in.invoke("createStringArrayList"));
+            } else if (f.type().erasure().name().equals("List")) {
                 createFromParcel.body()
                         .invoke(in, "readList")
                         .arg(instance.ref(f))
                         .arg(JExpr.direct(getGenericType(f.type()) + ".class.getClassLoader()"));
-             } else {
+            } else if (isEnum(f.type())) {
+                JVar ordinal = createFromParcel.body().decl(jclass.owner().INT, f.name() + "Ordinal", in.invoke("readInt"));
+                createFromParcel.body().assign(instance.ref(f),
+                        JOp.cond(ordinal.eq(JExpr.lit(-1)), JExpr._null(), ((JClass) f.type()).staticInvoke("values").component(ordinal)));
+            } else if (f.type().fullName().equals(String.class.getName())) {
+                createFromParcel.body().assign(instance.ref(f), in.invoke("readString"));
+            } else if (f.type().isPrimitive()) {
+                createFromParcel.body().assign(instance.ref(f), readValue(in, f.type()));
+            } else if (isTypedValue(f.type())) {
+                createFromParcel.body().assign(instance.ref(f),
+                        JOp.cond(in.invoke("readByte").eq(JExpr.lit(0)), JExpr._null(), readValue(in, f.type())));
+            } else {
                 createFromParcel.body().assign(
                         instance.ref(f),
                         JExpr.cast(
@@ -91,6 +126,88 @@ public class ParcelableHelper {
         createFromParcel.body()._return(instance);
     }
 
+    private void writeValue(JBlock block, JVar dest, JVar flags, JFieldVar f) {
+        JCodeModel owner = f.type().owner();
+        JType type = f.type().unboxify();
+        if (type == owner.INT || type == owner.SHORT) {
+            block.invoke(dest, "writeInt").arg(f);
+        } else if (type == owner.LONG) {
+            block.invoke(dest, "writeLong").arg(f);
+        } else if (type == owner.DOUBLE) {
+            block.invoke(dest, "writeDouble").arg(f);
+        } else if (type == owner.FLOAT) {
+            block.invoke(dest, "writeFloat").arg(f);
+        } else if (type == owner.BYTE) {
+            block.invoke(dest, "writeByte").arg(f);
+        } else if (type == owner.CHAR) {
+            block.invoke(dest, "writeInt").arg(JExpr.cast(owner.INT, f));
+        } else if (type == owner.BOOLEAN) {
+            block.invoke(dest, "writeByte").arg(JExpr.cast(owner.BYTE, JOp.cond(f, JExpr.lit(1), JExpr.lit(0))));
+        } else if (isDate(type)) {
+            block.invoke(dest, "writeLong").arg(f.invoke("getTime"));
+        } else {
+            block.invoke(f, "writeToParcel").arg(dest).arg(flags);
+        }
+    }
+
+    private JExpression readValue(JVar in, JType fieldType) {
+        JCodeModel owner = fieldType.owner();
+        JType type = fieldType.unboxify();
+        if (type == owner.INT) {
+            return in.invoke("readInt");
+        } else if (type == owner.SHORT) {
+            return JExpr.cast(owner.SHORT, in.invoke("readInt"));
+        } else if (type == owner.LONG) {
+            return in.invoke("readLong");
+        } else if (type == owner.DOUBLE) {
+            return in.invoke("readDouble");
+        } else if (type == owner.FLOAT) {
+            return in.invoke("readFloat");
+        } else if (type == owner.BYTE) {
+            return in.invoke("readByte");
+        } else if (type == owner.CHAR) {
+            return JExpr.cast(owner.CHAR, in.invoke("readInt"));
+        } else if (type == owner.BOOLEAN) {
+            return in.invoke("readByte").ne(JExpr.lit(0));
+        } else if (isDate(type)) {
+            return JExpr._new(type).arg(in.invoke("readLong"));
+        } else {
+            return ((JClass) type).staticRef("CREATOR").invoke("createFromParcel").arg(in);
+        }
+    }
+
+    /**
+     * Values that are written with a typed call behind a null marker: boxed
+     * primitives, dates and the generated (parcelable) types.
+     */
+    private boolean isTypedValue(JType type) {
+        return type.unboxify().isPrimitive() || isDate(type) || isParcelable(type);
+    }
+
+    private boolean isTypedList(JType type) {
+        return type.erasure().name().equals("List") && isParcelable(((JClass) type).getTypeParameters().get(0));
+    }
+
+    private boolean isStringList(JType type) {
+        return type.erasure().name().equals("List") && ((JClass) type).getTypeParameters().get(0).fullName().equals(String.class.getName());
+    }
+
+    private boolean isDate(JType type) {
+        return type.fullName().equals(Date.class.getName());
+    }
+
+    private boolean isEnum(JType type) {
+        return type instanceof JDefinedClass && ((JDefinedClass) type).getClassType() == ClassType.ENUM;
+    }
+
+    /**
+     * All classes generated with the 'parcelable' option are parcelable, even
+     * those still being generated (when types refer to each other).
+     */
+    private boolean isParcelable(JType type) {
+        return type instanceof JDefinedClass && ((JDefinedClass) type).getClassType() == ClassType.CLASS && !((JDefinedClass) type).isAbstract();
+    }
+
     private String getGenericType(JType jType) {
         if (jType.erasure().name().equals("List")) {
             final String typeName = jType.fullName();
@@ -0,0 +1,162 @@
+/**
+ * Copyright © 2010-2014 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jsonschema2pojo.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jsonschema2pojo.Annotator;
+
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JFieldRef;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+import com.sun.codemodel.JOp;
+import com.sun.codemodel.JType;
+
+/**
+ * Tracks whether the primitive properties of a generated type are present.
+ * Every property gets a bit in a <code>long</code> field (one field per 64
+ * properties) that its setter and builder method set, and
+ * <code>hasX()</code>/<code>clearX()</code> methods that read and reset it.
+ * The bit fields are ordinary instance fields, so <code>equals</code>,
+ * <code>hashCode</code> and serialization take presence into account.
+ * Code that assigns the fields of a type directly (rather than through its
+ * setters) must record presence with {@link #markPresent(JBlock, JFieldVar)}.
+ */
+public class PresenceHelper {
+
+    private static final int BITS_PER_FIELD = 64;
+
+    private final List<JFieldVar> bitsFields = new ArrayList<JFieldVar>();
+
+    private final Map<JFieldVar, JFieldRef> bitsByField = new HashMap<JFieldVar, JFieldRef>();
+
+    private final Map<JFieldVar, Long> masks = new HashMap<JFieldVar, Long>();
+
+    /**
+     * Adds presence tracking for the given properties.
+     *
+     * @param jclass
+     *            the type that declares the properties
+     * @param fields
+     *            the (primitive) fields of the properties, by property name
+     * @param defaultValues
+     *            the values that clearing a property restores, by property
+     *            name (properties without one are reset to zero or false)
+     * @param nameHelper
+     *            the helper that names the accessors of each property
+     * @param annotator
+     *            the annotator that marks the getter that serializers use
+     * @param includeBuilders
+     *            whether the type has builder methods that must record
+     *            presence too
+     */
+    public void addPresenceTracking(JDefinedClass jclass, Map<String, JFieldVar> fields, Map<String, JExpression> defaultValues, NameHelper nameHelper,
+            Annotator annotator, boolean includeBuilders) {
+        JFieldRef bits = null;
+        int bit = 0;
+        for (Map.Entry<String, JFieldVar> entry : fields.entrySet()) {
+            if (bit % BITS_PER_FIELD == 0) {
+                JFieldVar bitsField = jclass.field(JMod.PRIVATE, jclass.owner().LONG, getBitsName(jclass, bit / BITS_PER_FIELD));
+                bitsFields.add(bitsField);
+                bits = JExpr._this().ref(bitsField);
+            }
+            long mask = 1L << (bit % BITS_PER_FIELD);
+            bit++;
+
+            String propertyName = entry.getKey();
+            JFieldVar field = entry.getValue();
+            bitsByField.put(field, bits);
+            masks.put(field, mask);
+
+            JMethod setter = jclass.getMethod(nameHelper.getSetterName(propertyName), new JType[] { field.type() });
+            if (setter != null) {
+                setter.body().assign(bits, bits.bor(JExpr.lit(mask)));
+            }
+
+            JMethod builder = includeBuilders ? jclass.getMethod(nameHelper.getBuilderName(field.name()), new JType[] { field.type() }) : null;
+            if (builder != null) {
+                // the builder method returns this, so the bit is set first
+                JBlock body = builder.body();
+                body.pos(0);
+                body.assign(bits, bits.bor(JExpr.lit(mask)));
+                body.pos(body.getContents().size());
+            }
+
+            JMethod has = jclass.method(JMod.PUBLIC, boolean.class, nameHelper.getPresenceCheckName(propertyName));
+            has.javadoc().addReturn().append("Whether the " + field.name() + " is present");
+            has.body()._return(bits.band(JExpr.lit(mask)).ne(JExpr.lit(0L)));
+
+            JMethod clear = jclass.method(JMod.PUBLIC, void.class, nameHelper.getPresenceClearName(propertyName));
+            clear.javadoc().add("Makes the " + field.name() + " absent and resets it to its default value.");
+            clear.body().assign(bits, bits.band(JOp.complement(JExpr.lit(mask))));
+            JExpression defaultValue = defaultValues.get(propertyName);
+            clear.body().assign(JExpr._this().ref(field), defaultValue != null ? defaultValue : getZero(field.type()));
+
+            JMethod getter = jclass.getMethod(nameHelper.getGetterName(propertyName, field.type()), new JType[0]);
+            JMethod presentValueGetter = jclass.method(JMod.PUBLIC, field.type().boxify(), nameHelper.getPresentValueGetterName(propertyName));
+            presentValueGetter.javadoc().addReturn().append("The " + field.name() + ", or null if it is absent");
+            presentValueGetter.body()._return(JOp.cond(JExpr.invoke(has), JExpr._this().ref(field), JExpr._null()));
+            if (getter != null) {
+                annotator.propertyPresenceGetter(getter, presentValueGetter, propertyName);
+            }
+        }
+    }
+
+    /**
+     * Records that the property of the given field is present, for code that
+     * assigns the field directly. Fields whose presence isn't tracked are
+     * ignored.
+     *
+     * @param block
+     *            the block that assigns the field
+     * @param field
+     *            the field that is assigned
+     */
+    public void markPresent(JBlock block, JFieldVar field) {
+        JFieldRef bits = bitsByField.get(field);
+        if (bits != null) {
+            block.assign(bits, bits.bor(JExpr.lit(masks.get(field))));
+        }
+    }
+
+    /**
+     * @return the fields that hold the presence bits, which aren't properties
+     *         of the type
+     */
+    public List<JFieldVar> getBitsFields() {
+        return bitsFields;
+    }
+
+    private JExpression getZero(JType type) {
+        JCodeModel owner = type.owner();
+        return type == owner.BOOLEAN ? JExpr.FALSE : JExpr.lit(0);
+    }
+
+    private String getBitsName(JDefinedClass jclass, int index) {
+        return Models.getUniqueFieldName(jclass, index == 0 ? "presenceBits" : "presenceBits" + index);
+    }
+
+}
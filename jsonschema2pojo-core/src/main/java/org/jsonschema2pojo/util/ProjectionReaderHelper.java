@@ -0,0 +1,211 @@
+/**
+ * Copyright © 2010-2014 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jsonschema2pojo.util;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.sun.codemodel.ClassType;
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JConditional;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JFieldRef;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JForEach;
+import com.sun.codemodel.JForLoop;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+import com.sun.codemodel.JOp;
+import com.sun.codemodel.JType;
+import com.sun.codemodel.JVar;
+
+/**
+ * Adds a reader to a generated type that reads only some of its properties
+ * from a {@link JsonParser}. The properties are chosen from a nested
+ * <code>Property</code> enum, and the values of all other properties
+ * (including whole objects and arrays) are skipped with
+ * {@link JsonParser#skipChildren()}, so they are tokenized but never bound.
+ */
+public class ProjectionReaderHelper {
+
+    private final boolean useStringSwitch;
+
+    /**
+     * @param useStringSwitch
+     *            whether the reader may switch on the property name (Java 7
+     *            and later), rather than on its hash code
+     */
+    public ProjectionReaderHelper(boolean useStringSwitch) {
+        this.useStringSwitch = useStringSwitch;
+    }
+
+    /**
+     * Adds a nested <code>Property</code> enum, with a constant for each
+     * property, and a nested <code>ProjectionReader</code> class to the given
+     * type.
+     *
+     * @param jclass
+     *            the type to read
+     * @param builderClass
+     *            the builder of the type if it's immutable, or
+     *            <code>null</code> if instances are created with the default
+     *            constructor and populated directly
+     * @param properties
+     *            all properties of the type, including inherited ones
+     * @return the reader class
+     */
+    public JDefinedClass addProjectionReader(JDefinedClass jclass, JDefinedClass builderClass, List<SerializedProperty> properties) {
+        JCodeModel owner = jclass.owner();
+
+        JDefinedClass propertyEnum = Models.createNestedClass(jclass, JMod.PUBLIC, "Property", ClassType.ENUM);
+        Set<String> constantNames = new LinkedHashSet<String>();
+        for (SerializedProperty property : properties) {
+            propertyEnum.enumConstant(Models.getUniqueName(constantNames, Models.getConstantName(property.getFieldName())));
+        }
+
+        JDefinedClass reader = Models.createNestedClass(jclass, JMod.PUBLIC | JMod.STATIC, "ProjectionReader", ClassType.CLASS);
+        propertyEnum.javadoc().add("The properties of " + jclass.name() + ", to choose the ones a {@link " + reader.name() + "} reads.");
+        reader.javadoc().add("Reads the chosen properties of " + jclass.name() + " objects and skips the others. "
+                + "Values that aren't strings, numbers or booleans are bound with the codec of the parser, so the parser must have one "
+                + "(as the parsers an ObjectMapper creates do).");
+
+        JFieldRef selected = JExpr._this().ref(reader.field(JMod.PRIVATE | JMod.FINAL, boolean[].class, "selected",
+                JExpr.newArray(owner.BOOLEAN, propertyEnum.staticInvoke("values").ref("length"))));
+
+        JMethod constructor = reader.constructor(JMod.PUBLIC);
+        constructor.javadoc().add("Creates a reader of the given properties.");
+        JVar chosen = constructor.varParam(propertyEnum, "properties");
+        JForEach forEach = constructor.body().forEach(propertyEnum, "property", chosen);
+        forEach.body().assign(selected.component(forEach.var().invoke("ordinal")), JExpr.TRUE);
+
+        Map<SerializedProperty, JFieldVar> typeReferences = new LinkedHashMap<SerializedProperty, JFieldVar>();
+        for (SerializedProperty property : properties) {
+            if (isParameterized(property.getType())) {
+                JClass typeReferenceType = owner.ref(TypeReference.class).narrow(getConcreteType((JClass) property.getType()));
+                String name = Models.getUniqueFieldName(reader, Models.getConstantName(property.getFieldName()) + "_TYPE");
+                typeReferences.put(property, reader.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL, typeReferenceType, name,
+                        JExpr._new(owner.anonymousClass(typeReferenceType))));
+            }
+        }
+
+        JMethod read = reader.method(JMod.PUBLIC, jclass, "read");
+        read._throws(IOException.class);
+        read.javadoc().add("Reads an object, starting at its START_OBJECT token (or at the start of the input), and leaves the parser at its END_OBJECT token.");
+        read.javadoc().addReturn().add("a new " + jclass.name() + " that has only the chosen properties set");
+        JVar parser = read.param(JsonParser.class, "parser");
+        JBlock body = read.body();
+
+        JClass jsonToken = owner.ref(JsonToken.class);
+        JVar token = body.decl(jsonToken, "token", parser.invoke("getCurrentToken"));
+        body._if(token.eq(JExpr._null()))._then().assign(token, parser.invoke("nextToken"));
+        JConditional startObject = body._if(token.eq(jsonToken.staticRef("START_OBJECT")));
+        startObject._then().assign(token, parser.invoke("nextToken"));
+        startObject._elseif(token.ne(jsonToken.staticRef("FIELD_NAME")).cand(token.ne(jsonToken.staticRef("END_OBJECT"))))._then()
+                ._throw(JExpr._new(owner.ref(JsonParseException.class)).arg("Expected a " + jclass.name() + " object").arg(parser.invoke("getCurrentLocation")));
+
+        JVar target = builderClass != null ? body.decl(builderClass, "builder", JExpr._new(builderClass)) : body.decl(jclass, "instance", JExpr._new(jclass));
+
+        JForLoop forLoop = body._for();
+        forLoop.test(token.eq(jsonToken.staticRef("FIELD_NAME")));
+        forLoop.update(JExpr.assign(token, parser.invoke("nextToken")));
+        JBlock loop = forLoop.body();
+        JVar name = loop.decl(owner.ref(String.class), "name", parser.invoke("getCurrentName"));
+        loop.assign(token, parser.invoke("nextToken"));
+
+        boolean uncheckedCast = false;
+        Map<String, JBlock> caseBodies = Models.addStringSwitch(loop, name, SerializedProperty.getJsonNames(properties), useStringSwitch);
+        for (int i = 0; i < properties.size(); i++) {
+            JBlock caseBody = caseBodies.get(properties.get(i).getJsonName());
+            uncheckedCast |= readProperty(caseBody, properties.get(i), i, selected, target, parser, token, typeReferences.get(properties.get(i)));
+            caseBody._break();
+        }
+
+        // unknown properties, and the properties that weren't chosen
+        loop.invoke(parser, "skipChildren");
+
+        body._return(builderClass != null ? target.invoke("build") : target);
+
+        if (uncheckedCast) {
+            read.annotate(SuppressWarnings.class).param("value", "unchecked");
+        }
+
+        return reader;
+    }
+
+    private boolean readProperty(JBlock block, SerializedProperty property, int index, JFieldRef selected, JVar target, JVar parser, JVar token,
+            JFieldVar typeReference) {
+        JCodeModel owner = target.type().owner();
+        JClass jsonToken = owner.ref(JsonToken.class);
+
+        JBlock read = block._if(selected.component(JExpr.lit(index)))._then();
+
+        JType type = property.getType();
+        JExpression value;
+        if (isScalar(type)) {
+            read._if(JacksonSerializerHelper.isExpectedToken(token, type.unboxify()).not())._then()._throw(JExpr._new(owner.ref(JsonParseException.class))
+                    .arg(JExpr.lit("Unexpected ").plus(token).plus(JExpr.lit(" for " + property.getJsonName()))).arg(parser.invoke("getCurrentLocation")));
+            // a null leaves a primitive at zero or false, as the data binder does
+            JExpression nullValue = !type.isPrimitive() ? JExpr._null()
+                    : type == owner.BOOLEAN ? JExpr.FALSE : JExpr.lit(0);
+            value = JOp.cond(token.eq(jsonToken.staticRef("VALUE_NULL")), nullValue, JacksonSerializerHelper.getScalarValue(parser, type.unboxify()));
+        } else if (typeReference != null) {
+            value = JOp.cond(token.eq(jsonToken.staticRef("VALUE_NULL")), JExpr._null(), JExpr.cast(type, parser.invoke("readValueAs").arg(typeReference)));
+        } else {
+            value = JOp.cond(token.eq(jsonToken.staticRef("VALUE_NULL")), JExpr._null(), parser.invoke("readValueAs").arg(JExpr.dotclass((JClass) type.boxify())));
+        }
+        property.write(read, target, value);
+        read._continue();
+
+        return typeReference != null;
+    }
+
+    private boolean isScalar(JType type) {
+        JCodeModel owner = type.owner();
+        JType unboxed = type.unboxify();
+        return type.fullName().equals(String.class.getName())
+                || unboxed == owner.INT || unboxed == owner.LONG || unboxed == owner.DOUBLE || unboxed == owner.FLOAT
+                || unboxed == owner.SHORT || unboxed == owner.BYTE || unboxed == owner.BOOLEAN;
+    }
+
+    /**
+     * Sets are read as LinkedHashSet, as the @JsonDeserialize annotation on
+     * their fields asks for.
+     */
+    private JClass getConcreteType(JClass type) {
+        if (type.erasure().fullName().equals(Set.class.getName())) {
+            return type.owner().ref(LinkedHashSet.class).narrow(type.getTypeParameters());
+        }
+        return type;
+    }
+
+    private boolean isParameterized(JType type) {
+        return type instanceof JClass && !((JClass) type).getTypeParameters().isEmpty();
+    }
+
+}
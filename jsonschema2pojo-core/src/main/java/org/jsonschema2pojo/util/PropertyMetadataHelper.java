@@ -0,0 +1,165 @@
+/**
+ * Copyright © 2010-2014 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jsonschema2pojo.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.Generated;
+
+import org.jsonschema2pojo.SchemaMapper;
+
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+import com.sun.codemodel.JPackage;
+import com.sun.codemodel.JType;
+import com.sun.codemodel.JTypeVar;
+import com.sun.codemodel.JVar;
+
+/**
+ * Generates a static table that describes the properties of a generated
+ * type (their JSON name, Java type and whether they are required) and reads
+ * and writes them through direct calls to the accessors, so generic code can
+ * work with the properties without reflection. The entries of the table are
+ * instances of an abstract class that is generated once per package.
+ */
+public class PropertyMetadataHelper {
+
+    public static final String METADATA_CLASS_NAME = "PropertyMetadata";
+
+    public static final String METADATA_FIELD_NAME = "PROPERTY_METADATA";
+
+    /**
+     * Adds the metadata table to the given type.
+     *
+     * @param jclass
+     *            the type to describe
+     * @param properties
+     *            the properties of the type (including inherited ones), in
+     *            the order of the schema
+     * @param requiredProperties
+     *            the JSON names of the required properties
+     * @param writable
+     *            whether the properties can be changed after the type was
+     *            created (immutable types can't)
+     */
+    public void addPropertyMetadata(JDefinedClass jclass, List<SerializedProperty> properties, Set<String> requiredProperties, boolean writable) {
+        JCodeModel owner = jclass.owner();
+        JDefinedClass metadataClass = getMetadataClass(jclass._package());
+        JClass entryType = metadataClass.narrow(jclass, owner.wildcard());
+        JClass tableType = owner.ref(List.class).narrow(entryType);
+
+        JFieldVar table = jclass.field(JMod.PUBLIC | JMod.STATIC | JMod.FINAL, tableType, METADATA_FIELD_NAME);
+
+        JBlock init = jclass.init();
+        JVar entries = init.decl(tableType, "propertyMetadata", JExpr._new(owner.ref(ArrayList.class).narrow(entryType)).arg(JExpr.lit(properties.size())));
+        for (SerializedProperty property : properties) {
+            JType type = property.getType();
+            JClass valueType = type.boxify();
+            JExpression typeLiteral = type.isPrimitive() ? valueType.staticRef("TYPE") : JExpr.dotclass(((JClass) type).erasure());
+
+            JDefinedClass entry = owner.anonymousClass(metadataClass.narrow(jclass, valueType));
+
+            JMethod get = entry.method(JMod.PUBLIC, valueType, "get");
+            get.annotate(Override.class);
+            JVar getBean = get.param(jclass, "bean");
+            get.body()._return(property.read(getBean));
+
+            if (writable) {
+                JMethod set = entry.method(JMod.PUBLIC, void.class, "set");
+                set.annotate(Override.class);
+                JVar setBean = set.param(jclass, "bean");
+                JVar value = set.param(valueType, "value");
+                property.write(set.body(), setBean, value);
+            }
+
+            init.invoke(entries, "add").arg(JExpr._new(entry)
+                    .arg(JExpr.lit(property.getJsonName()))
+                    .arg(typeLiteral)
+                    .arg(JExpr.lit(requiredProperties.contains(property.getJsonName())))
+                    .arg(JExpr.lit(writable)));
+        }
+        init.assign(table, owner.ref(Collections.class).staticInvoke("unmodifiableList").arg(entries));
+    }
+
+    private JDefinedClass getMetadataClass(JPackage _package) {
+        JDefinedClass metadataClass = Models.getPackageClass(_package, JMod.PUBLIC | JMod.ABSTRACT, METADATA_CLASS_NAME, PropertyMetadataHelper.class);
+        if (metadataClass.fields().isEmpty()) {
+            addMetadataMembers(_package.owner(), metadataClass);
+        }
+        return metadataClass;
+    }
+
+    private void addMetadataMembers(JCodeModel owner, JDefinedClass metadataClass) {
+        JTypeVar beanType = metadataClass.generify("B");
+        JTypeVar valueType = metadataClass.generify("T");
+        metadataClass.annotate(Generated.class).param("value", SchemaMapper.class.getPackage().getName());
+        metadataClass.javadoc().add("Describes a property of a generated type in this package, and reads and writes it without reflection.");
+
+        JFieldVar name = metadataClass.field(JMod.PRIVATE | JMod.FINAL, String.class, "name");
+        JFieldVar type = metadataClass.field(JMod.PRIVATE | JMod.FINAL, owner.ref(Class.class).narrow(owner.wildcard()), "type");
+        JFieldVar required = metadataClass.field(JMod.PRIVATE | JMod.FINAL, boolean.class, "required");
+        JFieldVar writable = metadataClass.field(JMod.PRIVATE | JMod.FINAL, boolean.class, "writable");
+
+        JMethod constructor = metadataClass.constructor(JMod.PROTECTED);
+        for (JFieldVar field : new JFieldVar[] { name, type, required, writable }) {
+            constructor.body().assign(JExpr._this().ref(field), constructor.param(field.type(), field.name()));
+        }
+
+        JMethod getName = metadataClass.method(JMod.PUBLIC, String.class, "getName");
+        getName.javadoc().addReturn().add("the name of the property in JSON data");
+        getName.body()._return(name);
+
+        JMethod getType = metadataClass.method(JMod.PUBLIC, type.type(), "getType");
+        getType.javadoc().addReturn().add("the (raw) Java type of the property, a primitive type if the property is primitive");
+        getType.body()._return(type);
+
+        JMethod isRequired = metadataClass.method(JMod.PUBLIC, boolean.class, "isRequired");
+        isRequired.javadoc().addReturn().add("whether the schema requires the property");
+        isRequired.body()._return(required);
+
+        JMethod isWritable = metadataClass.method(JMod.PUBLIC, boolean.class, "isWritable");
+        isWritable.javadoc().addReturn().add("whether the property can be changed with {@link #set(Object, Object)}");
+        isWritable.body()._return(writable);
+
+        JMethod get = metadataClass.method(JMod.PUBLIC | JMod.ABSTRACT, valueType, "get");
+        get.param(beanType, "bean");
+        get.javadoc().add("Reads the property of the given instance.");
+
+        JMethod set = metadataClass.method(JMod.PUBLIC, void.class, "set");
+        set.param(beanType, "bean");
+        set.param(valueType, "value");
+        set.javadoc().add("Changes the property of the given instance.");
+        set.javadoc().addThrows(UnsupportedOperationException.class).add("if the property isn't writable");
+        set.body()._throw(JExpr._new(owner.ref(UnsupportedOperationException.class))
+                .arg(JExpr.lit("The ").plus(name).plus(JExpr.lit(" property can't be changed"))));
+
+        JMethod toString = metadataClass.method(JMod.PUBLIC, String.class, "toString");
+        toString.annotate(Override.class);
+        toString.body()._return(name);
+    }
+
+}
@@ -0,0 +1,116 @@
+/**
+ * Copyright © 2010-2014 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jsonschema2pojo.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JType;
+
+/**
+ * Describes how a generated serializer reads a property from an instance of
+ * a generated type, and how a generated deserializer hands the property value
+ * to a new instance (or to the builder of a new instance).
+ */
+public class SerializedProperty {
+
+    private final String jsonName;
+    private final JFieldVar field;
+    private final String getterName;
+    private final String writerName;
+    private final String presenceCheckName;
+    private final JClass view;
+
+    /**
+     * @param jsonName
+     *            the name of the property in JSON data
+     * @param field
+     *            the field that holds the property value
+     * @param getterName
+     *            the name of the method that returns the property value, or
+     *            <code>null</code> if the field is read directly
+     * @param writerName
+     *            the name of the method that accepts the property value, or
+     *            <code>null</code> if the field is assigned directly
+     * @param presenceCheckName
+     *            the name of the method that tells whether the property is
+     *            present, or <code>null</code> if its presence isn't tracked
+     * @param view
+     *            the Jackson view the property belongs to, or
+     *            <code>null</code> if it belongs to all views
+     */
+    public SerializedProperty(String jsonName, JFieldVar field, String getterName, String writerName, String presenceCheckName, JClass view) {
+        this.jsonName = jsonName;
+        this.field = field;
+        this.getterName = getterName;
+        this.writerName = writerName;
+        this.presenceCheckName = presenceCheckName;
+        this.view = view;
+    }
+
+    public String getJsonName() {
+        return jsonName;
+    }
+
+    public String getFieldName() {
+        return field.name();
+    }
+
+    public JType getType() {
+        return field.type();
+    }
+
+    public JClass getView() {
+        return view;
+    }
+
+    public boolean isPresenceTracked() {
+        return presenceCheckName != null;
+    }
+
+    public JExpression isPresent(JExpression instance) {
+        return instance.invoke(presenceCheckName);
+    }
+
+    public JExpression read(JExpression instance) {
+        return getterName != null ? instance.invoke(getterName) : instance.ref(field.name());
+    }
+
+    public void write(JBlock block, JExpression target, JExpression value) {
+        if (writerName != null) {
+            block.add(target.invoke(writerName).arg(value));
+        } else {
+            block.assign(target.ref(field.name()), value);
+        }
+    }
+
+    /**
+     * @return the JSON names of the given properties, in the same order
+     */
+    public static List<String> getJsonNames(List<SerializedProperty> properties) {
+        List<String> jsonNames = new ArrayList<String>();
+        for (SerializedProperty property : properties) {
+            jsonNames.add(property.getJsonName());
+        }
+        return jsonNames;
+    }
+
+}
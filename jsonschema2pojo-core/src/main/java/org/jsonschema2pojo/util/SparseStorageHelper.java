@@ -0,0 +1,225 @@
+/**
+ * Copyright © 2010-2014 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jsonschema2pojo.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JConditional;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JFieldRef;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JForLoop;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+import com.sun.codemodel.JOp;
+import com.sun.codemodel.JType;
+import com.sun.codemodel.JVar;
+
+/**
+ * Stores the property values of a generated type in a compact array instead
+ * of in a field per property. Every property gets a slot number (a constant
+ * of the type), a mask holds a bit for every slot that has a value, and the
+ * array holds the values of the set slots only, in slot order. So an
+ * instance takes memory in proportion to the properties it sets, rather
+ * than to the properties its type declares.
+ * <p>
+ * The helper is attached to the type while its properties are generated
+ * (see {@link #enable(JDefinedClass)}), so that each property can claim a
+ * slot and read and write it through the generated storage methods.
+ */
+public class SparseStorageHelper {
+
+    private static final String GET_VALUE_METHOD_NAME = "getSlotValue";
+    private static final String SET_VALUE_METHOD_NAME = "setSlotValue";
+
+    private final JDefinedClass jclass;
+    private final Map<String, JFieldVar> slots = new LinkedHashMap<String, JFieldVar>();
+    private final Map<JFieldVar, JType> types = new HashMap<JFieldVar, JType>();
+    private final List<JFieldVar> storageFields = new ArrayList<JFieldVar>();
+
+    private SparseStorageHelper(JDefinedClass jclass) {
+        this.jclass = jclass;
+    }
+
+    /**
+     * Makes the given type store its properties sparsely.
+     *
+     * @return the helper that the properties of the type claim their slots
+     *         from
+     */
+    public static SparseStorageHelper enable(JDefinedClass jclass) {
+        SparseStorageHelper helper = new SparseStorageHelper(jclass);
+        jclass.metadata = helper;
+        return helper;
+    }
+
+    /**
+     * @return the helper of the given type, or <code>null</code> if the type
+     *         has a field per property
+     */
+    public static SparseStorageHelper get(JDefinedClass jclass) {
+        return jclass.metadata instanceof SparseStorageHelper ? (SparseStorageHelper) jclass.metadata : null;
+    }
+
+    /**
+     * Claims the next slot for a property.
+     *
+     * @param propertyName
+     *            the (Java) name of the property
+     * @param type
+     *            the (boxed) type of the property
+     * @return the constant that holds the slot number
+     */
+    public JFieldVar addSlot(String propertyName, JType type) {
+        String name = Models.getUniqueFieldName(jclass, Models.getConstantName(propertyName) + "_SLOT");
+        JFieldVar slot = jclass.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL, int.class, name, JExpr.lit(slots.size()));
+        slots.put(propertyName, slot);
+        types.put(slot, type);
+        return slot;
+    }
+
+    /**
+     * @return the slots of the properties, by (Java) property name, in slot
+     *         order
+     */
+    public Map<String, JFieldVar> getSlots() {
+        return Collections.unmodifiableMap(slots);
+    }
+
+    /**
+     * @return the type of the property held in the given slot
+     */
+    public JType getType(JFieldVar slot) {
+        return types.get(slot);
+    }
+
+    /**
+     * @return the instance fields that hold the values of the slots, which
+     *         aren't properties of the type
+     */
+    public List<JFieldVar> getStorageFields() {
+        return storageFields;
+    }
+
+    /**
+     * @return an expression that reads the value of the given slot, or
+     *         <code>null</code> if the slot isn't set
+     */
+    public JExpression getValue(JFieldVar slot) {
+        return JExpr.invoke(GET_VALUE_METHOD_NAME).arg(slot);
+    }
+
+    /**
+     * Adds a statement that sets the given slot (or clears it, if the value
+     * is <code>null</code>).
+     */
+    public void setValue(JBlock block, JFieldVar slot, JExpression value) {
+        block.invoke(SET_VALUE_METHOD_NAME).arg(slot).arg(value);
+    }
+
+    /**
+     * Adds the fields that hold the values and the methods that read and
+     * write them, once all properties have claimed their slots.
+     */
+    public void addStorage() {
+        if (slots.isEmpty()) {
+            return;
+        }
+
+        JCodeModel owner = jclass.owner();
+        JType objectArray = owner.ref(Object.class).array();
+
+        JFieldVar noValues = jclass.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL, objectArray, "NO_SLOT_VALUES", JExpr.newArray(owner.ref(Object.class), 0));
+        JFieldVar maskLength = jclass.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL, int.class, "SLOT_MASK_LENGTH", JExpr.lit((slots.size() + 63) / 64));
+        JFieldVar valuesField = jclass.field(JMod.PRIVATE, objectArray, "slotValues", noValues);
+        // null while no slot is set, so that equal instances have equal masks
+        JFieldVar maskField = jclass.field(JMod.PRIVATE, owner.LONG.array(), "slotMask");
+        storageFields.add(valuesField);
+        storageFields.add(maskField);
+        JFieldRef values = JExpr._this().ref(valuesField);
+        JFieldRef mask = JExpr._this().ref(maskField);
+
+        JMethod isSet = jclass.method(JMod.PRIVATE, boolean.class, "isSlotSet");
+        JVar slot = isSet.param(int.class, "slot");
+        isSet.body()._return(mask.ne(JExpr._null()).cand(JOp.band(mask.component(slot.shrz(JExpr.lit(6))), JExpr.lit(1L).shl(slot)).ne(JExpr.lit(0L))));
+
+        // the values of the set slots are kept in slot order, so the index of a value is the number of set slots before it
+        JMethod indexOf = jclass.method(JMod.PRIVATE, int.class, "slotIndex");
+        slot = indexOf.param(int.class, "slot");
+        JBlock body = indexOf.body();
+        JVar word = body.decl(owner.INT, "word", slot.shrz(JExpr.lit(6)));
+        JVar index = body.decl(owner.INT, "index", JExpr.lit(0));
+        JForLoop words = body._for();
+        JVar i = words.init(owner.INT, "i", JExpr.lit(0));
+        words.test(i.lt(word));
+        words.update(i.incr());
+        words.body().assignPlus(index, owner.ref(Long.class).staticInvoke("bitCount").arg(mask.component(i)));
+        body._return(index.plus(owner.ref(Long.class).staticInvoke("bitCount")
+                .arg(JOp.band(mask.component(word), JExpr.lit(1L).shl(slot).minus(JExpr.lit(1L))))));
+
+        JMethod get = jclass.method(JMod.PRIVATE, Object.class, GET_VALUE_METHOD_NAME);
+        slot = get.param(int.class, "slot");
+        get.body()._return(JOp.cond(JExpr.invoke(isSet).arg(slot), values.component(JExpr.invoke(indexOf).arg(slot)), JExpr._null()));
+
+        JMethod set = jclass.method(JMod.PRIVATE, void.class, SET_VALUE_METHOD_NAME);
+        slot = set.param(int.class, "slot");
+        JVar value = set.param(Object.class, "value");
+        body = set.body();
+        JVar present = body.decl(owner.BOOLEAN, "present", JExpr.invoke(isSet).arg(slot));
+        JConditional isNull = body._if(value.eq(JExpr._null()));
+        addRemove(isNull._then(), owner, values, mask, noValues, slot, present, objectArray);
+        body = isNull._else();
+        body._if(mask.eq(JExpr._null()))._then().assign(mask, JExpr.newArray(owner.LONG, maskLength));
+        index = body.decl(owner.INT, "index", JExpr.invoke(indexOf).arg(slot));
+        JConditional replace = body._if(present);
+        replace._then().assign(values.component(index), value);
+        body = replace._else();
+        JVar grown = body.decl(objectArray, "grown", JExpr.newArray(owner.ref(Object.class), values.ref("length").plus(JExpr.lit(1))));
+        body.add(owner.ref(System.class).staticInvoke("arraycopy").arg(values).arg(JExpr.lit(0)).arg(grown).arg(JExpr.lit(0)).arg(index));
+        body.assign(grown.component(index), value);
+        body.add(owner.ref(System.class).staticInvoke("arraycopy").arg(values).arg(index).arg(grown).arg(index.plus(JExpr.lit(1)))
+                .arg(values.ref("length").minus(index)));
+        body.assign(values, grown);
+        body.assign(mask.component(slot.shrz(JExpr.lit(6))), JOp.bor(mask.component(slot.shrz(JExpr.lit(6))), JExpr.lit(1L).shl(slot)));
+    }
+
+    private void addRemove(JBlock block, JCodeModel owner, JFieldRef values, JFieldRef mask, JFieldVar noValues, JVar slot, JVar present,
+            JType objectArray) {
+        JBlock remove = block._if(present)._then();
+        JConditional last = remove._if(values.ref("length").eq(JExpr.lit(1)));
+        last._then().assign(values, noValues);
+        last._then().assign(mask, JExpr._null());
+        JBlock body = last._else();
+        JVar index = body.decl(owner.INT, "index", JExpr.invoke("slotIndex").arg(slot));
+        JVar shrunk = body.decl(objectArray, "shrunk", JExpr.newArray(owner.ref(Object.class), values.ref("length").minus(JExpr.lit(1))));
+        body.add(owner.ref(System.class).staticInvoke("arraycopy").arg(values).arg(JExpr.lit(0)).arg(shrunk).arg(JExpr.lit(0)).arg(index));
+        body.add(owner.ref(System.class).staticInvoke("arraycopy").arg(values).arg(index.plus(JExpr.lit(1))).arg(shrunk).arg(index)
+                .arg(shrunk.ref("length").minus(index)));
+        body.assign(values, shrunk);
+        body.assign(mask.component(slot.shrz(JExpr.lit(6))), JOp.band(mask.component(slot.shrz(JExpr.lit(6))), JExpr.lit(1L).shl(slot).complement()));
+    }
+
+}
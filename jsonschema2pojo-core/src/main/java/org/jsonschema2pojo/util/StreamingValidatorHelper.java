@@ -0,0 +1,485 @@
+/**
+ * Copyright © 2010-2014 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jsonschema2pojo.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sun.codemodel.ClassType;
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JClassAlreadyExistsException;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JConditional;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JInvocation;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+import com.sun.codemodel.JType;
+import com.sun.codemodel.JVar;
+import com.sun.codemodel.JWhileLoop;
+
+/**
+ * Adds a validator to a generated type that checks JSON data against the
+ * schema of the type as it is read from a {@link JsonParser}, so invalid
+ * documents can be rejected without binding them or building a tree.
+ */
+public class StreamingValidatorHelper {
+
+    private final boolean useStringSwitch;
+
+    /**
+     * @param useStringSwitch
+     *            whether the validator may switch on the property name (Java
+     *            7 and later), rather than on its hash code
+     */
+    public StreamingValidatorHelper(boolean useStringSwitch) {
+        this.useStringSwitch = useStringSwitch;
+    }
+
+    /**
+     * Adds a nested <code>Validator</code> class to the given type.
+     *
+     * @param jclass
+     *            the type whose JSON representation is validated
+     * @param propertyNodes
+     *            the (resolved) schemas of all properties of the type,
+     *            including inherited ones, by property name
+     * @param propertyTypes
+     *            the Java types of the properties, by property name
+     * @param requiredProperties
+     *            the names of the properties that must be present
+     * @param allowAdditionalProperties
+     *            whether properties that the schema doesn't declare are
+     *            allowed
+     */
+    public JDefinedClass addValidator(JDefinedClass jclass, Map<String, JsonNode> propertyNodes, Map<String, JType> propertyTypes,
+            Set<String> requiredProperties, boolean allowAdditionalProperties) {
+        JCodeModel owner = jclass.owner();
+        JClass jsonToken = owner.ref(JsonToken.class);
+        JClass violationsType = owner.ref(List.class).narrow(String.class);
+
+        JDefinedClass validator = getValidator(jclass);
+        validator.javadoc().add("Checks JSON data against the schema of " + jclass.name() + " while it is read, without binding it.");
+        validator.constructor(JMod.PRIVATE);
+
+        JMethod collect = validator.method(JMod.PUBLIC | JMod.STATIC, void.class, "validate");
+        collect._throws(IOException.class);
+        collect.javadoc().add("Reads a JSON object, from its START_OBJECT token up to its END_OBJECT token, and adds a message for every violation of the schema.");
+        collect.javadoc().addParam("path").add("the prefix of the property names in the messages");
+        collect.javadoc().addParam("violations").add("the messages that violations are added to");
+        JVar parser = collect.param(JsonParser.class, "parser");
+        JVar path = collect.param(String.class, "path");
+        JVar violations = collect.param(violationsType, "violations");
+        JBlock body = collect.body();
+        Context context = new Context(validator, parser, violations);
+
+        // required properties are tracked by flags, which are checked once the object has been read
+        Map<String, JVar> seenFlags = new LinkedHashMap<String, JVar>();
+        int flag = 0;
+        for (String propertyName : propertyNodes.keySet()) {
+            if (requiredProperties.contains(propertyName)) {
+                seenFlags.put(propertyName, body.decl(owner.BOOLEAN, "seen" + flag++, JExpr.FALSE));
+            }
+        }
+
+        JWhileLoop whileLoop = body._while(parser.invoke("nextToken").eq(jsonToken.staticRef("FIELD_NAME")));
+        JBlock loop = whileLoop.body();
+        JVar name = loop.decl(owner.ref(String.class), "name", parser.invoke("getCurrentName"));
+        loop.invoke(parser, "nextToken");
+
+        Map<String, JBlock> caseBodies = Models.addStringSwitch(loop, name, propertyNodes.keySet(), useStringSwitch);
+        for (Map.Entry<String, JBlock> caseBody : caseBodies.entrySet()) {
+            addPropertyChecks(caseBody.getValue(), caseBody.getKey(), propertyNodes, propertyTypes, seenFlags, path, context);
+            caseBody.getValue()._continue();
+        }
+
+        if (!allowAdditionalProperties) {
+            loop.invoke(violations, "add").arg(path.plus(name).plus(JExpr.lit(": is not allowed")));
+        }
+        loop.invoke(parser, "skipChildren");
+
+        for (Map.Entry<String, JVar> seenFlag : seenFlags.entrySet()) {
+            body._if(seenFlag.getValue().not())._then()
+                    .invoke(violations, "add").arg(path.plus(JExpr.lit(seenFlag.getKey() + ": is required")));
+        }
+
+        JMethod validate = validator.method(JMod.PUBLIC | JMod.STATIC, violationsType, "validate");
+        validate._throws(IOException.class);
+        validate.javadoc().add("Reads a JSON value (the current one, or the next one if the parser has no current token) and checks it against the schema of " + jclass.name() + ".");
+        validate.javadoc().addReturn().add("a message for every violation of the schema, or an empty list if the value is valid");
+        parser = validate.param(JsonParser.class, "parser");
+        body = validate.body();
+        body._if(parser.invoke("getCurrentToken").eq(JExpr._null()))._then().invoke(parser, "nextToken");
+        violations = body.decl(violationsType, "violations", JExpr._new(owner.ref(ArrayList.class).narrow(String.class)));
+        JConditional isObject = body._if(parser.invoke("getCurrentToken").eq(jsonToken.staticRef("START_OBJECT")));
+        isObject._then().invoke(collect).arg(parser).arg(JExpr.lit("")).arg(violations);
+        isObject._else().invoke(violations, "add").arg(JExpr.lit("must be of type object"));
+        isObject._else().invoke(parser, "skipChildren");
+        body._return(violations);
+
+        return validator;
+    }
+
+    private void addPropertyChecks(JBlock block, String propertyName, Map<String, JsonNode> propertyNodes, Map<String, JType> propertyTypes,
+            Map<String, JVar> seenFlags, JVar path, Context context) {
+        if (seenFlags.containsKey(propertyName)) {
+            block.assign(seenFlags.get(propertyName), JExpr.TRUE);
+        }
+        addValueChecks(block, propertyNodes.get(propertyName), propertyTypes.get(propertyName), new Label(path, propertyName), 0, context);
+    }
+
+    /**
+     * Checks the value at the current token against the given schema, and
+     * leaves the parser at the last token of the value.
+     */
+    private void addValueChecks(JBlock block, JsonNode node, JType javaType, Label label, int depth, Context context) {
+        JVar parser = context.parser;
+        List<String> types = getTypes(node);
+        if (types.isEmpty() || types.contains("any")) {
+            block.invoke(parser, "skipChildren");
+            return;
+        }
+
+        JConditional typeChecks = null;
+        for (String type : types) {
+            JExpression hasType = getTokenTest(type, parser);
+            if (hasType == null) {
+                continue;
+            }
+            typeChecks = typeChecks == null ? block._if(hasType) : typeChecks._elseif(hasType);
+            JBlock typeBlock = typeChecks._then();
+
+            if (type.equals("string")) {
+                addStringChecks(typeBlock, node, label, context);
+            } else if (type.equals("integer") || type.equals("number")) {
+                addNumberChecks(typeBlock, node, label, context);
+            } else if (type.equals("object")) {
+                if (isGeneratedClass(javaType)) {
+                    typeBlock.staticInvoke(getValidator((JDefinedClass) javaType), "validate").arg(parser).arg(label.child(".")).arg(context.violations);
+                } else {
+                    typeBlock.invoke(parser, "skipChildren");
+                }
+            } else if (type.equals("array")) {
+                addArrayChecks(typeBlock, node, javaType, label, depth, context);
+            }
+        }
+
+        if (typeChecks == null) {
+            block.invoke(parser, "skipChildren");
+            return;
+        }
+
+        JBlock otherwise = typeChecks._else();
+        addViolation(otherwise, label, "must be of type " + join(types, " or "), context);
+        otherwise.invoke(parser, "skipChildren");
+    }
+
+    private void addStringChecks(JBlock block, JsonNode node, Label label, Context context) {
+        boolean checkPattern = node.has("pattern");
+        boolean checkLength = node.has("minLength") || node.has("maxLength");
+        boolean checkEnum = node.has("enum");
+        if (!checkPattern && !checkLength && !checkEnum) {
+            return;
+        }
+
+        JVar text = block.decl(context.validator.owner().ref(String.class), "text", context.parser.invoke("getText"));
+
+        if (checkEnum) {
+            Set<String> values = new HashSet<String>();
+            for (JsonNode value : node.get("enum")) {
+                values.add(value.asText());
+            }
+            JInvocation valueList = context.validator.owner().ref(Arrays.class).staticInvoke("asList");
+            for (String value : values) {
+                valueList.arg(JExpr.lit(value));
+            }
+            JFieldVar allowedValues = context.validator.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL,
+                    context.validator.owner().ref(Set.class).narrow(String.class), getConstantName(context.validator, label.name + "Values"),
+                    JExpr._new(context.validator.owner().ref(HashSet.class).narrow(String.class)).arg(valueList));
+            addViolation(block._if(allowedValues.invoke("contains").arg(text).not())._then(), label, "must be one of " + node.get("enum"), context);
+        }
+
+        if (checkPattern) {
+            JFieldVar pattern = context.validator.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL, Pattern.class,
+                    getConstantName(context.validator, label.name + "Pattern"),
+                    context.validator.owner().ref(Pattern.class).staticInvoke("compile").arg(JExpr.lit(node.get("pattern").asText())));
+            addViolation(block._if(pattern.invoke("matcher").arg(text).invoke("find").not())._then(), label,
+                    "must match \"" + node.get("pattern").asText() + "\"", context);
+        }
+
+        if (checkLength) {
+            addSizeChecks(block, text.invoke("length"), node.get("minLength"), node.get("maxLength"), label, "length", context);
+        }
+    }
+
+    private void addNumberChecks(JBlock block, JsonNode node, Label label, Context context) {
+        boolean checkEnum = node.has("enum");
+        if (!node.has("minimum") && !node.has("maximum") && !checkEnum) {
+            return;
+        }
+
+        JVar value = block.decl(context.validator.owner().DOUBLE, "value", context.parser.invoke("getDoubleValue"));
+
+        if (checkEnum) {
+            // compared as doubles, like the bounds, so 1 and 1.0 are the same value
+            Set<Double> values = new LinkedHashSet<Double>();
+            for (JsonNode enumValue : node.get("enum")) {
+                if (enumValue.isNumber()) {
+                    values.add(enumValue.asDouble());
+                }
+            }
+            JInvocation valueList = context.validator.owner().ref(Arrays.class).staticInvoke("asList");
+            for (Double enumValue : values) {
+                valueList.arg(JExpr.lit(enumValue));
+            }
+            JFieldVar allowedValues = context.validator.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL,
+                    context.validator.owner().ref(Set.class).narrow(Double.class), getConstantName(context.validator, label.name + "Values"),
+                    JExpr._new(context.validator.owner().ref(HashSet.class).narrow(Double.class)).arg(valueList));
+            addViolation(block._if(allowedValues.invoke("contains").arg(value).not())._then(), label, "must be one of " + node.get("enum"), context);
+        }
+
+        if (node.has("minimum")) {
+            JsonNode minimum = node.get("minimum");
+            boolean exclusive = node.path("exclusiveMinimum").asBoolean();
+            JExpression tooSmall = exclusive ? value.lte(JExpr.lit(minimum.asDouble())) : value.lt(JExpr.lit(minimum.asDouble()));
+            addViolation(block._if(tooSmall)._then(), label, "must be greater than " + (exclusive ? "" : "or equal to ") + minimum.asText(), context);
+        }
+
+        if (node.has("maximum")) {
+            JsonNode maximum = node.get("maximum");
+            boolean exclusive = node.path("exclusiveMaximum").asBoolean();
+            JExpression tooLarge = exclusive ? value.gte(JExpr.lit(maximum.asDouble())) : value.gt(JExpr.lit(maximum.asDouble()));
+            addViolation(block._if(tooLarge)._then(), label, "must be less than " + (exclusive ? "" : "or equal to ") + maximum.asText(), context);
+        }
+    }
+
+    private void addArrayChecks(JBlock block, JsonNode node, JType javaType, Label label, int depth, Context context) {
+        JsonNode items = node.get("items");
+        boolean checkItems = items != null && items.isObject();
+        boolean checkSize = node.has("minItems") || node.has("maxItems");
+        if (!checkItems && !checkSize) {
+            block.invoke(context.parser, "skipChildren");
+            return;
+        }
+
+        JVar index = block.decl(context.validator.owner().INT, depth == 0 ? "index" : "index" + depth, JExpr.lit(0));
+        JWhileLoop whileLoop = block._while(context.parser.invoke("nextToken").ne(context.validator.owner().ref(JsonToken.class).staticRef("END_ARRAY")));
+        if (checkItems) {
+            addValueChecks(whileLoop.body(), items, getElementType(javaType), label.element(index), depth + 1, context);
+        } else {
+            whileLoop.body().invoke(context.parser, "skipChildren");
+        }
+        whileLoop.body().assignPlus(index, JExpr.lit(1));
+
+        if (checkSize) {
+            addSizeChecks(block, index, node.get("minItems"), node.get("maxItems"), label, "size", context);
+        }
+    }
+
+    private void addSizeChecks(JBlock block, JExpression size, JsonNode min, JsonNode max, Label label, String description, Context context) {
+        if (min != null) {
+            addViolation(block._if(size.lt(JExpr.lit(min.asInt())))._then(), label, description + " must be at least " + min.asInt(), context);
+        }
+        if (max != null) {
+            addViolation(block._if(size.gt(JExpr.lit(max.asInt())))._then(), label, description + " must be at most " + max.asInt(), context);
+        }
+    }
+
+    private void addViolation(JBlock block, Label label, String message, Context context) {
+        block.invoke(context.violations, "add").arg(label.message(message));
+    }
+
+    /**
+     * The types the schema allows, following the same defaults as the type
+     * rule when there is no "type".
+     */
+    private List<String> getTypes(JsonNode node) {
+        List<String> types = new ArrayList<String>();
+        JsonNode type = node.get("type");
+        if (type != null && type.isArray()) {
+            for (JsonNode element : type) {
+                types.add(element.asText());
+            }
+        } else if (type != null) {
+            types.add(type.asText());
+        } else if (node.has("properties")) {
+            types.add("object");
+        } else if (node.has("items")) {
+            types.add("array");
+        } else if (node.has("enum")) {
+            types.add("string");
+        }
+        return types;
+    }
+
+    private JExpression getTokenTest(String type, JVar parser) {
+        JClass jsonToken = parser.type().owner().ref(JsonToken.class);
+        JExpression token = parser.invoke("getCurrentToken");
+        if (type.equals("string")) {
+            return token.eq(jsonToken.staticRef("VALUE_STRING"));
+        } else if (type.equals("integer")) {
+            return token.eq(jsonToken.staticRef("VALUE_NUMBER_INT"));
+        } else if (type.equals("number")) {
+            return token.eq(jsonToken.staticRef("VALUE_NUMBER_INT")).cor(parser.invoke("getCurrentToken").eq(jsonToken.staticRef("VALUE_NUMBER_FLOAT")));
+        } else if (type.equals("boolean")) {
+            return token.eq(jsonToken.staticRef("VALUE_TRUE")).cor(parser.invoke("getCurrentToken").eq(jsonToken.staticRef("VALUE_FALSE")));
+        } else if (type.equals("object")) {
+            return token.eq(jsonToken.staticRef("START_OBJECT"));
+        } else if (type.equals("array")) {
+            return token.eq(jsonToken.staticRef("START_ARRAY"));
+        } else if (type.equals("null")) {
+            return token.eq(jsonToken.staticRef("VALUE_NULL"));
+        }
+        return null;
+    }
+
+    private JType getElementType(JType type) {
+        if (type == null) {
+            return null;
+        } else if (type.isArray()) {
+            return type.elementType();
+        } else if (type instanceof JClass && isCollection(type) && !((JClass) type).getTypeParameters().isEmpty()) {
+            return ((JClass) type).getTypeParameters().get(0);
+        }
+        return null;
+    }
+
+    private boolean isCollection(JType type) {
+        String erasure = type.erasure().fullName();
+        return erasure.equals(List.class.getName()) || erasure.equals(Set.class.getName()) || erasure.equals(Collection.class.getName());
+    }
+
+    private boolean isGeneratedClass(JType type) {
+        return type instanceof JDefinedClass && ((JDefinedClass) type).getClassType() == ClassType.CLASS;
+    }
+
+    /**
+     * Finds the validator of the given type, creating it if needed. Types
+     * that refer to each other may need a validator before it's filled in.
+     */
+    private JDefinedClass getValidator(JDefinedClass jclass) {
+        String name = "Validator";
+        while (true) {
+            JDefinedClass nestedClass = null;
+            for (Iterator<JDefinedClass> classes = jclass.classes(); classes.hasNext();) {
+                JDefinedClass candidate = classes.next();
+                if (candidate.name().equals(name)) {
+                    nestedClass = candidate;
+                }
+            }
+            if (nestedClass == null) {
+                try {
+                    return jclass._class(JMod.PUBLIC | JMod.STATIC | JMod.FINAL, name);
+                } catch (JClassAlreadyExistsException e) {
+                    throw new IllegalStateException(e);
+                }
+            } else if (nestedClass.getClassType() == ClassType.CLASS && (nestedClass.mods().getValue() & JMod.FINAL) != 0) {
+                return nestedClass;
+            }
+            name += "_";
+        }
+    }
+
+    private String getConstantName(JDefinedClass jclass, String name) {
+        String constantName = Models.getConstantName(name.replaceAll("[^A-Za-z0-9]+", "_"));
+        if (!Character.isJavaIdentifierStart(constantName.charAt(0))) {
+            constantName = "_" + constantName;
+        }
+        return Models.getUniqueFieldName(jclass, constantName);
+    }
+
+    private String join(List<String> values, String separator) {
+        StringBuilder joined = new StringBuilder();
+        for (String value : values) {
+            if (joined.length() > 0) {
+                joined.append(separator);
+            }
+            joined.append(value);
+        }
+        return joined.toString();
+    }
+
+    /**
+     * The variables that all checks of a validator refer to.
+     */
+    private static class Context {
+
+        private final JDefinedClass validator;
+        private final JVar parser;
+        private final JVar violations;
+
+        Context(JDefinedClass validator, JVar parser, JVar violations) {
+            this.validator = validator;
+            this.parser = parser;
+            this.violations = violations;
+        }
+
+    }
+
+    /**
+     * The location of a value in messages: an expression built at runtime
+     * (the path, and the index of array elements), followed by text known at
+     * generation time, so that adjacent literals are joined.
+     */
+    private static class Label {
+
+        private final JExpression prefix;
+        private final String suffix;
+        private final String name;
+
+        Label(JExpression prefix, String name) {
+            this(prefix, name, name);
+        }
+
+        private Label(JExpression prefix, String suffix, String name) {
+            this.prefix = prefix;
+            this.suffix = suffix;
+            this.name = name;
+        }
+
+        JExpression message(String message) {
+            return prefix.plus(JExpr.lit(suffix + ": " + message));
+        }
+
+        JExpression child(String separator) {
+            return prefix.plus(JExpr.lit(suffix + separator));
+        }
+
+        Label element(JVar index) {
+            return new Label(child("[").plus(index), "]", name + "Item");
+        }
+
+    }
+
+}
@@ -0,0 +1,280 @@
+/**
+ * Copyright © 2010-2014 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jsonschema2pojo.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sun.codemodel.ClassType;
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JConditional;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JFieldRef;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JForEach;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+import com.sun.codemodel.JType;
+import com.sun.codemodel.JVar;
+
+/**
+ * Adds <code>validate</code> methods to a generated type. They check the
+ * constraints that the JSR-303 annotations of the type describe (the messages
+ * follow those of the reference implementation), but in plain code, so no
+ * validator has to inspect the type at runtime.
+ */
+public class ValidationHelper {
+
+    /**
+     * Adds a <code>validate()</code> method that returns the violations of the
+     * given type, and a <code>validate(String, List)</code> method that
+     * collects them (prefixed with a path) and cascades into the properties
+     * of generated types, including the elements of collections, arrays and
+     * maps (such as the additional properties) of generated types. Every
+     * instance is validated once, so cyclic object graphs are supported.
+     *
+     * @param jclass
+     *            the type to validate
+     * @param propertyNodes
+     *            the (resolved) schemas of the properties declared by the
+     *            type, by property name
+     * @param requiredProperties
+     *            the names of the properties that must not be null
+     * @param nameHelper
+     *            the helper that names the field of each property
+     */
+    public void addValidateMethods(JDefinedClass jclass, Map<String, JsonNode> propertyNodes, Set<String> requiredProperties, NameHelper nameHelper) {
+        JCodeModel owner = jclass.owner();
+        JClass violationsType = owner.ref(List.class).narrow(String.class);
+
+        JClass visitedType = owner.ref(Set.class).narrow(Object.class);
+        boolean validatedSuperType = jclass._extends() instanceof JDefinedClass;
+
+        JMethod collect = jclass.method(JMod.PUBLIC, void.class, "validate");
+        collect.javadoc().add("Adds a message for every constraint of this instance (and of the instances it refers to, unless they have been visited before) that is violated.");
+        collect.javadoc().addParam("path").add("the prefix of the property names in the messages");
+        collect.javadoc().addParam("violations").add("the messages that violations are added to");
+        collect.javadoc().addParam("visited").add("the instances that have been validated already, compared by identity");
+        JVar path = collect.param(String.class, "path");
+        JVar violations = collect.param(violationsType, "violations");
+        JVar visited = collect.param(visitedType, "visited");
+
+        if (validatedSuperType) {
+            collect.body().invoke(JExpr._super(), "validate").arg(path).arg(violations).arg(visited);
+        }
+
+        for (Map.Entry<String, JsonNode> propertyNode : propertyNodes.entrySet()) {
+            JFieldVar field = jclass.fields().get(nameHelper.getPropertyName(propertyNode.getKey()));
+            if (field != null) {
+                addChecks(jclass, collect.body(), field, propertyNode.getKey(), propertyNode.getValue(),
+                        requiredProperties.contains(propertyNode.getKey()), path, violations, visited);
+            }
+        }
+
+        JFieldVar additionalProperties = jclass.fields().get("additionalProperties");
+        if (additionalProperties != null && isMap(additionalProperties.type())) {
+            JClass valueType = ((JClass) additionalProperties.type()).getTypeParameters().get(1);
+            if (isGeneratedClass(valueType)) {
+                JFieldRef value = JExpr._this().ref(additionalProperties);
+                addMapCascade(collect.body()._if(value.ne(JExpr._null()))._then(), (JClass) additionalProperties.type(), value,
+                        path, JExpr.lit("."), violations, visited);
+            }
+        }
+
+        if (!validatedSuperType) {
+            JMethod collectFromRoot = jclass.method(JMod.PUBLIC, void.class, "validate");
+            collectFromRoot.javadoc().add("Adds a message for every constraint of this instance (and of the instances it refers to) that is violated.");
+            collectFromRoot.javadoc().addParam("path").add("the prefix of the property names in the messages");
+            collectFromRoot.javadoc().addParam("violations").add("the messages that violations are added to");
+            JVar rootPath = collectFromRoot.param(String.class, "path");
+            JVar rootViolations = collectFromRoot.param(violationsType, "violations");
+            JVar rootVisited = collectFromRoot.body().decl(visitedType, "visited", owner.ref(Collections.class).staticInvoke("newSetFromMap")
+                    .arg(JExpr._new(owner.ref(IdentityHashMap.class).narrow(Object.class, Boolean.class))));
+            collectFromRoot.body().invoke(rootVisited, "add").arg(JExpr._this());
+            collectFromRoot.body().invoke("validate").arg(rootPath).arg(rootViolations).arg(rootVisited);
+        }
+
+        JMethod validate = jclass.method(JMod.PUBLIC, violationsType, "validate");
+        validate.javadoc().add("Checks the constraints of this instance (and of the instances it refers to).");
+        validate.javadoc().addReturn().add("a message for every violated constraint, or an empty list if this instance is valid");
+        JVar result = validate.body().decl(violationsType, "violations", JExpr._new(owner.ref(ArrayList.class).narrow(String.class)));
+        validate.body().invoke(collect).arg(JExpr.lit("")).arg(result);
+        validate.body()._return(result);
+    }
+
+    private void addChecks(JDefinedClass jclass, JBlock body, JFieldVar field, String propertyName, JsonNode node, boolean required,
+            JVar path, JVar violations, JVar visited) {
+        JType type = field.type();
+        JFieldRef value = JExpr._this().ref(field);
+
+        JExpression size = getSize(type, value);
+        JsonNode minSize = node.has("minLength") ? node.get("minLength") : node.get("minItems");
+        JsonNode maxSize = node.has("maxLength") ? node.get("maxLength") : node.get("maxItems");
+
+        boolean checkPattern = node.has("pattern") && isString(type);
+        boolean checkSize = size != null && (minSize != null || maxSize != null);
+        boolean checkBounds = isNumber(type) && (node.has("minimum") || node.has("maximum"));
+        boolean cascade = isGeneratedClass(type) || isGeneratedClass(getElementType(type)) || isMap(type)
+                && isGeneratedClass(((JClass) type).getTypeParameters().get(1));
+        boolean checkValue = checkPattern || checkSize || checkBounds || cascade;
+
+        JBlock checks;
+        if (type.isPrimitive()) {
+            checks = body;
+        } else if (required) {
+            JConditional isNull = body._if(value.eq(JExpr._null()));
+            addViolation(isNull._then(), path, violations, propertyName, "may not be null");
+            if (!checkValue) {
+                return;
+            }
+            checks = isNull._else();
+        } else if (!checkValue) {
+            return;
+        } else {
+            checks = body._if(value.ne(JExpr._null()))._then();
+        }
+
+        if (checkPattern) {
+            JFieldVar pattern = jclass.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL, Pattern.class, Models.getUniqueFieldName(jclass, Models.getConstantName(field.name() + "Pattern")),
+                    jclass.owner().ref(Pattern.class).staticInvoke("compile").arg(JExpr.lit(node.get("pattern").asText())));
+            addViolation(checks._if(pattern.invoke("matcher").arg(value).invoke("matches").not())._then(), path, violations, propertyName,
+                    "must match \"" + node.get("pattern").asText() + "\"");
+        }
+
+        if (checkSize) {
+            int min = minSize != null ? minSize.asInt() : 0;
+            int max = maxSize != null ? maxSize.asInt() : Integer.MAX_VALUE;
+            JExpression outOfRange = null;
+            if (minSize != null) {
+                outOfRange = size.lt(JExpr.lit(min));
+            }
+            if (maxSize != null) {
+                outOfRange = outOfRange != null ? outOfRange.cor(size.gt(JExpr.lit(max))) : size.gt(JExpr.lit(max));
+            }
+            addViolation(checks._if(outOfRange)._then(), path, violations, propertyName, "size must be between " + min + " and " + max);
+        }
+
+        if (checkBounds) {
+            if (node.has("minimum")) {
+                addViolation(checks._if(value.lt(getBound(node.get("minimum"))))._then(), path, violations, propertyName,
+                        "must be greater than or equal to " + node.get("minimum").asText());
+            }
+            if (node.has("maximum")) {
+                addViolation(checks._if(value.gt(getBound(node.get("maximum"))))._then(), path, violations, propertyName,
+                        "must be less than or equal to " + node.get("maximum").asText());
+            }
+        }
+
+        if (isGeneratedClass(type)) {
+            addCascade(checks._if(visited.invoke("add").arg(value))._then(), value, path.plus(JExpr.lit(propertyName + ".")), violations, visited);
+        } else if (isGeneratedClass(getElementType(type))) {
+            JVar index = checks.decl(jclass.owner().INT, "index", JExpr.lit(0));
+            JForEach forEach = checks.forEach(getElementType(type), "element", value);
+            addElementCascade(forEach.body(), forEach.var(), path.plus(JExpr.lit(propertyName + "[")).plus(index).plus(JExpr.lit("].")),
+                    violations, visited);
+            forEach.body().assignPlus(index, JExpr.lit(1));
+        } else if (cascade) {
+            addMapCascade(checks, (JClass) type, value, path.plus(JExpr.lit(propertyName + "[")), JExpr.lit("]."), violations, visited);
+        }
+    }
+
+    private void addMapCascade(JBlock block, JClass mapType, JExpression map, JExpression prefix, JExpression suffix, JVar violations, JVar visited) {
+        JClass entryType = mapType.owner().ref(Map.Entry.class).narrow(mapType.getTypeParameters());
+        JForEach forEach = block.forEach(entryType, "entry", map.invoke("entrySet"));
+        JVar value = forEach.body().decl(mapType.getTypeParameters().get(1), "value", forEach.var().invoke("getValue"));
+        addElementCascade(forEach.body(), value, prefix.plus(forEach.var().invoke("getKey")).plus(suffix), violations, visited);
+    }
+
+    private void addElementCascade(JBlock block, JVar element, JExpression path, JVar violations, JVar visited) {
+        addCascade(block._if(element.ne(JExpr._null()).cand(visited.invoke("add").arg(element)))._then(), element, path, violations, visited);
+    }
+
+    private void addCascade(JBlock block, JExpression value, JExpression path, JVar violations, JVar visited) {
+        block.add(JExpr.invoke(value, "validate").arg(path).arg(violations).arg(visited));
+    }
+
+    private void addViolation(JBlock block, JVar path, JVar violations, String propertyName, String message) {
+        block.invoke(violations, "add").arg(path.plus(JExpr.lit(propertyName + ": " + message)));
+    }
+
+    private JExpression getSize(JType type, JExpression value) {
+        if (type.isArray()) {
+            return value.ref("length");
+        } else if (isString(type)) {
+            return value.invoke("length");
+        } else if (isCollection(type) || isMap(type)) {
+            return value.invoke("size");
+        }
+        return null;
+    }
+
+    private JExpression getBound(JsonNode bound) {
+        if (bound.isIntegralNumber()) {
+            return bound.canConvertToInt() ? JExpr.lit(bound.asInt()) : JExpr.lit(bound.asLong());
+        }
+        return JExpr.lit(bound.asDouble());
+    }
+
+    private boolean isString(JType type) {
+        return type.fullName().equals(String.class.getName());
+    }
+
+    private boolean isNumber(JType type) {
+        JType unboxed = type.unboxify();
+        JCodeModel owner = type.owner();
+        return unboxed.isPrimitive() && unboxed != owner.BOOLEAN && unboxed != owner.CHAR;
+    }
+
+    private boolean isCollection(JType type) {
+        String erasure = type.erasure().fullName();
+        return erasure.equals(List.class.getName()) || erasure.equals(Set.class.getName()) || erasure.equals(Collection.class.getName());
+    }
+
+    private boolean isMap(JType type) {
+        return type.erasure().fullName().equals(Map.class.getName()) && ((JClass) type).getTypeParameters().size() == 2;
+    }
+
+    private JType getElementType(JType type) {
+        if (type.isArray()) {
+            return type.elementType();
+        } else if (isCollection(type) && !((JClass) type).getTypeParameters().isEmpty()) {
+            return ((JClass) type).getTypeParameters().get(0);
+        }
+        return null;
+    }
+
+    private boolean isGeneratedClass(JType type) {
+        if (type == null || type.isPrimitive() || type.isArray()) {
+            return false;
+        }
+        // types named by a javaType are referred to by name, even if they are generated
+        JDefinedClass definedClass = type instanceof JDefinedClass ? (JDefinedClass) type : type.owner()._getClass(type.fullName());
+        return definedClass != null && definedClass.getClassType() == ClassType.CLASS;
+    }
+
+}
@@ -21,6 +21,7 @@ import static org.hamcrest.Matchers.*;
 import static org.mockito.Mockito.*;
 
 import java.net.URI;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Set;
 
@@ -62,6 +63,47 @@ public class ArrayRuleTest {
         assertThat(propertyType.getTypeParameters().get(0).fullName(), is(Integer.class.getName()));
     }
 
+    @Test
+    public void arrayWithUniqueEnumItemsProducesEnumSet() {
+        JCodeModel codeModel = new JCodeModel();
+        JPackage jpackage = codeModel._package(getClass().getPackage().getName());
+
+        ObjectMapper mapper = new ObjectMapper();
+
+        ObjectNode itemsNode = mapper.createObjectNode();
+        itemsNode.putArray("enum").add("read").add("write");
+
+        ObjectNode propertyNode = mapper.createObjectNode();
+        propertyNode.put("uniqueItems", true);
+        propertyNode.put("items", itemsNode);
+
+        when(config.isUseEnumSets()).thenReturn(true);
+
+        JClass propertyType = rule.apply("permissions", propertyNode, jpackage, mock(Schema.class));
+
+        assertThat(propertyType.erasure(), is(codeModel.ref(EnumSet.class)));
+        assertThat(propertyType.getTypeParameters().get(0).fullName(), is(getClass().getPackage().getName() + ".Permission"));
+    }
+
+    @Test
+    public void arrayWithPrimitiveArrayExtensionProducesPrimitiveArray() {
+        JCodeModel codeModel = new JCodeModel();
+        JPackage jpackage = codeModel._package(getClass().getPackage().getName());
+
+        ObjectMapper mapper = new ObjectMapper();
+
+        ObjectNode itemsNode = mapper.createObjectNode();
+        itemsNode.put("type", "integer");
+
+        ObjectNode propertyNode = mapper.createObjectNode();
+        propertyNode.put("items", itemsNode);
+        propertyNode.put("javaPrimitiveArray", true);
+
+        JClass propertyType = rule.apply("samples", propertyNode, jpackage, mock(Schema.class));
+
+        assertThat(propertyType, is(codeModel.INT.array()));
+    }
+
     @Test
     public void arrayWithNonUniqueItemsProducesList() {
         JCodeModel codeModel = new JCodeModel();
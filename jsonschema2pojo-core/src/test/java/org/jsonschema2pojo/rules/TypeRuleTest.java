@@ -304,6 +304,49 @@ public class TypeRuleTest {
         assertThat(result.fullName(), is(Long.class.getName()));
     }
 
+    @Test
+    public void applyGeneratesNarrowIntegerPrimitivesFromRange() {
+
+        JPackage jpackage = new JCodeModel()._package(getClass().getPackage().getName());
+
+        when(config.isUsePrimitives()).thenReturn(true);
+        when(config.isUseNarrowIntegers()).thenReturn(true);
+
+        assertThat(rule.apply("fooBar", integerWithRange(0, 100), jpackage, null).fullName(), is("byte"));
+        assertThat(rule.apply("fooBar", integerWithRange(Byte.MIN_VALUE, Byte.MAX_VALUE), jpackage, null).fullName(), is("byte"));
+        assertThat(rule.apply("fooBar", integerWithRange(0, 255), jpackage, null).fullName(), is("short"));
+        assertThat(rule.apply("fooBar", integerWithRange(Short.MIN_VALUE, 0), jpackage, null).fullName(), is("short"));
+        assertThat(rule.apply("fooBar", integerWithRange(0, 65535), jpackage, null).fullName(), is("int"));
+        assertThat(rule.apply("fooBar", integerWithRange(0, Integer.MAX_VALUE + 1L), jpackage, null).fullName(), is("long"));
+    }
+
+    @Test
+    public void applyGeneratesNarrowIntegerWrappersFromRange() {
+
+        JPackage jpackage = new JCodeModel()._package(getClass().getPackage().getName());
+
+        when(config.isUsePrimitives()).thenReturn(false);
+        when(config.isUseNarrowIntegers()).thenReturn(true);
+        when(config.isUseLongIntegers()).thenReturn(true);
+
+        assertThat(rule.apply("fooBar", integerWithRange(-5, 5), jpackage, null).fullName(), is(Byte.class.getName()));
+        assertThat(rule.apply("fooBar", integerWithRange(-5000, 5000), jpackage, null).fullName(), is(Short.class.getName()));
+
+        ObjectNode unbounded = new ObjectMapper().createObjectNode();
+        unbounded.put("type", "integer");
+        unbounded.put("minimum", 0);
+
+        assertThat(rule.apply("fooBar", unbounded, jpackage, null).fullName(), is(Long.class.getName()));
+    }
+
+    private ObjectNode integerWithRange(long minimum, long maximum) {
+        ObjectNode objectNode = new ObjectMapper().createObjectNode();
+        objectNode.put("type", "integer");
+        objectNode.put("minimum", minimum);
+        objectNode.put("maximum", maximum);
+        return objectNode;
+    }
+
     @Test
     public void applyGeneratesIntegerUsingJavaTypeBigInteger() {
 
@@ -64,6 +64,27 @@ public class JsonSchemaExtension implements GenerationConfig {
   String timeType
   boolean useLongIntegers
   boolean usePrimitives
+  boolean immutable
+  boolean lazyAdditionalProperties
+  boolean shareCollectionDefaults
+  boolean useTypedEnumValues
+  boolean useEnumSets
+  boolean usePrimitiveArrays
+  boolean useNarrowIntegers
+  boolean includeStreamingSerializers
+  boolean includeValidateMethods
+  boolean includeStreamingValidators
+  boolean usePresenceBits
+  boolean useSparseStorage
+  boolean generateBatchClasses
+  boolean generateBufferViews
+  boolean externalizable
+  boolean generateNodeViews
+  boolean generateProjectionReaders
+  boolean generateArrayStreams
+  boolean usePositionalEncoding
+  boolean includePropertyMetadata
+  boolean includeDeepCopy
   FileFilter fileFilter
 
   public JsonSchemaExtension() {
@@ -101,6 +122,27 @@ public class JsonSchemaExtension implements GenerationConfig {
     includeAccessors = true
     targetVersion = '1.6'
     includeDynamicAccessors = false
+    immutable = false
+    lazyAdditionalProperties = false
+    shareCollectionDefaults = false
+    useTypedEnumValues = false
+    useEnumSets = false
+    usePrimitiveArrays = false
+    useNarrowIntegers = false
+    includeStreamingSerializers = false
+    includeValidateMethods = false
+    includeStreamingValidators = false
+    usePresenceBits = false
+    useSparseStorage = false
+    generateBatchClasses = false
+    generateBufferViews = false
+    externalizable = false
+    generateNodeViews = false
+    generateProjectionReaders = false
+    generateArrayStreams = false
+    usePositionalEncoding = false
+    includePropertyMetadata = false
+    includeDeepCopy = false
   }
 
   @Override
@@ -167,6 +209,27 @@ public class JsonSchemaExtension implements GenerationConfig {
        |classNameSuffix = ${classNameSuffix}
        |targetVersion = ${targetVersion}
        |includeDynamicAccessors = ${includeDynamicAccessors}
+       |immutable = ${immutable}
+       |lazyAdditionalProperties = ${lazyAdditionalProperties}
+       |shareCollectionDefaults = ${shareCollectionDefaults}
+       |useTypedEnumValues = ${useTypedEnumValues}
+       |useEnumSets = ${useEnumSets}
+       |usePrimitiveArrays = ${usePrimitiveArrays}
+       |useNarrowIntegers = ${useNarrowIntegers}
+       |includeStreamingSerializers = ${includeStreamingSerializers}
+       |includeValidateMethods = ${includeValidateMethods}
+       |includeStreamingValidators = ${includeStreamingValidators}
+       |usePresenceBits = ${usePresenceBits}
+       |useSparseStorage = ${useSparseStorage}
+       |generateBatchClasses = ${generateBatchClasses}
+       |generateBufferViews = ${generateBufferViews}
+       |externalizable = ${externalizable}
+       |generateNodeViews = ${generateNodeViews}
+       |generateProjectionReaders = ${generateProjectionReaders}
+       |generateArrayStreams = ${generateArrayStreams}
+       |usePositionalEncoding = ${usePositionalEncoding}
+       |includePropertyMetadata = ${includePropertyMetadata}
+       |includeDeepCopy = ${includeDeepCopy}
      """.stripMargin()
   }
 }
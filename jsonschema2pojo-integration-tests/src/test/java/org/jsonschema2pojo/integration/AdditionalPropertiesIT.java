@@ -21,6 +21,7 @@ import static org.jsonschema2pojo.integration.util.CodeGenerationHelper.config;
 import static org.junit.Assert.*;
 
 import java.io.IOException;
+import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
@@ -270,6 +271,57 @@ public class AdditionalPropertiesIT {
         assertThat(jsonNode.has("additionalProperties"), is(false));
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void lazyAdditionalPropertiesAreAllocatedOnFirstUse() throws Exception {
+
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/additionalProperties/defaultAdditionalProperties.json", "com.example",
+                config("lazyAdditionalProperties", true, "generateBuilders", true));
+
+        Class<?> classWithAdditionalProperties = resultsClassLoader.loadClass("com.example.DefaultAdditionalProperties");
+        Field field = classWithAdditionalProperties.getDeclaredField("additionalProperties");
+        field.setAccessible(true);
+
+        Object instance = classWithAdditionalProperties.newInstance();
+        Map<String, Object> additionalProperties = (Map<String, Object>) classWithAdditionalProperties.getMethod("getAdditionalProperties").invoke(instance);
+
+        assertThat(field.get(instance), is(nullValue()));
+        assertThat(additionalProperties.isEmpty(), is(true));
+        assertThat(mapper.writeValueAsString(instance), is("{}"));
+
+        classWithAdditionalProperties.getMethod("withAdditionalProperty", String.class, Object.class).invoke(instance, "a", "1");
+
+        assertThat(field.get(instance), is(notNullValue()));
+        assertThat(mapper.readTree(mapper.writeValueAsString(instance)).path("a").asText(), is("1"));
+
+        Object deserialized = mapper.readValue("{\"b\":2}", classWithAdditionalProperties);
+        assertThat(((Map<String, Object>) classWithAdditionalProperties.getMethod("getAdditionalProperties").invoke(deserialized)).get("b"), is((Object) 2));
+        assertThat(field.get(mapper.readValue("{}", classWithAdditionalProperties)), is(nullValue()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void lazyAdditionalPropertiesWorkWithImmutableTypes() throws Exception {
+
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/additionalProperties/defaultAdditionalProperties.json", "com.example",
+                config("lazyAdditionalProperties", true, "immutable", true));
+
+        Class<?> classWithAdditionalProperties = resultsClassLoader.loadClass("com.example.DefaultAdditionalProperties");
+        Class<?> builderClass = resultsClassLoader.loadClass("com.example.DefaultAdditionalProperties$Builder");
+
+        Object builder = builderClass.newInstance();
+        Object empty = builderClass.getMethod("build").invoke(builder);
+        builderClass.getMethod("withAdditionalProperty", String.class, Object.class).invoke(builder, "a", "1");
+        Object instance = builderClass.getMethod("build").invoke(builder);
+
+        Method getter = classWithAdditionalProperties.getMethod("getAdditionalProperties");
+        assertThat(((Map<String, Object>) getter.invoke(empty)).isEmpty(), is(true));
+        assertThat(((Map<String, Object>) getter.invoke(instance)).get("a"), is((Object) "1"));
+
+        Object deserialized = mapper.readValue("{\"b\":2}", classWithAdditionalProperties);
+        assertThat(((Map<String, Object>) getter.invoke(deserialized)).get("b"), is((Object) 2));
+    }
+
     @SuppressWarnings("rawtypes")
     public static Matcher<Class> typeEqualTo(Class<?> type) {
         return equalTo((Class) type);
@@ -21,6 +21,8 @@ import static org.jsonschema2pojo.integration.util.CodeGenerationHelper.config;
 import static org.junit.Assert.*;
 
 import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
 import java.util.Map;
 
 import org.jsonschema2pojo.integration.util.Jsonschema2PojoRule;
@@ -212,6 +214,84 @@ public class DynamicPropertiesIT {
                 equalTo("value"));
     }
 
+    @Test
+    public void shouldIndexPropertiesIncludingInheritedOnes() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/dynamic/childType.json", "com.example", config("includeDynamicAccessors", true));
+
+        Class<?> parentType = resultsClassLoader.loadClass("com.example.ParentType");
+        Class<?> childType = resultsClassLoader.loadClass("com.example.ChildType");
+
+        assertThat(parentType.getField("PROPERTY_NAMES").get(null),
+                equalTo((Object) Arrays.asList("stringValue", "numberValue", "integerValue", "enumType")));
+        assertThat(childType.getField("PROPERTY_NAMES").get(null),
+                equalTo((Object) Arrays.asList("stringValue", "numberValue", "integerValue", "enumType", "childStringValue", "childNumberValue")));
+
+        Method indexOfProperty = childType.getMethod("indexOfProperty", String.class);
+        assertThat(indexOfProperty.invoke(null, "integerValue"), equalTo((Object) 2));
+        assertThat(indexOfProperty.invoke(null, "childNumberValue"), equalTo((Object) 5));
+        assertThat(indexOfProperty.invoke(null, "unknownValue"), equalTo((Object) (-1)));
+        assertThat(parentType.getMethod("indexOfProperty", String.class).invoke(null, "childNumberValue"), equalTo((Object) (-1)));
+    }
+
+    @Test
+    public void shouldGetAndSetPropertiesByIndex() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/dynamic/childType.json", "com.example", config("includeDynamicAccessors", true));
+
+        Class<?> childType = resultsClassLoader.loadClass("com.example.ChildType");
+        Object instance = childType.newInstance();
+
+        Method get = childType.getMethod("get", int.class);
+        Method set = childType.getMethod("set", int.class, Object.class);
+
+        set.invoke(instance, 0, "parent");
+        set.invoke(instance, 4, "child");
+
+        assertThat(childType.getMethod("getStringValue").invoke(instance), equalTo((Object) "parent"));
+        assertThat(get.invoke(instance, 0), equalTo((Object) "parent"));
+        assertThat(get.invoke(instance, 4), equalTo((Object) "child"));
+        assertThat(childType.getMethod("get", String.class).invoke(instance, "childStringValue"), equalTo((Object) "child"));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void shouldThrowExceptionWhenGettingUnknownIndex() throws Throwable {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/dynamic/parentType.json", "com.example", config("includeDynamicAccessors", true));
+
+        Class<?> parentType = resultsClassLoader.loadClass("com.example.ParentType");
+
+        try {
+            parentType.getMethod("get", int.class).invoke(parentType.newInstance(), 4);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionWhenSettingWrongTypeByIndex() throws Throwable {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/dynamic/parentType.json", "com.example", config("includeDynamicAccessors", true));
+
+        Class<?> parentType = resultsClassLoader.loadClass("com.example.ParentType");
+
+        try {
+            parentType.getMethod("set", int.class, Object.class).invoke(parentType.newInstance(), 0, 1L);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Test
+    public void shouldIndexNamesWithEqualHashCodes() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/dynamic/collidingNames.json", "com.example", config("includeDynamicAccessors", true));
+
+        Class<?> type = resultsClassLoader.loadClass("com.example.CollidingNames");
+        Method indexOfProperty = type.getMethod("indexOfProperty", String.class);
+
+        assertThat("Aa".hashCode(), equalTo("BB".hashCode()));
+        assertThat(indexOfProperty.invoke(null, "Aa"), equalTo((Object) 0));
+        assertThat(indexOfProperty.invoke(null, "BB"), equalTo((Object) 1));
+        assertThat(indexOfProperty.invoke(null, "other"), equalTo((Object) 2));
+        assertThat(indexOfProperty.invoke(null, "C#"), equalTo((Object) (-1)));
+    }
+
     public void setDeclaredPropertyTest(String schemaLocation, String typeName, Class<?> fieldType, String fieldName, String fieldGetter, Object value) throws Throwable {
         setDeclaredPropertyTest(config("includeDynamicAccessors", true), schemaLocation, typeName, fieldType, fieldName, fieldGetter, value);
     }
@@ -17,6 +17,7 @@
 package org.jsonschema2pojo.integration;
 
 import static java.lang.reflect.Modifier.*;
+import static java.util.Arrays.asList;
 import static org.hamcrest.Matchers.*;
 import static org.jsonschema2pojo.integration.util.CodeGenerationHelper.config;
 import static org.junit.Assert.*;
@@ -243,4 +244,113 @@ public class EnumIT {
 
     }
 
+    @Test
+    public void enumLookupWorksForJava6() throws Exception {
+        assertEnumLookupWorks("1.6");
+    }
+
+    @Test
+    public void enumLookupWorksForJava7() throws Exception {
+        assertEnumLookupWorks("1.7");
+    }
+
+    private void assertEnumLookupWorks(String targetVersion) throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/enum/typedEnums.json", "com.example", config("targetVersion", targetVersion));
+
+        Method fromValue = resultsClassLoader.loadClass("com.example.TypedEnums$ManyValues").getMethod("fromValue", String.class);
+        Method fromSmallValue = resultsClassLoader.loadClass("com.example.TypedEnums$IntEnum").getMethod("fromValue", String.class);
+
+        assertThat(fromValue.invoke(null, "ij").toString(), is("ij"));
+        assertThat(fromValue.invoke(null, "h").toString(), is("h"));
+        assertThat(fromSmallValue.invoke(null, "3").toString(), is("3"));
+
+        for (Object value : new Object[] { "x", "", null }) {
+            for (Method method : asList(fromValue, fromSmallValue)) {
+                try {
+                    method.invoke(null, value);
+                    fail("Expected " + value + " to be rejected");
+                } catch (InvocationTargetException e) {
+                    assertThat(e.getCause(), is(instanceOf(IllegalArgumentException.class)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void enumsWithTypedValuesAreWrittenAsStringsByDefault() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/enum/typedEnums.json", "com.example");
+
+        Class<?> typedEnums = resultsClassLoader.loadClass("com.example.TypedEnums");
+        assertThat(resultsClassLoader.loadClass("com.example.TypedEnums$IntEnum").getDeclaredField("value").getType(), is(equalTo((Class) String.class)));
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        Object instance = objectMapper.readValue("{\"intEnum\":\"3\",\"booleanEnum\":\"true\"}", typedEnums);
+
+        JsonNode jsonTree = objectMapper.readTree(objectMapper.writeValueAsString(instance));
+
+        assertThat(jsonTree.get("intEnum").isTextual(), is(true));
+        assertThat(jsonTree.get("intEnum").asText(), is("3"));
+        assertThat(jsonTree.get("booleanEnum").isTextual(), is(true));
+        assertThat(jsonTree.get("booleanEnum").asText(), is("true"));
+    }
+
+    @Test
+    public void enumsWithIntegerValuesHoldTypedValues() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/enum/typedEnums.json", "com.example", config("useTypedEnumValues", true));
+
+        Class<?> intEnum = resultsClassLoader.loadClass("com.example.TypedEnums$IntEnum");
+        Class<?> longEnum = resultsClassLoader.loadClass("com.example.TypedEnums$LongEnum");
+
+        assertThat(intEnum.getDeclaredField("value").getType(), is(equalTo((Class) int.class)));
+        assertThat(longEnum.getDeclaredField("value").getType(), is(equalTo((Class) long.class)));
+
+        Method fromInt = intEnum.getMethod("fromValue", int.class);
+        assertThat(fromInt.isAnnotationPresent(JsonCreator.class), is(true));
+        assertThat(intEnum.getMethod("value").isAnnotationPresent(JsonValue.class), is(true));
+        assertThat(((Enum) fromInt.invoke(null, 3)).name(), is("THREE"));
+        assertThat(((Enum) intEnum.getMethod("fromValue", String.class).invoke(null, "1")).name(), is("ONE"));
+        assertThat(((Enum) longEnum.getMethod("fromValue", long.class).invoke(null, 5000000000L)).name(), is("LARGE"));
+        assertThat(longEnum.getEnumConstants()[1].toString(), is("5000000000"));
+    }
+
+    @Test
+    public void enumsWithNumberAndBooleanValuesHoldTypedValues() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/enum/typedEnums.json", "com.example", config("useTypedEnumValues", true));
+
+        Class<?> numberEnum = resultsClassLoader.loadClass("com.example.TypedEnums$NumberEnum");
+        Class<?> booleanEnum = resultsClassLoader.loadClass("com.example.TypedEnums$BooleanEnum");
+
+        assertThat(numberEnum.getDeclaredField("value").getType(), is(equalTo((Class) double.class)));
+        assertThat(booleanEnum.getDeclaredField("value").getType(), is(equalTo((Class) boolean.class)));
+
+        assertThat(((Enum) numberEnum.getMethod("fromValue", double.class).invoke(null, 2D)).name(), is("TWO"));
+        assertThat(((Enum) numberEnum.getMethod("fromValue", String.class).invoke(null, "2")).name(), is("TWO"));
+        assertThat(((Enum) numberEnum.getMethod("fromValue", String.class).invoke(null, "2.0")).name(), is("TWO"));
+        assertThat(((Enum) booleanEnum.getMethod("fromValue", boolean.class).invoke(null, false)).name(), is("NO"));
+        assertThat(((Enum) booleanEnum.getMethod("fromValue", String.class).invoke(null, "true")).name(), is("YES"));
+    }
+
+    @Test
+    public void jacksonWritesAndReadsTypedEnumValues() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/enum/typedEnums.json", "com.example", config("useTypedEnumValues", true));
+
+        Class<?> typedEnums = resultsClassLoader.loadClass("com.example.TypedEnums");
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        Object instance = objectMapper.readValue("{\"intEnum\":3,\"longEnum\":5000000000,\"numberEnum\":1.5,\"booleanEnum\":true}", typedEnums);
+
+        JsonNode jsonTree = objectMapper.readTree(objectMapper.writeValueAsString(instance));
+
+        assertThat(jsonTree.get("intEnum").isInt(), is(true));
+        assertThat(jsonTree.get("intEnum").asInt(), is(3));
+        assertThat(jsonTree.get("longEnum").asLong(), is(5000000000L));
+        assertThat(jsonTree.get("numberEnum").asDouble(), is(1.5D));
+        assertThat(jsonTree.get("booleanEnum").asBoolean(), is(true));
+
+        JsonNode defaults = objectMapper.readTree(objectMapper.writeValueAsString(typedEnums.newInstance()));
+        assertThat(defaults.get("intEnum").asInt(), is(2));
+        assertThat(defaults.get("booleanEnum").isBoolean(), is(true));
+        assertThat(defaults.get("booleanEnum").asBoolean(), is(false));
+    }
+
 }
@@ -36,6 +36,7 @@ import com.sun.codemodel.JDefinedClass;
 import com.sun.codemodel.JEnumConstant;
 import com.sun.codemodel.JFieldVar;
 import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JVar;
 
 public class CustomAnnotatorIT {
 
@@ -116,6 +117,16 @@ public class CustomAnnotatorIT {
             clazz.annotate(Deprecated.class);
         }
 
+        @Override
+        public void positionalEncoding(JDefinedClass clazz, JMethod versionGetter, JMethod versionSetter) {
+            clazz.annotate(Deprecated.class);
+        }
+
+        @Override
+        public boolean isPositionalEncodingSupported() {
+            return false;
+        }
+
         @Override
         public void propertyInclusion(JDefinedClass clazz, JsonNode schema) {
         }
@@ -135,6 +146,11 @@ public class CustomAnnotatorIT {
             setter.annotate(Deprecated.class);
         }
 
+        @Override
+        public void propertyPresenceGetter(JMethod getter, JMethod presentValueGetter, String propertyName) {
+            presentValueGetter.annotate(Deprecated.class);
+        }
+
         @Override
         public void anyGetter(JMethod getter) {
             getter.annotate(Deprecated.class);
@@ -145,6 +161,15 @@ public class CustomAnnotatorIT {
             setter.annotate(Deprecated.class);
         }
 
+        @Override
+        public void creatorConstructor(JMethod constructor) {
+            constructor.annotate(Deprecated.class);
+        }
+
+        @Override
+        public void creatorParameter(JVar param, String propertyName) {
+        }
+
         @Override
         public void enumCreatorMethod(JMethod creatorMethod) {
             creatorMethod.annotate(Deprecated.class);
@@ -0,0 +1,176 @@
+/**
+ * Copyright © 2010-2014 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jsonschema2pojo.integration.config;
+
+import static org.hamcrest.Matchers.*;
+import static org.jsonschema2pojo.integration.util.CodeGenerationHelper.config;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Externalizable;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+import org.jsonschema2pojo.exception.GenerationException;
+import org.jsonschema2pojo.integration.util.Jsonschema2PojoRule;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class ExternalizableIT {
+
+    private static final String FULL_JSON = "{\"name\":\"caf\\u00e9\",\"count\":-3,\"big\":12345678901,\"score\":2.5,\"active\":true,"
+            + "\"when\":\"2014-03-01T10:00:00.000Z\",\"color\":\"green\",\"tags\":[\"a\",null,\"\"],\"samples\":[1,300000,-70000],"
+            + "\"children\":[{\"id\":1},null,{}],\"child\":{\"id\":-1},\"any\":{\"x\":[1,\"y\"]},\"uri\":\"http://example.com/a\",\"extra\":\"more\"}";
+
+    @Rule public Jsonschema2PojoRule schemaRule = new Jsonschema2PojoRule();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void typesAreNotExternalizableByDefault() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/externalizableProperties.json", "com.example");
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.ExternalizableProperties");
+
+        assertThat(Externalizable.class.isAssignableFrom(generatedType), is(false));
+    }
+
+    @Test
+    public void externalizedInstancesAreEqualToTheOriginals() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/externalizableProperties.json", "com.example",
+                config("externalizable", true));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.ExternalizableProperties");
+
+        assertThat(Externalizable.class.isAssignableFrom(generatedType), is(true));
+        for (String json : new String[] { FULL_JSON, "{}", "{\"tags\":null,\"samples\":[],\"children\":null}" }) {
+            Object instance = objectMapper.readValue(json, generatedType);
+            Object copy = roundTrip(instance, resultsClassLoader);
+            assertThat(json, copy, is(equalTo(instance)));
+            assertThat(json, objectMapper.writeValueAsString(copy), is(objectMapper.writeValueAsString(instance)));
+        }
+    }
+
+    @Test
+    public void primitivesAndPrimitiveArraysAreExternalized() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/externalizableProperties.json", "com.example",
+                config("externalizable", true, "usePrimitives", true, "usePrimitiveArrays", true));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.ExternalizableProperties");
+
+        Object instance = objectMapper.readValue(FULL_JSON, generatedType);
+        Object copy = roundTrip(instance, resultsClassLoader);
+
+        assertThat(objectMapper.writeValueAsString(copy), is(objectMapper.writeValueAsString(instance)));
+    }
+
+    @Test
+    public void inheritedFieldsAreExternalizedBySuperTypes() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/extends/subtypeOfSubtypeOfA.json", "com.example",
+                config("externalizable", true));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.SubtypeOfSubtypeOfA");
+
+        Object instance = objectMapper.readValue("{\"parent\":\"p\",\"child\":\"c\"}", generatedType);
+        Object copy = roundTrip(instance, resultsClassLoader);
+
+        assertThat(objectMapper.writeValueAsString(copy), is(objectMapper.writeValueAsString(instance)));
+        assertThat(generatedType.getSuperclass().getDeclaredMethod("writeExternal", java.io.ObjectOutput.class), is(notNullValue()));
+    }
+
+    @Test
+    public void subtypesOfFieldTypesKeepTheirClassAndFields() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/externalizableProperties.json", "com.example",
+                config("externalizable", true));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.ExternalizableProperties");
+        Class<?> childType = generatedType.getMethod("getChild").getReturnType();
+        Class<?> specialChildType = resultsClassLoader.loadClass("com.example.SpecialChild");
+
+        assertThat(specialChildType.getSuperclass(), is(equalTo((Object) childType)));
+        Object instance = objectMapper.readValue(FULL_JSON, generatedType);
+        Object specialChild = objectMapper.readValue("{\"id\":2,\"label\":\"special\"}", specialChildType);
+        generatedType.getMethod("setChild", childType).invoke(instance, specialChild);
+        Object copy = roundTrip(instance, resultsClassLoader);
+
+        Object childCopy = generatedType.getMethod("getChild").invoke(copy);
+        assertThat(childCopy, is(instanceOf(specialChildType)));
+        assertThat(objectMapper.writeValueAsString(childCopy), is(objectMapper.writeValueAsString(specialChild)));
+        assertThat(objectMapper.writeValueAsString(copy), is(objectMapper.writeValueAsString(instance)));
+    }
+
+    @Test
+    public void enumConstantsAreLookedUpInACachedArray() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/externalizableProperties.json", "com.example",
+                config("externalizable", true));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.ExternalizableProperties");
+        Field values = generatedType.getDeclaredField("COLOR_VALUES");
+
+        assertThat(Modifier.isStatic(values.getModifiers()), is(true));
+        assertThat(values.getType().getComponentType(), is(equalTo((Object) resultsClassLoader.loadClass("com.example.ExternalizableProperties$Color"))));
+    }
+
+    @Test
+    public void serialVersionUIDIsDerivedFromTheSchema() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/externalizableProperties.json", "com.example",
+                config("externalizable", true));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.ExternalizableProperties");
+        Class<?> childType = resultsClassLoader.loadClass("com.example.Child");
+        Class<?> otherChildType = resultsClassLoader.loadClass("com.example.Child_");
+
+        assertThat(ObjectStreamClass.lookup(generatedType).getSerialVersionUID(), is(getSerialVersionUID(generatedType)));
+        assertThat(getSerialVersionUID(childType), is(not(getSerialVersionUID(generatedType))));
+        // the two child types have the same schema
+        assertThat(getSerialVersionUID(otherChildType), is(getSerialVersionUID(childType)));
+    }
+
+    @Test(expected = GenerationException.class)
+    public void immutableTypesCannotBeExternalizable() throws Exception {
+        schemaRule.generate("/schema/properties/externalizableProperties.json", "com.example",
+                config("externalizable", true, "immutable", true));
+    }
+
+    private static long getSerialVersionUID(Class<?> type) throws Exception {
+        Field field = type.getDeclaredField("serialVersionUID");
+        field.setAccessible(true);
+        return field.getLong(null);
+    }
+
+    private static Object roundTrip(Object instance, final ClassLoader classLoader) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(instance);
+        out.close();
+
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())) {
+            @Override
+            protected Class<?> resolveClass(ObjectStreamClass desc) throws java.io.IOException, ClassNotFoundException {
+                return Class.forName(desc.getName(), false, classLoader);
+            }
+        };
+        return in.readObject();
+    }
+
+}
@@ -0,0 +1,235 @@
+/**
+ * Copyright © 2010-2014 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jsonschema2pojo.integration.config;
+
+import static org.hamcrest.Matchers.*;
+import static org.jsonschema2pojo.integration.util.CodeGenerationHelper.config;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.jsonschema2pojo.exception.GenerationException;
+import org.jsonschema2pojo.integration.util.Jsonschema2PojoRule;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+public class GenerateArrayStreamsIT {
+
+    private static final String ITEMS_JSON = "[{\"id\":1,\"tags\":[\"a\"]},{\"id\":2},{\"id\":3,\"tags\":[]}]";
+
+    @Rule public Jsonschema2PojoRule schemaRule = new Jsonschema2PojoRule();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void arrayStreamsAreNotGeneratedByDefault() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/array/streamedOrders.json", "com.example");
+
+        try {
+            resultsClassLoader.loadClass("com.example.StreamedOrdersReader");
+            fail("array readers must not be generated by default");
+        } catch (ClassNotFoundException e) {
+        }
+    }
+
+    @Test
+    public void readersReadArraysAndNewlineDelimitedItems() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/array/streamedOrders.json", "com.example",
+                config("generateArrayStreams", true));
+
+        List<?> expected = bind(resultsClassLoader, ITEMS_JSON);
+
+        assertThat(readAll(resultsClassLoader, ITEMS_JSON), is(equalTo((Object) expected)));
+        assertThat(readAll(resultsClassLoader, ITEMS_JSON.substring(1, ITEMS_JSON.length() - 1).replace("},{", "}\n{") + "\n"),
+                is(equalTo((Object) expected)));
+        assertThat(readAll(resultsClassLoader, "[]"), is(equalTo((Object) Collections.emptyList())));
+    }
+
+    @Test
+    public void writersWriteWhatReadersRead() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/array/streamedOrders.json", "com.example",
+                config("generateArrayStreams", true));
+
+        List<?> items = bind(resultsClassLoader, ITEMS_JSON);
+
+        String array = writeAll(resultsClassLoader, "array", items);
+        assertThat(objectMapper.readTree(array), is(objectMapper.valueToTree(items)));
+
+        String lines = writeAll(resultsClassLoader, "lines", items);
+        assertThat(lines.split("\n", -1).length, is(items.size() + 1));
+        assertThat(lines, endsWith("}\n"));
+        assertThat(readAll(resultsClassLoader, lines), is(equalTo((Object) items)));
+    }
+
+    @Test
+    public void writersWriteWithTheGivenMapper() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/array/streamedOrders.json", "com.example",
+                config("generateArrayStreams", true));
+
+        Class<?> itemType = resultsClassLoader.loadClass("com.example.StreamedOrder");
+        Class<?> writerType = resultsClassLoader.loadClass("com.example.StreamedOrdersWriter");
+        List<?> items = bind(resultsClassLoader, ITEMS_JSON);
+        ObjectMapper wrappingMapper = new ObjectMapper().enable(SerializationFeature.WRAP_ROOT_VALUE);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Object writer = writerType.getMethod("array", OutputStream.class, ObjectMapper.class).invoke(null, out, wrappingMapper);
+        writerType.getMethod("write", itemType).invoke(writer, items.get(0));
+        writerType.getMethod("close").invoke(writer);
+
+        JsonNode written = objectMapper.readTree(out.toByteArray());
+        assertThat(written.get(0).get("StreamedOrder"), is(objectMapper.valueToTree(items.get(0))));
+        assertThat(wrappingMapper.isEnabled(SerializationFeature.FLUSH_AFTER_WRITE_VALUE), is(true));
+    }
+
+    @Test
+    public void readersParseLinesOnSeveralThreads() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/array/streamedOrders.json", "com.example",
+                config("generateArrayStreams", true));
+
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            lines.append("{\"id\":").append(i).append("}\n");
+        }
+
+        final List<Object> items = Collections.synchronizedList(new ArrayList<Object>());
+        readLines(resultsClassLoader, lines.toString(), items);
+
+        Set<Object> ids = new HashSet<Object>();
+        for (Object item : items) {
+            ids.add(item.getClass().getMethod("getId").invoke(item));
+        }
+        assertThat(items.size(), is(2000));
+        assertThat(ids.size(), is(2000));
+    }
+
+    @Test(expected = JsonParseException.class)
+    public void parallelReadersThrowTheFirstFailure() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/array/streamedOrders.json", "com.example",
+                config("generateArrayStreams", true));
+
+        try {
+            readLines(resultsClassLoader, "{\"id\":1}\n{\"id\":\n", new ArrayList<Object>());
+        } catch (InvocationTargetException e) {
+            throw (Exception) e.getCause();
+        }
+    }
+
+    @Test(expected = AssertionError.class)
+    public void parallelReadersThrowErrorsOfTheHandler() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/array/streamedOrders.json", "com.example",
+                config("generateArrayStreams", true));
+
+        try {
+            readLines(resultsClassLoader, "{\"id\":1}\n{\"id\":2}\n", new InvocationHandler() {
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    throw new AssertionError("the handler failed");
+                }
+            });
+        } catch (InvocationTargetException e) {
+            throw (Error) e.getCause();
+        }
+    }
+
+    @Test
+    public void readersOfJava8TypesAreStreams() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/array/streamedOrders.json", "com.example",
+                config("generateArrayStreams", true, "targetVersion", "1.8"));
+
+        Class<?> readerType = resultsClassLoader.loadClass("com.example.StreamedOrdersReader");
+        Object reader = readerType.getMethod("open", InputStream.class).invoke(null, new ByteArrayInputStream(ITEMS_JSON.getBytes("UTF-8")));
+        Object stream = readerType.getMethod("stream").invoke(reader);
+
+        assertThat(Class.forName("java.util.stream.Stream").getMethod("count").invoke(stream), is(equalTo((Object) 3L)));
+    }
+
+    @Test(expected = GenerationException.class)
+    public void arrayStreamsRequireJackson() throws Exception {
+        schemaRule.generate("/schema/array/streamedOrders.json", "com.example",
+                config("generateArrayStreams", true, "annotationStyle", "gson"));
+    }
+
+    private List<?> bind(ClassLoader resultsClassLoader, String json) throws Exception {
+        Class<?> itemType = resultsClassLoader.loadClass("com.example.StreamedOrder");
+        return objectMapper.readValue(json, objectMapper.getTypeFactory().constructCollectionType(List.class, itemType));
+    }
+
+    private List<Object> readAll(ClassLoader resultsClassLoader, String json) throws Exception {
+        Class<?> readerType = resultsClassLoader.loadClass("com.example.StreamedOrdersReader");
+        Iterator<?> reader = (Iterator<?>) readerType.getMethod("open", InputStream.class).invoke(null, new ByteArrayInputStream(json.getBytes("UTF-8")));
+
+        List<Object> items = new ArrayList<Object>();
+        while (reader.hasNext()) {
+            items.add(reader.next());
+        }
+        readerType.getMethod("close").invoke(reader);
+        return items;
+    }
+
+    private String writeAll(ClassLoader resultsClassLoader, String format, List<?> items) throws Exception {
+        Class<?> itemType = resultsClassLoader.loadClass("com.example.StreamedOrder");
+        Class<?> writerType = resultsClassLoader.loadClass("com.example.StreamedOrdersWriter");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Object writer = writerType.getMethod(format, OutputStream.class).invoke(null, out);
+        for (Object item : items) {
+            writerType.getMethod("write", itemType).invoke(writer, item);
+        }
+        writerType.getMethod("close").invoke(writer);
+        return new String(out.toByteArray(), "UTF-8");
+    }
+
+    private void readLines(ClassLoader resultsClassLoader, String lines, final List<Object> items) throws Exception {
+        readLines(resultsClassLoader, lines, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws IOException {
+                items.add(args[0]);
+                return null;
+            }
+        });
+    }
+
+    private void readLines(ClassLoader resultsClassLoader, String lines, InvocationHandler invocationHandler) throws Exception {
+        Class<?> readerType = resultsClassLoader.loadClass("com.example.StreamedOrdersReader");
+        Class<?> handlerType = resultsClassLoader.loadClass("com.example.StreamedOrdersReader$Handler");
+
+        Object handler = Proxy.newProxyInstance(resultsClassLoader, new Class<?>[] { handlerType }, invocationHandler);
+
+        readerType.getMethod("readLines", InputStream.class, int.class, handlerType).invoke(null, new ByteArrayInputStream(lines.getBytes("UTF-8")), 4,
+                handler);
+    }
+
+}
@@ -0,0 +1,201 @@
+/**
+ * Copyright © 2010-2014 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jsonschema2pojo.integration.config;
+
+import static org.hamcrest.Matchers.*;
+import static org.jsonschema2pojo.integration.util.CodeGenerationHelper.config;
+import static org.junit.Assert.*;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+
+import org.jsonschema2pojo.exception.GenerationException;
+import org.jsonschema2pojo.integration.util.Jsonschema2PojoRule;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class GenerateBatchClassesIT {
+
+    private static final String READINGS_JSON = "[{\"sensor\":\"a\",\"value\":1.5,\"count\":3,\"valid\":true,\"grade\":\"A\"},"
+            + "{\"sensor\":null,\"value\":null,\"grade\":null,\"extra\":{\"x\":[1,2]}},"
+            + "{\"valid\":false,\"value\":-2}]";
+
+    @Rule public Jsonschema2PojoRule schemaRule = new Jsonschema2PojoRule();
+
+    // the batch reader skips unknown properties, like a data binder that doesn't fail on them
+    private final ObjectMapper objectMapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    @Test
+    public void batchClassesAreNotGeneratedByDefault() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/array/batchedArrays.json", "com.example");
+
+        try {
+            resultsClassLoader.loadClass("com.example.ReadingBatch");
+            fail("batch classes must not be generated by default");
+        } catch (ClassNotFoundException e) {
+        }
+    }
+
+    @Test
+    public void batchClassesAreGeneratedForArraysOfFlatObjects() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/array/batchedArrays.json", "com.example",
+                config("generateBatchClasses", true));
+
+        Class<?> batchType = resultsClassLoader.loadClass("com.example.ReadingBatch");
+
+        assertThat(batchType.getMethod("getSensorColumn").getReturnType(), is(equalTo((Object) String[].class)));
+        assertThat(batchType.getMethod("getValueColumn").getReturnType(), is(equalTo((Object) double[].class)));
+        assertThat(batchType.getMethod("getCountColumn").getReturnType(), is(equalTo((Object) int[].class)));
+        assertThat(batchType.getMethod("getValidColumn").getReturnType(), is(equalTo((Object) boolean[].class)));
+        assertThat(batchType.getMethod("isValid", int.class).getReturnType(), is(equalTo((Object) boolean.class)));
+        assertThat(batchType.getMethod("getGradeColumn").getReturnType(), is(equalTo((Object) char[].class)));
+
+        try {
+            resultsClassLoader.loadClass("com.example.EventBatch");
+            fail("objects with collection properties must not get a batch class");
+        } catch (ClassNotFoundException e) {
+        }
+        try {
+            resultsClassLoader.loadClass("com.example.SampleBatch");
+            fail("objects with additional properties must not get a batch class");
+        } catch (ClassNotFoundException e) {
+        }
+    }
+
+    @Test
+    public void arraysCanOptIntoBatchClasses() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/array/optedInBatch.json", "com.example");
+
+        Class<?> batchType = resultsClassLoader.loadClass("com.example.PointBatch");
+
+        assertThat(batchType.getMethod("getXColumn").getReturnType(), is(equalTo((Object) int[].class)));
+    }
+
+    @Test
+    public void rowsCanBeAddedAndRetrieved() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/array/batchedArrays.json", "com.example",
+                config("generateBatchClasses", true));
+
+        Class<?> rowType = resultsClassLoader.loadClass("com.example.Reading");
+        Class<?> batchType = resultsClassLoader.loadClass("com.example.ReadingBatch");
+        Object batch = batchType.getConstructor(int.class).newInstance(1);
+
+        Object[] rows = (Object[]) objectMapper.readValue(READINGS_JSON, Array.newInstance(rowType, 0).getClass());
+        for (int i = 0; i < rows.length; i++) {
+            assertThat(batchType.getMethod("add", rowType).invoke(batch, rows[i]), is((Object) i));
+        }
+
+        assertThat(batchType.getMethod("size").invoke(batch), is((Object) 3));
+        for (int i = 0; i < rows.length; i++) {
+            assertSameProperties(batchType.getMethod("get", int.class).invoke(batch, i), rows[i]);
+        }
+        assertThat(batchType.getMethod("getCount", int.class).invoke(batch, 0), is((Object) 3));
+        assertThat(batchType.getMethod("isValueNull", int.class).invoke(batch, 1), is((Object) true));
+    }
+
+    @Test
+    public void readerFillsColumnsLikeTheDataBinder() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/array/batchedArrays.json", "com.example",
+                config("generateBatchClasses", true));
+
+        Class<?> rowType = resultsClassLoader.loadClass("com.example.Reading");
+        Class<?> batchType = resultsClassLoader.loadClass("com.example.ReadingBatch");
+
+        Object batch = batchType.getMethod("read", JsonParser.class).invoke(null, new JsonFactory().createParser(READINGS_JSON));
+
+        Object[] rows = (Object[]) objectMapper.readValue(READINGS_JSON, Array.newInstance(rowType, 0).getClass());
+        assertThat(batchType.getMethod("size").invoke(batch), is((Object) rows.length));
+        for (int i = 0; i < rows.length; i++) {
+            assertSameProperties(batchType.getMethod("get", int.class).invoke(batch, i), rows[i]);
+        }
+
+        assertThat(((double[]) batchType.getMethod("getValueColumn").invoke(batch))[2], is(-2.0));
+        assertThat(batchType.getMethod("getCount", int.class).invoke(batch, 2), is((Object) 1));
+        assertThat(batchType.getMethod("isCountNull", int.class).invoke(batch, 2), is((Object) false));
+    }
+
+    @Test
+    public void readerRejectsValuesThatAreNotArrays() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/array/batchedArrays.json", "com.example",
+                config("generateBatchClasses", true));
+
+        Class<?> batchType = resultsClassLoader.loadClass("com.example.ReadingBatch");
+
+        try {
+            batchType.getMethod("read", JsonParser.class).invoke(null, new JsonFactory().createParser("{\"sensor\":\"a\"}"));
+            fail("a JSON object is not a batch");
+        } catch (InvocationTargetException e) {
+            assertThat(e.getCause(), is(instanceOf(JsonParseException.class)));
+        }
+    }
+
+    @Test
+    public void readerRejectsStructuresForStringColumns() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/array/batchedArrays.json", "com.example",
+                config("generateBatchClasses", true));
+
+        Class<?> batchType = resultsClassLoader.loadClass("com.example.ReadingBatch");
+
+        try {
+            batchType.getMethod("read", JsonParser.class).invoke(null, new JsonFactory().createParser("[{\"sensor\":{\"id\":\"a\"}}]"));
+            fail("an object is not a string");
+        } catch (InvocationTargetException e) {
+            assertThat(e.getCause(), is(instanceOf(JsonParseException.class)));
+        }
+    }
+
+    @Test
+    public void immutableTypesDoNotGetBatchClasses() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/array/batchedArrays.json", "com.example",
+                config("generateBatchClasses", true, "immutable", true));
+
+        try {
+            resultsClassLoader.loadClass("com.example.ReadingBatch");
+            fail("immutable types can't be rebuilt from a batch");
+        } catch (ClassNotFoundException e) {
+        }
+    }
+
+    @Test
+    public void arraysThatOptInRejectItemsWithAdditionalProperties() throws Exception {
+        try {
+            schemaRule.generate("/schema/array/optedInBatchOfOpenObjects.json", "com.example");
+            fail("an array that asks for a batch class must not be skipped silently");
+        } catch (GenerationException e) {
+            assertThat(e.getMessage(), containsString("additional properties"));
+        }
+    }
+
+    @Test(expected = GenerationException.class)
+    public void arraysThatOptInRejectImmutableItems() throws Exception {
+        schemaRule.generate("/schema/array/optedInBatch.json", "com.example", config("immutable", true));
+    }
+
+    private static void assertSameProperties(Object actual, Object expected) throws Exception {
+        for (String getterName : new String[] { "getSensor", "getValue", "getCount", "getValid", "getGrade" }) {
+            assertThat(getterName, actual.getClass().getMethod(getterName).invoke(actual),
+                    is(equalTo(expected.getClass().getMethod(getterName).invoke(expected))));
+        }
+    }
+
+}
@@ -0,0 +1,152 @@
+/**
+ * Copyright © 2010-2014 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jsonschema2pojo.integration.config;
+
+import static org.hamcrest.Matchers.*;
+import static org.jsonschema2pojo.integration.util.CodeGenerationHelper.config;
+import static org.junit.Assert.*;
+
+import java.lang.reflect.InvocationTargetException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.jsonschema2pojo.integration.util.Jsonschema2PojoRule;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class GenerateBufferViewsIT {
+
+    private static final String[] RECORDS_JSON = {
+            "{\"name\":\"first\",\"count\":3,\"score\":1.5,\"active\":true,\"tags\":[\"a\",\"\\u00e9t\\u00e9\"],\"samples\":[1,-2],"
+                    + "\"codes\":[\"x\",\"y\"],\"weights\":[0.25,4.0],\"child\":{\"id\":1}}",
+            "{\"count\":-7}",
+            "{\"name\":\"\",\"tags\":[],\"samples\":[],\"weights\":[]}" };
+
+    private static final String[] GETTER_NAMES = { "getName", "getCount", "getScore", "getActive", "getTags", "getSamples", "getCodes", "getWeights" };
+
+    @Rule public Jsonschema2PojoRule schemaRule = new Jsonschema2PojoRule();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void bufferViewsAreNotGeneratedByDefault() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/viewedProperties.json", "com.example");
+
+        try {
+            resultsClassLoader.loadClass("com.example.ViewedPropertiesView");
+            fail("buffer views must not be generated by default");
+        } catch (ClassNotFoundException e) {
+        }
+    }
+
+    @Test
+    public void viewsReadWhatWasEncoded() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/viewedProperties.json", "com.example",
+                config("generateBufferViews", true));
+
+        assertRoundTrip(resultsClassLoader, ByteBuffer.allocate(1024), GETTER_NAMES);
+    }
+
+    @Test
+    public void viewsReadDirectBuffersInEitherByteOrder() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/viewedProperties.json", "com.example",
+                config("generateBufferViews", true));
+
+        assertRoundTrip(resultsClassLoader, ByteBuffer.allocateDirect(1024).order(ByteOrder.LITTLE_ENDIAN), GETTER_NAMES);
+    }
+
+    @Test
+    public void viewsOfPrimitivePropertiesReturnPrimitives() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/viewedProperties.json", "com.example",
+                config("generateBufferViews", true, "usePrimitives", true));
+
+        Class<?> viewType = resultsClassLoader.loadClass("com.example.ViewedPropertiesView");
+
+        assertThat(viewType.getMethod("getCount").getReturnType(), is(equalTo((Object) int.class)));
+        assertThat(viewType.getMethod("isActive").getReturnType(), is(equalTo((Object) boolean.class)));
+
+        assertRoundTrip(resultsClassLoader, ByteBuffer.allocate(1024),
+                new String[] { "getName", "getCount", "getScore", "isActive", "getTags", "getSamples", "getCodes", "getWeights" });
+    }
+
+    @Test
+    public void objectPropertiesAreLeftOutOfTheLayout() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/viewedProperties.json", "com.example",
+                config("generateBufferViews", true));
+
+        Class<?> viewType = resultsClassLoader.loadClass("com.example.ViewedPropertiesView");
+
+        try {
+            viewType.getMethod("getChild");
+            fail("object properties have no place in the layout");
+        } catch (NoSuchMethodException e) {
+        }
+        assertThat(resultsClassLoader.loadClass("com.example.ChildView"), is(notNullValue()));
+    }
+
+    @Test
+    public void nullElementsAreRejectedBeforeAnythingIsWritten() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/viewedProperties.json", "com.example",
+                config("generateBufferViews", true));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.ViewedProperties");
+        Class<?> viewType = resultsClassLoader.loadClass("com.example.ViewedPropertiesView");
+        Object instance = objectMapper.readValue("{\"name\":\"first\",\"samples\":[1,null]}", generatedType);
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+
+        try {
+            viewType.getMethod("encode", generatedType, ByteBuffer.class).invoke(null, instance, buffer);
+            fail("a null element can't be encoded");
+        } catch (InvocationTargetException e) {
+            assertThat(e.getCause(), is(instanceOf(IllegalArgumentException.class)));
+        }
+        assertThat(buffer.position(), is(0));
+    }
+
+    private void assertRoundTrip(ClassLoader resultsClassLoader, ByteBuffer buffer, String[] getterNames) throws Exception {
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.ViewedProperties");
+        Class<?> viewType = resultsClassLoader.loadClass("com.example.ViewedPropertiesView");
+
+        Object[] instances = new Object[RECORDS_JSON.length];
+        int[] offsets = new int[RECORDS_JSON.length];
+        for (int i = 0; i < RECORDS_JSON.length; i++) {
+            instances[i] = objectMapper.readValue(RECORDS_JSON[i], generatedType);
+            offsets[i] = (Integer) viewType.getMethod("encode", generatedType, ByteBuffer.class).invoke(null, instances[i], buffer);
+        }
+
+        // one view is moved from record to record
+        Object view = viewType.newInstance();
+        for (int i = 0; i < RECORDS_JSON.length; i++) {
+            viewType.getMethod("wrap", ByteBuffer.class, int.class).invoke(view, buffer, offsets[i]);
+            int encodedLength = (Integer) viewType.getMethod("encodedLength").invoke(view);
+            assertThat(offsets[i] + encodedLength, is(i + 1 < offsets.length ? offsets[i + 1] : buffer.position()));
+
+            for (String getterName : getterNames) {
+                Object expected = generatedType.getMethod(getterName).invoke(instances[i]);
+                Object actual = viewType.getMethod(getterName).invoke(view);
+                if (expected instanceof double[]) {
+                    assertThat(getterName, (double[]) actual, is((double[]) expected));
+                } else {
+                    assertThat(getterName, actual, is(equalTo(expected)));
+                }
+            }
+        }
+    }
+
+}
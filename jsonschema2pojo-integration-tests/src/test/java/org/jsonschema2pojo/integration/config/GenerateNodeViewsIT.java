@@ -0,0 +1,205 @@
+/**
+ * Copyright © 2010-2014 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jsonschema2pojo.integration.config;
+
+import static org.hamcrest.Matchers.*;
+import static org.jsonschema2pojo.integration.util.CodeGenerationHelper.config;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.jsonschema2pojo.exception.GenerationException;
+import org.jsonschema2pojo.integration.util.Jsonschema2PojoRule;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+public class GenerateNodeViewsIT {
+
+    private static final String[] RECORDS_JSON = {
+            "{\"name\":\"first\",\"count\":3,\"total\":12,\"active\":true,\"tags\":[\"a\",\"b\"],\"status\":\"CLOSED\",\"when\":86400000,"
+                    + "\"attributes\":{\"k\":\"v\"},\"child\":{\"id\":1}}",
+            "{\"count\":null,\"total\":null}",
+            "{}" };
+
+    private static final String[] GETTER_NAMES = { "getName", "getCount", "getTotal", "getActive", "getTags", "getStatus", "getWhen", "getAttributes" };
+
+    @Rule public Jsonschema2PojoRule schemaRule = new Jsonschema2PojoRule();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void nodeViewsAreNotGeneratedByDefault() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/nodeViewProperties.json", "com.example");
+
+        try {
+            resultsClassLoader.loadClass("com.example.NodeViewPropertiesNodeView");
+            fail("node views must not be generated by default");
+        } catch (ClassNotFoundException e) {
+        }
+    }
+
+    @Test
+    public void viewsReadWhatTheTypeBinds() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/nodeViewProperties.json", "com.example",
+                config("generateNodeViews", true));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.NodeViewProperties");
+        Class<?> viewType = resultsClassLoader.loadClass("com.example.NodeViewPropertiesNodeView");
+
+        for (String json : RECORDS_JSON) {
+            Object instance = objectMapper.readValue(json, generatedType);
+            Object view = viewType.getMethod("parse", ObjectMapper.class, byte[].class).invoke(null, objectMapper, json.getBytes("UTF-8"));
+
+            for (String getterName : GETTER_NAMES) {
+                Object expected = generatedType.getMethod(getterName).invoke(instance);
+                assertThat(json + " " + getterName, viewType.getMethod(getterName).invoke(view), is(equalTo(expected)));
+                // the decoded value is cached
+                assertThat(viewType.getMethod(getterName).invoke(view), is(equalTo(expected)));
+            }
+            assertThat(viewType.getMethod("bind").invoke(view), is(equalTo(instance)));
+        }
+    }
+
+    @Test
+    public void objectPropertiesAreNestedViews() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/nodeViewProperties.json", "com.example",
+                config("generateNodeViews", true));
+
+        Class<?> viewType = resultsClassLoader.loadClass("com.example.NodeViewPropertiesNodeView");
+        Class<?> childViewType = resultsClassLoader.loadClass("com.example.ChildNodeView");
+        byte[] json = "{\"child\":{\"id\":4,\"label\":\"four\"},\"children\":[{\"id\":5},null]}".getBytes("UTF-8");
+
+        Object view = viewType.getMethod("parse", ObjectMapper.class, byte[].class).invoke(null, objectMapper, json);
+
+        Object child = viewType.getMethod("getChild").invoke(view);
+        assertThat(child, is(instanceOf(childViewType)));
+        assertThat(childViewType.getMethod("getId").invoke(child), is(equalTo((Object) 4)));
+        assertThat(childViewType.getMethod("getLabel").invoke(child), is(equalTo((Object) "four")));
+
+        List<?> children = (List<?>) viewType.getMethod("getChildren").invoke(view);
+        assertThat(children.size(), is(2));
+        assertThat(children.get(0).getClass().getMethod("getId").invoke(children.get(0)), is(equalTo((Object) 5)));
+        assertThat(children.get(1), is(nullValue()));
+
+        try {
+            children.clear();
+            fail("collections of a view must be unmodifiable");
+        } catch (UnsupportedOperationException e) {
+        }
+    }
+
+    @Test
+    public void unchangedViewsWriteTheBytesTheyWereParsedFrom() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/nodeViewProperties.json", "com.example",
+                config("generateNodeViews", true));
+
+        Class<?> viewType = resultsClassLoader.loadClass("com.example.NodeViewPropertiesNodeView");
+        String object = "{ \"name\" : \"first\",\n  \"child\" : { \"id\" : 1 }, \"unknown\" : [1, 2.50] }";
+        byte[] bytes = ("[" + object + "]").getBytes("UTF-8");
+
+        Object view = viewType.getMethod("parse", ObjectMapper.class, byte[].class, int.class, int.class).invoke(null, objectMapper, bytes, 1, bytes.length - 2);
+        viewType.getMethod("getName").invoke(view);
+        viewType.getMethod("getChild").invoke(view);
+
+        assertThat((Boolean) viewType.getMethod("hasChanges").invoke(view), is(false));
+        assertThat(new String((byte[]) viewType.getMethod("toByteArray").invoke(view), "UTF-8"), is(object));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        viewType.getMethod("writeTo", OutputStream.class).invoke(view, out);
+        assertThat(new String(out.toByteArray(), "UTF-8"), is(object));
+    }
+
+    @Test
+    public void changedViewsWriteTheChangedObject() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/nodeViewProperties.json", "com.example",
+                config("generateNodeViews", true));
+
+        Class<?> viewType = resultsClassLoader.loadClass("com.example.NodeViewPropertiesNodeView");
+        Class<?> childViewType = resultsClassLoader.loadClass("com.example.ChildNodeView");
+        byte[] bytes = "{\"name\":\"first\",\"count\":3,\"child\":{\"id\":1},\"unknown\":true}".getBytes("UTF-8");
+
+        Object view = viewType.getMethod("parse", ObjectMapper.class, byte[].class).invoke(null, objectMapper, bytes);
+        Object child = viewType.getMethod("getChild").invoke(view);
+        childViewType.getMethod("setLabel", String.class).invoke(child, "one");
+
+        assertThat((Boolean) viewType.getMethod("hasChanges").invoke(view), is(true));
+        assertThat(objectMapper.readTree((byte[]) viewType.getMethod("toByteArray").invoke(view)),
+                is(objectMapper.readTree("{\"name\":\"first\",\"count\":3,\"child\":{\"id\":1,\"label\":\"one\"},\"unknown\":true}")));
+
+        viewType.getMethod("setCount", Integer.class).invoke(view, 4);
+        viewType.getMethod("setName", String.class).invoke(view, (Object) null);
+
+        assertThat(viewType.getMethod("getCount").invoke(view), is(equalTo((Object) 4)));
+        assertThat(viewType.getMethod("getName").invoke(view), is(nullValue()));
+        assertThat(objectMapper.readTree((byte[]) viewType.getMethod("toByteArray").invoke(view)),
+                is(objectMapper.readTree("{\"name\":null,\"count\":4,\"child\":{\"id\":1,\"label\":\"one\"},\"unknown\":true}")));
+    }
+
+    @Test
+    public void mutableValuesCannotChangeTheView() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/nodeViewProperties.json", "com.example",
+                config("generateNodeViews", true));
+
+        Class<?> viewType = resultsClassLoader.loadClass("com.example.NodeViewPropertiesNodeView");
+        byte[] bytes = "{\"when\":86400000,\"attributes\":{\"k\":\"v\"}}".getBytes("UTF-8");
+
+        Object view = viewType.getMethod("parse", ObjectMapper.class, byte[].class).invoke(null, objectMapper, bytes);
+        ((Date) viewType.getMethod("getWhen").invoke(view)).setTime(0L);
+        Map<?, ?> attributes = (Map<?, ?>) viewType.getMethod("getAttributes").invoke(view);
+
+        assertThat(viewType.getMethod("getWhen").invoke(view), is(equalTo((Object) new Date(86400000L))));
+        try {
+            attributes.clear();
+            fail("maps of a view must be unmodifiable");
+        } catch (UnsupportedOperationException e) {
+        }
+        assertThat((Boolean) viewType.getMethod("hasChanges").invoke(view), is(false));
+    }
+
+    @Test
+    public void viewsAndTheirNestedViewsUseTheGivenMapper() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/nodeViewProperties.json", "com.example",
+                config("generateNodeViews", true));
+
+        Class<?> viewType = resultsClassLoader.loadClass("com.example.NodeViewPropertiesNodeView");
+        Class<?> childViewType = resultsClassLoader.loadClass("com.example.ChildNodeView");
+        ObjectMapper indentingMapper = new ObjectMapper().configure(SerializationFeature.INDENT_OUTPUT, true);
+        byte[] bytes = "{\"child\":{\"id\":1}}".getBytes("UTF-8");
+
+        Object view = viewType.getMethod("parse", ObjectMapper.class, byte[].class).invoke(null, indentingMapper, bytes);
+        Object child = viewType.getMethod("getChild").invoke(view);
+        childViewType.getMethod("setLabel", String.class).invoke(child, "one");
+
+        String json = new String((byte[]) viewType.getMethod("toByteArray").invoke(view), "UTF-8");
+        assertThat(json, is(indentingMapper.writeValueAsString(objectMapper.readTree("{\"child\":{\"id\":1,\"label\":\"one\"}}"))));
+        assertThat(new String((byte[]) childViewType.getMethod("toByteArray").invoke(child), "UTF-8"), containsString("\n"));
+    }
+
+    @Test(expected = GenerationException.class)
+    public void nodeViewsRequireJackson() throws Exception {
+        schemaRule.generate("/schema/properties/nodeViewProperties.json", "com.example",
+                config("generateNodeViews", true, "annotationStyle", "gson"));
+    }
+
+}
@@ -0,0 +1,155 @@
+/**
+ * Copyright © 2010-2014 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jsonschema2pojo.integration.config;
+
+import static org.hamcrest.Matchers.*;
+import static org.jsonschema2pojo.integration.util.CodeGenerationHelper.config;
+import static org.junit.Assert.*;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+
+import org.jsonschema2pojo.exception.GenerationException;
+import org.jsonschema2pojo.integration.util.Jsonschema2PojoRule;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class GenerateProjectionReadersIT {
+
+    private static final String RECORD_JSON = "{\"payload\":{\"values\":[{\"id\":1},{\"id\":2,\"more\":[[{}],{\"a\":null}]}]},\"name\":\"first\","
+            + "\"unknown\":{\"nested\":[1,2,3]},\"count\":3,\"tags\":[\"b\",\"a\"],\"status\":\"CLOSED\"}";
+
+    @Rule public Jsonschema2PojoRule schemaRule = new Jsonschema2PojoRule();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void projectionReadersAreNotGeneratedByDefault() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/projectedProperties.json", "com.example");
+
+        try {
+            resultsClassLoader.loadClass("com.example.ProjectedProperties$ProjectionReader");
+            fail("projection readers must not be generated by default");
+        } catch (ClassNotFoundException e) {
+        }
+    }
+
+    @Test
+    public void readersReadOnlyTheChosenProperties() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/projectedProperties.json", "com.example",
+                config("generateProjectionReaders", true));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.ProjectedProperties");
+        Object reader = newReader(resultsClassLoader, "NAME", "TAGS");
+
+        JsonParser parser = objectMapper.getFactory().createParser("[" + RECORD_JSON + ",{\"count\":4}]");
+        assertThat(parser.nextToken(), is(JsonToken.START_ARRAY));
+        parser.nextToken();
+        Object first = read(reader, parser);
+        assertThat(parser.getCurrentToken(), is(JsonToken.END_OBJECT));
+        parser.nextToken();
+        Object second = read(reader, parser);
+        assertThat(parser.nextToken(), is(JsonToken.END_ARRAY));
+
+        assertThat(generatedType.getMethod("getName").invoke(first), is(equalTo((Object) "first")));
+        assertThat(generatedType.getMethod("getTags").invoke(first), is(equalTo((Object) new LinkedHashSet<String>(Arrays.asList("b", "a")))));
+        assertThat(generatedType.getMethod("getCount").invoke(first), is(nullValue()));
+        assertThat(generatedType.getMethod("getStatus").invoke(first), is(nullValue()));
+        assertThat(generatedType.getMethod("getPayload").invoke(first), is(nullValue()));
+        assertThat(generatedType.getMethod("getCount").invoke(second), is(nullValue()));
+    }
+
+    @Test
+    public void readersOfAllPropertiesReadWhatTheTypeBinds() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/projectedProperties.json", "com.example",
+                config("generateProjectionReaders", true, "targetVersion", "1.7"));
+
+        assertReadsWhatTheTypeBinds(resultsClassLoader);
+    }
+
+    @Test
+    public void readersOfImmutableTypesUseTheBuilder() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/projectedProperties.json", "com.example",
+                config("generateProjectionReaders", true, "immutable", true));
+
+        assertReadsWhatTheTypeBinds(resultsClassLoader);
+    }
+
+    @Test
+    public void scalarsThatDontFitThePropertyTypeAreRejected() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/projectedProperties.json", "com.example",
+                config("generateProjectionReaders", true));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.ProjectedProperties");
+        Object reader = newReader(resultsClassLoader, "NAME", "COUNT");
+
+        for (String json : Arrays.asList("{\"count\":\"abc\"}", "{\"count\":true}", "{\"count\":5000000000}")) {
+            try {
+                read(reader, objectMapper.getFactory().createParser(json));
+                fail("Expected " + json + " to be rejected");
+            } catch (InvocationTargetException e) {
+                assertThat(e.getCause(), is(instanceOf(JsonProcessingException.class)));
+            }
+        }
+
+        Object instance = read(reader, objectMapper.getFactory().createParser("{\"name\":12,\"count\":null}"));
+        assertThat(generatedType.getMethod("getName").invoke(instance), is(equalTo((Object) "12")));
+        assertThat(generatedType.getMethod("getCount").invoke(instance), is(nullValue()));
+    }
+
+    @Test(expected = GenerationException.class)
+    public void projectionReadersRequireJackson() throws Exception {
+        schemaRule.generate("/schema/properties/projectedProperties.json", "com.example",
+                config("generateProjectionReaders", true, "annotationStyle", "gson"));
+    }
+
+    private void assertReadsWhatTheTypeBinds(ClassLoader resultsClassLoader) throws Exception {
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.ProjectedProperties");
+        String json = RECORD_JSON.replace("\"unknown\":{\"nested\":[1,2,3]},", "").replace(",\"more\":[[{}],{\"a\":null}]", "");
+        Object reader = newReader(resultsClassLoader, "NAME", "COUNT", "TAGS", "STATUS", "PAYLOAD");
+
+        Object instance = read(reader, objectMapper.getFactory().createParser(json));
+
+        assertThat(instance, is(equalTo(objectMapper.readValue(json, generatedType))));
+    }
+
+    private Object newReader(ClassLoader resultsClassLoader, String... propertyNames) throws Exception {
+        @SuppressWarnings({ "rawtypes" })
+        Class propertyType = resultsClassLoader.loadClass("com.example.ProjectedProperties$Property");
+        Class<?> readerType = resultsClassLoader.loadClass("com.example.ProjectedProperties$ProjectionReader");
+
+        Object properties = Array.newInstance(propertyType, propertyNames.length);
+        for (int i = 0; i < propertyNames.length; i++) {
+            @SuppressWarnings("unchecked")
+            Object property = Enum.valueOf(propertyType, propertyNames[i]);
+            Array.set(properties, i, property);
+        }
+        return readerType.getConstructor(properties.getClass()).newInstance(properties);
+    }
+
+    private Object read(Object reader, JsonParser parser) throws Exception {
+        return reader.getClass().getMethod("read", JsonParser.class).invoke(reader, parser);
+    }
+
+}
@@ -0,0 +1,214 @@
+/**
+ * Copyright © 2010-2014 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jsonschema2pojo.integration.config;
+
+import static org.hamcrest.Matchers.*;
+import static org.jsonschema2pojo.integration.util.CodeGenerationHelper.config;
+import static org.junit.Assert.*;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.jsonschema2pojo.integration.util.Jsonschema2PojoRule;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.gson.Gson;
+
+public class ImmutableIT {
+
+    @Rule public Jsonschema2PojoRule schemaRule = new Jsonschema2PojoRule();
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    @Test
+    public void immutableTypesHaveFinalFieldsAndNoSetters() throws ClassNotFoundException {
+
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/immutable/value.json", "com.example",
+                config("immutable", true, "generateBuilders", true, "includeDynamicAccessors", true));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.Value");
+
+        for (Field field : generatedType.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers()) && !Modifier.isTransient(field.getModifiers())) {
+                assertThat(field.getName() + " is final", Modifier.isFinal(field.getModifiers()), is(true));
+            }
+        }
+
+        for (Method method : generatedType.getMethods()) {
+            assertThat(method.getName(), not(startsWith("set")));
+            assertThat(method.getName(), not(startsWith("with")));
+        }
+    }
+
+    @Test
+    public void builderCreatesInstancesWithDefaults() throws Exception {
+
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/immutable/value.json", "com.example",
+                config("immutable", true));
+
+        Class<?> builderType = resultsClassLoader.loadClass("com.example.Value$Builder");
+
+        Object builder = builderType.newInstance();
+        builderType.getMethod("withName", String.class).invoke(builder, "abc");
+        builderType.getMethod("withAdditionalProperty", String.class, Object.class).invoke(builder, "extra", "value");
+        Object instance = builderType.getMethod("build").invoke(builder);
+
+        assertThat(invoke(instance, "getName"), is((Object) "abc"));
+        assertThat(invoke(instance, "getCount"), is((Object) 3));
+        assertThat(invoke(instance, "getKind").toString(), is("large"));
+        assertThat(invoke(instance, "getTags"), is((Object) new ArrayList<Object>()));
+        assertThat(((Map<?, ?>) invoke(instance, "getAdditionalProperties")).get("extra"), is((Object) "value"));
+    }
+
+    @Test
+    public void collectionsAreUnmodifiableCopies() throws Exception {
+
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/immutable/value.json", "com.example",
+                config("immutable", true));
+
+        Class<?> builderType = resultsClassLoader.loadClass("com.example.Value$Builder");
+
+        List<String> tags = new ArrayList<String>(Arrays.asList("a", "b"));
+        Object builder = builderType.newInstance();
+        builderType.getMethod("withTags", List.class).invoke(builder, tags);
+        Object instance = builderType.getMethod("build").invoke(builder);
+
+        tags.add("c");
+        assertThat(invoke(instance, "getTags"), is((Object) Arrays.asList("a", "b")));
+
+        try {
+            ((List<?>) invoke(instance, "getTags")).clear();
+            fail("Collections of an immutable type must be unmodifiable");
+        } catch (UnsupportedOperationException e) {
+        }
+
+        try {
+            ((Map<?, ?>) invoke(instance, "getAdditionalProperties")).clear();
+            fail("Additional properties of an immutable type must be unmodifiable");
+        } catch (UnsupportedOperationException e) {
+        }
+    }
+
+    @Test
+    public void jacksonDeserializesUsingCreatorConstructor() throws Exception {
+
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/immutable/value.json", "com.example",
+                config("immutable", true));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.Value");
+
+        Object instance = OBJECT_MAPPER.readValue("{\"name\":\"abc\",\"codes\":[\"x\",\"y\"],\"child\":{\"label\":\"l\"},\"other\":42}", generatedType);
+
+        assertThat(invoke(instance, "getName"), is((Object) "abc"));
+        assertThat(invoke(instance, "getCount"), is((Object) 3));
+        assertThat(invoke(instance, "getTags"), is((Object) new ArrayList<Object>()));
+        assertThat(invoke(invoke(instance, "getChild"), "getLabel"), is((Object) "l"));
+        assertThat(((Map<?, ?>) invoke(instance, "getAdditionalProperties")).get("other"), is((Object) 42));
+
+        Object roundTrip = OBJECT_MAPPER.readValue(OBJECT_MAPPER.writeValueAsString(instance), generatedType);
+        assertThat(roundTrip, is(equalTo(instance)));
+        assertThat(roundTrip.hashCode(), is(instance.hashCode()));
+    }
+
+    @Test
+    public void hashCodeIsComputedOnce() throws Exception {
+
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/immutable/value.json", "com.example",
+                config("immutable", true));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.Value");
+
+        Object instance = OBJECT_MAPPER.readValue("{\"name\":\"abc\",\"tags\":[\"x\"]}", generatedType);
+        int hashCode = instance.hashCode();
+
+        Field cachedHashCode = generatedType.getDeclaredField("cachedHashCode");
+        cachedHashCode.setAccessible(true);
+        assertThat(cachedHashCode.getInt(instance), is(hashCode));
+        assertThat(instance.hashCode(), is(hashCode));
+    }
+
+    @Test
+    public void subtypesPassInheritedPropertiesToTheirSuperType() throws Exception {
+
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/immutable/subtype.json", "com.example",
+                config("immutable", true));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.Subtype");
+        Class<?> builderType = resultsClassLoader.loadClass("com.example.Subtype$Builder");
+
+        Object builder = builderType.newInstance();
+        builderType.getMethod("withName", String.class).invoke(builder, "abc");
+        Object instance = builderType.getMethod("build").invoke(builder);
+
+        assertThat(invoke(instance, "getName"), is((Object) "abc"));
+        assertThat(invoke(instance, "getCount"), is((Object) 3));
+        assertThat(invoke(instance, "getEnabled"), is((Object) true));
+
+        Object deserialized = OBJECT_MAPPER.readValue("{\"name\":\"abc\",\"count\":7,\"enabled\":false}", generatedType);
+        assertThat(invoke(deserialized, "getName"), is((Object) "abc"));
+        assertThat(invoke(deserialized, "getCount"), is((Object) 7));
+        assertThat(invoke(deserialized, "getEnabled"), is((Object) false));
+    }
+
+    @Test
+    public void absentPrimitivesTakeTheirDefaults() throws Exception {
+
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/immutable/subtype.json", "com.example",
+                config("immutable", true, "usePrimitives", true));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.Subtype");
+        Class<?> builderType = resultsClassLoader.loadClass("com.example.Subtype$Builder");
+        assertThat(generatedType.getMethod("getCount").getReturnType(), is((Object) int.class));
+
+        Object deserialized = OBJECT_MAPPER.readValue("{}", generatedType);
+        assertThat(invoke(deserialized, "getCount"), is((Object) 3));
+        assertThat(invoke(deserialized, "isEnabled"), is((Object) true));
+
+        Object built = builderType.getMethod("build").invoke(builderType.newInstance());
+        assertThat(built, is(deserialized));
+
+        deserialized = OBJECT_MAPPER.readValue("{\"count\":0,\"enabled\":false}", generatedType);
+        assertThat(invoke(deserialized, "getCount"), is((Object) 0));
+        assertThat(invoke(deserialized, "isEnabled"), is((Object) false));
+    }
+
+    @Test
+    public void gsonPopulatesFinalFields() throws Exception {
+
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/immutable/value.json", "com.example",
+                config("immutable", true, "annotationStyle", "gson"));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.Value");
+
+        Object instance = new Gson().fromJson("{\"name\":\"abc\",\"count\":5}", generatedType);
+
+        assertThat(invoke(instance, "getName"), is((Object) "abc"));
+        assertThat(invoke(instance, "getCount"), is((Object) 5));
+    }
+
+    private static Object invoke(Object instance, String methodName) throws Exception {
+        return instance.getClass().getMethod(methodName).invoke(instance);
+    }
+
+}
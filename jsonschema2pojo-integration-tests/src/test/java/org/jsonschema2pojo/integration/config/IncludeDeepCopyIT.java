@@ -0,0 +1,157 @@
+/**
+ * Copyright © 2010-2014 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jsonschema2pojo.integration.config;
+
+import static org.hamcrest.Matchers.*;
+import static org.jsonschema2pojo.integration.util.CodeGenerationHelper.config;
+import static org.junit.Assert.*;
+
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jsonschema2pojo.exception.GenerationException;
+import org.jsonschema2pojo.integration.util.Jsonschema2PojoRule;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class IncludeDeepCopyIT {
+
+    private static final String COPIED_JSON = "{\"id\":1,\"name\":\"first\",\"count\":3,\"created\":1400000000000,\"status\":\"OPEN\",\"tags\":[\"a\",\"b\"],\"statuses\":[\"OPEN\"],"
+            + "\"child\":{\"label\":\"one\",\"values\":[1,2]},\"children\":[[{\"label\":\"two\"},null],null],"
+            + "\"childrenByName\":{\"x\":{\"label\":\"three\"}},\"anything\":{\"list\":[{\"a\":1}]},\"unknown\":{\"nested\":[true]}}";
+
+    @Rule public Jsonschema2PojoRule schemaRule = new Jsonschema2PojoRule();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void copyMethodsAreNotIncludedByDefault() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/copiedProperties.json", "com.example");
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.CopiedProperties");
+
+        try {
+            generatedType.getMethod("deepCopy");
+            fail("deepCopy must not be included by default");
+        } catch (NoSuchMethodException e) {
+        }
+    }
+
+    @Test
+    public void copiesAreEqualAndShareNoMutableState() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/copiedProperties.json", "com.example",
+                config("includeDeepCopy", true, "usePrimitiveArrays", true, "useEnumSets", true));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.CopiedProperties");
+        assertThat(generatedType.getMethod("getStatuses").getReturnType(), is(equalTo((Object) EnumSet.class)));
+        assertThat(resultsClassLoader.loadClass("com.example.Child").getMethod("getValues").getReturnType(), is(equalTo((Object) int[].class)));
+
+        Object instance = objectMapper.readValue(COPIED_JSON, generatedType);
+        Object tree = objectMapper.valueToTree(instance);
+
+        Object copy = generatedType.getMethod("deepCopy").invoke(instance);
+
+        assertThat(copy, is(equalTo(instance)));
+        assertThat(copy, is(not(sameInstance(instance))));
+        assertThat(objectMapper.valueToTree(copy), is(tree));
+
+        assertThat(get(copy, "getName"), is(sameInstance(get(instance, "getName"))));
+        assertThat(get(copy, "getStatus"), is(sameInstance(get(instance, "getStatus"))));
+        for (String getterName : new String[] { "getCreated", "getTags", "getStatuses", "getChild", "getChildren", "getChildrenByName", "getAnything",
+                "getAdditionalProperties" }) {
+            assertThat(getterName, get(copy, getterName), is(not(sameInstance(get(instance, getterName)))));
+        }
+        assertThat(get(get(copy, "getChild"), "getValues"), is(not(sameInstance(get(get(instance, "getChild"), "getValues")))));
+
+        // changes to the copy don't reach the original
+        ((Date) get(copy, "getCreated")).setTime(0);
+        ((Set<?>) get(copy, "getTags")).clear();
+        ((Set<?>) get(copy, "getStatuses")).clear();
+        ((int[]) get(get(copy, "getChild"), "getValues"))[0] = 0;
+        ((List<?>) ((List<?>) get(copy, "getChildren")).get(0)).clear();
+        ((Map<?, ?>) ((List<?>) ((Map<?, ?>) get(copy, "getAnything")).get("list")).get(0)).clear();
+        ((Map<?, ?>) ((Map<?, ?>) get(copy, "getAdditionalProperties")).get("unknown")).clear();
+
+        assertThat(objectMapper.valueToTree(instance), is(tree));
+    }
+
+    @Test
+    public void copyConstructorCopiesTheGivenInstance() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/copiedProperties.json", "com.example",
+                config("includeDeepCopy", true, "includeConstructors", true));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.CopiedProperties");
+        Object instance = objectMapper.readValue(COPIED_JSON, generatedType);
+
+        Object copy = generatedType.getConstructor(generatedType).newInstance(instance);
+
+        assertThat(copy, is(equalTo(instance)));
+        assertThat(generatedType.getConstructor().newInstance(), is(notNullValue()));
+    }
+
+    @Test(expected = GenerationException.class)
+    public void copyMethodsCantBeCombinedWithImmutable() throws Exception {
+        schemaRule.generate("/schema/properties/copiedProperties.json", "com.example",
+                config("includeDeepCopy", true, "immutable", true));
+    }
+
+    @Test(expected = GenerationException.class)
+    public void copyConstructorCantClashWithThePropertiesConstructor() throws Exception {
+        schemaRule.generate("/schema/properties/selfTypedProperty.json", "com.example",
+                config("includeDeepCopy", true, "includeConstructors", true));
+    }
+
+    @Test
+    public void selfTypedPropertiesAreCopied() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/selfTypedProperty.json", "com.example",
+                config("includeDeepCopy", true));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.SelfTypedProperty");
+        Object instance = objectMapper.readValue("{\"parent\":{\"parent\":{}}}", generatedType);
+
+        Object copy = generatedType.getMethod("deepCopy").invoke(instance);
+
+        assertThat(copy, is(equalTo(instance)));
+        assertThat(get(copy, "getParent"), is(not(sameInstance(get(instance, "getParent")))));
+    }
+
+    @Test
+    public void localsOfNestedCollectionsDontClashBetweenProperties() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/copiedNestedCollections.json", "com.example",
+                config("includeDeepCopy", true));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.CopiedNestedCollections");
+        Object instance = objectMapper.readValue("{\"fooItem\":[{\"label\":\"a\"}],\"foo\":[[{\"label\":\"b\"}]]}", generatedType);
+
+        Object copy = generatedType.getMethod("deepCopy").invoke(instance);
+
+        assertThat(copy, is(equalTo(instance)));
+        assertThat(((List<?>) get(copy, "getFooItem")).get(0), is(not(sameInstance(((List<?>) get(instance, "getFooItem")).get(0)))));
+        assertThat(((List<?>) ((List<?>) get(copy, "getFoo")).get(0)).get(0),
+                is(not(sameInstance(((List<?>) ((List<?>) get(instance, "getFoo")).get(0)).get(0)))));
+    }
+
+    private Object get(Object instance, String getterName) throws Exception {
+        return instance.getClass().getMethod(getterName).invoke(instance);
+    }
+
+}
@@ -0,0 +1,128 @@
+/**
+ * Copyright © 2010-2014 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jsonschema2pojo.integration.config;
+
+import static org.hamcrest.Matchers.*;
+import static org.jsonschema2pojo.integration.util.CodeGenerationHelper.config;
+import static org.junit.Assert.*;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jsonschema2pojo.integration.util.Jsonschema2PojoRule;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class IncludePropertyMetadataIT {
+
+    @Rule public Jsonschema2PojoRule schemaRule = new Jsonschema2PojoRule();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void metadataIsNotIncludedByDefault() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/metadataProperties.json", "com.example");
+
+        try {
+            resultsClassLoader.loadClass("com.example.MetadataProperties").getField("PROPERTY_METADATA");
+            fail("property metadata must not be included by default");
+        } catch (NoSuchFieldException e) {
+        }
+    }
+
+    @Test
+    public void metadataDescribesAllProperties() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/metadataProperties.json", "com.example",
+                config("includePropertyMetadata", true, "usePrimitives", true));
+
+        List<?> metadata = getMetadata(resultsClassLoader.loadClass("com.example.MetadataProperties"));
+        Class<?> statusType = resultsClassLoader.loadClass("com.example.MetadataProperties$Status");
+
+        assertThat(invokeAll(metadata, "getName"), is(Arrays.<Object> asList("id", "name", "count", "tags", "status")));
+        assertThat(invokeAll(metadata, "getType"), is(Arrays.<Object> asList(int.class, String.class, int.class, List.class, statusType)));
+        assertThat(invokeAll(metadata, "isRequired"), is(Arrays.<Object> asList(true, true, false, false, false)));
+        assertThat(invokeAll(metadata, "isWritable"), is(Arrays.<Object> asList(true, true, true, true, true)));
+    }
+
+    @Test
+    public void metadataReadsAndWritesProperties() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/metadataProperties.json", "com.example",
+                config("includePropertyMetadata", true));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.MetadataProperties");
+        Object instance = objectMapper.readValue("{\"id\":1,\"name\":\"first\",\"tags\":[\"a\"],\"status\":\"OPEN\"}", generatedType);
+        List<?> metadata = getMetadata(generatedType);
+
+        assertThat(invokeAll(metadata, "get", instance), is(Arrays.<Object> asList(1, "first", null, Arrays.asList("a"), generatedType
+                .getMethod("getStatus").invoke(instance))));
+
+        invoke(metadata.get(0), "set", instance, 2);
+        invoke(metadata.get(1), "set", instance, "second");
+
+        assertThat(generatedType.getMethod("getId").invoke(instance), is(equalTo((Object) 2)));
+        assertThat(generatedType.getMethod("getName").invoke(instance), is(equalTo((Object) "second")));
+    }
+
+    @Test
+    public void metadataOfImmutableTypesIsReadOnly() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/metadataProperties.json", "com.example",
+                config("includePropertyMetadata", true, "immutable", true));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.MetadataProperties");
+        Object instance = objectMapper.readValue("{\"id\":1,\"name\":\"first\"}", generatedType);
+        List<?> metadata = getMetadata(generatedType);
+
+        assertThat(invoke(metadata.get(1), "get", instance), is(equalTo((Object) "first")));
+        assertThat(invoke(metadata.get(1), "isWritable"), is(equalTo((Object) false)));
+        try {
+            invoke(metadata.get(1), "set", instance, "second");
+            fail("properties of immutable types must not be writable");
+        } catch (UnsupportedOperationException e) {
+        }
+    }
+
+    private List<?> getMetadata(Class<?> generatedType) throws Exception {
+        return (List<?>) generatedType.getField("PROPERTY_METADATA").get(null);
+    }
+
+    private List<Object> invokeAll(List<?> metadata, String methodName, Object... args) throws Exception {
+        List<Object> results = new ArrayList<Object>();
+        for (Object entry : metadata) {
+            results.add(invoke(entry, methodName, args));
+        }
+        return results;
+    }
+
+    private Object invoke(Object entry, String methodName, Object... args) throws Exception {
+        for (Method method : entry.getClass().getSuperclass().getMethods()) {
+            if (method.getName().equals(methodName) && method.getParameterTypes().length == args.length) {
+                try {
+                    return method.invoke(entry, args);
+                } catch (InvocationTargetException e) {
+                    throw (Exception) e.getCause();
+                }
+            }
+        }
+        throw new NoSuchMethodException(methodName);
+    }
+
+}
@@ -0,0 +1,364 @@
+/**
+ * Copyright © 2010-2014 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jsonschema2pojo.integration.config;
+
+import static org.hamcrest.Matchers.*;
+import static org.jsonschema2pojo.integration.util.CodeGenerationHelper.config;
+import static org.junit.Assert.*;
+
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.jsonschema2pojo.integration.util.Jsonschema2PojoRule;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.example.MyJsonViewClass;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+
+public class IncludeStreamingSerializersIT {
+
+    private static final String ORDER_JSON = "{\"id\":\"o-1\",\"quantity\":3,\"price\":9.5,\"express\":true,\"status\":\"shipped\","
+            + "\"created\":1400000000000,\"customer\":{\"name\":\"Ann\"},\"lines\":[{\"sku\":\"a\",\"count\":2},{\"sku\":\"b\",\"count\":1}],"
+            + "\"tags\":[\"z\",\"a\",\"m\"],\"message\":\"Enjoy\",\"giftWrap\":{\"color\":\"red\"}}";
+
+    @Rule public Jsonschema2PojoRule schemaRule = new Jsonschema2PojoRule();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void defaultIsReflectiveSerialization() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/serializers/giftOrder.json", "com.example");
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.GiftOrder");
+
+        assertThat(generatedType.getAnnotation(JsonSerialize.class), is(nullValue()));
+        assertThat(generatedType.getAnnotation(JsonDeserialize.class), is(nullValue()));
+        assertThat(generatedType.getDeclaredClasses().length, is(0));
+    }
+
+    @Test
+    public void typesAreAnnotatedToUseGeneratedSerializers() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/serializers/giftOrder.json", "com.example",
+                config("includeStreamingSerializers", true));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.GiftOrder");
+
+        assertThat(generatedType.getAnnotation(JsonSerialize.class).using().getName(), is("com.example.GiftOrder$Serializer"));
+        assertThat(generatedType.getAnnotation(JsonDeserialize.class).using().getName(), is("com.example.GiftOrder$Deserializer"));
+        assertThat(resultsClassLoader.loadClass("com.example.Line").getAnnotation(JsonSerialize.class), is(notNullValue()));
+    }
+
+    @Test
+    public void readsAndWritesAllProperties() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/serializers/giftOrder.json", "com.example",
+                config("includeStreamingSerializers", true));
+
+        assertRoundTrip(resultsClassLoader.loadClass("com.example.GiftOrder"), objectMapper);
+    }
+
+    @Test
+    public void readsAndWritesAllPropertiesOnJava7() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/serializers/giftOrder.json", "com.example",
+                config("includeStreamingSerializers", true, "targetVersion", "1.7"));
+
+        assertRoundTrip(resultsClassLoader.loadClass("com.example.GiftOrder"), objectMapper);
+    }
+
+    @Test
+    public void readsAndWritesImmutableTypes() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/serializers/giftOrder.json", "com.example",
+                config("includeStreamingSerializers", true, "immutable", true));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.GiftOrder");
+        assertRoundTrip(generatedType, objectMapper);
+
+        Object instance = objectMapper.readValue("{\"lines\":[{\"sku\":\"a\"}]}", generatedType);
+        Object line = ((List<?>) invoke(instance, "getLines")).get(0);
+        assertThat(invoke(line, "getCount"), is((Object) 1));
+    }
+
+    @Test
+    public void readsAndWritesPublicFields() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/serializers/giftOrder.json", "com.example",
+                config("includeStreamingSerializers", true, "includeAccessors", false, "usePrimitives", true));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.GiftOrder");
+        assertRoundTrip(generatedType, objectMapper);
+
+        Object instance = objectMapper.readValue("{\"quantity\":null}", generatedType);
+        assertThat(generatedType.getField("quantity").get(instance), is((Object) 0));
+    }
+
+    @Test
+    public void moduleRegistersAllSerializers() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/serializers/giftOrder.json", "com.example",
+                config("includeStreamingSerializers", true));
+
+        Module module = (Module) resultsClassLoader.loadClass("com.example.JacksonModule").newInstance();
+        assertThat(module.getModuleName(), is("com.example.JacksonModule"));
+
+        assertRoundTrip(resultsClassLoader.loadClass("com.example.GiftOrder"), new ObjectMapper().registerModule(module));
+    }
+
+    @Test
+    public void scalarsThatDontFitThePropertyTypeAreRejected() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/serializers/giftOrder.json", "com.example",
+                config("includeStreamingSerializers", true));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.GiftOrder");
+
+        for (String json : Arrays.asList("{\"quantity\":\"abc\"}", "{\"quantity\":true}", "{\"express\":1}", "{\"price\":\"9.5\"}")) {
+            try {
+                objectMapper.readValue(json, generatedType);
+                fail("Expected " + json + " to be rejected");
+            } catch (JsonMappingException e) {
+            }
+        }
+
+        try {
+            objectMapper.readValue("{\"quantity\":5000000000}", generatedType);
+            fail("Expected a long to be rejected for an int property");
+        } catch (JsonProcessingException e) {
+        }
+
+        Object instance = objectMapper.readValue("{\"id\":12,\"quantity\":null,\"price\":3}", generatedType);
+        assertThat(invoke(instance, "getId"), is((Object) "12"));
+        assertThat(invoke(instance, "getQuantity"), is(nullValue()));
+        assertThat(invoke(instance, "getPrice"), is((Object) 3D));
+    }
+
+    @Test
+    public void unknownPropertiesAreHandledByConfiguration() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/serializers/giftOrder.json", "com.example",
+                config("includeStreamingSerializers", true));
+
+        Class<?> customerType = resultsClassLoader.loadClass("com.example.Customer");
+
+        try {
+            objectMapper.readValue("{\"name\":\"Ann\",\"age\":{\"years\":30}}", customerType);
+            fail("Unknown property must be rejected");
+        } catch (UnrecognizedPropertyException e) {
+            assertThat(e.getUnrecognizedPropertyName(), is("age"));
+        }
+
+        ObjectMapper lenientMapper = new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        Object customer = lenientMapper.readValue("{\"age\":{\"years\":30},\"name\":\"Ann\"}", customerType);
+        assertThat(invoke(customer, "getName"), is((Object) "Ann"));
+    }
+
+    @Test
+    public void propertiesOutsideActiveViewAreSkipped() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/serializers/giftOrder.json", "com.example",
+                config("includeStreamingSerializers", true));
+
+        Class<?> customerType = resultsClassLoader.loadClass("com.example.Customer");
+        Object customer = objectMapper.readValue("{\"name\":\"Ann\",\"internalNote\":\"vip\"}", customerType);
+
+        assertThat(objectMapper.writeValueAsString(customer), is("{\"name\":\"Ann\",\"internalNote\":\"vip\"}"));
+        assertThat(objectMapper.writerWithView(MyJsonViewClass.class).writeValueAsString(customer), is("{\"name\":\"Ann\",\"internalNote\":\"vip\"}"));
+        assertThat(objectMapper.writerWithView(String.class).writeValueAsString(customer), is("{\"name\":\"Ann\"}"));
+
+        Object viewCustomer = objectMapper.readerWithView(String.class).withType(customerType).readValue("{\"name\":\"Ann\",\"internalNote\":\"vip\"}");
+        assertThat(invoke(viewCustomer, "getInternalNote"), is(nullValue()));
+    }
+
+    @Test
+    public void polymorphicTypesIncludeTypeProperty() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/polymorphic/extendsSchema.json", "com.example",
+                config("includeStreamingSerializers", true));
+
+        Class<?> subtype = resultsClassLoader.loadClass("com.example.ExtendsSchema");
+        Class<?> supertype = subtype.getSuperclass();
+
+        Object instance = subtype.newInstance();
+        subtype.getMethod("setPropertyOfChild", String.class).invoke(instance, "child");
+        supertype.getMethod("setPropertyOfParent", String.class).invoke(instance, "parent");
+
+        String json = objectMapper.writeValueAsString(instance);
+        assertThat(objectMapper.readTree(json).get("deserializationClassName").asText(), is("com.example.ExtendsSchema"));
+
+        // Jackson resolves the class name of the type property with the context class loader
+        Thread thread = Thread.currentThread();
+        ClassLoader contextClassLoader = thread.getContextClassLoader();
+        Object result;
+        try {
+            thread.setContextClassLoader(resultsClassLoader);
+            result = objectMapper.readValue(json, supertype);
+        } finally {
+            thread.setContextClassLoader(contextClassLoader);
+        }
+        assertThat(result, is(instanceOf(subtype)));
+        assertThat(invoke(result, "getPropertyOfChild"), is((Object) "child"));
+        assertThat(invoke(result, "getPropertyOfParent"), is((Object) "parent"));
+    }
+
+    @Test
+    public void gsonFactoryCreatesGeneratedTypeAdapters() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/serializers/giftOrder.json", "com.example",
+                config("includeStreamingSerializers", true, "annotationStyle", "gson"));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.GiftOrder");
+        TypeAdapterFactory factory = (TypeAdapterFactory) resultsClassLoader.loadClass("com.example.GsonTypeAdapterFactory").newInstance();
+        Gson gson = new GsonBuilder().registerTypeAdapterFactory(factory).create();
+
+        assertThat(gson.getAdapter(generatedType).getClass().getName(), is("com.example.GiftOrder$Adapter"));
+        assertThat(gson.getAdapter(resultsClassLoader.loadClass("com.example.Line")).getClass().getName(), is("com.example.Line$Adapter"));
+        assertThat(factory.create(gson, TypeToken.get(String.class)), is(nullValue()));
+    }
+
+    @Test
+    public void gsonWithoutFactorySkipsAdditionalPropertiesMap() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/serializers/giftOrder.json", "com.example",
+                config("includeStreamingSerializers", true, "annotationStyle", "gson"));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.GiftOrder");
+        assertThat(Modifier.isTransient(generatedType.getDeclaredField("additionalProperties").getModifiers()), is(true));
+
+        Object instance = createGson(resultsClassLoader).fromJson("{\"message\":\"Enjoy\",\"giftWrap\":\"red\"}", generatedType);
+        Object other = createGson(resultsClassLoader).fromJson("{\"message\":\"Enjoy\",\"giftWrap\":\"blue\"}", generatedType);
+        assertThat(instance, is(not(equalTo(other))));
+        assertThat(instance.toString(), containsString("giftWrap=red"));
+
+        JsonNode reflective = objectMapper.readTree(new Gson().toJson(instance));
+        assertThat(reflective.has("additionalProperties"), is(false));
+        assertThat(reflective.get("message").asText(), is("Enjoy"));
+    }
+
+    @Test
+    public void gsonReadsAndWritesAllProperties() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/serializers/giftOrder.json", "com.example",
+                config("includeStreamingSerializers", true, "annotationStyle", "gson"));
+
+        assertGsonRoundTrip(resultsClassLoader, resultsClassLoader.loadClass("com.example.GiftOrder"));
+    }
+
+    @Test
+    public void gsonReadsAndWritesAllPropertiesOnJava7() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/serializers/giftOrder.json", "com.example",
+                config("includeStreamingSerializers", true, "annotationStyle", "gson", "targetVersion", "1.7"));
+
+        assertGsonRoundTrip(resultsClassLoader, resultsClassLoader.loadClass("com.example.GiftOrder"));
+    }
+
+    @Test
+    public void gsonReadsAndWritesImmutableTypes() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/serializers/giftOrder.json", "com.example",
+                config("includeStreamingSerializers", true, "annotationStyle", "gson", "immutable", true));
+
+        assertGsonRoundTrip(resultsClassLoader, resultsClassLoader.loadClass("com.example.GiftOrder"));
+    }
+
+    @Test
+    public void gsonReadsAndWritesPublicFields() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/serializers/giftOrder.json", "com.example",
+                config("includeStreamingSerializers", true, "annotationStyle", "gson", "includeAccessors", false, "usePrimitives", true));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.GiftOrder");
+        assertGsonRoundTrip(resultsClassLoader, generatedType);
+
+        Object instance = createGson(resultsClassLoader).fromJson("{\"quantity\":null}", generatedType);
+        assertThat(generatedType.getField("quantity").get(instance), is((Object) 0));
+    }
+
+    @Test
+    public void gsonSkipsUnknownPropertiesWhenAdditionalPropertiesAreNotAllowed() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/serializers/giftOrder.json", "com.example",
+                config("includeStreamingSerializers", true, "annotationStyle", "gson"));
+
+        Class<?> customerType = resultsClassLoader.loadClass("com.example.Customer");
+        Object customer = createGson(resultsClassLoader).fromJson("{\"age\":{\"years\":30},\"name\":\"Ann\"}", customerType);
+
+        assertThat(invoke(customer, "getName"), is((Object) "Ann"));
+        assertThat(createGson(resultsClassLoader).toJson(customer), is("{\"name\":\"Ann\"}"));
+    }
+
+    private void assertGsonRoundTrip(ClassLoader resultsClassLoader, Class<?> generatedType) throws Exception {
+        // Gson writes dates as formatted strings, so the date property is left out
+        JsonNode expected = objectMapper.readTree(ORDER_JSON);
+        ((ObjectNode) expected).remove("created");
+
+        Gson gson = createGson(resultsClassLoader);
+        Object instance = gson.fromJson(expected.toString(), generatedType);
+
+        Collection<?> tags = (Collection<?>) readProperty(instance, "tags");
+        assertThat(new ArrayList<Object>(tags), is(equalTo(Arrays.<Object> asList("z", "a", "m"))));
+        assertThat(((Map<?, ?>) invoke(instance, "getAdditionalProperties")).get("giftWrap"), is((Object) Collections.singletonMap("color", "red")));
+
+        JsonNode actual = objectMapper.readTree(gson.toJson(instance));
+        assertThat(actual, is(equalTo(expected)));
+    }
+
+    private static Gson createGson(ClassLoader resultsClassLoader) throws Exception {
+        TypeAdapterFactory factory = (TypeAdapterFactory) resultsClassLoader.loadClass("com.example.GsonTypeAdapterFactory").newInstance();
+        return new GsonBuilder().registerTypeAdapterFactory(factory).create();
+    }
+
+    @Test
+    public void propertiesWithTheSameConstantNameAreKeptApart() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/serializers/collidingNames.json", "com.example",
+                config("includeStreamingSerializers", true));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.CollidingNames");
+        String json = "{\"fooBar\":\"a\",\"fooBAR\":\"b\"}";
+
+        assertThat(objectMapper.writeValueAsString(objectMapper.readValue(json, generatedType)), is(json));
+    }
+
+    private void assertRoundTrip(Class<?> generatedType, ObjectMapper objectMapper) throws Exception {
+        Object instance = objectMapper.readValue(ORDER_JSON, generatedType);
+
+        Collection<?> tags = (Collection<?>) readProperty(instance, "tags");
+        assertThat(new ArrayList<Object>(tags), is(equalTo(Arrays.<Object> asList("z", "a", "m"))));
+        assertThat(((Map<?, ?>) invoke(instance, "getAdditionalProperties")).get("giftWrap"), is((Object) Collections.singletonMap("color", "red")));
+
+        JsonNode expected = objectMapper.readTree(ORDER_JSON);
+        JsonNode actual = objectMapper.readTree(objectMapper.writeValueAsString(instance));
+        assertThat(actual, is(equalTo(expected)));
+    }
+
+    private static Object readProperty(Object instance, String name) throws Exception {
+        try {
+            return instance.getClass().getField(name).get(instance);
+        } catch (NoSuchFieldException e) {
+            return invoke(instance, "get" + Character.toUpperCase(name.charAt(0)) + name.substring(1));
+        }
+    }
+
+    private static Object invoke(Object instance, String methodName) throws Exception {
+        return instance.getClass().getMethod(methodName).invoke(instance);
+    }
+
+}
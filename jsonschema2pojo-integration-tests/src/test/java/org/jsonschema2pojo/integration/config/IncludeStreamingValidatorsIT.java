@@ -0,0 +1,134 @@
+/**
+ * Copyright © 2010-2014 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jsonschema2pojo.integration.config;
+
+import static org.hamcrest.Matchers.*;
+import static org.jsonschema2pojo.integration.util.CodeGenerationHelper.config;
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.jsonschema2pojo.integration.util.Jsonschema2PojoRule;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+
+public class IncludeStreamingValidatorsIT {
+
+    private static final String VALID_JSON = "{\"name\":\"abc\",\"quantity\":3,\"price\":1.5,\"tags\":[\"a\"],"
+            + "\"customer\":{\"email\":\"ann@example.com\"},\"lines\":[{\"count\":1}],\"message\":\"hi\",\"unknown\":[1,{}]}";
+
+    private static final String INVALID_JSON = "{\"name\":\"ABCDEFG\",\"quantity\":11,\"price\":0.1,\"tags\":[],"
+            + "\"customer\":{\"email\":\"ann\"},\"lines\":[{\"count\":1},{\"count\":0},{}],\"message\":\"hello\"}";
+
+    @Rule public Jsonschema2PojoRule schemaRule = new Jsonschema2PojoRule();
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    @Test
+    public void validatorsAreNotIncludedByDefault() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/jsr303/validated.json", "com.example");
+
+        try {
+            resultsClassLoader.loadClass("com.example.Validated$Validator");
+            fail("Validator must not be generated by default");
+        } catch (ClassNotFoundException e) {
+        }
+    }
+
+    @Test
+    public void validDocumentHasNoViolations() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/jsr303/validatedChild.json", "com.example",
+                config("includeStreamingValidators", true));
+
+        assertThat(validate(resultsClassLoader.loadClass("com.example.ValidatedChild"), VALID_JSON), is(empty()));
+    }
+
+    @Test
+    public void violationsOfAllConstraintsAreReported() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/jsr303/validatedChild.json", "com.example",
+                config("includeStreamingValidators", true));
+
+        assertThat(validate(resultsClassLoader.loadClass("com.example.ValidatedChild"), INVALID_JSON), contains(
+                "name: must match \"^[a-z]+$\"",
+                "name: length must be at most 5",
+                "quantity: must be less than or equal to 10",
+                "price: must be greater than or equal to 0.5",
+                "tags: size must be at least 1",
+                "customer.email: must match \".+@.+\"",
+                "lines[1].count: must be greater than or equal to 1",
+                "lines[2].count: is required",
+                "message: length must be at most 3"));
+    }
+
+    @Test
+    public void wrongTypesAndMissingPropertiesAreReported() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/jsr303/validated.json", "com.example",
+                config("includeStreamingValidators", true));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.Validated");
+
+        assertThat(validate(generatedType, "{\"quantity\":1.5,\"price\":\"1\",\"tags\":[\"a\",2],\"lines\":{}}"), contains(
+                "quantity: must be of type integer",
+                "price: must be of type number",
+                "tags[1]: must be of type string",
+                "lines: must be of type array",
+                "name: is required",
+                "customer: is required"));
+        assertThat(validate(generatedType, "[]"), contains("must be of type object"));
+    }
+
+    @Test
+    public void enumsAndAdditionalPropertiesAreChecked() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/serializers/order.json", "com.example",
+                config("includeStreamingValidators", true));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.Order");
+
+        assertThat(validate(generatedType, "{\"status\":\"open\",\"priority\":2,\"discount\":0.5,\"customer\":{\"name\":\"Ann\"}}"), is(empty()));
+        assertThat(validate(generatedType, "{\"status\":\"lost\",\"priority\":4,\"discount\":0.25,\"customer\":{\"name\":\"Ann\",\"age\":3}}"), contains(
+                "status: must be one of [\"open\",\"shipped\"]",
+                "priority: must be one of [1,2,3]",
+                "discount: must be one of [0,0.5]",
+                "customer.age: is not allowed"));
+    }
+
+    @Test
+    public void validatorsCanUseStringSwitch() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/jsr303/validatedChild.json", "com.example",
+                config("includeStreamingValidators", true, "targetVersion", "1.7"));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.ValidatedChild");
+
+        assertThat(validate(generatedType, VALID_JSON), is(empty()));
+        assertThat(validate(generatedType, INVALID_JSON), hasSize(9));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> validate(Class<?> generatedType, String json) throws Exception {
+        Class<?> validatorType = generatedType.getClassLoader().loadClass(generatedType.getName() + "$Validator");
+        JsonParser parser = jsonFactory.createParser(json);
+        try {
+            return (List<String>) validatorType.getMethod("validate", JsonParser.class).invoke(null, parser);
+        } finally {
+            parser.close();
+        }
+    }
+
+}
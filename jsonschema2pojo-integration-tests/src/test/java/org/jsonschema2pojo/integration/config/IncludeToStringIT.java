@@ -17,8 +17,12 @@
 package org.jsonschema2pojo.integration.config;
 
 import static org.jsonschema2pojo.integration.util.CodeGenerationHelper.config;
+import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.*;
 
+import java.lang.reflect.Method;
+
+import org.apache.commons.lang.builder.ToStringBuilder;
 import org.jsonschema2pojo.integration.util.Jsonschema2PojoRule;
 import org.junit.Rule;
 import org.junit.Test;
@@ -54,4 +58,35 @@ public class IncludeToStringIT {
         }
     }
 
+    @Test
+    public void toStringMatchesReflectionToString() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/primitiveProperties.json", "com.example");
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.PrimitiveProperties");
+        Object instance = generatedType.newInstance();
+
+        assertThat(instance.toString(), is(ToStringBuilder.reflectionToString(instance)));
+
+        generatedType.getMethod("setA", Integer.class).invoke(instance, 42);
+        generatedType.getMethod("setB", Double.class).invoke(instance, 1.5d);
+        generatedType.getMethod("setAdditionalProperty", String.class, Object.class).invoke(instance, "extra", "value");
+
+        assertThat(instance.toString(), is(ToStringBuilder.reflectionToString(instance)));
+    }
+
+    @Test
+    public void toStringIncludesSuperTypeFields() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/toString/subtype.json", "com.example");
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.Subtype");
+        Object instance = generatedType.newInstance();
+
+        Method setParentName = generatedType.getMethod("setParentName", String.class);
+        setParentName.invoke(instance, "parent");
+        generatedType.getMethod("setChildName", String.class).invoke(instance, "child");
+
+        assertThat(instance.toString(), is(ToStringBuilder.reflectionToString(instance)));
+        assertThat(instance.toString(), containsString("parentName=parent"));
+    }
+
 }
@@ -0,0 +1,145 @@
+/**
+ * Copyright © 2010-2014 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jsonschema2pojo.integration.config;
+
+import static org.hamcrest.Matchers.*;
+import static org.jsonschema2pojo.integration.util.CodeGenerationHelper.config;
+import static org.junit.Assert.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.validation.Validation;
+import javax.validation.Validator;
+
+import org.jsonschema2pojo.integration.util.Jsonschema2PojoRule;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class IncludeValidateMethodsIT {
+
+    private static final String VALID_JSON = "{\"name\":\"abc\",\"quantity\":3,\"price\":1.5,\"tags\":[\"a\"],"
+            + "\"customer\":{\"email\":\"ann@example.com\"},\"lines\":[{\"count\":1}],\"message\":\"hi\"}";
+
+    private static final String INVALID_JSON = "{\"name\":\"ABCDEFG\",\"quantity\":11,\"price\":0.1,\"tags\":[],"
+            + "\"customer\":{\"email\":\"ann\"},\"lines\":[{\"count\":1},{\"count\":0},{}],\"message\":\"hello\"}";
+
+    private static Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @Rule public Jsonschema2PojoRule schemaRule = new Jsonschema2PojoRule();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void validateMethodsAreNotIncludedByDefault() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/jsr303/validated.json", "com.example");
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.Validated");
+
+        try {
+            generatedType.getMethod("validate");
+            fail("validate() must not be generated by default");
+        } catch (NoSuchMethodException e) {
+        }
+    }
+
+    @Test
+    public void validInstanceHasNoViolations() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/jsr303/validatedChild.json", "com.example",
+                config("includeValidateMethods", true));
+
+        Object instance = objectMapper.readValue(VALID_JSON, resultsClassLoader.loadClass("com.example.ValidatedChild"));
+
+        assertThat(validate(instance), is(empty()));
+    }
+
+    @Test
+    public void violationsOfAllConstraintsAreReported() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/jsr303/validatedChild.json", "com.example",
+                config("includeValidateMethods", true));
+
+        Object instance = objectMapper.readValue(INVALID_JSON, resultsClassLoader.loadClass("com.example.ValidatedChild"));
+
+        assertThat(validate(instance), contains(
+                "name: must match \"^[a-z]+$\"",
+                "name: size must be between 2 and 5",
+                "quantity: must be less than or equal to 10",
+                "price: must be greater than or equal to 0.5",
+                "tags: size must be between 1 and 2147483647",
+                "customer.email: must match \".+@.+\"",
+                "lines[1].count: must be greater than or equal to 1",
+                "lines[2].count: may not be null",
+                "message: size must be between 0 and 3"));
+    }
+
+    @Test
+    public void requiredPropertiesMayNotBeNull() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/jsr303/validated.json", "com.example",
+                config("includeValidateMethods", true));
+
+        Object instance = resultsClassLoader.loadClass("com.example.Validated").newInstance();
+
+        assertThat(validate(instance), contains(
+                "name: may not be null",
+                "tags: size must be between 1 and 2147483647",
+                "customer: may not be null"));
+    }
+
+    @Test
+    public void validateMethodsAgreeWithJsr303Annotations() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/jsr303/validatedChild.json", "com.example",
+                config("includeValidateMethods", true, "includeJsr303Annotations", true, "usePrimitives", true));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.ValidatedChild");
+
+        for (String json : new String[] { VALID_JSON, INVALID_JSON, "{}" }) {
+            Object instance = objectMapper.readValue(json, generatedType);
+            assertThat(json, validate(instance).size(), is(validator.validate(instance).size()));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void validateCascadesIntoMapsAndVisitsEveryInstanceOnce() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/jsr303/validatedGraph.json", "com.example",
+                config("includeValidateMethods", true));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.ValidatedGraph");
+        Object root = objectMapper.readValue("{\"name\":\"root\",\"children\":[{\"name\":\"\"}],"
+                + "\"extra\":{\"name\":\"\"}}", generatedType);
+        Object child = ((List<Object>) generatedType.getMethod("getChildren").invoke(root)).get(0);
+        Object unnamed = generatedType.newInstance();
+
+        generatedType.getMethod("setParent", generatedType).invoke(child, root);
+        generatedType.getMethod("setIndex", Map.class).invoke(child, Collections.singletonMap("unnamed", unnamed));
+        generatedType.getMethod("setIndex", Map.class).invoke(root, Collections.singletonMap("self", root));
+
+        assertThat(validate(root), contains(
+                "children[0].name: size must be between 1 and 2147483647",
+                "children[0].index[unnamed].name: may not be null",
+                "extra.name: size must be between 1 and 2147483647"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> validate(Object instance) throws Exception {
+        return (List<String>) instance.getClass().getMethod("validate").invoke(instance);
+    }
+
+}
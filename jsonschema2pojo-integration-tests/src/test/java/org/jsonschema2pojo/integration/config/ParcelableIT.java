@@ -55,4 +55,66 @@ public class ParcelableIT {
         assertThat(instance, is(equalTo(unparceledInstance)));
     }
 
+    @Test
+    public void parcelableTreeWithNullValuesIsParcelable() throws ClassNotFoundException, IOException {
+        Class<?> parcelableType = schemaRule.generateAndCompile("/schema/parcelable/parcelable-schema.json", "com.example", 
+                config("parcelable", true))
+                .loadClass("com.example.ParcelableSchema");
+
+        Parcelable instance = (Parcelable) new ObjectMapper().readValue("{\"stringProperty\" : \"aaa\", \"complexTypesArray\" : [{}, null]}", parcelableType);
+        String key = "example";
+        Parcel parcel = writeToParcel(instance, key);
+        Parcelable unparceledInstance = readFromParcel(parcel, parcelableType, key);
+
+        assertThat(instance, is(equalTo(unparceledInstance)));
+    }
+
+    @Test
+    public void allPropertyTypesSurviveRoundTrip() throws ClassNotFoundException, IOException, NoSuchFieldException {
+        Class<?> parcelableType = schemaRule.generateAndCompile("/schema/parcelable/all-types-schema.json", "com.example",
+                config("parcelable", true))
+                .loadClass("com.example.AllTypesSchema");
+
+        assertThat(parcelableType.getDeclaredField("primitiveChar").getType(), is(equalTo((Class) char.class)));
+        assertThat(parcelableType.getDeclaredField("boxedChar").getType(), is(equalTo((Class) Character.class)));
+
+        Parcelable instance = (Parcelable) new ObjectMapper().readValue(ParcelableIT.class.getResourceAsStream("/schema/parcelable/all-types-data.json"), parcelableType);
+        String key = "example";
+        Parcel parcel = writeToParcel(instance, key);
+        Parcelable unparceledInstance = readFromParcel(parcel, parcelableType, key);
+
+        assertThat(instance, is(equalTo(unparceledInstance)));
+    }
+
+    @Test
+    public void allPropertyTypesSurviveRoundTripWhenNull() throws ClassNotFoundException, IOException {
+        Class<?> parcelableType = schemaRule.generateAndCompile("/schema/parcelable/all-types-schema.json", "com.example",
+                config("parcelable", true))
+                .loadClass("com.example.AllTypesSchema");
+
+        Parcelable instance = (Parcelable) new ObjectMapper().readValue("{}", parcelableType);
+        String key = "example";
+        Parcel parcel = writeToParcel(instance, key);
+        Parcelable unparceledInstance = readFromParcel(parcel, parcelableType, key);
+
+        assertThat(instance, is(equalTo(unparceledInstance)));
+    }
+
+    @Test
+    public void presenceBitsSurviveRoundTrip() throws Exception {
+        Class<?> parcelableType = schemaRule.generateAndCompile("/schema/properties/presenceProperties.json", "com.example",
+                config("parcelable", true, "usePresenceBits", true))
+                .loadClass("com.example.PresenceProperties");
+
+        Parcelable instance = (Parcelable) new ObjectMapper().readValue("{\"count\":5,\"active\":false}", parcelableType);
+        String key = "example";
+        Parcel parcel = writeToParcel(instance, key);
+        Parcelable unparceledInstance = readFromParcel(parcel, parcelableType, key);
+
+        assertThat(parcelableType.getMethod("hasCount").invoke(unparceledInstance), is((Object) true));
+        assertThat(parcelableType.getMethod("hasActive").invoke(unparceledInstance), is((Object) true));
+        assertThat(parcelableType.getMethod("hasRatio").invoke(unparceledInstance), is((Object) false));
+        assertThat(instance, is(equalTo(unparceledInstance)));
+    }
+
 }
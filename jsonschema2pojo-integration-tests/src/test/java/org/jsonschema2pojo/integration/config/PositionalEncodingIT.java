@@ -0,0 +1,127 @@
+/**
+ * Copyright © 2010-2014 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jsonschema2pojo.integration.config;
+
+import static org.hamcrest.Matchers.*;
+import static org.jsonschema2pojo.integration.util.CodeGenerationHelper.config;
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.jsonschema2pojo.exception.GenerationException;
+import org.jsonschema2pojo.integration.util.Jsonschema2PojoRule;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class PositionalEncodingIT {
+
+    @Rule public Jsonschema2PojoRule schemaRule = new Jsonschema2PojoRule();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void typesAreWrittenAsObjectsByDefault() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/positionalProperties.json", "com.example");
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.PositionalProperties");
+
+        assertThat(objectMapper.valueToTree(generatedType.newInstance()).isObject(), is(true));
+    }
+
+    @Test
+    public void typesAreWrittenAsArraysAfterTheirVersion() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/positionalProperties.json", "com.example",
+                config("usePositionalEncoding", true));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.PositionalProperties");
+        Class<?> childType = resultsClassLoader.loadClass("com.example.Child");
+
+        Object child = childType.newInstance();
+        childType.getMethod("setId", Integer.class).invoke(child, 7);
+        Object instance = generatedType.newInstance();
+        generatedType.getMethod("setName", String.class).invoke(instance, "first");
+        generatedType.getMethod("setCount", Integer.class).invoke(instance, 3);
+        generatedType.getMethod("setChild", childType).invoke(instance, child);
+
+        String json = objectMapper.writeValueAsString(instance);
+
+        assertThat(json, is("[2,\"first\",3,[],[1,7],1.5]"));
+        assertThat(objectMapper.readValue(json, generatedType), is(equalTo(instance)));
+    }
+
+    @Test
+    public void missingTrailingPropertiesKeepTheirInitialValue() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/positionalProperties.json", "com.example",
+                config("usePositionalEncoding", true));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.PositionalProperties");
+
+        Object instance = objectMapper.readValue("[1,\"first\",null,[\"a\"]]", generatedType);
+
+        assertThat(generatedType.getMethod("getName").invoke(instance), is(equalTo((Object) "first")));
+        assertThat(generatedType.getMethod("getCount").invoke(instance), is(nullValue()));
+        assertThat(generatedType.getMethod("getTags").invoke(instance), is(equalTo((Object) Arrays.asList("a"))));
+        assertThat(generatedType.getMethod("getChild").invoke(instance), is(nullValue()));
+        assertThat(generatedType.getMethod("getRatio").invoke(instance), is(equalTo((Object) 1.5)));
+    }
+
+    @Test(expected = JsonMappingException.class)
+    public void newerVersionsAreRejected() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/positionalProperties.json", "com.example",
+                config("usePositionalEncoding", true));
+
+        objectMapper.readValue("[3,\"first\",3,[],null,1.5,\"added\"]", resultsClassLoader.loadClass("com.example.PositionalProperties"));
+    }
+
+    @Test
+    public void schemasCanUsePositionalEncodingThemselves() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/positionalExtension.json", "com.example");
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.PositionalExtension");
+        Object instance = objectMapper.readValue("[1,\"first\",{\"id\":7}]", generatedType);
+
+        assertThat(objectMapper.writeValueAsString(instance), is("[1,\"first\",{\"id\":7}]"));
+    }
+
+    @Test(expected = GenerationException.class)
+    public void positionalEncodingRequiresJackson() throws Exception {
+        schemaRule.generate("/schema/properties/positionalProperties.json", "com.example",
+                config("usePositionalEncoding", true, "annotationStyle", "gson"));
+    }
+
+    @Test(expected = GenerationException.class)
+    public void positionalEncodingCantBeCombinedWithStreamingSerializers() throws Exception {
+        schemaRule.generate("/schema/properties/positionalProperties.json", "com.example",
+                config("usePositionalEncoding", true, "includeStreamingSerializers", true));
+    }
+
+    @Test(expected = GenerationException.class)
+    public void positionalEncodingCantBeCombinedWithStreamingValidators() throws Exception {
+        schemaRule.generate("/schema/properties/positionalProperties.json", "com.example",
+                config("usePositionalEncoding", true, "includeStreamingValidators", true));
+    }
+
+    @Test(expected = GenerationException.class)
+    public void positionalEncodingCantBeCombinedWithBatchClasses() throws Exception {
+        schemaRule.generate("/schema/properties/positionalProperties.json", "com.example",
+                config("usePositionalEncoding", true, "generateBatchClasses", true));
+    }
+
+}
@@ -0,0 +1,132 @@
+/**
+ * Copyright © 2010-2014 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jsonschema2pojo.integration.config;
+
+import static org.hamcrest.Matchers.*;
+import static org.jsonschema2pojo.integration.util.CodeGenerationHelper.config;
+import static org.junit.Assert.*;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import org.jsonschema2pojo.integration.util.Jsonschema2PojoRule;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class ShareCollectionDefaultsIT {
+
+    @Rule public Jsonschema2PojoRule schemaRule = new Jsonschema2PojoRule();
+    @Rule public Jsonschema2PojoRule collidingSchemaRule = new Jsonschema2PojoRule();
+
+    private Class<?> generatedType;
+
+    @Before
+    public void generateClasses() throws ClassNotFoundException {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/default/default.json", "com.example",
+                config("shareCollectionDefaults", true));
+
+        generatedType = resultsClassLoader.loadClass("com.example.Default");
+    }
+
+    @Test
+    public void collectionsWithoutDefaultShareTheEmptyCollection() throws Exception {
+        Object instance = generatedType.newInstance();
+
+        assertThat(fieldValue(instance, "arrayWithoutDefault"), is(sameInstance((Object) Collections.EMPTY_LIST)));
+        assertThat(fieldValue(instance, "uniqueArrayWithoutDefault"), is(sameInstance((Object) Collections.EMPTY_SET)));
+        assertThat(fieldValue(instance, "arrayWithEmptyDefault"), is(sameInstance((Object) Collections.EMPTY_LIST)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void getterReturnsMutableCopyOfSharedDefault() throws Exception {
+        Object instance = generatedType.newInstance();
+
+        List<String> list = (List<String>) generatedType.getMethod("getArrayWithoutDefault").invoke(instance);
+        list.add("value");
+
+        assertThat(generatedType.getMethod("getArrayWithoutDefault").invoke(instance), is((Object) Arrays.asList("value")));
+        assertThat(Collections.EMPTY_LIST.isEmpty(), is(true));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void nonEmptyDefaultsAreBuiltOnceAndCopiedOnWrite() throws Exception {
+        Object instance = generatedType.newInstance();
+        Object other = generatedType.newInstance();
+
+        Field constant = generatedType.getDeclaredField("DEFAULT_ARRAY_WITH_DEFAULT");
+        constant.setAccessible(true);
+        assertThat(fieldValue(instance, "arrayWithDefault"), is(sameInstance(constant.get(null))));
+        assertThat(fieldValue(other, "arrayWithDefault"), is(sameInstance(constant.get(null))));
+
+        List<String> list = (List<String>) generatedType.getMethod("getArrayWithDefault").invoke(instance);
+        assertThat(list, is(Arrays.asList("one", "two", "three")));
+        list.add("four");
+
+        assertThat(generatedType.getMethod("getArrayWithDefault").invoke(other), is((Object) Arrays.asList("one", "two", "three")));
+
+        try {
+            ((Collection<String>) constant.get(null)).clear();
+            fail("Shared default must be unmodifiable");
+        } catch (UnsupportedOperationException e) {
+        }
+
+        assertThat(generatedType.getMethod("getUniqueArrayWithDefault").invoke(instance), is((Object) new LinkedHashSet<Integer>(Arrays.asList(100, 200, 300))));
+    }
+
+    @Test
+    public void nullDefaultIsStillNull() throws Exception {
+        Object instance = generatedType.newInstance();
+
+        assertThat(generatedType.getMethod("getArrayPropertyWithNullDefault").invoke(instance), is(nullValue()));
+    }
+
+    @Test
+    public void deserializationReplacesSharedDefault() throws Exception {
+        Object instance = new ObjectMapper().readValue("{\"arrayWithoutDefault\":[\"a\"],\"arrayWithDefault\":[\"b\"]}", generatedType);
+
+        assertThat(generatedType.getMethod("getArrayWithoutDefault").invoke(instance), is((Object) Arrays.asList("a")));
+        assertThat(generatedType.getMethod("getArrayWithDefault").invoke(instance), is((Object) Arrays.asList("b")));
+        assertThat(generatedType.getMethod("getUniqueArrayWithoutDefault").invoke(instance), is((Object) Collections.emptySet()));
+    }
+
+    @Test
+    public void defaultConstantNamesAreUnique() throws Exception {
+        Class<?> collidingType = collidingSchemaRule.generateAndCompile("/schema/default/collidingDefaults.json", "com.example.colliding",
+                config("shareCollectionDefaults", true, "propertyWordDelimiters", ""))
+                .loadClass("com.example.colliding.CollidingDefaults");
+        Object instance = collidingType.newInstance();
+
+        assertThat(collidingType.getMethod("getFooBar").invoke(instance), is((Object) Arrays.asList("camel")));
+        assertThat(collidingType.getMethod("getFoo_bar").invoke(instance), is((Object) Arrays.asList("snake")));
+    }
+
+    private Object fieldValue(Object instance, String fieldName) throws Exception {
+        Field field = generatedType.getDeclaredField(fieldName);
+        field.setAccessible(true);
+        return field.get(instance);
+    }
+
+}
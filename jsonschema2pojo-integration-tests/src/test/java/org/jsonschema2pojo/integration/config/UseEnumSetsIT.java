@@ -0,0 +1,104 @@
+/**
+ * Copyright © 2010-2014 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jsonschema2pojo.integration.config;
+
+import static org.hamcrest.Matchers.*;
+import static org.jsonschema2pojo.integration.util.CodeGenerationHelper.config;
+import static org.junit.Assert.*;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.jsonschema2pojo.integration.util.Jsonschema2PojoRule;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.gson.Gson;
+
+public class UseEnumSetsIT {
+
+    @Rule public Jsonschema2PojoRule schemaRule = new Jsonschema2PojoRule();
+
+    @Test
+    public void defaultIsSetOfEnums() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/enum/enumSets.json", "com.example");
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.EnumSets");
+
+        assertThat(generatedType.getMethod("getPermissions").getReturnType(), is(equalTo((Object) Set.class)));
+    }
+
+    @Test
+    public void uniqueEnumArraysAreEnumSets() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/enum/enumSets.json", "com.example",
+                config("useEnumSets", true));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.EnumSets");
+        Object instance = generatedType.newInstance();
+
+        assertThat(generatedType.getMethod("getPermissions").getReturnType(), is(equalTo((Object) EnumSet.class)));
+        assertThat(generatedType.getMethod("getFlags").getReturnType(), is(equalTo((Object) EnumSet.class)));
+        assertThat(generatedType.getMethod("getTags").getReturnType(), is(equalTo((Object) Set.class)));
+
+        assertThat(invoke(instance, "getPermissions").toString(), is("[read]"));
+        assertThat(invoke(instance, "getFlags"), is(instanceOf(EnumSet.class)));
+        assertThat(((Set<?>) invoke(instance, "getFlags")).isEmpty(), is(true));
+    }
+
+    @Test
+    public void jacksonReadsAndWritesEnumSets() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/enum/enumSets.json", "com.example",
+                config("useEnumSets", true));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.EnumSets");
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        Object instance = objectMapper.readValue("{\"permissions\":[\"admin all\",\"write\"],\"flags\":[]}", generatedType);
+
+        assertThat(invoke(instance, "getPermissions"), is(instanceOf(EnumSet.class)));
+        assertThat(invoke(instance, "getPermissions").toString(), is("[write, admin all]"));
+        assertThat(invoke(instance, "getFlags"), is(instanceOf(EnumSet.class)));
+
+        JsonNode jsonTree = objectMapper.readTree(objectMapper.writeValueAsString(instance));
+        assertThat(jsonTree.get("permissions").get(0).asText(), is("write"));
+        assertThat(jsonTree.get("permissions").get(1).asText(), is("admin all"));
+    }
+
+    @Test
+    public void gsonReadsAndWritesEnumSets() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/enum/enumSets.json", "com.example",
+                config("useEnumSets", true, "annotationStyle", "gson"));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.EnumSets");
+
+        Gson gson = new Gson();
+        Object instance = gson.fromJson("{\"permissions\":[\"admin all\",\"write\"],\"flags\":[]}", generatedType);
+
+        assertThat(invoke(instance, "getPermissions"), is(instanceOf(EnumSet.class)));
+        assertThat(invoke(instance, "getPermissions").toString(), is("[write, admin all]"));
+        assertThat(invoke(instance, "getFlags"), is(instanceOf(EnumSet.class)));
+
+        assertThat(gson.toJson(instance), containsString("\"permissions\":[\"write\",\"admin all\"]"));
+    }
+
+    private static Object invoke(Object instance, String methodName) throws Exception {
+        return instance.getClass().getMethod(methodName).invoke(instance);
+    }
+
+}
@@ -0,0 +1,107 @@
+/**
+ * Copyright © 2010-2014 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jsonschema2pojo.integration.config;
+
+import static org.hamcrest.Matchers.*;
+import static org.jsonschema2pojo.integration.util.CodeGenerationHelper.config;
+import static org.junit.Assert.*;
+
+import org.jsonschema2pojo.integration.util.Jsonschema2PojoRule;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.gson.Gson;
+
+public class UseNarrowIntegersIT {
+
+    @Rule public Jsonschema2PojoRule schemaRule = new Jsonschema2PojoRule();
+
+    @Test
+    public void defaultIsInteger() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/type/boundedIntegers.json", "com.example");
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.BoundedIntegers");
+
+        assertThat(generatedType.getMethod("getPercentage").getReturnType().getName(), is("java.lang.Integer"));
+        assertThat(generatedType.getMethod("getPort").getReturnType().getName(), is("java.lang.Integer"));
+    }
+
+    @Test
+    public void boundedIntegersUseSmallestFittingWrapper() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/type/boundedIntegers.json", "com.example",
+                config("useNarrowIntegers", true));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.BoundedIntegers");
+        Object instance = generatedType.newInstance();
+
+        assertThat(generatedType.getMethod("getPercentage").getReturnType().getName(), is("java.lang.Byte"));
+        assertThat(generatedType.getMethod("getOffset").getReturnType().getName(), is("java.lang.Short"));
+        assertThat(generatedType.getMethod("getPort").getReturnType().getName(), is("java.lang.Integer"));
+        assertThat(generatedType.getMethod("getCount").getReturnType().getName(), is("java.lang.Integer"));
+
+        assertThat(generatedType.getMethod("getPercentage").invoke(instance), is((Object) Byte.valueOf((byte) 50)));
+        assertThat(generatedType.getMethod("getOffset").invoke(instance), is((Object) Short.valueOf((short) -7)));
+    }
+
+    @Test
+    public void boundedIntegersUseSmallestFittingPrimitive() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/type/boundedIntegers.json", "com.example",
+                config("useNarrowIntegers", true, "usePrimitives", true));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.BoundedIntegers");
+
+        assertThat(generatedType.getMethod("getPercentage").getReturnType().getName(), is("byte"));
+        assertThat(generatedType.getMethod("getOffset").getReturnType().getName(), is("short"));
+        assertThat(generatedType.getMethod("getPort").getReturnType().getName(), is("int"));
+    }
+
+    @Test
+    public void jacksonReadsAndWritesNarrowIntegers() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/type/boundedIntegers.json", "com.example",
+                config("useNarrowIntegers", true));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.BoundedIntegers");
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        Object instance = objectMapper.readValue("{\"percentage\":99,\"offset\":-1000,\"port\":8080}", generatedType);
+
+        assertThat(generatedType.getMethod("getPercentage").invoke(instance), is((Object) Byte.valueOf((byte) 99)));
+        assertThat(generatedType.getMethod("getOffset").invoke(instance), is((Object) Short.valueOf((short) -1000)));
+
+        JsonNode jsonTree = objectMapper.readTree(objectMapper.writeValueAsString(instance));
+        assertThat(jsonTree.get("percentage").asInt(), is(99));
+        assertThat(jsonTree.get("offset").asInt(), is(-1000));
+        assertThat(jsonTree.get("port").asInt(), is(8080));
+    }
+
+    @Test
+    public void gsonReadsAndWritesNarrowIntegers() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/type/boundedIntegers.json", "com.example",
+                config("useNarrowIntegers", true, "annotationStyle", "gson"));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.BoundedIntegers");
+
+        Gson gson = new Gson();
+        Object instance = gson.fromJson("{\"percentage\":99,\"offset\":-1000}", generatedType);
+
+        assertThat(generatedType.getMethod("getPercentage").invoke(instance), is((Object) Byte.valueOf((byte) 99)));
+        assertThat(gson.toJson(instance), containsString("\"offset\":-1000"));
+    }
+
+}
@@ -0,0 +1,181 @@
+/**
+ * Copyright © 2010-2014 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jsonschema2pojo.integration.config;
+
+import static org.hamcrest.Matchers.*;
+import static org.jsonschema2pojo.integration.util.CodeGenerationHelper.config;
+import static org.junit.Assert.*;
+
+import org.jsonschema2pojo.exception.GenerationException;
+import org.jsonschema2pojo.integration.util.Jsonschema2PojoRule;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapterFactory;
+
+public class UsePresenceBitsIT {
+
+    @Rule public Jsonschema2PojoRule schemaRule = new Jsonschema2PojoRule();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void primitivePropertiesTrackPresence() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/presenceProperties.json", "com.example",
+                config("usePresenceBits", true));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.PresenceProperties");
+        assertThat(generatedType.getMethod("getCount").getReturnType(), is((Object) int.class));
+        assertThat(generatedType.getMethod("isActive").getReturnType(), is((Object) boolean.class));
+
+        Object instance = generatedType.newInstance();
+        assertThat(generatedType.getMethod("hasCount").invoke(instance), is((Object) false));
+        assertThat(generatedType.getMethod("getCount").invoke(instance), is((Object) 5));
+        assertThat(generatedType.getMethod("getCountIfPresent").invoke(instance), is(nullValue()));
+
+        generatedType.getMethod("setCount", int.class).invoke(instance, 0);
+        assertThat(generatedType.getMethod("hasCount").invoke(instance), is((Object) true));
+        assertThat(generatedType.getMethod("getCountIfPresent").invoke(instance), is((Object) 0));
+        assertThat(generatedType.getMethod("hasRatio").invoke(instance), is((Object) false));
+
+        generatedType.getMethod("clearCount").invoke(instance);
+        assertThat(generatedType.getMethod("hasCount").invoke(instance), is((Object) false));
+        assertThat(generatedType.getMethod("getCount").invoke(instance), is((Object) 5));
+    }
+
+    @Test
+    public void builderMethodsRecordPresence() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/presenceProperties.json", "com.example",
+                config("usePresenceBits", true, "generateBuilders", true));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.PresenceProperties");
+        Object instance = generatedType.getMethod("withActive", boolean.class).invoke(generatedType.newInstance(), false);
+
+        assertThat(generatedType.getMethod("hasActive").invoke(instance), is((Object) true));
+    }
+
+    @Test
+    public void equalsAndHashCodeRespectPresence() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/presenceProperties.json", "com.example",
+                config("usePresenceBits", true));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.PresenceProperties");
+        Object absent = generatedType.newInstance();
+        Object present = generatedType.newInstance();
+        generatedType.getMethod("setRatio", double.class).invoke(present, 0.0);
+
+        assertThat(present, is(not(equalTo(absent))));
+
+        generatedType.getMethod("clearRatio").invoke(present);
+
+        assertThat(present, is(equalTo(absent)));
+        assertThat(present.hashCode(), is(absent.hashCode()));
+    }
+
+    @Test
+    public void jacksonLeavesOutAbsentProperties() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/presenceProperties.json", "com.example",
+                config("usePresenceBits", true));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.PresenceProperties");
+        Object instance = objectMapper.readValue("{\"ratio\":0.0,\"active\":false}", generatedType);
+
+        assertThat(generatedType.getMethod("hasRatio").invoke(instance), is((Object) true));
+        assertThat(generatedType.getMethod("hasCount").invoke(instance), is((Object) false));
+        assertThat(objectMapper.writeValueAsString(instance), is("{\"ratio\":0.0,\"active\":false}"));
+    }
+
+    @Test
+    public void streamingSerializersLeaveOutAbsentProperties() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/presenceProperties.json", "com.example",
+                config("usePresenceBits", true, "includeStreamingSerializers", true));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.PresenceProperties");
+        Object instance = objectMapper.readValue("{\"count\":0,\"name\":\"a\"}", generatedType);
+
+        assertThat(generatedType.getMethod("hasCount").invoke(instance), is((Object) true));
+        assertThat(objectMapper.writeValueAsString(instance), is("{\"count\":0,\"name\":\"a\"}"));
+    }
+
+    @Test
+    public void gsonTypeAdaptersLeaveOutAbsentProperties() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/presenceProperties.json", "com.example",
+                config("usePresenceBits", true, "includeStreamingSerializers", true, "annotationStyle", "gson"));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.PresenceProperties");
+        TypeAdapterFactory factory = (TypeAdapterFactory) resultsClassLoader.loadClass("com.example.GsonTypeAdapterFactory").newInstance();
+        Gson gson = new GsonBuilder().registerTypeAdapterFactory(factory).create();
+
+        Object instance = gson.fromJson("{\"active\":true}", generatedType);
+
+        assertThat(generatedType.getMethod("hasActive").invoke(instance), is((Object) true));
+        assertThat(gson.toJson(instance), is("{\"active\":true}"));
+    }
+
+    @Test
+    public void constructorsRecordPresence() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/presenceProperties.json", "com.example",
+                config("usePresenceBits", true, "includeConstructors", true));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.PresenceProperties");
+        Object instance = generatedType.getConstructor(int.class, double.class, boolean.class, String.class).newInstance(0, 0.0, false, "a");
+
+        assertThat(generatedType.getMethod("hasCount").invoke(instance), is((Object) true));
+        assertThat(generatedType.getMethod("hasRatio").invoke(instance), is((Object) true));
+        assertThat(generatedType.getMethod("hasActive").invoke(instance), is((Object) true));
+        assertThat(objectMapper.writeValueAsString(instance), is("{\"count\":0,\"ratio\":0.0,\"active\":false,\"name\":\"a\"}"));
+    }
+
+    @Test
+    public void toStringLeavesOutPresenceBits() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/presenceProperties.json", "com.example",
+                config("usePresenceBits", true));
+
+        Object instance = resultsClassLoader.loadClass("com.example.PresenceProperties").newInstance();
+
+        assertThat(instance.toString(), containsString("count=5,"));
+        assertThat(instance.toString(), not(containsString("presenceBits")));
+    }
+
+    @Test
+    public void defaultsOfPropertiesWithTheSameConstantNameAreKeptApart() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/collidingPresenceDefaults.json", "com.example",
+                config("usePresenceBits", true, "usePrimitives", true));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.CollidingPresenceDefaults");
+        Object instance = generatedType.newInstance();
+
+        assertThat(generatedType.getMethod("getFooBar").invoke(instance), is((Object) 1));
+        assertThat(generatedType.getMethod("getFooBAR").invoke(instance), is((Object) 2));
+    }
+
+    @Test(expected = GenerationException.class)
+    public void presenceBitsRequireTypeAdaptersWithGson() {
+        schemaRule.generate("/schema/properties/presenceProperties.json", "com.example",
+                config("usePresenceBits", true, "annotationStyle", "gson"));
+    }
+
+    @Test(expected = GenerationException.class)
+    public void presenceBitsCannotBeCombinedWithImmutable() {
+        schemaRule.generate("/schema/properties/presenceProperties.json", "com.example",
+                config("usePresenceBits", true, "immutable", true));
+    }
+
+}
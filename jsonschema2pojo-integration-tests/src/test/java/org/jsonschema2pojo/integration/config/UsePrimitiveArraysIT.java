@@ -0,0 +1,129 @@
+/**
+ * Copyright © 2010-2014 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jsonschema2pojo.integration.config;
+
+import static org.hamcrest.Matchers.*;
+import static org.jsonschema2pojo.integration.util.CodeGenerationHelper.config;
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.Set;
+
+import org.jsonschema2pojo.integration.util.Jsonschema2PojoRule;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.gson.Gson;
+
+public class UsePrimitiveArraysIT {
+
+    @Rule public Jsonschema2PojoRule schemaRule = new Jsonschema2PojoRule();
+
+    @Test
+    public void defaultIsListOfBoxedValues() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/array/numericArrays.json", "com.example");
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.NumericArrays");
+
+        assertThat(generatedType.getMethod("getSamples").getReturnType(), is(equalTo((Object) List.class)));
+    }
+
+    @Test
+    public void numericArraysArePrimitiveArrays() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/array/numericArrays.json", "com.example",
+                config("usePrimitiveArrays", true, "useDoubleNumbers", true));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.NumericArrays");
+        Object instance = generatedType.newInstance();
+
+        assertThat(generatedType.getMethod("getSamples").getReturnType(), is(equalTo((Object) int[].class)));
+        assertThat(generatedType.getMethod("getTimestamps").getReturnType(), is(equalTo((Object) long[].class)));
+        assertThat(generatedType.getMethod("getEmbedding").getReturnType(), is(equalTo((Object) double[].class)));
+        assertThat(generatedType.getMethod("getBoxed").getReturnType(), is(equalTo((Object) List.class)));
+        assertThat(generatedType.getMethod("getDistinct").getReturnType(), is(equalTo((Object) Set.class)));
+        assertThat(generatedType.getMethod("getNames").getReturnType(), is(equalTo((Object) List.class)));
+
+        assertThat((int[]) invoke(instance, "getSamples"), is(new int[] { 1, 2, 3 }));
+        assertThat(((long[]) invoke(instance, "getTimestamps")).length, is(0));
+    }
+
+    @Test
+    public void propertiesCanOptIntoPrimitiveArrays() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/array/primitiveArrayProperty.json", "com.example");
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.PrimitiveArrayProperty");
+
+        assertThat(generatedType.getMethod("getCoordinates").getReturnType(), is(equalTo((Object) double[].class)));
+        assertThat(generatedType.getMethod("getOther").getReturnType(), is(equalTo((Object) List.class)));
+    }
+
+    @Test
+    public void primitiveArraysAreComparedByContent() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/array/numericArrays.json", "com.example",
+                config("usePrimitiveArrays", true, "useDoubleNumbers", true));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.NumericArrays");
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        String json = "{\"samples\":[4,5],\"embedding\":[0.5,1.25]}";
+        Object first = objectMapper.readValue(json, generatedType);
+        Object second = objectMapper.readValue(json, generatedType);
+
+        assertThat(first, is(equalTo(second)));
+        assertThat(first.hashCode(), is(second.hashCode()));
+        assertThat(first.toString(), containsString("samples={4,5}"));
+    }
+
+    @Test
+    public void jacksonReadsAndWritesPrimitiveArrays() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/array/numericArrays.json", "com.example",
+                config("usePrimitiveArrays", true, "useDoubleNumbers", true));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.NumericArrays");
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        Object instance = objectMapper.readValue("{\"samples\":[4,5],\"timestamps\":[100000000001],\"embedding\":[0.5,1.25]}", generatedType);
+
+        assertThat((int[]) invoke(instance, "getSamples"), is(new int[] { 4, 5 }));
+        assertThat((long[]) invoke(instance, "getTimestamps"), is(new long[] { 100000000001L }));
+        assertThat((double[]) invoke(instance, "getEmbedding"), is(new double[] { 0.5, 1.25 }));
+
+        Object roundTrip = objectMapper.readValue(objectMapper.writeValueAsString(instance), generatedType);
+        assertThat(roundTrip, is(equalTo(instance)));
+    }
+
+    @Test
+    public void gsonReadsAndWritesPrimitiveArrays() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/array/numericArrays.json", "com.example",
+                config("usePrimitiveArrays", true, "useDoubleNumbers", true, "annotationStyle", "gson"));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.NumericArrays");
+
+        Gson gson = new Gson();
+        Object instance = gson.fromJson("{\"samples\":[4,5],\"embedding\":[0.5,1.25]}", generatedType);
+
+        assertThat((int[]) invoke(instance, "getSamples"), is(new int[] { 4, 5 }));
+        assertThat((double[]) invoke(instance, "getEmbedding"), is(new double[] { 0.5, 1.25 }));
+        assertThat(gson.toJson(instance), containsString("\"samples\":[4,5]"));
+    }
+
+    private static Object invoke(Object instance, String methodName) throws Exception {
+        return instance.getClass().getMethod(methodName).invoke(instance);
+    }
+
+}
@@ -0,0 +1,174 @@
+/**
+ * Copyright © 2010-2014 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jsonschema2pojo.integration.config;
+
+import static java.util.Arrays.*;
+import static org.hamcrest.Matchers.*;
+import static org.jsonschema2pojo.integration.util.CodeGenerationHelper.config;
+import static org.junit.Assert.*;
+
+import java.lang.reflect.Field;
+
+import org.jsonschema2pojo.exception.GenerationException;
+import org.jsonschema2pojo.integration.util.Jsonschema2PojoRule;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class UseSparseStorageIT {
+
+    @Rule public Jsonschema2PojoRule schemaRule = new Jsonschema2PojoRule();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void schemaCanOptInToSparseStorage() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/sparseProperties.json", "com.example");
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.SparseProperties");
+        assertThat(hasField(generatedType, "name"), is(false));
+        assertThat(hasField(generatedType, "slotValues"), is(true));
+        assertThat(generatedType.getMethod("getCount").getReturnType(), is((Object) Integer.class));
+
+        // the type of the nested object doesn't opt in
+        assertThat(hasField(resultsClassLoader.loadClass("com.example.Child"), "a"), is(true));
+    }
+
+    @Test
+    public void configEnablesSparseStorageForAllSchemas() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/sparseProperties.json", "com.example",
+                config("useSparseStorage", true));
+
+        assertThat(hasField(resultsClassLoader.loadClass("com.example.Child"), "a"), is(false));
+    }
+
+    @Test
+    public void accessorsReadAndWriteSlots() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/sparseProperties.json", "com.example");
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.SparseProperties");
+        Object instance = generatedType.newInstance();
+
+        assertThat(generatedType.getMethod("getCount").invoke(instance), is((Object) 5));
+        assertThat(generatedType.getMethod("getName").invoke(instance), is(nullValue()));
+        assertThat(slotValues(instance).length, is(0));
+
+        generatedType.getMethod("setTags", java.util.List.class).invoke(instance, asList("a"));
+        generatedType.getMethod("setName", String.class).invoke(instance, "name");
+        generatedType.getMethod("setCount", Integer.class).invoke(instance, 0);
+
+        assertThat(generatedType.getMethod("getName").invoke(instance), is((Object) "name"));
+        assertThat(generatedType.getMethod("getTags").invoke(instance), is((Object) asList("a")));
+        assertThat(generatedType.getMethod("getCount").invoke(instance), is((Object) 0));
+        assertThat(slotValues(instance).length, is(3));
+
+        generatedType.getMethod("setName", String.class).invoke(instance, (Object) null);
+
+        assertThat(generatedType.getMethod("getName").invoke(instance), is(nullValue()));
+        assertThat(generatedType.getMethod("getTags").invoke(instance), is((Object) asList("a")));
+        assertThat(slotValues(instance).length, is(2));
+    }
+
+    @Test
+    public void slotsBeyondTheFirstMaskWordAreStored() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/manyOptionalProperties.json", "com.example",
+                config("useSparseStorage", true));
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.ManyOptionalProperties");
+        Object instance = generatedType.newInstance();
+        for (int i : new int[] { 69, 0, 63, 64 }) {
+            generatedType.getMethod("setP" + i, Integer.class).invoke(instance, i);
+        }
+
+        for (int i : new int[] { 0, 1, 62, 63, 64, 65, 69 }) {
+            Object expected = i == 0 || i == 63 || i == 64 || i == 69 ? i : null;
+            assertThat(generatedType.getMethod("getP" + i).invoke(instance), is(expected));
+        }
+        assertThat(asList(slotValues(instance)), contains((Object) 0, 63, 64, 69));
+    }
+
+    @Test
+    public void jacksonReadsAndWritesSparseTypes() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/sparseProperties.json", "com.example");
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.SparseProperties");
+        String json = "{\"count\":2,\"tags\":[\"a\",\"b\"],\"child\":{\"a\":\"x\"}}";
+        Object instance = objectMapper.readValue(json, generatedType);
+
+        assertThat(objectMapper.readTree(objectMapper.writeValueAsString(instance)), is(objectMapper.readTree(json)));
+    }
+
+    @Test
+    public void equalInstancesDoNotDependOnTheOrderOfSetting() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/sparseProperties.json", "com.example");
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.SparseProperties");
+        Object first = generatedType.newInstance();
+        generatedType.getMethod("setName", String.class).invoke(first, "a");
+        generatedType.getMethod("setCount", Integer.class).invoke(first, 1);
+        Object second = generatedType.newInstance();
+        generatedType.getMethod("setCount", Integer.class).invoke(second, 1);
+        generatedType.getMethod("setName", String.class).invoke(second, "a");
+
+        assertThat(first, is(equalTo(second)));
+        assertThat(first.hashCode(), is(second.hashCode()));
+
+        generatedType.getMethod("setName", String.class).invoke(first, (Object) null);
+        generatedType.getMethod("setCount", Integer.class).invoke(first, (Object) null);
+
+        assertThat(first, is(equalTo(generatedType.newInstance())));
+    }
+
+    @Test
+    public void toStringRendersTheProperties() throws Exception {
+        ClassLoader resultsClassLoader = schemaRule.generateAndCompile("/schema/properties/sparseProperties.json", "com.example");
+
+        Class<?> generatedType = resultsClassLoader.loadClass("com.example.SparseProperties");
+        Object instance = generatedType.newInstance();
+        generatedType.getMethod("setTags", java.util.List.class).invoke(instance, asList("a"));
+        generatedType.getMethod("setName", String.class).invoke(instance, "b");
+
+        assertThat(instance.toString(), endsWith("[count=<null>,name=b,tags=[a],child=<null>,additionalProperties={}]"));
+    }
+
+    @Test(expected = GenerationException.class)
+    public void sparseStorageCannotBeCombinedWithImmutable() {
+        schemaRule.generate("/schema/properties/sparseProperties.json", "com.example", config("immutable", true));
+    }
+
+    @Test(expected = GenerationException.class)
+    public void sparseStorageCannotBeCombinedWithBufferViews() {
+        schemaRule.generate("/schema/properties/sparseProperties.json", "com.example", config("generateBufferViews", true));
+    }
+
+    private static boolean hasField(Class<?> type, String name) {
+        try {
+            type.getDeclaredField(name);
+            return true;
+        } catch (NoSuchFieldException e) {
+            return false;
+        }
+    }
+
+    private static Object[] slotValues(Object instance) throws Exception {
+        Field slotValues = instance.getClass().getDeclaredField("slotValues");
+        slotValues.setAccessible(true);
+        return (Object[]) slotValues.get(instance);
+    }
+
+}